@@ -22,7 +22,7 @@ import java.util.List;
 /**
  * Interface for exporting data from sas7bdat file to csv.
  */
-public interface CSVDataWriter {
+public interface CSVDataWriter extends DataWriter {
     /**
      * The method to export a row from sas7bdat file (stored as an object of the
      * {@link com.epam.parso.impl.SasFileReaderImpl} class) using writer.
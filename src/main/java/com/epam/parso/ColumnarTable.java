@@ -0,0 +1,83 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import java.io.IOException;
+
+/**
+ * Interface for the rows of a sas7bdat file stored column by column: numbers and dates as primitive values with
+ * bitmaps of missing values, strings as codes of a dictionary of the distinct values of their column. Besides
+ * the rows of {@link RowTable}, the table gives access to single values by row and column without creating objects.
+ */
+public interface ColumnarTable extends RowTable {
+    /**
+     * The function to check whether a value of the table is missing.
+     *
+     * @param rowIndex    the index of the row.
+     * @param columnIndex the index of the column.
+     * @return true if the value is missing.
+     */
+    boolean isMissing(long rowIndex, int columnIndex);
+
+    /**
+     * The function to get a value of a numeric column. The values of date columns are the number of milliseconds
+     * since the epoch.
+     *
+     * @param rowIndex    the index of the row.
+     * @param columnIndex the index of the column.
+     * @return the value, or NaN if it is missing.
+     */
+    double getDouble(long rowIndex, int columnIndex);
+
+    /**
+     * The function to get a value of a numeric column rounded to the nearest integer. The values of date columns
+     * are the number of milliseconds since the epoch.
+     *
+     * @param rowIndex    the index of the row.
+     * @param columnIndex the index of the column.
+     * @return the value, or 0 if it is missing.
+     */
+    long getLong(long rowIndex, int columnIndex);
+
+    /**
+     * The function to get a value of a date or datetime column as the number of whole days since the epoch.
+     *
+     * @param rowIndex    the index of the row.
+     * @param columnIndex the index of the column.
+     * @return the value, or 0 if it is missing.
+     */
+    int getEpochDay(long rowIndex, int columnIndex);
+
+    /**
+     * The function to get a value of a character column.
+     *
+     * @param rowIndex    the index of the row.
+     * @param columnIndex the index of the column.
+     * @return the value, or null if it is missing.
+     */
+    String getString(long rowIndex, int columnIndex);
+
+    /**
+     * The function to get consecutive rows of the table.
+     *
+     * @param firstRowIndex the index of the first row.
+     * @param rowCount      the maximum number of rows.
+     * @return the rows, fewer than requested if the table ends earlier.
+     * @throws IOException if the table is closed.
+     */
+    Object[][] getRows(long firstRowIndex, int rowCount) throws IOException;
+}
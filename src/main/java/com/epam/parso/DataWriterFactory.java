@@ -0,0 +1,33 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import java.io.Writer;
+
+/**
+ * Interface for creating data writers of an export format over a given writer. Used by the writers that split
+ * the output into several files, for example {@link com.epam.parso.impl.RollingDataWriterImpl}.
+ */
+public interface DataWriterFactory {
+    /**
+     * The function to create a data writer which outputs data using the writer.
+     *
+     * @param writer the writer which is used to output the file.
+     * @return the data writer.
+     */
+    DataWriter createDataWriter(Writer writer);
+}
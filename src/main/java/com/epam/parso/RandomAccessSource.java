@@ -0,0 +1,50 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Interface for a storage the sas7bdat file is read from with positioned reads, such as a local file, a memory-mapped
+ * file, an array in memory or a remote store supporting range requests. The parser reads the file from such
+ * a source through {@link com.epam.parso.impl.RandomAccessSourceInputStream}, which lets it jump directly to any
+ * page to seek, to read the pages in parallel and to use the row and key indexes without reading the file
+ * sequentially from its beginning. The reads can be called from several threads at once.
+ */
+public interface RandomAccessSource extends Closeable {
+    /**
+     * The function to get the number of bytes of the source.
+     *
+     * @return the size of the source.
+     * @throws IOException if getting the size is impossible.
+     */
+    long size() throws IOException;
+
+    /**
+     * The function to read bytes of the source starting at a position. The function may read fewer bytes than
+     * requested, the caller reads the rest with further calls.
+     *
+     * @param position the position of the first byte to read.
+     * @param buffer   the array to read the bytes to.
+     * @param offset   the offset in the array of the first read byte.
+     * @param length   the maximum number of bytes to read.
+     * @return the number of read bytes, or -1 if the position is at or after the end of the source.
+     * @throws IOException if reading from the source is impossible.
+     */
+    int read(long position, byte[] buffer, int offset, int length) throws IOException;
+}
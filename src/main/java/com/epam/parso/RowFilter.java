@@ -0,0 +1,339 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A class to describe a condition on the values of a row, used by {@link SasFileReader#readNextMatching(RowFilter)} to
+ * return only the rows which match it. The condition is checked against the bytes of the row before the row is
+ * decoded, so the rows which do not match are never converted into objects.
+ * <p>
+ * Values of numeric columns are compared with {@link Number} values or, for columns with date and datetime formats,
+ * with {@link java.util.Date}, {@link java.time.LocalDate} and {@link java.time.LocalDateTime} values. Values of
+ * character columns are compared with {@link String} values without trailing spaces. A missing value (null in
+ * the decoded row) matches only {@link RowFilter#isNull(String)}, comparisons with it are always false.
+ */
+public final class RowFilter {
+    /**
+     * The operators of conditions.
+     */
+    public enum Operator {
+        /**
+         * The value equals the operand.
+         */
+        EQUAL,
+        /**
+         * The value does not equal the operand.
+         */
+        NOT_EQUAL,
+        /**
+         * The value is less than the operand.
+         */
+        LESS,
+        /**
+         * The value is less than or equals the operand.
+         */
+        LESS_OR_EQUAL,
+        /**
+         * The value is greater than the operand.
+         */
+        GREATER,
+        /**
+         * The value is greater than or equals the operand.
+         */
+        GREATER_OR_EQUAL,
+        /**
+         * The value equals one of the operands.
+         */
+        IN,
+        /**
+         * The string value starts with the operand.
+         */
+        STARTS_WITH,
+        /**
+         * The value is missing.
+         */
+        IS_NULL,
+        /**
+         * The value is not missing.
+         */
+        IS_NOT_NULL,
+        /**
+         * All the nested conditions are true.
+         */
+        AND,
+        /**
+         * At least one of the nested conditions is true.
+         */
+        OR
+    }
+
+    /**
+     * The operator of the condition.
+     */
+    private final Operator operator;
+
+    /**
+     * The name of the column whose value is checked, null for {@link Operator#AND} and {@link Operator#OR}.
+     */
+    private final String columnName;
+
+    /**
+     * The operands the value is compared with.
+     */
+    private final List<Object> values;
+
+    /**
+     * The nested conditions of {@link Operator#AND} and {@link Operator#OR}.
+     */
+    private final List<RowFilter> filters;
+
+    /**
+     * The constructor that defines all parameters of the RowFilter class.
+     *
+     * @param operator   the operator of the condition.
+     * @param columnName the name of the column whose value is checked.
+     * @param values     the operands the value is compared with.
+     * @param filters    the nested conditions.
+     */
+    private RowFilter(Operator operator, String columnName, List<Object> values, List<RowFilter> filters) {
+        this.operator = operator;
+        this.columnName = columnName;
+        this.values = Collections.unmodifiableList(values);
+        this.filters = Collections.unmodifiableList(filters);
+    }
+
+    /**
+     * The function to create a condition on the value of a column compared with an operand.
+     *
+     * @param operator   the comparison operator.
+     * @param columnName the name of the column.
+     * @param value      the operand, a {@link Number}, a {@link java.util.Date} or a {@link String}.
+     * @return the condition.
+     */
+    private static RowFilter compare(Operator operator, String columnName, Object value) {
+        if (columnName == null || value == null) {
+            throw new IllegalArgumentException("The column name and the value of the " + operator
+                    + " condition must not be null");
+        }
+        return new RowFilter(operator, columnName, Collections.<Object>singletonList(value),
+                Collections.<RowFilter>emptyList());
+    }
+
+    /**
+     * The function to create a condition that is true if the value of the column equals the given one.
+     *
+     * @param columnName the name of the column.
+     * @param value      a {@link Number}, a {@link java.util.Date} or a {@link String}.
+     * @return the condition.
+     */
+    public static RowFilter equal(String columnName, Object value) {
+        return compare(Operator.EQUAL, columnName, value);
+    }
+
+    /**
+     * The function to create a condition that is true if the value of the column is not missing and does not equal
+     * the given one.
+     *
+     * @param columnName the name of the column.
+     * @param value      a {@link Number}, a {@link java.util.Date} or a {@link String}.
+     * @return the condition.
+     */
+    public static RowFilter notEqual(String columnName, Object value) {
+        return compare(Operator.NOT_EQUAL, columnName, value);
+    }
+
+    /**
+     * The function to create a condition that is true if the value of the numeric column is less than the given one.
+     *
+     * @param columnName the name of the column.
+     * @param value      a {@link Number} or a {@link java.util.Date}.
+     * @return the condition.
+     */
+    public static RowFilter less(String columnName, Object value) {
+        return compare(Operator.LESS, columnName, value);
+    }
+
+    /**
+     * The function to create a condition that is true if the value of the numeric column is less than or equals
+     * the given one.
+     *
+     * @param columnName the name of the column.
+     * @param value      a {@link Number} or a {@link java.util.Date}.
+     * @return the condition.
+     */
+    public static RowFilter lessOrEqual(String columnName, Object value) {
+        return compare(Operator.LESS_OR_EQUAL, columnName, value);
+    }
+
+    /**
+     * The function to create a condition that is true if the value of the numeric column is greater than the given
+     * one.
+     *
+     * @param columnName the name of the column.
+     * @param value      a {@link Number} or a {@link java.util.Date}.
+     * @return the condition.
+     */
+    public static RowFilter greater(String columnName, Object value) {
+        return compare(Operator.GREATER, columnName, value);
+    }
+
+    /**
+     * The function to create a condition that is true if the value of the numeric column is greater than or equals
+     * the given one.
+     *
+     * @param columnName the name of the column.
+     * @param value      a {@link Number} or a {@link java.util.Date}.
+     * @return the condition.
+     */
+    public static RowFilter greaterOrEqual(String columnName, Object value) {
+        return compare(Operator.GREATER_OR_EQUAL, columnName, value);
+    }
+
+    /**
+     * The function to create a condition that is true if the value of the column equals one of the given ones.
+     *
+     * @param columnName the name of the column.
+     * @param values     {@link Number}, {@link java.util.Date} or {@link String} values.
+     * @return the condition.
+     */
+    public static RowFilter in(String columnName, Object... values) {
+        if (columnName == null || values.length == 0 || Arrays.asList(values).contains(null)) {
+            throw new IllegalArgumentException("The column name and the values of the IN condition must not be "
+                    + "null or empty");
+        }
+        return new RowFilter(Operator.IN, columnName, new ArrayList<Object>(Arrays.asList(values)),
+                Collections.<RowFilter>emptyList());
+    }
+
+    /**
+     * The function to create a condition that is true if the value of the character column starts with the given
+     * string.
+     *
+     * @param columnName the name of the column.
+     * @param prefix     the string.
+     * @return the condition.
+     */
+    public static RowFilter startsWith(String columnName, String prefix) {
+        return compare(Operator.STARTS_WITH, columnName, prefix);
+    }
+
+    /**
+     * The function to create a condition that is true if the value of the column is missing.
+     *
+     * @param columnName the name of the column.
+     * @return the condition.
+     */
+    public static RowFilter isNull(String columnName) {
+        return new RowFilter(Operator.IS_NULL, columnName, Collections.<Object>emptyList(),
+                Collections.<RowFilter>emptyList());
+    }
+
+    /**
+     * The function to create a condition that is true if the value of the column is not missing.
+     *
+     * @param columnName the name of the column.
+     * @return the condition.
+     */
+    public static RowFilter isNotNull(String columnName) {
+        return new RowFilter(Operator.IS_NOT_NULL, columnName, Collections.<Object>emptyList(),
+                Collections.<RowFilter>emptyList());
+    }
+
+    /**
+     * The function to create a condition that is true if all the given conditions are true.
+     *
+     * @param filters the conditions.
+     * @return the condition.
+     */
+    public static RowFilter and(RowFilter... filters) {
+        return new RowFilter(Operator.AND, null, Collections.<Object>emptyList(),
+                new ArrayList<RowFilter>(Arrays.asList(filters)));
+    }
+
+    /**
+     * The function to create a condition that is true if at least one of the given conditions is true.
+     *
+     * @param filters the conditions.
+     * @return the condition.
+     */
+    public static RowFilter or(RowFilter... filters) {
+        return new RowFilter(Operator.OR, null, Collections.<Object>emptyList(),
+                new ArrayList<RowFilter>(Arrays.asList(filters)));
+    }
+
+    /**
+     * The function to get {@link RowFilter#operator}.
+     *
+     * @return the operator of the condition.
+     */
+    public Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * The function to get {@link RowFilter#columnName}.
+     *
+     * @return the name of the column whose value is checked, null for {@link Operator#AND} and {@link Operator#OR}.
+     */
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * The function to get {@link RowFilter#values}.
+     *
+     * @return the operands the value is compared with.
+     */
+    public List<Object> getValues() {
+        return values;
+    }
+
+    /**
+     * The function to get {@link RowFilter#filters}.
+     *
+     * @return the nested conditions of {@link Operator#AND} and {@link Operator#OR}.
+     */
+    public List<RowFilter> getFilters() {
+        return filters;
+    }
+
+    /**
+     * The function to get the text presentation of the condition.
+     *
+     * @return the text presentation of the condition.
+     */
+    @Override
+    public String toString() {
+        if (operator == Operator.AND || operator == Operator.OR) {
+            StringBuilder builder = new StringBuilder("(");
+            for (int i = 0; i < filters.size(); i++) {
+                if (i > 0) {
+                    builder.append(' ').append(operator).append(' ');
+                }
+                builder.append(filters.get(i));
+            }
+            return builder.append(')').toString();
+        }
+        return columnName + " " + operator + (values.isEmpty() ? "" : " " + (values.size() == 1 ? values.get(0)
+                : values));
+    }
+}
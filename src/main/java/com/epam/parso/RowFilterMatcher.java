@@ -0,0 +1,338 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A condition of a {@link RowFilter} checked against the values of decoded rows, used by the default implementation
+ * of {@link SasFileReader#readNextMatching(RowFilter)}. The values are compared as the readers compare the bytes of
+ * the rows: numbers and dates as the numbers stored in sas7bdat files, that is the number of days or seconds elapsed
+ * from 01/01/1960 for dates and datetimes, character values without trailing spaces.
+ */
+final class RowFilterMatcher {
+    /**
+     * The format of the columns storing datetimes, the other numeric columns with dates store days.
+     */
+    private static final String DATE_TIME_FORMAT = "DATETIME";
+
+    /**
+     * The number of days between 01/01/1960 and 01/01/1970.
+     */
+    private static final int START_DATES_DAYS_DIFFERENCE = 3653;
+
+    /**
+     * The number of seconds in a day.
+     */
+    private static final double SECONDS_IN_DAY = 86400;
+
+    /**
+     * The number of milliseconds in a second.
+     */
+    private static final double MILLISECONDS_IN_SECOND = 1000;
+
+    /**
+     * The operator of the condition.
+     */
+    private final RowFilter.Operator operator;
+
+    /**
+     * The index of the column whose value is checked, -1 for {@link RowFilter.Operator#AND} and
+     * {@link RowFilter.Operator#OR}.
+     */
+    private final int columnIndex;
+
+    /**
+     * True if the column whose value is checked stores datetimes.
+     */
+    private final boolean dateTime;
+
+    /**
+     * The operands of a condition on a numeric column converted into the numbers stored in sas7bdat files.
+     */
+    private final double[] numberOperands;
+
+    /**
+     * The operands of a condition on a character column without trailing spaces.
+     */
+    private final String[] stringOperands;
+
+    /**
+     * The nested conditions of {@link RowFilter.Operator#AND} and {@link RowFilter.Operator#OR}.
+     */
+    private final RowFilterMatcher[] matchers;
+
+    /**
+     * The charset to decode the values of character columns read as bytes.
+     */
+    private final Charset charset;
+
+    /**
+     * The constructor that checks the filter against the columns and prepares its operands.
+     *
+     * @param filter   the filter.
+     * @param columns  the columns of the file.
+     * @param encoding the encoding of the character values of the file, null to use the default charset.
+     * @throws IllegalArgumentException if the filter refers to an unknown column or its operands do not match
+     *                                  the type of the column.
+     */
+    RowFilterMatcher(RowFilter filter, List<Column> columns, String encoding) {
+        operator = filter.getOperator();
+        charset = encoding != null && Charset.isSupported(encoding) ? Charset.forName(encoding)
+                : Charset.defaultCharset();
+        if (operator == RowFilter.Operator.AND || operator == RowFilter.Operator.OR) {
+            columnIndex = -1;
+            dateTime = false;
+            numberOperands = null;
+            stringOperands = null;
+            matchers = new RowFilterMatcher[filter.getFilters().size()];
+            for (int i = 0; i < matchers.length; i++) {
+                matchers[i] = new RowFilterMatcher(filter.getFilters().get(i), columns, encoding);
+            }
+            return;
+        }
+        matchers = null;
+        columnIndex = getColumnIndex(columns, filter.getColumnName());
+        Column column = columns.get(columnIndex);
+        List<Object> values = filter.getValues();
+        if (column.getType() == Number.class) {
+            if (operator == RowFilter.Operator.STARTS_WITH) {
+                throw new IllegalArgumentException("The " + operator + " condition cannot be applied to "
+                        + "the numeric column " + column.getName());
+            }
+            dateTime = DATE_TIME_FORMAT.equals(column.getFormat());
+            stringOperands = null;
+            numberOperands = new double[values.size()];
+            for (int i = 0; i < numberOperands.length; i++) {
+                if (!(values.get(i) instanceof Number) && !isTemporal(values.get(i))) {
+                    throw new IllegalArgumentException("The value " + values.get(i) + " cannot be compared with "
+                            + "the values of the column " + column.getName());
+                }
+                numberOperands[i] = toSasNumber(values.get(i));
+            }
+            return;
+        }
+        switch (operator) {
+            case LESS:
+            case LESS_OR_EQUAL:
+            case GREATER:
+            case GREATER_OR_EQUAL:
+                throw new IllegalArgumentException("The " + operator + " condition cannot be applied to "
+                        + "the character column " + column.getName());
+            default:
+                break;
+        }
+        dateTime = false;
+        numberOperands = null;
+        stringOperands = new String[values.size()];
+        for (int i = 0; i < stringOperands.length; i++) {
+            if (!(values.get(i) instanceof String)) {
+                throw new IllegalArgumentException("The value " + values.get(i) + " cannot be compared with "
+                        + "the values of the column " + column.getName());
+            }
+            stringOperands[i] = trim((String) values.get(i));
+        }
+    }
+
+    /**
+     * The function to check whether a decoded row matches the condition.
+     *
+     * @param row the row.
+     * @return true if the row matches the condition.
+     */
+    boolean matches(Object[] row) {
+        if (matchers != null) {
+            boolean all = operator == RowFilter.Operator.AND;
+            for (RowFilterMatcher matcher : matchers) {
+                if (matcher.matches(row) != all) {
+                    return !all;
+                }
+            }
+            return all;
+        }
+        Object value = columnIndex < row.length ? row[columnIndex] : null;
+        if (numberOperands != null) {
+            return value == null ? operator == RowFilter.Operator.IS_NULL : matchesNumber(valueToSasNumber(value));
+        }
+        String text = value instanceof byte[] ? new String((byte[]) value, charset) : value == null ? ""
+                : trim(value.toString());
+        return text.isEmpty() ? operator == RowFilter.Operator.IS_NULL : matchesString(text);
+    }
+
+    /**
+     * The function to check whether a value of a numeric column which is not missing matches the condition.
+     *
+     * @param value the value converted into the number stored in sas7bdat files.
+     * @return true if the value matches the condition.
+     */
+    private boolean matchesNumber(double value) {
+        switch (operator) {
+            case EQUAL:
+                return value == numberOperands[0];
+            case NOT_EQUAL:
+                return value != numberOperands[0];
+            case LESS:
+                return value < numberOperands[0];
+            case LESS_OR_EQUAL:
+                return value <= numberOperands[0];
+            case GREATER:
+                return value > numberOperands[0];
+            case GREATER_OR_EQUAL:
+                return value >= numberOperands[0];
+            case IN:
+                for (double operand : numberOperands) {
+                    if (value == operand) {
+                        return true;
+                    }
+                }
+                return false;
+            case IS_NOT_NULL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The function to check whether a value of a character column which is not missing matches the condition.
+     *
+     * @param value the value without trailing spaces.
+     * @return true if the value matches the condition.
+     */
+    private boolean matchesString(String value) {
+        switch (operator) {
+            case EQUAL:
+            case IN:
+                for (String operand : stringOperands) {
+                    if (value.equals(operand)) {
+                        return true;
+                    }
+                }
+                return false;
+            case NOT_EQUAL:
+                return !value.equals(stringOperands[0]);
+            case STARTS_WITH:
+                return value.startsWith(stringOperands[0]);
+            case IS_NOT_NULL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The function to convert a decoded value of the numeric column into the number stored in sas7bdat files.
+     * Besides the values converted by {@link RowFilterMatcher#toSasNumber(Object)}, the numbers of days and
+     * milliseconds elapsed from 01/01/1970 read with {@link TemporalOutput#EPOCH} are converted into the number of
+     * days or seconds elapsed from 01/01/1960.
+     *
+     * @param value the value.
+     * @return the number.
+     */
+    private double valueToSasNumber(Object value) {
+        if (value instanceof Integer && !dateTime) {
+            return (Integer) value + START_DATES_DAYS_DIFFERENCE;
+        }
+        if (value instanceof Long && dateTime) {
+            return epochMillisecondToSasNumber((Long) value);
+        }
+        return toSasNumber(value);
+    }
+
+    /**
+     * The function to convert an operand of the numeric column into the number stored in sas7bdat files. Numbers are
+     * compared as they are, dates are converted into the number of days or seconds elapsed from 01/01/1960 depending
+     * on the format of the column.
+     *
+     * @param value the operand.
+     * @return the number.
+     */
+    private double toSasNumber(Object value) {
+        if (value instanceof Date) {
+            return epochMillisecondToSasNumber(((Date) value).getTime());
+        }
+        if (value instanceof LocalDate) {
+            return dateTime ? (((LocalDate) value).toEpochDay() + START_DATES_DAYS_DIFFERENCE) * SECONDS_IN_DAY
+                    : ((LocalDate) value).toEpochDay() + START_DATES_DAYS_DIFFERENCE;
+        }
+        if (value instanceof LocalDateTime) {
+            return epochMillisecondToSasNumber(((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    /**
+     * The function to convert the number of milliseconds elapsed from 01/01/1970 into the number of days or seconds
+     * elapsed from 01/01/1960 depending on the format of the column.
+     *
+     * @param epochMillisecond the number of milliseconds.
+     * @return the number of days or seconds.
+     */
+    private double epochMillisecondToSasNumber(long epochMillisecond) {
+        double epochSecond = epochMillisecond / MILLISECONDS_IN_SECOND;
+        return dateTime ? epochSecond + START_DATES_DAYS_DIFFERENCE * SECONDS_IN_DAY
+                : epochSecond / SECONDS_IN_DAY + START_DATES_DAYS_DIFFERENCE;
+    }
+
+    /**
+     * The function to check whether an operand is a date or a datetime.
+     *
+     * @param value the operand.
+     * @return true if the operand is a {@link Date}, a {@link LocalDate} or a {@link LocalDateTime}.
+     */
+    private static boolean isTemporal(Object value) {
+        return value instanceof Date || value instanceof LocalDate || value instanceof LocalDateTime;
+    }
+
+    /**
+     * The function to remove the trailing spaces, null and tabulation characters of a character value, the same
+     * characters are removed when the value is decoded.
+     *
+     * @param value the value.
+     * @return the value without trailing characters.
+     */
+    private static String trim(String value) {
+        int end = value.length();
+        while (end > 0 && (value.charAt(end - 1) == ' ' || value.charAt(end - 1) == '\0'
+                || value.charAt(end - 1) == '\t')) {
+            end--;
+        }
+        return value.substring(0, end);
+    }
+
+    /**
+     * The function to find a column by its name.
+     *
+     * @param columns    the columns of the file.
+     * @param columnName the name of the column.
+     * @return the index of the column.
+     * @throws IllegalArgumentException if there is no column with the name.
+     */
+    private static int getColumnIndex(List<Column> columns, String columnName) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getName().equals(columnName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown column " + columnName);
+    }
+}
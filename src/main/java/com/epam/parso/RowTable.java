@@ -0,0 +1,61 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Interface for the rows of a sas7bdat file materialized by
+ * {@link com.epam.parso.impl.SasFileReaderImpl#readTable(long)}. The rows are accessed by their index in any order,
+ * only a part of them is kept in memory, the rest is stored in a temporary file which is deleted when the table is
+ * closed.
+ */
+public interface RowTable extends Closeable {
+    /**
+     * The function to get the {@link Column} list of the table.
+     *
+     * @return a list of columns.
+     */
+    List<Column> getColumns();
+
+    /**
+     * The function to get the number of rows in the table.
+     *
+     * @return the number of rows.
+     */
+    long getRowCount();
+
+    /**
+     * The function to get a row of the table.
+     *
+     * @param rowIndex the index of the row.
+     * @return an array of objects whose elements can be objects of the following classes: double, long,
+     * int, byte[], Date depending on the column they are in, or null if there is no row with the index.
+     * @throws IOException if reading the temporary file is impossible or the table is closed.
+     */
+    Object[] getRow(long rowIndex) throws IOException;
+
+    /**
+     * The method to release the memory of the table and to delete its temporary file.
+     *
+     * @throws IOException if deleting the temporary file is impossible.
+     */
+    @Override
+    void close() throws IOException;
+}
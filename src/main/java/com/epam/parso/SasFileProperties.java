@@ -38,6 +38,11 @@ public class SasFileProperties {
      */
     private int endianness;
 
+    /**
+     * The name of the charset of the character values set in the header of the sas7bdat file, null if it is not set.
+     */
+    private String encoding;
+
     /**
      * The name of the sas7bdat file table .
      */
@@ -282,6 +287,25 @@ public class SasFileProperties {
         this.endianness = endianness;
     }
 
+    /**
+     * The function to get encoding.
+     *
+     * @return the name of the charset of the character values set in the header of the sas7bdat file, or null if
+     * the header does not set it or sets an unknown one.
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * The method to specify encoding.
+     *
+     * @param encoding the name of the charset of the character values set in the header of the sas7bdat file.
+     */
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
     /**
      * The function to get u64.
      *
@@ -17,7 +17,13 @@
 package com.epam.parso;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Main interface for working with library.
@@ -48,6 +54,134 @@ public interface SasFileReader {
      */
     Object[] readNext() throws IOException;
 
+    /**
+     * Reads rows one by one from the sas7bdat file into the given array instead of allocating a new one for every
+     * row. The array is reused if it has at least as many elements as there are columns, otherwise a new array
+     * is allocated and returned. The elements of the array are overwritten by the next call, so the values
+     * retained beyond the processing of the row must be copied.
+     * <p>
+     * The default implementation ignores the array and returns a new one read by {@link SasFileReader#readNext()}.
+     *
+     * @param row the array to store the elements of the row in, can be null.
+     * @return the array of objects storing the elements of the row (the same as the row parameter if it is reused)
+     * whose elements can be objects of the following classes: double, long, int, byte[], Date depending on
+     * the column they are in, or null if there are no more rows.
+     *
+     * @throws IOException if reading input stream is impossible.
+     */
+    default Object[] readNext(Object[] row) throws IOException {
+        return readNext();
+    }
+
+    /**
+     * Reads the next row which matches the filter. The filter is checked against the bytes of the rows before they
+     * are decoded, so the rows which do not match it are skipped without converting their values into objects.
+     * <p>
+     * The default implementation reads the rows with {@link SasFileReader#readNext()} and checks the filter against
+     * their decoded values.
+     *
+     * @param filter the condition on the values of the row.
+     * @return an array of objects whose elements can be objects of the following classes: double, long,
+     * int, byte[], Date depending on the column they are in, or null if there are no more rows which match
+     * the filter.
+     *
+     * @throws IOException if reading input stream is impossible.
+     * @throws IllegalArgumentException if the filter refers to an unknown column or its values do not match the type
+     *                                  of the column.
+     */
+    default Object[] readNextMatching(RowFilter filter) throws IOException {
+        RowFilterMatcher matcher = new RowFilterMatcher(filter, getColumns(), getSasFileProperties().getEncoding());
+        Object[] row = readNext();
+        while (row != null && !matcher.matches(row)) {
+            row = readNext();
+        }
+        return row;
+    }
+
+    /**
+     * Reads the row with the given index. If the reader is built with the row index file of the sas7bdat file
+     * (see {@link com.epam.parso.impl.SasFileRowIndexer}), the row is read with a single positioned read and
+     * the position of {@link SasFileReader#readNext()} does not change, otherwise the reader moves to the row with
+     * {@link SasFileReader#seek(long)} and reads it.
+     * <p>
+     * The default implementation moves to the row with {@link SasFileReader#seek(long)} and reads it with
+     * {@link SasFileReader#readNext()}.
+     *
+     * @param rowIndex the index of the row.
+     * @return an array of objects whose elements can be objects of the following classes: double, long,
+     * int, byte[], Date depending on the column they are in, or null if there is no row with the index.
+     *
+     * @throws IOException if reading input stream is impossible.
+     */
+    default Object[] readRow(long rowIndex) throws IOException {
+        seek(rowIndex);
+        return readNext();
+    }
+
+    /**
+     * Skips rows without decoding them. Pages are read only to get the number of rows stored on them, whole data
+     * pages of uncompressed files are skipped without reading them.
+     * <p>
+     * The default implementation reads the rows with {@link SasFileReader#readNext()}.
+     *
+     * @param n the number of rows to skip.
+     * @return the number of rows actually skipped, less than n if the end of the file is reached.
+     *
+     * @throws IOException if reading input stream is impossible.
+     */
+    default long skipRows(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && readNext() != null) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * Moves to the row with the given index without decoding the preceding rows, so that the row is returned by
+     * the next call of {@link SasFileReader#readNext()}. Moving backward is possible only if the sas7bdat file
+     * is read from a {@link java.io.FileInputStream} or a {@link RandomAccessSource}, which are used to jump
+     * directly to the pages.
+     *
+     * @param rowIndex the index of the row, if it is not less than the number of rows, the reader moves to the end.
+     *
+     * @throws IOException if reading input stream is impossible or the row precedes the current one and the input
+     *                     stream cannot be repositioned.
+     */
+    void seek(long rowIndex) throws IOException;
+
+    /**
+     * Returns a sequential stream of the rows which are not read yet. The stream knows the number of rows and can
+     * be made parallel: it is split along page boundaries, pages are read sequentially and decoded by
+     * several threads. The stream shares the position with {@link SasFileReader#readNext()}, so the reader
+     * should not be used while the stream is being consumed. I/O errors are thrown as
+     * {@link java.io.UncheckedIOException}.
+     * <p>
+     * The default implementation returns a stream of unknown size over {@link SasFileReader#readNext()}.
+     *
+     * @return a stream of arrays of objects whose elements can be objects of the following classes: double, long,
+     * int, byte[], Date depending on the column they are in.
+     */
+    default Stream<Object[]> stream() {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<Object[]>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Object[]> action) {
+                Object[] row;
+                try {
+                    row = readNext();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (row == null) {
+                    return false;
+                }
+                action.accept(row);
+                return true;
+            }
+        }, false);
+    }
+
     /**
      * The function to get sas file properties.
      *
@@ -0,0 +1,39 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+/**
+ * The representations of the values of date and datetime columns in the rows read from sas7bdat files. Date
+ * columns store the number of days and datetime columns store the number of seconds elapsed from 01/01/1960, they
+ * are recognized by the format of the column ({@link Column#getFormat()}).
+ */
+public enum TemporalOutput {
+    /**
+     * The values are {@link java.util.Date} objects in UTC, the default representation.
+     */
+    DATE,
+    /**
+     * The values of date columns are {@link Integer} numbers of days elapsed from 01/01/1970, the values of datetime
+     * columns are {@link Long} numbers of milliseconds elapsed from 01/01/1970 00:00:00 UTC.
+     */
+    EPOCH,
+    /**
+     * The values of date columns are {@link java.time.LocalDate} objects, the values of datetime columns are
+     * {@link java.time.LocalDateTime} objects.
+     */
+    JAVA_TIME
+}
@@ -0,0 +1,266 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+import com.epam.parso.ColumnarTable;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A base class of the columnar tables of the rows of a sas7bdat file. The values of a column are stored according
+ * to its kind: doubles for numeric columns, the number of milliseconds since the epoch for date columns, and
+ * the strings of character columns. The class converts the stored values back to the objects the parser decodes
+ * the rows to, so the rows of the table are equal to the rows read by {@link SasFileReaderImpl} with
+ * the default {@link com.epam.parso.TemporalOutput#DATE} representation of dates.
+ */
+abstract class AbstractColumnarTable implements ColumnarTable {
+    /**
+     * The kind of the numeric columns whose values are {@link Long} or {@link Double}.
+     */
+    static final byte NUMBER = 0;
+
+    /**
+     * The kind of the numeric columns of 2 bytes or less whose values are {@link Integer}.
+     */
+    static final byte INTEGER = 1;
+
+    /**
+     * The kind of the date and datetime columns whose values are {@link Date}.
+     */
+    static final byte DATE = 2;
+
+    /**
+     * The kind of the character columns whose values are {@link String}.
+     */
+    static final byte STRING = 3;
+
+    /**
+     * The number of milliseconds in a day.
+     */
+    private static final long MILLISECONDS_IN_DAY = SasFileConstants.SECONDS_IN_MINUTE
+            * SasFileConstants.MINUTES_IN_HOUR * SasFileConstants.HOURS_IN_DAY
+            * SasFileConstants.MILLISECONDS_IN_SECONDS;
+
+    /**
+     * The {@link Column} list of the table.
+     */
+    private final List<Column> columns;
+
+    /**
+     * The kinds of the columns.
+     */
+    private final byte[] kinds;
+
+    /**
+     * The constructor of a table of the columns of the given kinds.
+     *
+     * @param columns the {@link Column} list of the table.
+     * @param kinds   the kinds of the columns.
+     */
+    AbstractColumnarTable(List<Column> columns, byte[] kinds) {
+        this.columns = columns;
+        this.kinds = kinds;
+    }
+
+    /**
+     * The function to get the kinds of the columns of a sas7bdat file in the way the parser decodes them.
+     *
+     * @param parser the parser of the sas7bdat file.
+     * @return the kinds of the columns.
+     */
+    static byte[] getKinds(SasFileParser parser) {
+        List<Column> columnList = parser.getColumns();
+        List<Integer> columnsDataLength = parser.getColumnsDataLength();
+        byte[] kinds = new byte[columnList.size()];
+        for (int column = 0; column < kinds.length; column++) {
+            String format = columnList.get(column).getFormat();
+            if (columnList.get(column).getType() != Number.class) {
+                kinds[column] = STRING;
+            } else if (columnsDataLength.get(column) <= 2) {
+                kinds[column] = INTEGER;
+            } else if (SasFileConstants.DATE_TIME_FORMAT_STRINGS.contains(format)
+                    || SasFileConstants.DATE_FORMAT_STRINGS.contains(format)) {
+                kinds[column] = DATE;
+            } else {
+                kinds[column] = NUMBER;
+            }
+        }
+        return kinds;
+    }
+
+    /**
+     * The function to convert a value decoded by the parser to the double stored for a numeric column.
+     *
+     * @param kind  the kind of the column.
+     * @param value the value, not null.
+     * @return the stored value.
+     */
+    static double toStoredDouble(byte kind, Object value) {
+        return kind == DATE ? ByteDecoder.toEpochMillisecond(value) : ((Number) value).doubleValue();
+    }
+
+    /**
+     * The function to get the kind of a column.
+     *
+     * @param columnIndex the index of the column.
+     * @return the kind.
+     */
+    final byte getKind(int columnIndex) {
+        return kinds[columnIndex];
+    }
+
+    /**
+     * The function to get a stored value of a numeric column which is not missing.
+     *
+     * @param rowIndex    the index of the row.
+     * @param columnIndex the index of the column.
+     * @return the value.
+     */
+    abstract double getStoredDouble(long rowIndex, int columnIndex);
+
+    /**
+     * The function to get a stored value of a character column which is not missing.
+     *
+     * @param rowIndex    the index of the row.
+     * @param columnIndex the index of the column.
+     * @return the value.
+     */
+    abstract String getStoredString(long rowIndex, int columnIndex);
+
+    /**
+     * The function to check whether the table is closed.
+     *
+     * @return true if the table is closed.
+     */
+    abstract boolean isClosed();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final double getDouble(long rowIndex, int columnIndex) {
+        if (kinds[columnIndex] == STRING) {
+            throw new IllegalArgumentException("The column " + columns.get(columnIndex).getName()
+                    + " is not numeric");
+        }
+        return isMissing(rowIndex, columnIndex) ? Double.NaN : getStoredDouble(rowIndex, columnIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final long getLong(long rowIndex, int columnIndex) {
+        return isMissing(rowIndex, columnIndex) ? 0 : Math.round(getDouble(rowIndex, columnIndex));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int getEpochDay(long rowIndex, int columnIndex) {
+        if (kinds[columnIndex] != DATE) {
+            throw new IllegalArgumentException("The column " + columns.get(columnIndex).getName()
+                    + " is not a date column");
+        }
+        return isMissing(rowIndex, columnIndex) ? 0 : (int) Math.floorDiv((long) getStoredDouble(rowIndex,
+                columnIndex), MILLISECONDS_IN_DAY);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final String getString(long rowIndex, int columnIndex) {
+        if (kinds[columnIndex] != STRING) {
+            throw new IllegalArgumentException("The column " + columns.get(columnIndex).getName()
+                    + " is not a character column");
+        }
+        return isMissing(rowIndex, columnIndex) ? null : getStoredString(rowIndex, columnIndex);
+    }
+
+    /**
+     * The function to get a value as an object of the class the parser decodes it to.
+     *
+     * @param rowIndex    the index of the row.
+     * @param columnIndex the index of the column.
+     * @return the value, or null if it is missing.
+     */
+    private Object getValue(long rowIndex, int columnIndex) {
+        if (isMissing(rowIndex, columnIndex)) {
+            return null;
+        }
+        if (kinds[columnIndex] == STRING) {
+            return getStoredString(rowIndex, columnIndex);
+        }
+        double value = getStoredDouble(rowIndex, columnIndex);
+        switch (kinds[columnIndex]) {
+            case INTEGER:
+                return (int) value;
+            case DATE:
+                return new Date((long) value);
+            default:
+                long longValue = Math.round(value);
+                if (Math.abs(value - longValue) >= SasFileConstants.EPSILON) {
+                    return value;
+                }
+                return longValue;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Object[] getRow(long rowIndex) throws IOException {
+        if (isClosed()) {
+            throw new IOException("The columnar table is closed");
+        }
+        if (rowIndex < 0 || rowIndex >= getRowCount()) {
+            return null;
+        }
+        Object[] row = new Object[kinds.length];
+        for (int column = 0; column < kinds.length; column++) {
+            row[column] = getValue(rowIndex, column);
+        }
+        return row;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Object[][] getRows(long firstRowIndex, int count) throws IOException {
+        int length = (int) Math.max(0, Math.min(count, getRowCount() - firstRowIndex));
+        Object[][] rows = new Object[length][];
+        for (int row = 0; row < length; row++) {
+            rows[row] = getRow(firstRowIndex + row);
+        }
+        return rows;
+    }
+}
@@ -50,13 +50,15 @@ final class BinDecompressor implements Decompressor {
      * @param srcLength    the length of bytes array that contains compressed data.
      * @param resultLength the length of bytes array that contains decompressed data.
      * @param page         an array of bytes with compressed data.
+     * @param result       the array to store decompressed data in, or null to store them in a new array.
      * @return decompressed row
      */
     @Override
-    public byte[] decompressRow(final int pageoffset, final int srcLength, final int resultLength, final byte[] page) {
+    public byte[] decompressRow(final int pageoffset, final int srcLength, final int resultLength, final byte[] page,
+                                final byte[] result) {
 
         byte[] srcRow = Arrays.copyOfRange(page, pageoffset, srcLength + pageoffset);
-        byte[] outRow = new byte[resultLength];
+        byte[] outRow = result == null ? new byte[resultLength] : result;
         int srcOffset = 0;
         int outOffset = 0;
         int ctrlBits = 0, ctrlMask = 0;
@@ -116,6 +118,9 @@ final class BinDecompressor implements Decompressor {
                     break;
             }
         }
+        if (result != null && outOffset < resultLength) {
+            Arrays.fill(outRow, outOffset, resultLength, (byte) 0);
+        }
         return outRow;
     }
 }
@@ -0,0 +1,308 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A pool of the buffers of pages and decompressed rows bounded by the number of bytes, shared by readers of
+ * sas7bdat files which lease the buffers when the pool is set and return them when they are closed, so opening
+ * many readers at once does not allocate new buffers for each of them. The buffers are reused by their length:
+ * readers of files with the same page length and row length share the same buffers.
+ * <p>
+ * The number of bytes of the leased and pooled buffers does not exceed the maximum size: the pooled buffers
+ * of other lengths are dropped to free space, and if the leased buffers alone use the whole size, new buffers are
+ * allocated outside of the pool. A reader which is collected by the garbage collector without being closed is
+ * reported as a leak, with the stack trace of the lease if the traces are recorded, and its buffers are no longer
+ * counted as leased. All methods are thread-safe.
+ */
+public final class BufferPool {
+    /**
+     * Object for writing log messages.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(BufferPool.class);
+
+    /**
+     * The free buffers by their length, from the least to the most recently used length.
+     */
+    private final LinkedHashMap<Integer, ArrayDeque<byte[]>> freeBuffers =
+            new LinkedHashMap<Integer, ArrayDeque<byte[]>>();
+
+    /**
+     * The leased buffers by their identity.
+     */
+    private final Map<byte[], Lease> leases = new IdentityHashMap<byte[], Lease>();
+
+    /**
+     * The queue of the leases whose owners are collected by the garbage collector.
+     */
+    private final ReferenceQueue<Object> collectedOwners = new ReferenceQueue<Object>();
+
+    /**
+     * The maximum number of bytes of the leased and pooled buffers.
+     */
+    private final long maxSize;
+
+    /**
+     * True if the stack trace of every lease is recorded to report leaks.
+     */
+    private final boolean recordLeaseTraces;
+
+    /**
+     * The number of bytes of the free buffers.
+     */
+    private long pooledSize;
+
+    /**
+     * The number of bytes of the leased buffers.
+     */
+    private long leasedSize;
+
+    /**
+     * The number of buffers allocated by the pool, including the ones allocated outside of the pool.
+     */
+    private long allocationCount;
+
+    /**
+     * The number of leases served with a free buffer.
+     */
+    private long reuseCount;
+
+    /**
+     * The number of buffers whose owners are collected without returning them.
+     */
+    private long leakCount;
+
+    /**
+     * The constructor of a pool which does not record the stack traces of leases.
+     *
+     * @param maxSize the maximum number of bytes of the leased and pooled buffers.
+     */
+    public BufferPool(long maxSize) {
+        this(maxSize, false);
+    }
+
+    /**
+     * The constructor that defines all parameters of the BufferPool class.
+     *
+     * @param maxSize           the maximum number of bytes of the leased and pooled buffers.
+     * @param recordLeaseTraces true to record the stack trace of every lease to report where leaked buffers were
+     *                          leased, which slows leasing down.
+     */
+    public BufferPool(long maxSize, boolean recordLeaseTraces) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The size of the pool must be positive");
+        }
+        this.maxSize = maxSize;
+        this.recordLeaseTraces = recordLeaseTraces;
+    }
+
+    /**
+     * The function to lease a buffer. The content of a reused buffer is not cleared.
+     *
+     * @param length the length of the buffer.
+     * @param owner  the object which uses the buffer until it returns it, if the owner is collected first,
+     *               the buffer is reported as leaked.
+     * @return the buffer.
+     */
+    synchronized byte[] lease(int length, Object owner) {
+        pollLeaks();
+        ArrayDeque<byte[]> buffers = freeBuffers.remove(length);
+        byte[] buffer = buffers == null ? null : buffers.poll();
+        if (buffers != null && !buffers.isEmpty()) {
+            freeBuffers.put(length, buffers);
+        }
+        if (buffer != null) {
+            pooledSize -= length;
+            reuseCount++;
+        } else {
+            Iterator<ArrayDeque<byte[]>> iterator = freeBuffers.values().iterator();
+            while (leasedSize + pooledSize + length > maxSize && iterator.hasNext()) {
+                ArrayDeque<byte[]> droppedBuffers = iterator.next();
+                while (!droppedBuffers.isEmpty() && leasedSize + pooledSize + length > maxSize) {
+                    pooledSize -= droppedBuffers.poll().length;
+                }
+                if (droppedBuffers.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+            buffer = new byte[length];
+            allocationCount++;
+            if (leasedSize + length > maxSize) {
+                return buffer;
+            }
+        }
+        leases.put(buffer, new Lease(owner, collectedOwners, buffer,
+                recordLeaseTraces ? new Throwable("The buffer was leased here") : null));
+        leasedSize += length;
+        return buffer;
+    }
+
+    /**
+     * The function to return a leased buffer to the pool. Buffers which are not leased from the pool are ignored.
+     * The buffer must not be used afterwards.
+     *
+     * @param buffer the buffer.
+     */
+    synchronized void release(byte[] buffer) {
+        pollLeaks();
+        Lease lease = leases.remove(buffer);
+        if (lease == null) {
+            return;
+        }
+        lease.clear();
+        leasedSize -= buffer.length;
+        ArrayDeque<byte[]> buffers = freeBuffers.remove(buffer.length);
+        if (buffers == null) {
+            buffers = new ArrayDeque<byte[]>();
+        }
+        buffers.push(buffer);
+        freeBuffers.put(buffer.length, buffers);
+        pooledSize += buffer.length;
+    }
+
+    /**
+     * The function to stop counting the buffers of the owners collected by the garbage collector as leased.
+     */
+    private void pollLeaks() {
+        for (Lease lease = (Lease) collectedOwners.poll(); lease != null; lease = (Lease) collectedOwners.poll()) {
+            if (leases.get(lease.buffer) == lease) {
+                leases.remove(lease.buffer);
+                leasedSize -= lease.buffer.length;
+                leakCount++;
+                LOGGER.warn("A buffer of " + lease.buffer.length + " bytes was not returned to the pool, close "
+                        + "the readers which use the pool", lease.trace);
+            }
+        }
+    }
+
+    /**
+     * The function to drop all free buffers.
+     */
+    public synchronized void clear() {
+        freeBuffers.clear();
+        pooledSize = 0;
+    }
+
+    /**
+     * The function to get the maximum number of bytes of the leased and pooled buffers.
+     *
+     * @return the maximum number of bytes.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * The function to get the number of bytes of the free buffers.
+     *
+     * @return the number of bytes.
+     */
+    public synchronized long getPooledSize() {
+        return pooledSize;
+    }
+
+    /**
+     * The function to get the number of bytes of the leased buffers, after the leaks detected so far are
+     * subtracted.
+     *
+     * @return the number of bytes.
+     */
+    public synchronized long getLeasedSize() {
+        pollLeaks();
+        return leasedSize;
+    }
+
+    /**
+     * The function to get the number of the leased buffers, after the leaks detected so far are subtracted.
+     *
+     * @return the number of buffers.
+     */
+    public synchronized int getLeasedCount() {
+        pollLeaks();
+        return leases.size();
+    }
+
+    /**
+     * The function to get the number of buffers allocated by the pool, including the ones allocated outside
+     * of the pool when it is full.
+     *
+     * @return the number of allocations.
+     */
+    public synchronized long getAllocationCount() {
+        return allocationCount;
+    }
+
+    /**
+     * The function to get the number of leases served with a free buffer.
+     *
+     * @return the number of reuses.
+     */
+    public synchronized long getReuseCount() {
+        return reuseCount;
+    }
+
+    /**
+     * The function to get the number of buffers whose owners were collected by the garbage collector without
+     * returning them.
+     *
+     * @return the number of leaks.
+     */
+    public synchronized long getLeakCount() {
+        pollLeaks();
+        return leakCount;
+    }
+
+    /**
+     * The class of a lease of a buffer which refers to the owner of the buffer weakly, so it is enqueued when
+     * the owner is collected by the garbage collector.
+     */
+    private static final class Lease extends WeakReference<Object> {
+        /**
+         * The leased buffer.
+         */
+        private final byte[] buffer;
+
+        /**
+         * The stack trace of the lease, null if the traces are not recorded.
+         */
+        private final Throwable trace;
+
+        /**
+         * The constructor that defines all parameters of the Lease class.
+         *
+         * @param owner  the owner of the buffer.
+         * @param queue  the queue the lease is enqueued to when the owner is collected.
+         * @param buffer the leased buffer.
+         * @param trace  the stack trace of the lease, null if the traces are not recorded.
+         */
+        private Lease(Object owner, ReferenceQueue<Object> queue, byte[] buffer, Throwable trace) {
+            super(owner, queue);
+            this.buffer = buffer;
+            this.trace = trace;
+        }
+    }
+}
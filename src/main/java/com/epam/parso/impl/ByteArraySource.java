@@ -0,0 +1,66 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.RandomAccessSource;
+
+/**
+ * A {@link RandomAccessSource} of a sas7bdat file held in an array in memory.
+ */
+public final class ByteArraySource implements RandomAccessSource {
+    /**
+     * The bytes of the file.
+     */
+    private final byte[] data;
+
+    /**
+     * The constructor of the source of the bytes of an array, the array is not copied.
+     *
+     * @param data the bytes of the file.
+     */
+    public ByteArraySource(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long size() {
+        return data.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(long position, byte[] buffer, int offset, int length) {
+        if (position >= data.length) {
+            return -1;
+        }
+        int count = (int) Math.min(length, data.length - position);
+        System.arraycopy(data, (int) position, buffer, offset, count);
+        return count;
+    }
+
+    /**
+     * The method does nothing since the source holds no resources.
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,358 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.SasFileProperties;
+import com.epam.parso.TemporalOutput;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * A class to convert the bytes of a sas7bdat file into numbers, strings and dates according to the byte order and
+ * the bitness of the file stored in its properties.
+ */
+final class ByteDecoder {
+    /**
+     * The mask of the bits of a byte read as an unsigned value.
+     */
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final int NANOSECONDS_IN_MILLISECOND = 1000000;
+
+    /**
+     * The properties of the sas7bdat file, the byte order and the bitness are read from them when the bytes are
+     * converted, so they can be set after the decoder is created.
+     */
+    private final SasFileProperties sasFileProperties;
+
+    /**
+     * The constructor of the decoder of the bytes of a file.
+     *
+     * @param sasFileProperties the properties of the sas7bdat file.
+     */
+    ByteDecoder(SasFileProperties sasFileProperties) {
+        this.sasFileProperties = sasFileProperties;
+    }
+
+    /**
+     * The function to convert a bytes array into a number (int or long depending on the value located at
+     * the {@link SasFileConstants#ALIGN_2_OFFSET} offset).
+     *
+     * @param byteBuffer the long value represented by a bytes array.
+     * @return a long value. If the number was stored as int, then after conversion it is converted to long
+     * for convenience.
+     */
+    long correctLongProcess(ByteBuffer byteBuffer) {
+        if (sasFileProperties.isU64()) {
+            return byteBuffer.getLong();
+        } else {
+            return byteBuffer.getInt();
+        }
+    }
+
+    /**
+     * The function to convert an array of bytes with any order of bytes into {@link ByteBuffer}.
+     * {@link ByteBuffer} has the order of bytes defined in the file located at the
+     * {@link SasFileConstants#ALIGN_2_OFFSET} offset.
+     * Later the parser converts result {@link ByteBuffer} into a number.
+     *
+     * @param data the input array of bytes with the little-endian or big-endian order.
+     * @return {@link ByteBuffer} with the order of bytes defined in the file located at
+     * the {@link SasFileConstants#ALIGN_2_OFFSET} offset.
+     */
+    ByteBuffer byteArrayToByteBuffer(byte[] data) {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(data);
+        if (sasFileProperties.getEndianness() == 0) {
+            return byteBuffer;
+        } else {
+            return byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * The function to convert an array of bytes into a number. The result can be double or long values.
+     * The numbers are stored in the IEEE 754 format. A number is considered long if the difference between the whole
+     * number and its integer part is less than {@link SasFileConstants#EPSILON}.
+     *
+     * @param mass the number represented by an array of bytes.
+     * @return number of a long or double type.
+     */
+    Object convertByteArrayToNumber(byte[] mass) {
+        return bytesToNumber(mass, 0, mass.length);
+    }
+
+    /**
+     * The function to convert the bytes of a number into a long or double value without copying the bytes, as
+     * {@link ByteDecoder#convertByteArrayToNumber(byte[])} does.
+     *
+     * @param source the buffer holding the bytes of the number.
+     * @param offset the offset of the number in the buffer.
+     * @param length the number of bytes of the number.
+     * @return number of a long or double type, or null if it is missing.
+     */
+    Object bytesToNumber(byte[] source, int offset, int length) {
+        double resultDouble = bytesToDouble(source, offset, length);
+        if (Double.isNaN(resultDouble) || (resultDouble < SasFileConstants.NAN_EPSILON && resultDouble > 0)) {
+            return null;
+        }
+
+        long resultLong = Math.round(resultDouble);
+        if (Math.abs(resultDouble - resultLong) >= SasFileConstants.EPSILON) {
+            return resultDouble;
+        } else {
+            return resultLong;
+        }
+    }
+
+    /**
+     * The function to convert an array of bytes into a numeral of the {@link Short} type.
+     * For convenience, the resulting number is converted into the int type.
+     *
+     * @param bytes a long number represented by an array of bytes.
+     * @return a number of the int type that is the conversion result.
+     */
+    int bytesToShort(byte[] bytes) {
+        return byteArrayToByteBuffer(bytes).getShort();
+    }
+
+    /**
+     * The function to convert two bytes of a buffer into a numeral of the {@link Short} type without copying
+     * the bytes. For convenience, the resulting number is converted into the int type.
+     *
+     * @param source the buffer holding the bytes of the number.
+     * @param offset the offset of the number in the buffer.
+     * @return a number of the int type that is the conversion result.
+     */
+    int bytesToShort(byte[] source, int offset) {
+        if (sasFileProperties.getEndianness() == 0) {
+            return (short) (source[offset] << Byte.SIZE | source[offset + 1] & BYTE_MASK);
+        }
+        return (short) (source[offset + 1] << Byte.SIZE | source[offset] & BYTE_MASK);
+    }
+
+    /**
+     * The function to convert an array of bytes into an int number.
+     *
+     * @param bytes a long number represented by an array of bytes.
+     * @return a number of the int type that is the conversion result.
+     */
+    int bytesToInt(byte[] bytes) {
+        return byteArrayToByteBuffer(bytes).getInt();
+    }
+
+    /**
+     * The function to convert an array of bytes into a long number.
+     *
+     * @param bytes a long number represented by an array of bytes.
+     * @return a number of the long type that is the conversion result.
+     */
+    long bytesToLong(byte[] bytes) {
+        return correctLongProcess(byteArrayToByteBuffer(bytes));
+    }
+
+    /**
+     * The function to convert an array of bytes that stores the number of seconds elapsed from 01/01/1960 into
+     * a variable of the {@link Date} type. The {@link SasFileConstants#DATE_TIME_FORMAT_STRINGS} variable stores
+     * the formats of the columns that store such data.
+     *
+     * @param bytes an array of bytes that stores the type.
+     * @return a variable of the {@link Date} type.
+     */
+    Date bytesToDateTime(byte[] bytes) {
+        return (Date) bytesToTemporal(bytes, 0, bytes.length, true, TemporalOutput.DATE);
+    }
+
+    /**
+     * The function to convert an array of bytes that stores the number of days elapsed from 01/01/1960 into a variable
+     * of the {@link Date} type. {@link SasFileConstants#DATE_FORMAT_STRINGS} stores the formats of columns that contain
+     * such data.
+     *
+     * @param bytes the array of bytes that stores the number of days from 01/01/1960.
+     * @return a variable of the {@link Date} type.
+     */
+    Date bytesToDate(byte[] bytes) {
+        return (Date) bytesToTemporal(bytes, 0, bytes.length, false, TemporalOutput.DATE);
+    }
+
+    /**
+     * The function to convert the bytes of a date or datetime value into the given representation without copying
+     * the bytes.
+     *
+     * @param source   the buffer holding the bytes of the value.
+     * @param offset   the offset of the value in the buffer.
+     * @param length   the number of bytes of the value.
+     * @param dateTime true if the value stores the number of seconds, false if it stores the number of days elapsed
+     *                 from 01/01/1960.
+     * @param output   the representation of the value.
+     * @return the value, or null if it is missing.
+     */
+    Object bytesToTemporal(byte[] source, int offset, int length, boolean dateTime, TemporalOutput output) {
+        double value = bytesToDouble(source, offset, length);
+        if (Double.isNaN(value)) {
+            return null;
+        }
+        long epochMillisecond = dateTime ? sasSecondsToEpochMillisecond(value) : sasDaysToEpochMillisecond(value);
+        switch (output) {
+            case EPOCH:
+                if (dateTime) {
+                    return epochMillisecond;
+                }
+                return sasDaysToEpochDay(value);
+            case JAVA_TIME:
+                if (dateTime) {
+                    return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillisecond,
+                            SasFileConstants.MILLISECONDS_IN_SECONDS), (int) Math.floorMod(epochMillisecond,
+                            SasFileConstants.MILLISECONDS_IN_SECONDS) * NANOSECONDS_IN_MILLISECOND, ZoneOffset.UTC);
+                }
+                return LocalDate.ofEpochDay(sasDaysToEpochDay(value));
+            default:
+                return new Date(epochMillisecond);
+        }
+    }
+
+    /**
+     * The function to convert the bytes of a number into a double value without copying the bytes. The numbers
+     * stored with less than {@link SasFileConstants#BYTES_IN_DOUBLE} bytes are missing their least significant bytes.
+     *
+     * @param source the buffer holding the bytes of the number.
+     * @param offset the offset of the number in the buffer.
+     * @param length the number of bytes of the number.
+     * @return the number.
+     */
+    double bytesToDouble(byte[] source, int offset, int length) {
+        long bits = 0;
+        if (sasFileProperties.getEndianness() == 0) {
+            for (int i = 0; i < length; i++) {
+                bits = bits << Byte.SIZE | source[offset + i] & BYTE_MASK;
+            }
+        } else {
+            for (int i = length - 1; i >= 0; i--) {
+                bits = bits << Byte.SIZE | source[offset + i] & BYTE_MASK;
+            }
+        }
+        return Double.longBitsToDouble(bits << Byte.SIZE * (SasFileConstants.BYTES_IN_DOUBLE - length));
+    }
+
+    /**
+     * The function to convert the number of seconds elapsed from 01/01/1960 into the number of milliseconds elapsed
+     * from 01/01/1970.
+     *
+     * @param seconds the number of seconds elapsed from 01/01/1960.
+     * @return the number of milliseconds elapsed from 01/01/1970.
+     */
+    static long sasSecondsToEpochMillisecond(double seconds) {
+        return (long) ((seconds - SasFileConstants.START_DATES_SECONDS_DIFFERENCE)
+                * SasFileConstants.MILLISECONDS_IN_SECONDS);
+    }
+
+    /**
+     * The function to convert the number of days elapsed from 01/01/1960 into the number of milliseconds elapsed
+     * from 01/01/1970.
+     *
+     * @param days the number of days elapsed from 01/01/1960.
+     * @return the number of milliseconds elapsed from 01/01/1970.
+     */
+    static long sasDaysToEpochMillisecond(double days) {
+        return (long) ((days - SasFileConstants.START_DATES_DAYS_DIFFERENCE) * SasFileConstants.SECONDS_IN_MINUTE
+                * SasFileConstants.MINUTES_IN_HOUR * SasFileConstants.HOURS_IN_DAY
+                * SasFileConstants.MILLISECONDS_IN_SECONDS);
+    }
+
+    /**
+     * The function to convert the number of days elapsed from 01/01/1960 into the number of whole days elapsed
+     * from 01/01/1970.
+     *
+     * @param days the number of days elapsed from 01/01/1960.
+     * @return the number of days elapsed from 01/01/1970.
+     */
+    static int sasDaysToEpochDay(double days) {
+        return (int) Math.floor(days - SasFileConstants.START_DATES_DAYS_DIFFERENCE);
+    }
+
+    /**
+     * The function to convert a value of a date or datetime column in any {@link TemporalOutput} representation into
+     * the number of milliseconds elapsed from 01/01/1970 00:00:00 UTC.
+     *
+     * @param value the value: a {@link Date}, a {@link LocalDate}, a {@link LocalDateTime}, an {@link Integer}
+     *              number of days or a {@link Long} number of milliseconds elapsed from 01/01/1970.
+     * @return the number of milliseconds.
+     */
+    static long toEpochMillisecond(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        if (value instanceof LocalDate) {
+            return ((LocalDate) value).toEpochDay() * SasFileConstants.SECONDS_IN_MINUTE
+                    * SasFileConstants.MINUTES_IN_HOUR * SasFileConstants.HOURS_IN_DAY
+                    * SasFileConstants.MILLISECONDS_IN_SECONDS;
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        if (value instanceof Integer) {
+            return toEpochMillisecond(LocalDate.ofEpochDay((Integer) value));
+        }
+        return ((Number) value).longValue();
+    }
+
+    /**
+     * The function to remove excess symbols from the end of a bytes array. Excess symbols are line end characters,
+     * tabulation characters, and spaces, which do not contain useful information.
+     *
+     * @param source an array of bytes containing required data.
+     * @param offset the offset in source of required data.
+     * @param length the length of required data.
+     * @return the array of bytes without excess symbols at the end.
+     */
+    byte[] trimBytesArray(byte[] source, int offset, int length) {
+        int trimmedLength = getTrimmedLength(source, offset, length);
+        if (trimmedLength != 0) {
+            return Arrays.copyOfRange(source, offset, offset + trimmedLength);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * The function to get the length of bytes without the excess symbols at their end (line end characters,
+     * tabulation characters, and spaces).
+     *
+     * @param source an array of bytes containing required data.
+     * @param offset the offset in source of required data.
+     * @param length the length of required data.
+     * @return the length of the data without excess symbols at the end.
+     */
+    static int getTrimmedLength(byte[] source, int offset, int length) {
+        int lengthFromBegin;
+        for (lengthFromBegin = offset + length; lengthFromBegin > offset; lengthFromBegin--) {
+            if (source[lengthFromBegin - 1] != ' ' && source[lengthFromBegin - 1] != '\0'
+                    && source[lengthFromBegin - 1] != '\t') {
+                break;
+            }
+        }
+        return lengthFromBegin - offset;
+    }
+}
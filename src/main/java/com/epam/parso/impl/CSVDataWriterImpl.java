@@ -21,9 +21,9 @@ import com.epam.parso.Column;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
-import java.util.Arrays;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,41 +35,11 @@ import java.util.TimeZone;
  * This is a class to export the sas7bdat file data into the CSV format.
  */
 public class CSVDataWriterImpl extends AbstractCSVWriter implements CSVDataWriter {
-    /**
-     * If the number of digits in a double value exceeds a given constant, it rounds off.
-     */
-    private static final int ROUNDING_LENGTH = 13;
-
-    /**
-     * The number of digits starting from the first non-zero value, used to round doubles.
-     */
-    private static final int ACCURACY = 15;
-
     /**
      * The constant to check whether or not a string containing double stores infinity.
      */
     private static final String DOUBLE_INFINITY_STRING = "Infinity";
 
-    /**
-     * The format to output hours in the CSV format.
-     */
-    private static final String HOURS_OUTPUT_FORMAT = "%02d";
-
-    /**
-     * The format to output minutes in the the CSV format.
-     */
-    private static final String MINUTES_OUTPUT_FORMAT = "%02d";
-
-    /**
-     * The format to output seconds in the CSV format.
-     */
-    private static final String SECONDS_OUTPUT_FORMAT = "%02d";
-
-    /**
-     * The delimiter between hours and minutes, minutes and seconds in the CSV file.
-     */
-    private static final String TIME_DELIMETER = ":";
-
     /**
      * One of data formats used in sas7bdat files, corresponds to yyyy-MM-dd.
      */
@@ -95,22 +65,6 @@ public class CSVDataWriterImpl extends AbstractCSVWriter implements CSVDataWrite
      */
     private static final String DATE_TIME_FORMAT = "DATETIME";
 
-    /**
-     * The date formats to store the hour, minutes, seconds, and milliseconds. Appear in the data of
-     * the {@link SasFileParser.FormatAndLabelSubheader} subheader and are stored in {@link Column#format}.
-     */
-    private static final List<String> TIME_FORMAT_STRINGS = Arrays.asList("TIME", "HHMM");
-
-    /**
-     * The number of seconds in a minute.
-     */
-    private static final int SECONDS_IN_MINUTE = 60;
-
-    /**
-     * The number of minutes in an hour.
-     */
-    private static final int MINUTES_IN_HOUR = 60;
-
     /**
      * Encoding used to convert byte arrays to string.
      */
@@ -181,51 +135,17 @@ public class CSVDataWriterImpl extends AbstractCSVWriter implements CSVDataWrite
     }
 
     /**
-     * The function to convert time without a date (hour, minute, second) from the sas7bdat file format
-     * (which is the number of seconds elapsed from the midnight) into a string of the format set by the constants:
-     * {@link CSVDataWriterImpl#HOURS_OUTPUT_FORMAT}, {@link CSVDataWriterImpl#MINUTES_OUTPUT_FORMAT},
-     * {@link CSVDataWriterImpl#SECONDS_OUTPUT_FORMAT}, and {@link CSVDataWriterImpl#TIME_DELIMETER}.
-     *
-     * @param secondsFromMidnight the number of seconds elapsed from the midnight.
-     * @return the string of time in the format set by constants.
-     */
-    private static String convertTimeElementToString(Long secondsFromMidnight) {
-        return String.format(HOURS_OUTPUT_FORMAT, secondsFromMidnight / SECONDS_IN_MINUTE / MINUTES_IN_HOUR)
-                + TIME_DELIMETER
-                + String.format(MINUTES_OUTPUT_FORMAT, secondsFromMidnight / SECONDS_IN_MINUTE % MINUTES_IN_HOUR)
-                + TIME_DELIMETER
-                + String.format(SECONDS_OUTPUT_FORMAT, secondsFromMidnight % SECONDS_IN_MINUTE);
-    }
-
-    /**
-     * The function to convert a double value into a string. If the text presentation of the double is longer
-     * than {@link CSVDataWriterImpl#ROUNDING_LENGTH}, the rounded off value of the double includes
-     * the {@link CSVDataWriterImpl#ACCURACY} number of digits from the first non-zero value.
-     *
-     * @param value the input numeric value to convert.
-     * @return the string with the text presentation of the input numeric value.
-     */
-    private static String convertDoubleElementToString(Double value) {
-        String valueToPrint = String.valueOf(value);
-        if (valueToPrint.length() > ROUNDING_LENGTH) {
-            int lengthBeforeDot = (int) Math.ceil(Math.log10(Math.abs(value)));
-            BigDecimal bigDecimal = new BigDecimal(value);
-            bigDecimal = bigDecimal.setScale(ACCURACY - lengthBeforeDot, BigDecimal.ROUND_HALF_UP);
-            valueToPrint = String.valueOf(bigDecimal.doubleValue());
-        }
-        valueToPrint = trimZerosFromEnd(valueToPrint);
-        return valueToPrint;
-    }
-
-    /**
-     * The function to remove trailing zeros from the decimal part of the numerals represented by a string.
-     * If there are no digits after the point, the point is deleted as well.
+     * The function to check whether a value is a date or a datetime read with
+     * {@link com.epam.parso.TemporalOutput#EPOCH}: an {@link Integer} number of days in a column of a date format or
+     * a {@link Long} number of milliseconds in a column of a datetime format.
      *
-     * @param string the input string trailing zeros.
-     * @return the string without trailing zeros.
+     * @param value  the value.
+     * @param format the format of the column.
+     * @return true if the value is written as a date.
      */
-    private static String trimZerosFromEnd(String string) {
-        return string.contains(".") ? string.replaceAll("0*$", "").replaceAll("\\.$", "") : string;
+    private static boolean isEpochTemporal(Object value, String format) {
+        return (value instanceof Integer && SasFileConstants.DATE_FORMAT_STRINGS.contains(format))
+                || (value instanceof Long && SasFileConstants.DATE_TIME_FORMAT_STRINGS.contains(format));
     }
 
     /**
@@ -313,13 +233,18 @@ public class CSVDataWriterImpl extends AbstractCSVWriter implements CSVDataWrite
             if (row[currentColumnIndex].getClass() == Date.class) {
                 valueToPrint = convertDateElementToString((Date) row[currentColumnIndex],
                         columns.get(currentColumnIndex).getFormat());
+            } else if (row[currentColumnIndex] instanceof LocalDate
+                    || row[currentColumnIndex] instanceof LocalDateTime
+                    || isEpochTemporal(row[currentColumnIndex], columns.get(currentColumnIndex).getFormat())) {
+                valueToPrint = convertDateElementToString(new Date(ByteDecoder.toEpochMillisecond(
+                        row[currentColumnIndex])), columns.get(currentColumnIndex).getFormat());
             } else {
-                if (TIME_FORMAT_STRINGS.contains(columns.get(currentColumnIndex).getFormat())) {
-                    valueToPrint = convertTimeElementToString((Long) row[currentColumnIndex]);
+                if (DataWriterUtil.TIME_FORMAT_STRINGS.contains(columns.get(currentColumnIndex).getFormat())) {
+                    valueToPrint = DataWriterUtil.convertTimeElementToString((Long) row[currentColumnIndex]);
                 } else {
                     valueToPrint = String.valueOf(row[currentColumnIndex]);
                     if (row[currentColumnIndex].getClass() == Double.class) {
-                        valueToPrint = convertDoubleElementToString((Double) row[currentColumnIndex]);
+                        valueToPrint = DataWriterUtil.convertDoubleElementToString((Double) row[currentColumnIndex]);
                     }
                 }
             }
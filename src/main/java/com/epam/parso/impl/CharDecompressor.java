@@ -19,6 +19,8 @@ package com.epam.parso.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+
 /**
  * Implementation of the CHAR compression algorithm which corresponds to the literal "SASYZCRL".
  * Refer the documentation for further details.
@@ -49,11 +51,12 @@ final class CharDecompressor implements Decompressor {
      * @param length       the length of bytes array that contains compressed data.
      * @param resultLength the length of bytes array that contains decompressed data.
      * @param page         an array of bytes with compressed data.
+     * @param result       the array to store decompressed data in, or null to store them in a new array.
      * @return an array of bytes with decompressed data.
      */
     @Override
-    public byte[] decompressRow(int offset, int length, int resultLength, byte[] page) {
-        byte[] resultByteArray = new byte[resultLength];
+    public byte[] decompressRow(int offset, int length, int resultLength, byte[] page, byte[] result) {
+        byte[] resultByteArray = result == null ? new byte[resultLength] : result;
         int currentResultArrayIndex = 0;
         int currentByteIndex = 0;
         while (currentByteIndex < length) {
@@ -137,7 +140,9 @@ final class CharDecompressor implements Decompressor {
             }
             currentByteIndex++;
         }
-
+        if (result != null && currentResultArrayIndex < resultLength) {
+            Arrays.fill(resultByteArray, currentResultArrayIndex, resultLength, (byte) 0);
+        }
         return resultByteArray;
     }
 
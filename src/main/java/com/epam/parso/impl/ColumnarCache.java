@@ -0,0 +1,275 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.ColumnarTable;
+import com.epam.parso.SasFileProperties;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.zip.CRC32;
+
+/**
+ * A cache of the decoded rows of sas7bdat files in a directory. When a sas7bdat file is opened for the first time,
+ * its rows are decoded once and written to a columnar file in the directory; later opens of the same sas7bdat file
+ * read only its header and serve the rows from the memory-mapped columnar file without decompressing and decoding
+ * the pages. The columnar files are keyed on the size, the date of the last modification and the hash of the header
+ * of the sas7bdat file, so a changed sas7bdat file is decoded again. When the files in the directory exceed
+ * the maximum size, the least recently opened ones are deleted.
+ * <p>
+ * The character values are decoded with the default encoding of {@link SasFileReaderImpl}. The tables opened by
+ * the cache should be closed when they are not used any more.
+ */
+public final class ColumnarCache {
+    /**
+     * The extension of the columnar files in the directory of the cache.
+     */
+    public static final String FILE_EXTENSION = ".pcol";
+
+    /**
+     * The directory of the cache.
+     */
+    private final File directory;
+
+    /**
+     * The maximum total size of the columnar files in the directory.
+     */
+    private final long maxSize;
+
+    /**
+     * The number of opens served from a columnar file written before.
+     */
+    private long hitCount;
+
+    /**
+     * The number of opens which decoded the sas7bdat file.
+     */
+    private long missCount;
+
+    /**
+     * The number of columnar files deleted to keep the cache within its maximum size.
+     */
+    private long evictionCount;
+
+    /**
+     * The constructor of a cache in a directory, the directory is created when the first file is written.
+     *
+     * @param directory the directory of the cache, it can be the directory of the sas7bdat files.
+     * @param maxSize   the maximum total size of the columnar files in the directory in bytes.
+     */
+    public ColumnarCache(File directory, long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The maximum size of the cache must be positive: " + maxSize);
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The function to open the decoded rows of a sas7bdat file, decoding the file and writing its columnar file
+     * if the cache does not have an up-to-date one.
+     *
+     * @param sasFile the sas7bdat file.
+     * @return the table of the rows.
+     * @throws IOException if reading the sas7bdat file or reading or writing the columnar file is impossible.
+     */
+    public ColumnarTable open(File sasFile) throws IOException {
+        InputStream inputStream = new FileInputStream(sasFile);
+        try {
+            SasFileParser parser = new SasFileParser.Builder().sasFileStream(inputStream).build();
+            SasFileProperties sasFileProperties = parser.getSasFileProperties();
+            long headerHash = getHeaderHash(sasFile, sasFileProperties.getHeaderLength());
+            File cacheFile = new File(directory, getCacheFileName(sasFile, sasFileProperties, headerHash));
+            if (cacheFile.isFile()) {
+                try {
+                    ColumnarTable table = ColumnarFile.open(cacheFile, parser, headerHash);
+                    cacheFile.setLastModified(System.currentTimeMillis());
+                    countHit();
+                    return table;
+                } catch (IOException ignored) {
+                    cacheFile.delete();
+                }
+            }
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create the cache directory " + directory);
+            }
+            File temporaryFile = File.createTempFile("parso", ".tmp", directory);
+            try {
+                ColumnarFile.write(parser, temporaryFile, headerHash);
+                if (!temporaryFile.renameTo(cacheFile)) {
+                    throw new IOException("Cannot rename " + temporaryFile + " to " + cacheFile);
+                }
+            } finally {
+                temporaryFile.delete();
+            }
+            countMiss();
+            evict(cacheFile);
+            return ColumnarFile.open(cacheFile, parser, headerHash);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * The function to compute the hash of the header of a sas7bdat file.
+     *
+     * @param sasFile      the sas7bdat file.
+     * @param headerLength the length of the header.
+     * @return the CRC32 of the header.
+     * @throws IOException if reading the sas7bdat file is impossible.
+     */
+    private static long getHeaderHash(File sasFile, int headerLength) throws IOException {
+        byte[] header = new byte[headerLength];
+        RandomAccessFile randomAccessFile = new RandomAccessFile(sasFile, "r");
+        try {
+            randomAccessFile.readFully(header);
+        } finally {
+            randomAccessFile.close();
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(header);
+        return crc32.getValue();
+    }
+
+    /**
+     * The function to get the name of the columnar file of a sas7bdat file: the name of the sas7bdat file followed
+     * by a hash of its key.
+     *
+     * @param sasFile           the sas7bdat file.
+     * @param sasFileProperties the properties of the sas7bdat file.
+     * @param headerHash        the hash of the header of the sas7bdat file.
+     * @return the name of the columnar file.
+     */
+    private static String getCacheFileName(File sasFile, SasFileProperties sasFileProperties, long headerHash) {
+        long key = headerHash;
+        key = key * Integer.MAX_VALUE + PageDirectory.getFileSize(sasFileProperties);
+        key = key * Integer.MAX_VALUE + PageDirectory.getDateModified(sasFileProperties);
+        return String.format("%s-%016x%s", sasFile.getName(), key, FILE_EXTENSION);
+    }
+
+    /**
+     * The function to delete the least recently opened columnar files until the cache fits into its maximum size.
+     * The file which has just been written is kept even if it alone exceeds the size.
+     *
+     * @param keptFile the file which has just been written.
+     */
+    private void evict(File keptFile) {
+        File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(FILE_EXTENSION);
+            }
+        });
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                long firstModified = first.lastModified();
+                long secondModified = second.lastModified();
+                return firstModified < secondModified ? -1 : (firstModified == secondModified ? 0 : 1);
+            }
+        });
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        for (File file : files) {
+            if (size <= maxSize) {
+                break;
+            }
+            long length = file.length();
+            if (!file.equals(keptFile) && file.delete()) {
+                size -= length;
+                countEviction();
+            }
+        }
+    }
+
+    /**
+     * The function to count an open served from a columnar file written before.
+     */
+    private synchronized void countHit() {
+        hitCount++;
+    }
+
+    /**
+     * The function to count an open which decoded the sas7bdat file.
+     */
+    private synchronized void countMiss() {
+        missCount++;
+    }
+
+    /**
+     * The function to count a deleted columnar file.
+     */
+    private synchronized void countEviction() {
+        evictionCount++;
+    }
+
+    /**
+     * The function to get the directory of the cache.
+     *
+     * @return the directory.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * The function to get the maximum total size of the columnar files in the directory.
+     *
+     * @return the size in bytes.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * The function to get the number of opens served from a columnar file written before.
+     *
+     * @return the number of opens.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * The function to get the number of opens which decoded the sas7bdat file and wrote its columnar file.
+     *
+     * @return the number of opens.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * The function to get the number of columnar files deleted to keep the cache within its maximum size.
+     *
+     * @return the number of files.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+}
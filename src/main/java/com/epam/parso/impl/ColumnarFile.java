@@ -0,0 +1,504 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+import com.epam.parso.SasFileProperties;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A file of the decoded rows of a sas7bdat file stored column by column, and the table of the rows read from
+ * the memory-mapped file. The rows are stored in batches of a fixed number of rows; in a batch every column is
+ * stored as a bitmap of the missing values followed by the values: doubles for numeric columns (the number of
+ * milliseconds since the epoch for date columns) and the int codes of the values in the dictionary of the column
+ * for character columns.
+ * <p>
+ * The file begins with a header storing {@link ColumnarFile#SIGNATURE}, {@link ColumnarFile#VERSION}, the size,
+ * the date of the last modification and the hash of the header of the sas7bdat file, the number of rows,
+ * the number of rows in a batch, the number of columns and the offset of the footer. The footer stores the offsets
+ * of the batches, the kinds of the columns and the dictionaries of the character columns. The key of the sas7bdat
+ * file is compared with the one of the file when it is opened to reject stale files.
+ */
+final class ColumnarFile extends AbstractColumnarTable {
+    /**
+     * The signature at the beginning of the file ("PCOL").
+     */
+    private static final int SIGNATURE = 0x50434F4C;
+
+    /**
+     * The version of the file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The offset of the offset of the footer in the file.
+     */
+    private static final int FOOTER_OFFSET_POSITION = 48;
+
+    /**
+     * The length of the header of the file.
+     */
+    private static final int HEADER_LENGTH = 56;
+
+    /**
+     * The approximate number of bytes of the values of a batch.
+     */
+    private static final int BATCH_LENGTH = 1 << 23;
+
+    /**
+     * The length of a double value and of a word of a bitmap in bytes.
+     */
+    private static final int LONG_LENGTH = 8;
+
+    /**
+     * The length of a dictionary code in bytes.
+     */
+    private static final int INT_LENGTH = 4;
+
+    /**
+     * The shift to get the index of the word of a bitmap from the index of a row.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * The encoding of the values of the dictionaries.
+     */
+    private static final String DICTIONARY_ENCODING = "UTF-8";
+
+    /**
+     * The file opened for reading.
+     */
+    private final RandomAccessFile file;
+
+    /**
+     * The kinds of the columns.
+     */
+    private final byte[] kinds;
+
+    /**
+     * The number of rows in the table.
+     */
+    private final long rowCount;
+
+    /**
+     * The number of rows in a batch, the last batch can have fewer rows.
+     */
+    private final int batchRowCount;
+
+    /**
+     * The offsets of the bitmaps and of the values of the columns in a batch of {@link ColumnarFile#batchRowCount}
+     * rows, two per column.
+     */
+    private final int[] fullBatchOffsets;
+
+    /**
+     * The offsets of the bitmaps and of the values of the columns in the last batch, two per column.
+     */
+    private final int[] lastBatchOffsets;
+
+    /**
+     * The dictionaries of the character columns, null for numeric columns.
+     */
+    private final String[][] dictionaries;
+
+    /**
+     * The memory-mapped batches, null when the table is closed.
+     */
+    private ByteBuffer[] batches;
+
+    /**
+     * The constructor of the table of an opened file.
+     *
+     * @param file          the file opened for reading.
+     * @param columns       the {@link Column} list of the table.
+     * @param kinds         the kinds of the columns.
+     * @param rowCount      the number of rows.
+     * @param batchRowCount the number of rows in a batch.
+     */
+    private ColumnarFile(RandomAccessFile file, List<Column> columns, byte[] kinds, long rowCount,
+                         int batchRowCount) {
+        super(columns, kinds);
+        this.file = file;
+        this.rowCount = rowCount;
+        this.batchRowCount = batchRowCount;
+        this.kinds = kinds;
+        int lastBatchRowCount = (int) (rowCount - (getBatchCount(rowCount, batchRowCount) - 1) * batchRowCount);
+        fullBatchOffsets = getBatchOffsets(kinds, batchRowCount);
+        lastBatchOffsets = getBatchOffsets(kinds, lastBatchRowCount);
+        dictionaries = new String[kinds.length][];
+    }
+
+    /**
+     * The function to write the decoded rows of a sas7bdat file which are not read by the parser yet.
+     *
+     * @param parser     the parser of the sas7bdat file.
+     * @param targetFile the file to write the rows to.
+     * @param headerHash the hash of the header of the sas7bdat file.
+     * @throws IOException if reading the sas7bdat file or writing the file is impossible.
+     */
+    static void write(SasFileParser parser, File targetFile, long headerHash) throws IOException {
+        SasFileProperties sasFileProperties = parser.getSasFileProperties();
+        byte[] kinds = getKinds(parser);
+        long rowCount = sasFileProperties.getRowCount();
+        int batchRowCount = getBatchRowCount(kinds.length, rowCount);
+        long[][] missing = new long[kinds.length][getWordCount(batchRowCount)];
+        double[][] numbers = new double[kinds.length][];
+        int[][] codes = new int[kinds.length][];
+        List<Map<String, Integer>> dictionaries = new ArrayList<Map<String, Integer>>();
+        for (int column = 0; column < kinds.length; column++) {
+            if (kinds[column] == STRING) {
+                codes[column] = new int[batchRowCount];
+                dictionaries.add(new LinkedHashMap<String, Integer>());
+            } else {
+                numbers[column] = new double[batchRowCount];
+                dictionaries.add(null);
+            }
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(targetFile, "rw");
+        try {
+            randomAccessFile.setLength(0);
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(randomAccessFile.getFD())));
+            output.writeInt(SIGNATURE);
+            output.writeInt(VERSION);
+            output.writeLong(PageDirectory.getFileSize(sasFileProperties));
+            output.writeLong(PageDirectory.getDateModified(sasFileProperties));
+            output.writeLong(headerHash);
+            output.writeLong(rowCount);
+            output.writeInt(batchRowCount);
+            output.writeInt(kinds.length);
+            output.writeLong(0);
+            List<Long> batchOffsets = new ArrayList<Long>();
+            long position = HEADER_LENGTH;
+            Object[] row = new Object[kinds.length];
+            for (long firstRow = 0; firstRow < rowCount; firstRow += batchRowCount) {
+                int batchRows = (int) Math.min(batchRowCount, rowCount - firstRow);
+                for (long[] bitmap : missing) {
+                    Arrays.fill(bitmap, 0);
+                }
+                for (int rowInBatch = 0; rowInBatch < batchRows; rowInBatch++) {
+                    if (parser.readNext(row) == null) {
+                        Arrays.fill(row, null);
+                    }
+                    for (int column = 0; column < kinds.length; column++) {
+                        Object value = row[column];
+                        if (value == null) {
+                            missing[column][rowInBatch >>> WORD_SHIFT] |= 1L << rowInBatch;
+                        } else if (kinds[column] == STRING) {
+                            codes[column][rowInBatch] = getCode(dictionaries.get(column), (String) value);
+                        } else {
+                            numbers[column][rowInBatch] = toStoredDouble(kinds[column], value);
+                        }
+                    }
+                }
+                batchOffsets.add(position);
+                for (int column = 0; column < kinds.length; column++) {
+                    for (int word = 0; word < getWordCount(batchRows); word++) {
+                        output.writeLong(missing[column][word]);
+                    }
+                    for (int rowInBatch = 0; rowInBatch < batchRows; rowInBatch++) {
+                        if (kinds[column] == STRING) {
+                            output.writeInt(codes[column][rowInBatch]);
+                        } else {
+                            output.writeDouble(numbers[column][rowInBatch]);
+                        }
+                    }
+                }
+                position += getBatchOffsets(kinds, batchRows)[2 * kinds.length];
+            }
+            output.writeInt(batchOffsets.size());
+            for (long batchOffset : batchOffsets) {
+                output.writeLong(batchOffset);
+            }
+            for (int column = 0; column < kinds.length; column++) {
+                output.writeByte(kinds[column]);
+                if (kinds[column] == STRING) {
+                    output.writeInt(dictionaries.get(column).size());
+                    for (String value : dictionaries.get(column).keySet()) {
+                        byte[] bytes = value.getBytes(DICTIONARY_ENCODING);
+                        output.writeInt(bytes.length);
+                        output.write(bytes);
+                    }
+                }
+            }
+            output.flush();
+            randomAccessFile.seek(FOOTER_OFFSET_POSITION);
+            randomAccessFile.writeLong(position);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * The function to open the file of the decoded rows of a sas7bdat file and to map its batches into memory.
+     *
+     * @param sourceFile the file.
+     * @param parser     the parser of the sas7bdat file.
+     * @param headerHash the hash of the header of the sas7bdat file.
+     * @return the table of the rows.
+     * @throws IOException if reading the file is impossible, or the file is not written for the sas7bdat file or
+     *                     is stale.
+     */
+    static ColumnarFile open(File sourceFile, SasFileParser parser, long headerHash) throws IOException {
+        SasFileProperties sasFileProperties = parser.getSasFileProperties();
+        byte[] kinds = getKinds(parser);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(sourceFile, "r");
+        boolean opened = false;
+        try {
+            if (randomAccessFile.length() < HEADER_LENGTH || randomAccessFile.readInt() != SIGNATURE
+                    || randomAccessFile.readInt() != VERSION) {
+                throw new IOException("The file " + sourceFile + " is not a columnar file");
+            }
+            if (randomAccessFile.readLong() != PageDirectory.getFileSize(sasFileProperties)
+                    || randomAccessFile.readLong() != PageDirectory.getDateModified(sasFileProperties)
+                    || randomAccessFile.readLong() != headerHash
+                    || randomAccessFile.readLong() != sasFileProperties.getRowCount()) {
+                throw new IOException("The columnar file " + sourceFile + " is stale, the sas7bdat file is changed");
+            }
+            int batchRowCount = randomAccessFile.readInt();
+            int columnCount = randomAccessFile.readInt();
+            long footerOffset = randomAccessFile.readLong();
+            if (batchRowCount <= 0 || columnCount != kinds.length || footerOffset < HEADER_LENGTH
+                    || footerOffset >= randomAccessFile.length()) {
+                throw new IOException("The columnar file " + sourceFile + " is incomplete");
+            }
+            ColumnarFile table = new ColumnarFile(randomAccessFile, parser.getColumns(), kinds,
+                    sasFileProperties.getRowCount(), batchRowCount);
+            randomAccessFile.seek(footerOffset);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(randomAccessFile.getFD())));
+            long[] batchOffsets = new long[input.readInt() + 1];
+            if (batchOffsets.length - 1 != getBatchCount(table.rowCount, batchRowCount)) {
+                throw new IOException("The columnar file " + sourceFile + " is incomplete");
+            }
+            for (int batch = 0; batch < batchOffsets.length - 1; batch++) {
+                batchOffsets[batch] = input.readLong();
+            }
+            batchOffsets[batchOffsets.length - 1] = footerOffset;
+            for (int column = 0; column < kinds.length; column++) {
+                if (input.readByte() != kinds[column]) {
+                    throw new IOException("The columnar file " + sourceFile + " is stale, the columns are changed");
+                }
+                if (kinds[column] == STRING) {
+                    String[] dictionary = new String[input.readInt()];
+                    for (int code = 0; code < dictionary.length; code++) {
+                        byte[] bytes = new byte[input.readInt()];
+                        input.readFully(bytes);
+                        dictionary[code] = new String(bytes, DICTIONARY_ENCODING);
+                    }
+                    table.dictionaries[column] = dictionary;
+                }
+            }
+            table.batches = new ByteBuffer[batchOffsets.length - 1];
+            for (int batch = 0; batch < table.batches.length; batch++) {
+                long length = batchOffsets[batch + 1] - batchOffsets[batch];
+                if (length != table.getOffsets(batch)[2 * kinds.length]) {
+                    throw new IOException("The columnar file " + sourceFile + " is corrupted");
+                }
+                table.batches[batch] = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                        batchOffsets[batch], length);
+            }
+            opened = true;
+            return table;
+        } finally {
+            if (!opened) {
+                randomAccessFile.close();
+            }
+        }
+    }
+
+    /**
+     * The function to get the number of rows in a batch, a multiple of the number of bits in a word of a bitmap
+     * chosen to keep the values of a batch about {@link ColumnarFile#BATCH_LENGTH} bytes long.
+     *
+     * @param columnCount the number of columns.
+     * @param rowCount    the number of rows.
+     * @return the number of rows in a batch.
+     */
+    private static int getBatchRowCount(int columnCount, long rowCount) {
+        long batchRowCount = Math.min(rowCount, BATCH_LENGTH / Math.max(1, (long) columnCount * LONG_LENGTH));
+        return (int) Math.max(Long.SIZE, (batchRowCount + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+    }
+
+    /**
+     * The function to get the number of batches.
+     *
+     * @param rowCount      the number of rows.
+     * @param batchRowCount the number of rows in a batch.
+     * @return the number of batches.
+     */
+    private static long getBatchCount(long rowCount, int batchRowCount) {
+        return (rowCount + batchRowCount - 1) / batchRowCount;
+    }
+
+    /**
+     * The function to get the number of words of a bitmap.
+     *
+     * @param rowCount the number of rows in the bitmap.
+     * @return the number of words.
+     */
+    private static int getWordCount(int rowCount) {
+        return (rowCount + Long.SIZE - 1) >>> WORD_SHIFT;
+    }
+
+    /**
+     * The function to compute the offsets of the bitmaps and of the values of the columns in a batch.
+     *
+     * @param kinds    the kinds of the columns.
+     * @param rowCount the number of rows in the batch.
+     * @return the offsets, two per column, followed by the length of the batch.
+     */
+    private static int[] getBatchOffsets(byte[] kinds, int rowCount) {
+        int[] offsets = new int[2 * kinds.length + 1];
+        int offset = 0;
+        for (int column = 0; column < kinds.length; column++) {
+            offsets[2 * column] = offset;
+            offset += getWordCount(rowCount) * LONG_LENGTH;
+            offsets[2 * column + 1] = offset;
+            offset += rowCount * (kinds[column] == STRING ? INT_LENGTH : LONG_LENGTH);
+        }
+        offsets[2 * kinds.length] = offset;
+        return offsets;
+    }
+
+    /**
+     * The function to get the code of a value in the dictionary of a character column, the value is added to
+     * the dictionary if it is not there yet.
+     *
+     * @param dictionary the dictionary.
+     * @param value      the value.
+     * @return the code.
+     */
+    private static int getCode(Map<String, Integer> dictionary, String value) {
+        Integer code = dictionary.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.put(value, code);
+        }
+        return code;
+    }
+
+    /**
+     * The function to get the offsets of the bitmaps and of the values of the columns in a batch.
+     *
+     * @param batch the index of the batch.
+     * @return the offsets, two per column, followed by the length of the batch.
+     */
+    private int[] getOffsets(long batch) {
+        return batch == getBatchCount(rowCount, batchRowCount) - 1 ? lastBatchOffsets : fullBatchOffsets;
+    }
+
+    /**
+     * The function to get the batch of a row.
+     *
+     * @param rowIndex the index of the row.
+     * @return the memory-mapped batch.
+     */
+    private ByteBuffer getBatch(long rowIndex) {
+        ByteBuffer[] mappedBatches = batches;
+        if (mappedBatches == null) {
+            throw new IllegalStateException("The columnar table is closed");
+        }
+        if (rowIndex < 0 || rowIndex >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + rowIndex + " of " + rowCount);
+        }
+        return mappedBatches[(int) (rowIndex / batchRowCount)];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMissing(long rowIndex, int columnIndex) {
+        ByteBuffer batch = getBatch(rowIndex);
+        int rowInBatch = (int) (rowIndex % batchRowCount);
+        int bitmapOffset = getOffsets(rowIndex / batchRowCount)[2 * columnIndex];
+        return (batch.getLong(bitmapOffset + (rowInBatch >>> WORD_SHIFT) * LONG_LENGTH) & (1L << rowInBatch)) != 0;
+    }
+
+    /**
+     * The function to get the offset of a value in its batch.
+     *
+     * @param rowIndex    the index of the row.
+     * @param columnIndex the index of the column.
+     * @return the offset.
+     */
+    private int getValueOffset(long rowIndex, int columnIndex) {
+        int rowInBatch = (int) (rowIndex % batchRowCount);
+        int valuesOffset = getOffsets(rowIndex / batchRowCount)[2 * columnIndex + 1];
+        return valuesOffset + rowInBatch * (kinds[columnIndex] == STRING ? INT_LENGTH : LONG_LENGTH);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    double getStoredDouble(long rowIndex, int columnIndex) {
+        return getBatch(rowIndex).getDouble(getValueOffset(rowIndex, columnIndex));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    String getStoredString(long rowIndex, int columnIndex) {
+        return dictionaries[columnIndex][getBatch(rowIndex).getInt(getValueOffset(rowIndex, columnIndex))];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    boolean isClosed() {
+        return batches == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * The method to release the mapped batches and to close the file, the file is not deleted.
+     *
+     * @throws IOException if closing the file is impossible.
+     */
+    @Override
+    public void close() throws IOException {
+        batches = null;
+        file.close();
+    }
+}
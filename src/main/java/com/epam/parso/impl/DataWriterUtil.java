@@ -0,0 +1,162 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This is a class to store functions which convert values of sas7bdat cells into text and which are shared
+ * by the data writers of all export formats ({@link CSVDataWriterImpl}, {@link JSONLDataWriterImpl}).
+ */
+final class DataWriterUtil {
+    /**
+     * If the number of digits in a double value exceeds a given constant, it rounds off.
+     */
+    private static final int ROUNDING_LENGTH = 13;
+
+    /**
+     * The number of digits starting from the first non-zero value, used to round doubles.
+     */
+    private static final int ACCURACY = 15;
+
+    /**
+     * The number of seconds in a minute.
+     */
+    private static final int SECONDS_IN_MINUTE = 60;
+
+    /**
+     * The number of minutes in an hour.
+     */
+    private static final int MINUTES_IN_HOUR = 60;
+
+    /**
+     * The number of decimal digits in a two-digit number.
+     */
+    private static final int TWO_DIGITS = 10;
+
+    /**
+     * The delimiter between hours and minutes, minutes and seconds.
+     */
+    private static final char TIME_DELIMITER = ':';
+
+    /**
+     * The date formats to store the hour, minutes, seconds, and milliseconds. Appear in the data of
+     * the {@link SasFileParser.FormatAndLabelSubheader} subheader and are stored in
+     * {@link com.epam.parso.Column#format}.
+     */
+    static final List<String> TIME_FORMAT_STRINGS = Arrays.asList("TIME", "HHMM");
+
+    /**
+     * Empty private constructor for preventing instantiation.
+     */
+    private DataWriterUtil() {
+    }
+
+    /**
+     * The function to convert time without a date (hour, minute, second) from the sas7bdat file format
+     * (which is the number of seconds elapsed from the midnight) into a string of the HH:mm:ss format.
+     *
+     * @param secondsFromMidnight the number of seconds elapsed from the midnight.
+     * @return the string of time in the HH:mm:ss format.
+     */
+    static String convertTimeElementToString(Long secondsFromMidnight) {
+        StringBuilder builder = new StringBuilder();
+        appendTime(builder, secondsFromMidnight);
+        return builder.toString();
+    }
+
+    /**
+     * The function to append time without a date (hour, minute, second) to a string builder in the HH:mm:ss
+     * format. Hours are not limited to two digits if the value exceeds a day.
+     *
+     * @param builder             the builder to append the text to.
+     * @param secondsFromMidnight the number of seconds elapsed from the midnight.
+     */
+    static void appendTime(StringBuilder builder, long secondsFromMidnight) {
+        appendTwoDigits(builder, secondsFromMidnight / SECONDS_IN_MINUTE / MINUTES_IN_HOUR);
+        builder.append(TIME_DELIMITER);
+        appendTwoDigits(builder, secondsFromMidnight / SECONDS_IN_MINUTE % MINUTES_IN_HOUR);
+        builder.append(TIME_DELIMITER);
+        appendTwoDigits(builder, secondsFromMidnight % SECONDS_IN_MINUTE);
+    }
+
+    /**
+     * The function to append a number padded with a leading zero to at least two digits.
+     *
+     * @param builder the builder to append the text to.
+     * @param value   the number to append.
+     */
+    static void appendTwoDigits(StringBuilder builder, long value) {
+        if (value >= 0 && value < TWO_DIGITS) {
+            builder.append('0');
+        }
+        builder.append(value);
+    }
+
+    /**
+     * The function to convert a double value into a string. If the text presentation of the double is longer
+     * than {@link DataWriterUtil#ROUNDING_LENGTH}, the rounded off value of the double includes
+     * the {@link DataWriterUtil#ACCURACY} number of digits from the first non-zero value.
+     *
+     * @param value the input numeric value to convert.
+     * @return the string with the text presentation of the input numeric value.
+     */
+    static String convertDoubleElementToString(Double value) {
+        return trimZerosFromEnd(roundDouble(value));
+    }
+
+    /**
+     * The function to round a double value to {@link DataWriterUtil#ACCURACY} significant digits if its text
+     * presentation is longer than {@link DataWriterUtil#ROUNDING_LENGTH}.
+     *
+     * @param value the input numeric value to convert.
+     * @return the text presentation of the rounded value.
+     */
+    static String roundDouble(double value) {
+        String valueToPrint = String.valueOf(value);
+        if (valueToPrint.length() > ROUNDING_LENGTH) {
+            int lengthBeforeDot = (int) Math.ceil(Math.log10(Math.abs(value)));
+            BigDecimal bigDecimal = new BigDecimal(value);
+            bigDecimal = bigDecimal.setScale(ACCURACY - lengthBeforeDot, BigDecimal.ROUND_HALF_UP);
+            valueToPrint = String.valueOf(bigDecimal.doubleValue());
+        }
+        return valueToPrint;
+    }
+
+    /**
+     * The function to remove trailing zeros from the decimal part of the numerals represented by a string.
+     * If there are no digits after the point, the point is deleted as well.
+     *
+     * @param string the input string trailing zeros.
+     * @return the string without trailing zeros.
+     */
+    static String trimZerosFromEnd(String string) {
+        if (string.indexOf('.') < 0) {
+            return string;
+        }
+        int end = string.length();
+        while (end > 0 && string.charAt(end - 1) == '0') {
+            end--;
+        }
+        if (end > 0 && string.charAt(end - 1) == '.') {
+            end--;
+        }
+        return string.substring(0, end);
+    }
+}
@@ -29,7 +29,9 @@ interface Decompressor {
      * @param srcLength    the length of bytes array that contains compressed data.
      * @param resultLength the length of bytes array that contains decompressed data.
      * @param page         an array of bytes with compressed data.
+     * @param result       the array of at least <code>resultLength</code> bytes to store decompressed data in, its
+     *                     previous content is overwritten, or null to store them in a new array.
      * @return an array of bytes with decompressed data.
      */
-    byte[] decompressRow(int offset, int srcLength, int resultLength, byte[] page);
+    byte[] decompressRow(int offset, int srcLength, int resultLength, byte[] page, byte[] result);
 }
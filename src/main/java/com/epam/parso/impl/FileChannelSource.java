@@ -0,0 +1,81 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.RandomAccessSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link RandomAccessSource} of a local sas7bdat file read with positioned reads of its channel, which do not
+ * change the position of the channel.
+ */
+public final class FileChannelSource implements RandomAccessSource {
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The constructor of the source of a file which is opened for reading.
+     *
+     * @param file the file.
+     * @throws IOException if opening the file is impossible.
+     */
+    public FileChannelSource(File file) throws IOException {
+        this(new RandomAccessFile(file, "r").getChannel());
+    }
+
+    /**
+     * The constructor of the source of an open channel, the channel is closed when the source is closed.
+     *
+     * @param channel the channel of the file.
+     */
+    public FileChannelSource(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(long position, byte[] buffer, int offset, int length) throws IOException {
+        return channel.read(ByteBuffer.wrap(buffer, offset, length), position);
+    }
+
+    /**
+     * The method to close the channel of the file.
+     *
+     * @throws IOException if closing the channel is impossible.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
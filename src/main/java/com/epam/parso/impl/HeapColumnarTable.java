@@ -0,0 +1,256 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A columnar table of the rows of a sas7bdat file held on the heap in primitive arrays: doubles for numeric
+ * columns, longs with the number of milliseconds since the epoch for date columns, and int codes for character
+ * columns whose distinct values are stored once in a dictionary built while the rows are read. Every column has
+ * a bitmap of its missing values. The table takes a fraction of the memory of the rows returned by
+ * {@link SasFileReaderImpl#readAll()}.
+ */
+final class HeapColumnarTable extends AbstractColumnarTable {
+    /**
+     * The shift to get the index of the word of a bitmap from the index of a row.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * The bitmaps of the missing values of the columns.
+     */
+    private long[][] missing;
+
+    /**
+     * The values of the numeric columns other than dates, null for the other columns.
+     */
+    private double[][] numbers;
+
+    /**
+     * The values of the date columns, null for the other columns.
+     */
+    private long[][] dates;
+
+    /**
+     * The codes of the values of the character columns in their dictionaries, null for the other columns.
+     */
+    private int[][] codes;
+
+    /**
+     * The dictionaries of the character columns, null for the other columns.
+     */
+    private String[][] dictionaries;
+
+    /**
+     * The number of rows in the table.
+     */
+    private int rowCount;
+
+    /**
+     * The constructor of an empty table.
+     *
+     * @param columns the {@link Column} list of the table.
+     * @param kinds   the kinds of the columns.
+     */
+    private HeapColumnarTable(List<Column> columns, byte[] kinds) {
+        super(columns, kinds);
+    }
+
+    /**
+     * The function to read the rows of a sas7bdat file which are not read by the parser yet into a table.
+     *
+     * @param parser the parser of the sas7bdat file.
+     * @return the table.
+     * @throws IOException if reading the sas7bdat file is impossible.
+     */
+    static HeapColumnarTable read(SasFileParser parser) throws IOException {
+        byte[] kinds = getKinds(parser);
+        long expectedRowCount = parser.getSasFileProperties().getRowCount();
+        if (expectedRowCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The file has too many rows for a table on the heap: "
+                    + expectedRowCount);
+        }
+        int capacity = (int) expectedRowCount;
+        HeapColumnarTable table = new HeapColumnarTable(parser.getColumns(), kinds);
+        table.missing = new long[kinds.length][getWordCount(capacity)];
+        table.numbers = new double[kinds.length][];
+        table.dates = new long[kinds.length][];
+        table.codes = new int[kinds.length][];
+        List<Map<String, Integer>> codesByValue = new ArrayList<Map<String, Integer>>();
+        List<List<String>> values = new ArrayList<List<String>>();
+        for (int column = 0; column < kinds.length; column++) {
+            if (kinds[column] == STRING) {
+                table.codes[column] = new int[capacity];
+                codesByValue.add(new HashMap<String, Integer>());
+                values.add(new ArrayList<String>());
+            } else {
+                if (kinds[column] == DATE) {
+                    table.dates[column] = new long[capacity];
+                } else {
+                    table.numbers[column] = new double[capacity];
+                }
+                codesByValue.add(null);
+                values.add(null);
+            }
+        }
+        Object[] row = new Object[kinds.length];
+        int rowIndex = 0;
+        while (rowIndex < capacity && parser.readNext(row) != null) {
+            for (int column = 0; column < kinds.length; column++) {
+                Object value = row[column];
+                if (value == null) {
+                    table.missing[column][rowIndex >>> WORD_SHIFT] |= 1L << rowIndex;
+                } else if (kinds[column] == STRING) {
+                    if (!(value instanceof CharSequence)) {
+                        throw new IllegalStateException("The character values are read as bytes, a columnar table "
+                                + "needs strings");
+                    }
+                    String string = value.toString();
+                    Integer code = codesByValue.get(column).get(string);
+                    if (code == null) {
+                        code = values.get(column).size();
+                        codesByValue.get(column).put(string, code);
+                        values.get(column).add(string);
+                    }
+                    table.codes[column][rowIndex] = code;
+                } else if (kinds[column] == DATE) {
+                    table.dates[column][rowIndex] = (long) toStoredDouble(kinds[column], value);
+                } else {
+                    table.numbers[column][rowIndex] = toStoredDouble(kinds[column], value);
+                }
+            }
+            rowIndex++;
+        }
+        table.rowCount = rowIndex;
+        table.dictionaries = new String[kinds.length][];
+        for (int column = 0; column < kinds.length; column++) {
+            if (values.get(column) != null) {
+                table.dictionaries[column] = values.get(column).toArray(new String[values.get(column).size()]);
+            }
+        }
+        if (rowIndex < capacity) {
+            table.trim();
+        }
+        return table;
+    }
+
+    /**
+     * The function to get the number of words of a bitmap.
+     *
+     * @param rowCount the number of rows in the bitmap.
+     * @return the number of words.
+     */
+    private static int getWordCount(int rowCount) {
+        return (int) (((long) rowCount + Long.SIZE - 1) >>> WORD_SHIFT);
+    }
+
+    /**
+     * The method to shrink the arrays of the columns to the number of rows read.
+     */
+    private void trim() {
+        for (int column = 0; column < missing.length; column++) {
+            missing[column] = Arrays.copyOf(missing[column], getWordCount(rowCount));
+            if (numbers[column] != null) {
+                numbers[column] = Arrays.copyOf(numbers[column], rowCount);
+            }
+            if (dates[column] != null) {
+                dates[column] = Arrays.copyOf(dates[column], rowCount);
+            }
+            if (codes[column] != null) {
+                codes[column] = Arrays.copyOf(codes[column], rowCount);
+            }
+        }
+    }
+
+    /**
+     * The function to check the index of a row and that the table is open.
+     *
+     * @param rowIndex the index of the row.
+     * @return the index of the row as int.
+     */
+    private int checkRow(long rowIndex) {
+        if (missing == null) {
+            throw new IllegalStateException("The columnar table is closed");
+        }
+        if (rowIndex < 0 || rowIndex >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + rowIndex + " of " + rowCount);
+        }
+        return (int) rowIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMissing(long rowIndex, int columnIndex) {
+        int row = checkRow(rowIndex);
+        return (missing[columnIndex][row >>> WORD_SHIFT] & (1L << row)) != 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    double getStoredDouble(long rowIndex, int columnIndex) {
+        int row = checkRow(rowIndex);
+        return getKind(columnIndex) == DATE ? dates[columnIndex][row] : numbers[columnIndex][row];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    String getStoredString(long rowIndex, int columnIndex) {
+        return dictionaries[columnIndex][codes[columnIndex][checkRow(rowIndex)]];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    boolean isClosed() {
+        return missing == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * The method to release the arrays of the table.
+     */
+    @Override
+    public void close() {
+        missing = null;
+        numbers = null;
+        dates = null;
+        codes = null;
+        dictionaries = null;
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.RandomAccessSource;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * A {@link RandomAccessSource} of a remote sas7bdat file read with HTTP range requests, for example from an object
+ * store. Adjacent reads are coalesced: every request fetches at least {@link HttpRangeSource#requestSize} bytes into
+ * a block, and the following reads within the block are served from memory, so reading the pages one after
+ * another costs one request per block instead of one request per page.
+ */
+public final class HttpRangeSource implements RandomAccessSource {
+    /**
+     * The default minimum number of bytes fetched by a request.
+     */
+    public static final int DEFAULT_REQUEST_SIZE = 1 << 20;
+
+    /**
+     * The URL of the file.
+     */
+    private final URL url;
+
+    /**
+     * The minimum number of bytes fetched by a request.
+     */
+    private final int requestSize;
+
+    /**
+     * The number of bytes of the file, -1 until the first range is fetched.
+     */
+    private long size = -1;
+
+    /**
+     * The bytes fetched by the last request.
+     */
+    private byte[] block = new byte[0];
+
+    /**
+     * The position in the file of the first byte of {@link HttpRangeSource#block}.
+     */
+    private long blockPosition;
+
+    /**
+     * The number of bytes fetched to {@link HttpRangeSource#block}.
+     */
+    private int blockLength;
+
+    /**
+     * The number of range requests sent.
+     */
+    private long requestCount;
+
+    /**
+     * The constructor of the source of a remote file fetched in blocks of at least
+     * {@link HttpRangeSource#DEFAULT_REQUEST_SIZE} bytes.
+     *
+     * @param url the URL of the file, the server must support range requests.
+     */
+    public HttpRangeSource(URL url) {
+        this(url, DEFAULT_REQUEST_SIZE);
+    }
+
+    /**
+     * The constructor of the source of a remote file fetched in blocks of at least the given number of bytes.
+     *
+     * @param url         the URL of the file, the server must support range requests.
+     * @param requestSize the minimum number of bytes fetched by a request.
+     */
+    public HttpRangeSource(URL url, int requestSize) {
+        if (requestSize < 1) {
+            throw new IllegalArgumentException("The size of a request must be positive: " + requestSize);
+        }
+        this.url = url;
+        this.requestSize = requestSize;
+    }
+
+    /**
+     * {@inheritDoc} The size is taken from the Content-Range header of the response to the first request, which
+     * fetches the block at the beginning of the file if no block is fetched yet.
+     */
+    @Override
+    public synchronized long size() throws IOException {
+        if (size < 0) {
+            fetch(0, requestSize);
+        }
+        return size;
+    }
+
+    /**
+     * {@inheritDoc} If the position is outside of the last fetched block, a block starting at the position is
+     * fetched with a range request.
+     */
+    @Override
+    public synchronized int read(long position, byte[] buffer, int offset, int length) throws IOException {
+        if (position < blockPosition || position >= blockPosition + blockLength) {
+            if (position >= size()) {
+                return -1;
+            }
+            fetch(position, (int) Math.min(Math.max(length, requestSize), size - position));
+        }
+        int count = (int) Math.min(length, blockPosition + blockLength - position);
+        System.arraycopy(block, (int) (position - blockPosition), buffer, offset, count);
+        return count;
+    }
+
+    /**
+     * The function to fetch a range of the file to {@link HttpRangeSource#block}. The block is replaced only if
+     * the whole range reported by the Content-Range header of the response is read, if the request fails or
+     * the response is truncated the block is left empty.
+     *
+     * @param position the position of the first byte of the range.
+     * @param length   the number of bytes of the range.
+     * @throws IOException if the request fails or the server does not support range requests.
+     */
+    private void fetch(long position, int length) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestProperty("Range", "bytes=" + position + "-" + (position + length - 1));
+        requestCount++;
+        if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+            throw new IOException("Cannot fetch the range at " + position + " of " + url + ", response code "
+                    + connection.getResponseCode());
+        }
+        String contentRange = connection.getHeaderField("Content-Range");
+        int slash = contentRange == null ? -1 : contentRange.lastIndexOf('/');
+        if (slash < 0 || "*".equals(contentRange.substring(slash + 1).trim())) {
+            throw new IOException("The server does not report the size of " + url);
+        }
+        long fileSize;
+        long rangeLength;
+        try {
+            fileSize = Long.parseLong(contentRange.substring(slash + 1).trim());
+            String range = contentRange.substring(contentRange.indexOf(' ') + 1, slash).trim();
+            int dash = range.indexOf('-');
+            rangeLength = Long.parseLong(range.substring(dash + 1)) - Long.parseLong(range.substring(0, dash)) + 1;
+        } catch (NumberFormatException ex) {
+            throw new IOException("Invalid Content-Range header of " + url + ": " + contentRange, ex);
+        } catch (IndexOutOfBoundsException ex) {
+            throw new IOException("Invalid Content-Range header of " + url + ": " + contentRange, ex);
+        }
+        if (block.length < length) {
+            block = new byte[length];
+        }
+        blockLength = 0;
+        int fetchedLength = 0;
+        InputStream input = connection.getInputStream();
+        try {
+            while (fetchedLength < length) {
+                int count = input.read(block, fetchedLength, length - fetchedLength);
+                if (count < 0) {
+                    break;
+                }
+                fetchedLength += count;
+            }
+        } finally {
+            input.close();
+        }
+        if (fetchedLength == 0) {
+            throw new EOFException("The range at " + position + " of " + url + " is empty");
+        }
+        if (fetchedLength < Math.min(length, rangeLength)) {
+            throw new EOFException("The range at " + position + " of " + url + " is truncated after "
+                    + fetchedLength + " bytes");
+        }
+        size = fileSize;
+        blockPosition = position;
+        blockLength = fetchedLength;
+    }
+
+    /**
+     * The function to get the number of range requests sent by the source.
+     *
+     * @return the number of requests.
+     */
+    public synchronized long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * The method to release the last fetched block.
+     */
+    @Override
+    public synchronized void close() {
+        block = new byte[0];
+        blockLength = 0;
+    }
+}
@@ -0,0 +1,450 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+import com.epam.parso.JSONLDataWriter;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This is a class to export the sas7bdat file data into the JSON Lines format. Every row is written as one JSON
+ * object on its own line; missing values are written as null, dates and datetimes as ISO-8601 strings.
+ * The encoding plan (the kind of every column and its escaped key) is built once per column list, and the row
+ * buffers are reused, so the memory used by the writer is bounded by the length of the longest row.
+ * The writer does not flush the underlying {@link Writer} after every row, it is flushed after
+ * {@link JSONLDataWriterImpl#writeRowsArray(List, Object[][])} only.
+ */
+public class JSONLDataWriterImpl implements JSONLDataWriter {
+    /**
+     * The default endline for JSON Lines file.
+     */
+    private static final String DEFAULT_ENDLINE = "\n";
+
+    /**
+     * Encoding used to convert byte arrays to string.
+     */
+    private static final String ENCODING = "CP1252";
+
+    /**
+     * The literal written for missing values.
+     */
+    private static final String NULL_LITERAL = "null";
+
+    /**
+     * The number of milliseconds in a day.
+     */
+    private static final long MILLISECONDS_IN_DAY = 86400000L;
+
+    /**
+     * The number of milliseconds in a second.
+     */
+    private static final int MILLISECONDS_IN_SECOND = 1000;
+
+    /**
+     * The number of seconds in a minute.
+     */
+    private static final int SECONDS_IN_MINUTE = 60;
+
+    /**
+     * The number of minutes in an hour.
+     */
+    private static final int MINUTES_IN_HOUR = 60;
+
+    /**
+     * The shift between 0000-03-01 and 1970-01-01 in days, used by the civil calendar conversion.
+     */
+    private static final long DAYS_FROM_CIVIL_EPOCH = 719468L;
+
+    /**
+     * The number of days in a 400 years era of the Gregorian calendar.
+     */
+    private static final long DAYS_IN_ERA = 146097L;
+
+    /**
+     * The first character code which does not have to be escaped in JSON strings.
+     */
+    private static final char FIRST_PRINTABLE_CHARACTER = 0x20;
+
+    /**
+     * The hexadecimal digits used to escape control characters.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * The variable to output JSON Lines file.
+     */
+    private final Writer writer;
+
+    /**
+     * The endline for JSON Lines file.
+     */
+    private final String endline;
+
+    /**
+     * The buffer to build the text of the current row, reused for all rows.
+     */
+    private final StringBuilder rowBuffer = new StringBuilder();
+
+    /**
+     * The buffer to pass the text of the current row to {@link JSONLDataWriterImpl#writer}, reused for all rows.
+     */
+    private char[] outputBuffer = new char[0];
+
+    /**
+     * The columns list the encoding plan is built for.
+     */
+    private List<Column> plannedColumns;
+
+    /**
+     * The escaped keys of the columns with the quotes, the colon and the separating comma: {"name": or ,"name":.
+     */
+    private String[] columnKeys;
+
+    /**
+     * The kinds of the columns defining how their values are encoded.
+     */
+    private ColumnKind[] columnKinds;
+
+    /**
+     * The constructor that defines writer variable to output result JSON Lines file.
+     *
+     * @param writer the writer which is used to output JSON Lines file.
+     */
+    public JSONLDataWriterImpl(Writer writer) {
+        this(writer, DEFAULT_ENDLINE);
+    }
+
+    /**
+     * The constructor that defines writer variable to output result JSON Lines file with selected endline.
+     *
+     * @param writer  the writer which is used to output JSON Lines file.
+     * @param endline symbols used in JSON Lines file as endline.
+     */
+    public JSONLDataWriterImpl(Writer writer, String endline) {
+        this.writer = writer;
+        this.endline = endline;
+    }
+
+    /**
+     * The method to export a row from sas7bdat file (stored as an object of the {@link SasFileReaderImpl} class)
+     * using {@link JSONLDataWriterImpl#writer}.
+     *
+     * @param columns the {@link Column} class variables list that stores columns description from the sas7bdat file.
+     * @param row     the Objects arrays that stores data from the sas7bdat file.
+     * @throws java.io.IOException appears if the output into writer is impossible.
+     */
+    @Override
+    public void writeRow(List<Column> columns, Object[] row) throws IOException {
+        if (row == null) {
+            return;
+        }
+        preparePlan(columns);
+
+        rowBuffer.setLength(0);
+        for (int currentColumnIndex = 0; currentColumnIndex < columnKeys.length; currentColumnIndex++) {
+            rowBuffer.append(columnKeys[currentColumnIndex]);
+            appendValue(columnKinds[currentColumnIndex], row[currentColumnIndex]);
+        }
+        rowBuffer.append(columnKeys.length == 0 ? "{}" : "}").append(endline);
+
+        int length = rowBuffer.length();
+        if (outputBuffer.length < length) {
+            outputBuffer = new char[Math.max(length, outputBuffer.length * 2)];
+        }
+        rowBuffer.getChars(0, length, outputBuffer, 0);
+        writer.write(outputBuffer, 0, length);
+    }
+
+    /**
+     * The method to export a parsed sas7bdat file (stored as an object of the {@link SasFileReaderImpl} class)
+     * using {@link JSONLDataWriterImpl#writer}.
+     *
+     * @param columns the {@link Column} class variables list that stores columns description from the sas7bdat file.
+     * @param rows    the Objects arrays array that stores data from the sas7bdat file.
+     * @throws java.io.IOException appears if the output into writer is impossible.
+     */
+    @Override
+    public void writeRowsArray(List<Column> columns, Object[][] rows) throws IOException {
+        for (Object[] currentRow : rows) {
+            if (currentRow != null) {
+                writeRow(columns, currentRow);
+            } else {
+                break;
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * JSON Lines files have no header line, so the method outputs nothing. It prepares the escaped column names
+     * that are used as keys of every object written afterwards.
+     *
+     * @param columns the list of column names.
+     * @throws IOException appears if the output into writer is impossible.
+     */
+    @Override
+    public void writeColumnNames(List<Column> columns) throws IOException {
+        preparePlan(columns);
+    }
+
+    /**
+     * Writer getter.
+     *
+     * @return the variable to output JSON Lines file.
+     */
+    public Writer getWriter() {
+        return writer;
+    }
+
+    /**
+     * The method to build the encoding plan for the columns list unless it is already built for the same list:
+     * escapes the column names into {@link JSONLDataWriterImpl#columnKeys} and chooses the kinds of the columns
+     * in {@link JSONLDataWriterImpl#columnKinds}.
+     *
+     * @param columns the list of columns.
+     */
+    private void preparePlan(List<Column> columns) {
+        if (columns == plannedColumns) {
+            return;
+        }
+        columnKeys = new String[columns.size()];
+        columnKinds = new ColumnKind[columns.size()];
+        StringBuilder keyBuilder = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            keyBuilder.setLength(0);
+            keyBuilder.append(i == 0 ? '{' : ',');
+            appendEscapedString(keyBuilder, column.getName());
+            keyBuilder.append(':');
+            columnKeys[i] = keyBuilder.toString();
+            columnKinds[i] = chooseColumnKind(column);
+        }
+        plannedColumns = columns;
+    }
+
+    /**
+     * The function to choose the way values of the column are encoded depending on its type and format.
+     *
+     * @param column the column description.
+     * @return the kind of the column.
+     */
+    private static ColumnKind chooseColumnKind(Column column) {
+        if (column.getType() != Number.class) {
+            return ColumnKind.STRING;
+        }
+        String format = column.getFormat();
+        if (SasFileConstants.DATE_TIME_FORMAT_STRINGS.contains(format)) {
+            return ColumnKind.DATE_TIME;
+        }
+        if (SasFileConstants.DATE_FORMAT_STRINGS.contains(format)) {
+            return ColumnKind.DATE;
+        }
+        if (DataWriterUtil.TIME_FORMAT_STRINGS.contains(format)) {
+            return ColumnKind.TIME;
+        }
+        return ColumnKind.NUMBER;
+    }
+
+    /**
+     * The method to append a cell value to {@link JSONLDataWriterImpl#rowBuffer} as a JSON value. The numbers
+     * of days and milliseconds read from date and datetime columns with {@link com.epam.parso.TemporalOutput#EPOCH}
+     * are written as dates and datetimes.
+     *
+     * @param kind  the kind of the column the value belongs to.
+     * @param value the cell value.
+     * @throws UnsupportedEncodingException if {@link JSONLDataWriterImpl#ENCODING} is not supported.
+     */
+    private void appendValue(ColumnKind kind, Object value) throws UnsupportedEncodingException {
+        if (value == null) {
+            rowBuffer.append(NULL_LITERAL);
+        } else if (value instanceof String) {
+            appendEscapedString(rowBuffer, (String) value);
+        } else if (value instanceof byte[]) {
+            appendEscapedString(rowBuffer, new String((byte[]) value, ENCODING));
+        } else if (value instanceof Date || value instanceof LocalDate || value instanceof LocalDateTime
+                || (kind == ColumnKind.DATE && value instanceof Integer)
+                || (kind == ColumnKind.DATE_TIME && value instanceof Long)) {
+            long epochMillisecond = ByteDecoder.toEpochMillisecond(value);
+            if (kind == ColumnKind.DATE) {
+                rowBuffer.append('"');
+                appendIsoDate(rowBuffer, Math.floorDiv(epochMillisecond, MILLISECONDS_IN_DAY));
+                rowBuffer.append('"');
+            } else {
+                appendIsoDateTime(rowBuffer, epochMillisecond);
+            }
+        } else if (kind == ColumnKind.TIME && value instanceof Number) {
+            rowBuffer.append('"');
+            DataWriterUtil.appendTime(rowBuffer, ((Number) value).longValue());
+            rowBuffer.append('"');
+        } else if (value instanceof Double) {
+            appendDouble((Double) value);
+        } else if (value instanceof Number) {
+            rowBuffer.append(((Number) value).longValue());
+        } else {
+            appendEscapedString(rowBuffer, String.valueOf(value));
+        }
+    }
+
+    /**
+     * The method to append a double value with the same rounding as used in the CSV export. Infinite values
+     * cannot be presented in JSON and are written as null.
+     *
+     * @param value the number to append.
+     */
+    private void appendDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            rowBuffer.append(NULL_LITERAL);
+            return;
+        }
+        String valueToPrint = DataWriterUtil.roundDouble(value);
+        if (valueToPrint.indexOf('E') < 0) {
+            valueToPrint = DataWriterUtil.trimZerosFromEnd(valueToPrint);
+        }
+        rowBuffer.append(valueToPrint);
+    }
+
+    /**
+     * The method to append a datetime as an ISO-8601 UTC string: yyyy-MM-ddTHH:mm:ssZ, milliseconds are added
+     * only if they are not zero.
+     *
+     * @param builder          the builder to append the text to.
+     * @param epochMillisecond the number of milliseconds elapsed from 01/01/1970.
+     */
+    private static void appendIsoDateTime(StringBuilder builder, long epochMillisecond) {
+        long epochDay = Math.floorDiv(epochMillisecond, MILLISECONDS_IN_DAY);
+        long millisecondOfDay = epochMillisecond - epochDay * MILLISECONDS_IN_DAY;
+        long secondOfDay = millisecondOfDay / MILLISECONDS_IN_SECOND;
+        builder.append('"');
+        appendIsoDate(builder, epochDay);
+        builder.append('T');
+        DataWriterUtil.appendTwoDigits(builder, secondOfDay / SECONDS_IN_MINUTE / MINUTES_IN_HOUR);
+        builder.append(':');
+        DataWriterUtil.appendTwoDigits(builder, secondOfDay / SECONDS_IN_MINUTE % MINUTES_IN_HOUR);
+        builder.append(':');
+        DataWriterUtil.appendTwoDigits(builder, secondOfDay % SECONDS_IN_MINUTE);
+        long millisecond = millisecondOfDay % MILLISECONDS_IN_SECOND;
+        if (millisecond != 0) {
+            builder.append('.');
+            builder.append((char) ('0' + millisecond / 100)).append((char) ('0' + millisecond / 10 % 10))
+                    .append((char) ('0' + millisecond % 10));
+        }
+        builder.append("Z\"");
+    }
+
+    /**
+     * The method to append a date in the yyyy-MM-dd format. The civil date is computed from the number of days
+     * without creating calendar objects.
+     *
+     * @param builder  the builder to append the text to.
+     * @param epochDay the number of days elapsed from 01/01/1970.
+     */
+    private static void appendIsoDate(StringBuilder builder, long epochDay) {
+        long shiftedDay = epochDay + DAYS_FROM_CIVIL_EPOCH;
+        long era = (shiftedDay >= 0 ? shiftedDay : shiftedDay - DAYS_IN_ERA + 1) / DAYS_IN_ERA;
+        long dayOfEra = shiftedDay - era * DAYS_IN_ERA;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year >= 0 && year < 1000) {
+            builder.append(year < 10 ? "000" : year < 100 ? "00" : "0");
+        }
+        builder.append(year).append('-');
+        DataWriterUtil.appendTwoDigits(builder, month);
+        builder.append('-');
+        DataWriterUtil.appendTwoDigits(builder, day);
+    }
+
+    /**
+     * The method to append a string as a quoted JSON string literal escaping quotes, backslashes and control
+     * characters.
+     *
+     * @param builder the builder to append the text to.
+     * @param text    the string to append.
+     */
+    private static void appendEscapedString(StringBuilder builder, String text) {
+        builder.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            switch (character) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (character < FIRST_PRINTABLE_CHARACTER) {
+                        builder.append("\\u00").append(HEX_DIGITS[character >> 4]).append(HEX_DIGITS[character & 0xF]);
+                    } else {
+                        builder.append(character);
+                    }
+                    break;
+            }
+        }
+        builder.append('"');
+    }
+
+    /**
+     * Enumeration of the ways the values of a column are encoded in JSON.
+     */
+    private enum ColumnKind {
+        /**
+         * Character column, values are written as JSON strings.
+         */
+        STRING,
+
+        /**
+         * Numeric column without date or time format, values are written as JSON numbers.
+         */
+        NUMBER,
+
+        /**
+         * Numeric column with a time format, values are written as HH:mm:ss strings.
+         */
+        TIME,
+
+        /**
+         * Numeric column with a date format, values are written as yyyy-MM-dd strings.
+         */
+        DATE,
+
+        /**
+         * Numeric column with a datetime format, values are written as yyyy-MM-ddTHH:mm:ssZ strings.
+         */
+        DATE_TIME
+    }
+}
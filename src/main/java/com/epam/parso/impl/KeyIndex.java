@@ -0,0 +1,848 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+import com.epam.parso.SasFileProperties;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A class to write and read the key index file of a column of a sas7bdat file. The index stores the pairs of
+ * the non-missing values of the column (keys) and the indexes of their rows sorted by keys, so the rows with
+ * the given key or with keys within a range are found without reading the sas7bdat file.
+ * <p>
+ * The keys are stored as bytes compared as unsigned values: the bytes of character values without trailing spaces,
+ * and for numeric values the bits of the double with the sign bit inverted (all bits for negative numbers), which
+ * preserves the order of the numbers. The pairs are sorted with an external merge sort: the scan of the file writes
+ * sorted runs of at most the given number of pairs to temporary files which are then merged, so the index is built
+ * with bounded memory.
+ * <p>
+ * The sorted pairs are written in blocks of {@link KeyIndex#BLOCK_ENTRY_COUNT} pairs compressed with
+ * {@link Deflater}, followed by the directory storing the first key, the location and the number of pairs of every
+ * block. The directory is read into memory when the index is opened, and a lookup decompresses only the blocks
+ * which can contain the keys. The index file begins with a header storing {@link KeyIndex#SIGNATURE},
+ * {@link KeyIndex#VERSION}, the size and the date of the last modification of the sas7bdat file, the number of
+ * rows, the name of the column, the number of pairs and the offset of the directory. The size and the date are
+ * compared with the ones of the sas7bdat file when the index is opened to reject stale indexes.
+ */
+final class KeyIndex {
+    /**
+     * The default number of pairs sorted in memory before they are written to a temporary file.
+     */
+    static final int DEFAULT_PAIRS_IN_MEMORY = 1 << 20;
+
+    /**
+     * The signature at the beginning of the key index file ("PKEY").
+     */
+    private static final int SIGNATURE = 0x504B4559;
+
+    /**
+     * The version of the key index file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The number of pairs in a compressed block.
+     */
+    private static final int BLOCK_ENTRY_COUNT = 4096;
+
+    /**
+     * The size of the buffers of the temporary files read during the merge.
+     */
+    private static final int RUN_BUFFER_SIZE = 8192;
+
+    /**
+     * The mask to get an unsigned value of a byte.
+     */
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * The comparator of keys stored as bytes.
+     */
+    private static final Comparator<byte[]> KEY_COMPARATOR = new Comparator<byte[]>() {
+        @Override
+        public int compare(byte[] first, byte[] second) {
+            return compareKeys(first, second);
+        }
+    };
+
+    /**
+     * The comparator of pairs by keys and indexes of rows.
+     */
+    private static final Comparator<Entry> ENTRY_COMPARATOR = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry first, Entry second) {
+            int result = compareKeys(first.key, second.key);
+            return result != 0 ? result : first.rowIndex < second.rowIndex ? -1
+                    : first.rowIndex == second.rowIndex ? 0 : 1;
+        }
+    };
+
+    /**
+     * The index file.
+     */
+    private final File indexFile;
+
+    /**
+     * The name of the column.
+     */
+    private final String columnName;
+
+    /**
+     * The first keys of the blocks.
+     */
+    private final byte[][] firstKeys;
+
+    /**
+     * The offsets of the blocks in the index file.
+     */
+    private final long[] blockOffsets;
+
+    /**
+     * The lengths of the compressed blocks.
+     */
+    private final int[] blockLengths;
+
+    /**
+     * The lengths of the uncompressed blocks.
+     */
+    private final int[] uncompressedLengths;
+
+    /**
+     * The constructor of the {@link KeyIndex} class that defines values of all its variables.
+     *
+     * @param indexFile           the index file.
+     * @param columnName          the name of the column.
+     * @param firstKeys           the first keys of the blocks.
+     * @param blockOffsets        the offsets of the blocks in the index file.
+     * @param blockLengths        the lengths of the compressed blocks.
+     * @param uncompressedLengths the lengths of the uncompressed blocks.
+     */
+    private KeyIndex(File indexFile, String columnName, byte[][] firstKeys, long[] blockOffsets, int[] blockLengths,
+                     int[] uncompressedLengths) {
+        this.indexFile = indexFile;
+        this.columnName = columnName;
+        this.firstKeys = firstKeys;
+        this.blockOffsets = blockOffsets;
+        this.blockLengths = blockLengths;
+        this.uncompressedLengths = uncompressedLengths;
+    }
+
+    /**
+     * The function to write the key index of a column of a sas7bdat file, it should be called before any row
+     * is read. The temporary files with sorted runs are created next to the index file and deleted when the index
+     * is written.
+     *
+     * @param parser         the parser of the sas7bdat file.
+     * @param indexFile      the file to write the index to.
+     * @param columnName     the name of the column.
+     * @param pairsInMemory  the maximum number of pairs sorted in memory.
+     * @return the number of pairs in the index.
+     * @throws IOException if reading the sas7bdat file or writing the index file is impossible.
+     */
+    static long write(SasFileParser parser, File indexFile, String columnName, int pairsInMemory)
+            throws IOException {
+        if (pairsInMemory <= 0) {
+            throw new IllegalArgumentException("The number of pairs sorted in memory must be positive");
+        }
+        SasFileProperties sasFileProperties = parser.getSasFileProperties();
+        int columnIndex = parser.getRowFilterCompiler().getColumnIndex(columnName);
+        RunWriter runWriter = new RunWriter(parser, columnIndex, pairsInMemory,
+                indexFile.getAbsoluteFile().getParentFile());
+        try {
+            parser.scanPages(runWriter);
+            runWriter.flush();
+            long entryCount;
+            long directoryOffset;
+            int headerLength;
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(indexFile)));
+            try {
+                output.writeInt(SIGNATURE);
+                output.writeInt(VERSION);
+                output.writeLong(PageDirectory.getFileSize(sasFileProperties));
+                output.writeLong(PageDirectory.getDateModified(sasFileProperties));
+                output.writeLong(sasFileProperties.getRowCount());
+                output.writeUTF(columnName);
+                headerLength = output.size();
+                output.writeLong(0);
+                output.writeLong(0);
+                BlockWriter blockWriter = new BlockWriter(output, output.size());
+                merge(runWriter.runFiles, blockWriter);
+                blockWriter.flush();
+                entryCount = blockWriter.entryCount;
+                directoryOffset = blockWriter.position;
+                blockWriter.writeDirectory();
+            } finally {
+                output.close();
+            }
+            RandomAccessFile randomAccessFile = new RandomAccessFile(indexFile, "rw");
+            try {
+                randomAccessFile.seek(headerLength);
+                randomAccessFile.writeLong(entryCount);
+                randomAccessFile.writeLong(directoryOffset);
+            } finally {
+                randomAccessFile.close();
+            }
+            return entryCount;
+        } finally {
+            for (File runFile : runWriter.runFiles) {
+                runFile.delete();
+            }
+        }
+    }
+
+    /**
+     * The function to merge the sorted runs and to pass the pairs in the sorted order to the block writer.
+     *
+     * @param runFiles    the temporary files with sorted runs.
+     * @param blockWriter the writer of the compressed blocks.
+     * @throws IOException if reading the temporary files or writing the index file is impossible.
+     */
+    private static void merge(List<File> runFiles, BlockWriter blockWriter) throws IOException {
+        List<RunReader> runReaders = new ArrayList<RunReader>();
+        try {
+            PriorityQueue<RunReader> queue = new PriorityQueue<RunReader>(Math.max(1, runFiles.size()),
+                    new Comparator<RunReader>() {
+                        @Override
+                        public int compare(RunReader first, RunReader second) {
+                            return ENTRY_COMPARATOR.compare(first.current, second.current);
+                        }
+                    });
+            for (File runFile : runFiles) {
+                RunReader runReader = new RunReader(runFile);
+                runReaders.add(runReader);
+                if (runReader.next()) {
+                    queue.add(runReader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                RunReader runReader = queue.poll();
+                blockWriter.add(runReader.current);
+                if (runReader.next()) {
+                    queue.add(runReader);
+                }
+            }
+        } finally {
+            for (RunReader runReader : runReaders) {
+                runReader.input.close();
+            }
+        }
+    }
+
+    /**
+     * The function to open the key index of a column of a sas7bdat file. The directory of the blocks is read into
+     * memory.
+     *
+     * @param indexFile the index file.
+     * @param parser    the parser of the sas7bdat file.
+     * @return the index.
+     * @throws IOException if reading the index file is impossible, or the index file is not written for
+     *                     the sas7bdat file or is stale.
+     */
+    static KeyIndex open(File indexFile, SasFileParser parser) throws IOException {
+        SasFileProperties sasFileProperties = parser.getSasFileProperties();
+        RandomAccessFile randomAccessFile = new RandomAccessFile(indexFile, "r");
+        try {
+            if (randomAccessFile.readInt() != SIGNATURE || randomAccessFile.readInt() != VERSION) {
+                throw new IOException("The file " + indexFile + " is not a key index file");
+            }
+            if (randomAccessFile.readLong() != PageDirectory.getFileSize(sasFileProperties)
+                    || randomAccessFile.readLong() != PageDirectory.getDateModified(sasFileProperties)
+                    || randomAccessFile.readLong() != sasFileProperties.getRowCount()) {
+                throw new IOException("The key index " + indexFile + " is stale, the sas7bdat file is changed");
+            }
+            String columnName = randomAccessFile.readUTF();
+            parser.getRowFilterCompiler().getColumnIndex(columnName);
+            randomAccessFile.readLong();
+            randomAccessFile.seek(randomAccessFile.readLong());
+            DataInputStream input = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(randomAccessFile.getFD())));
+            int blockCount = input.readInt();
+            byte[][] firstKeys = new byte[blockCount][];
+            long[] blockOffsets = new long[blockCount];
+            int[] blockLengths = new int[blockCount];
+            int[] uncompressedLengths = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                firstKeys[i] = readKey(input);
+                blockOffsets[i] = input.readLong();
+                blockLengths[i] = input.readInt();
+                uncompressedLengths[i] = input.readInt();
+            }
+            return new KeyIndex(indexFile, columnName, firstKeys, blockOffsets, blockLengths, uncompressedLengths);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * The function to get the name of the indexed column.
+     *
+     * @return the name of the column.
+     */
+    String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * The function to find the indexes of the rows whose keys are within a range. Only the blocks which can
+     * contain such keys are read and decompressed.
+     *
+     * @param fromKey the lowest key, or null if the range is not limited from below.
+     * @param toKey   the highest key, or null if the range is not limited from above.
+     * @return the indexes of the rows in the ascending order.
+     * @throws IOException if reading the index file is impossible.
+     */
+    long[] find(byte[] fromKey, byte[] toKey) throws IOException {
+        int block = 0;
+        if (fromKey != null) {
+            int position = Arrays.binarySearch(firstKeys, fromKey, KEY_COMPARATOR);
+            int firstNotLess = position >= 0 ? position : -position - 1;
+            while (firstNotLess > 0 && compareKeys(firstKeys[firstNotLess - 1], fromKey) == 0) {
+                firstNotLess--;
+            }
+            block = Math.max(0, firstNotLess - 1);
+        }
+        long[] rowIndexes = new long[0];
+        int rowCount = 0;
+        RandomAccessFile randomAccessFile = new RandomAccessFile(indexFile, "r");
+        try {
+            byte[] compressed = new byte[0];
+            for (; block < firstKeys.length && (toKey == null || compareKeys(firstKeys[block], toKey) <= 0);
+                 block++) {
+                if (compressed.length < blockLengths[block]) {
+                    compressed = new byte[blockLengths[block]];
+                }
+                randomAccessFile.seek(blockOffsets[block]);
+                randomAccessFile.readFully(compressed, 0, blockLengths[block]);
+                DataInputStream input = new DataInputStream(new ByteArrayInputStream(
+                        inflate(compressed, blockLengths[block], uncompressedLengths[block])));
+                int entryCount = input.readInt();
+                for (int i = 0; i < entryCount; i++) {
+                    byte[] key = readKey(input);
+                    long rowIndex = input.readLong();
+                    if (toKey != null && compareKeys(key, toKey) > 0) {
+                        break;
+                    }
+                    if (fromKey == null || compareKeys(key, fromKey) >= 0) {
+                        if (rowCount == rowIndexes.length) {
+                            rowIndexes = Arrays.copyOf(rowIndexes, Math.max(BLOCK_ENTRY_COUNT, rowCount * 2));
+                        }
+                        rowIndexes[rowCount++] = rowIndex;
+                    }
+                }
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+        rowIndexes = Arrays.copyOf(rowIndexes, rowCount);
+        Arrays.sort(rowIndexes);
+        return rowIndexes;
+    }
+
+    /**
+     * The function to convert a value of the indexed column into a key.
+     *
+     * @param compiler the compiler of filters used to find the column and to convert the value.
+     * @param value    the value, a number or a date for numeric columns and a string for character columns.
+     * @return the key.
+     */
+    byte[] toKey(RowFilterCompiler compiler, Object value) {
+        Column column = compiler.getColumns().get(compiler.getColumnIndex(columnName));
+        if (column.getType() == Number.class) {
+            return toKey(RowFilterCompiler.toSasNumber(column, value));
+        }
+        return compiler.toBytes(column, value);
+    }
+
+    /**
+     * The function to convert a number into a key whose unsigned byte order is the order of numbers. Negative zero
+     * is converted into the key of zero since they are equal.
+     *
+     * @param value the number.
+     * @return the key.
+     */
+    private static byte[] toKey(double value) {
+        long bits = Double.doubleToLongBits(value == 0 ? 0 : value);
+        bits = bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+        byte[] key = new byte[SasFileConstants.BYTES_IN_DOUBLE];
+        for (int i = key.length - 1; i >= 0; i--) {
+            key[i] = (byte) bits;
+            bits >>>= Byte.SIZE;
+        }
+        return key;
+    }
+
+    /**
+     * The function to compare two keys as unsigned byte sequences.
+     *
+     * @param first  the first key.
+     * @param second the second key.
+     * @return a negative number, zero, or a positive number if the first key is less than, equal to, or
+     * greater than the second one.
+     */
+    private static int compareKeys(byte[] first, byte[] second) {
+        int length = Math.min(first.length, second.length);
+        for (int i = 0; i < length; i++) {
+            int difference = (first[i] & BYTE_MASK) - (second[i] & BYTE_MASK);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return first.length - second.length;
+    }
+
+    /**
+     * The function to read a key stored as its length followed by its bytes.
+     *
+     * @param input the input.
+     * @return the key.
+     * @throws IOException if reading the input is impossible.
+     */
+    private static byte[] readKey(DataInputStream input) throws IOException {
+        byte[] key = new byte[input.readUnsignedShort()];
+        input.readFully(key);
+        return key;
+    }
+
+    /**
+     * The function to write a key as its length followed by its bytes.
+     *
+     * @param output the output.
+     * @param key    the key.
+     * @throws IOException if writing the output is impossible.
+     */
+    private static void writeKey(DataOutputStream output, byte[] key) throws IOException {
+        output.writeShort(key.length);
+        output.write(key);
+    }
+
+    /**
+     * The function to decompress a block.
+     *
+     * @param compressed         the array of bytes that stores the compressed block.
+     * @param length             the length of the compressed block.
+     * @param uncompressedLength the length of the uncompressed block.
+     * @return the uncompressed block.
+     * @throws IOException if the block is corrupted.
+     */
+    private static byte[] inflate(byte[] compressed, int length, int uncompressedLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed, 0, length);
+            byte[] uncompressed = new byte[uncompressedLength];
+            int offset = 0;
+            while (offset < uncompressedLength && !inflater.finished()) {
+                int inflated = inflater.inflate(uncompressed, offset, uncompressedLength - offset);
+                if (inflated == 0 && inflater.needsInput()) {
+                    break;
+                }
+                offset += inflated;
+            }
+            if (offset != uncompressedLength) {
+                throw new IOException("The block of the key index is corrupted");
+            }
+            return uncompressed;
+        } catch (DataFormatException e) {
+            throw new IOException("The block of the key index is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * A pair of a key and the index of its row.
+     */
+    private static final class Entry {
+        /**
+         * The key.
+         */
+        private final byte[] key;
+
+        /**
+         * The index of the row.
+         */
+        private final long rowIndex;
+
+        /**
+         * The constructor that defines all parameters of the Entry class.
+         *
+         * @param key      the key.
+         * @param rowIndex the index of the row.
+         */
+        Entry(byte[] key, long rowIndex) {
+            this.key = key;
+            this.rowIndex = rowIndex;
+        }
+    }
+
+    /**
+     * The scanner which collects the pairs of the keys and the indexes of their rows, sorts them in runs of
+     * the bounded number of pairs and writes the runs to temporary files.
+     */
+    private static final class RunWriter implements PageScanner {
+        /**
+         * True if the numbers are stored in the little-endian order.
+         */
+        private final boolean littleEndian;
+
+        /**
+         * True if the column is numeric.
+         */
+        private final boolean numeric;
+
+        /**
+         * True if the rows store the values of the column.
+         */
+        private final boolean hasData;
+
+        /**
+         * The offset of the column in a row.
+         */
+        private final int offset;
+
+        /**
+         * The length of the column in a row.
+         */
+        private final int length;
+
+        /**
+         * The pairs of the current run.
+         */
+        private final Entry[] entries;
+
+        /**
+         * The directory of the temporary files.
+         */
+        private final File directory;
+
+        /**
+         * The temporary files with sorted runs.
+         */
+        private final List<File> runFiles = new ArrayList<File>();
+
+        /**
+         * The number of pairs of the current run.
+         */
+        private int entryCount;
+
+        /**
+         * The index of the next row.
+         */
+        private long rowIndex;
+
+        /**
+         * The constructor that prepares the collection of the values of the column.
+         *
+         * @param parser        the parser of the sas7bdat file.
+         * @param columnIndex   the index of the column.
+         * @param pairsInMemory the maximum number of pairs sorted in memory.
+         * @param directory     the directory of the temporary files.
+         */
+        RunWriter(SasFileParser parser, int columnIndex, int pairsInMemory, File directory) {
+            littleEndian = parser.getSasFileProperties().getEndianness() == 1;
+            numeric = parser.getColumns().get(columnIndex).getType() == Number.class;
+            hasData = parser.getRowFilterCompiler().hasData(columnIndex);
+            offset = parser.getColumnsDataOffset().get(columnIndex).intValue();
+            length = parser.getColumnsDataLength().get(columnIndex);
+            long rowCount = parser.getSasFileProperties().getRowCount();
+            entries = new Entry[(int) Math.min(pairsInMemory, Math.max(1, rowCount))];
+            this.directory = directory;
+        }
+
+        /**
+         * The method to remember the index of the first row of a page.
+         *
+         * @param pageIndex     the index of the page counted from the first page after the header.
+         * @param firstRowIndex the index of the first row of the page in the file.
+         * @param pageRowCount  the number of rows on the page.
+         */
+        @Override
+        public void startPage(long pageIndex, long firstRowIndex, int pageRowCount) {
+            rowIndex = firstRowIndex;
+        }
+
+        /**
+         * The method to collect the key of a row if it is not missing.
+         *
+         * @param source    the array of bytes that stores the uncompressed row.
+         * @param rowOffset the offset of the row in the array.
+         * @throws IOException if writing a temporary file is impossible.
+         */
+        @Override
+        public void scanRow(byte[] source, int rowOffset) throws IOException {
+            long currentRowIndex = rowIndex++;
+            if (!hasData) {
+                return;
+            }
+            byte[] key;
+            if (numeric) {
+                double value = RowFilterCompiler.readNumber(source, rowOffset + offset, length, littleEndian);
+                if (RowFilterCompiler.isMissing(value)) {
+                    return;
+                }
+                key = toKey(value);
+            } else {
+                int valueLength = RowFilterCompiler.getTrimmedLength(source, rowOffset + offset, length);
+                if (valueLength == 0) {
+                    return;
+                }
+                key = Arrays.copyOfRange(source, rowOffset + offset, rowOffset + offset + valueLength);
+            }
+            if (entryCount == entries.length) {
+                flush();
+            }
+            entries[entryCount++] = new Entry(key, currentRowIndex);
+        }
+
+        /**
+         * The method called after the last row of a page, the runs are written when they are full.
+         */
+        @Override
+        public void endPage() {
+        }
+
+        /**
+         * The method to sort the pairs of the current run and to write them to a temporary file.
+         *
+         * @throws IOException if writing the temporary file is impossible.
+         */
+        void flush() throws IOException {
+            if (entryCount == 0) {
+                return;
+            }
+            Arrays.sort(entries, 0, entryCount, ENTRY_COMPARATOR);
+            File runFile = File.createTempFile("parso", ".run", directory);
+            runFiles.add(runFile);
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile)));
+            try {
+                for (int i = 0; i < entryCount; i++) {
+                    writeKey(output, entries[i].key);
+                    output.writeLong(entries[i].rowIndex);
+                    entries[i] = null;
+                }
+            } finally {
+                output.close();
+            }
+            entryCount = 0;
+        }
+    }
+
+    /**
+     * The reader of the pairs of a temporary file with a sorted run.
+     */
+    private static final class RunReader {
+        /**
+         * The input of the temporary file.
+         */
+        private final DataInputStream input;
+
+        /**
+         * The number of pairs left in the file.
+         */
+        private long remaining;
+
+        /**
+         * The current pair.
+         */
+        private Entry current;
+
+        /**
+         * The constructor that opens a temporary file with a sorted run.
+         *
+         * @param runFile the temporary file.
+         * @throws IOException if opening the file is impossible.
+         */
+        RunReader(File runFile) throws IOException {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(runFile), RUN_BUFFER_SIZE));
+            remaining = runFile.length();
+        }
+
+        /**
+         * The method to read the next pair.
+         *
+         * @return false if there are no more pairs.
+         * @throws IOException if reading the file is impossible.
+         */
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                current = null;
+                return false;
+            }
+            byte[] key = readKey(input);
+            current = new Entry(key, input.readLong());
+            remaining -= Short.SIZE / Byte.SIZE + key.length + Long.SIZE / Byte.SIZE;
+            return true;
+        }
+    }
+
+    /**
+     * The writer of the sorted pairs in compressed blocks which collects the directory of the blocks.
+     */
+    private static final class BlockWriter {
+        /**
+         * The output of the index file.
+         */
+        private final DataOutputStream output;
+
+        /**
+         * The uncompressed pairs of the current block.
+         */
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+
+        /**
+         * The output of the pairs of the current block.
+         */
+        private final DataOutputStream blockOutput = new DataOutputStream(block);
+
+        /**
+         * The compressor of the blocks.
+         */
+        private final Deflater deflater = new Deflater();
+
+        /**
+         * The buffer of the compressed block.
+         */
+        private byte[] compressed = new byte[RUN_BUFFER_SIZE];
+
+        /**
+         * The first keys of the written blocks.
+         */
+        private final List<byte[]> firstKeys = new ArrayList<byte[]>();
+
+        /**
+         * The offsets of the written blocks, their compressed and uncompressed lengths.
+         */
+        private final List<long[]> locations = new ArrayList<long[]>();
+
+        /**
+         * The first key of the current block.
+         */
+        private byte[] firstKey;
+
+        /**
+         * The number of pairs of the current block.
+         */
+        private int blockEntryCount;
+
+        /**
+         * The number of written pairs.
+         */
+        private long entryCount;
+
+        /**
+         * The offset of the next block in the index file.
+         */
+        private long position;
+
+        /**
+         * The constructor that prepares writing the blocks.
+         *
+         * @param output   the output of the index file.
+         * @param position the offset of the first block in the index file.
+         */
+        BlockWriter(DataOutputStream output, long position) {
+            this.output = output;
+            this.position = position;
+        }
+
+        /**
+         * The method to add a pair to the current block, the block is written when it is full.
+         *
+         * @param entry the pair.
+         * @throws IOException if writing the index file is impossible.
+         */
+        void add(Entry entry) throws IOException {
+            if (blockEntryCount == 0) {
+                firstKey = entry.key;
+            }
+            writeKey(blockOutput, entry.key);
+            blockOutput.writeLong(entry.rowIndex);
+            blockEntryCount++;
+            entryCount++;
+            if (blockEntryCount == BLOCK_ENTRY_COUNT) {
+                flush();
+            }
+        }
+
+        /**
+         * The method to compress and write the current block.
+         *
+         * @throws IOException if writing the index file is impossible.
+         */
+        void flush() throws IOException {
+            if (blockEntryCount == 0) {
+                return;
+            }
+            ByteArrayOutputStream uncompressed = new ByteArrayOutputStream(block.size() + Integer.SIZE / Byte.SIZE);
+            new DataOutputStream(uncompressed).writeInt(blockEntryCount);
+            block.writeTo(uncompressed);
+            byte[] bytes = uncompressed.toByteArray();
+            deflater.reset();
+            deflater.setInput(bytes);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            output.write(compressed, 0, length);
+            firstKeys.add(firstKey);
+            locations.add(new long[]{position, length, bytes.length});
+            position += length;
+            block.reset();
+            blockEntryCount = 0;
+        }
+
+        /**
+         * The method to write the directory of the blocks after the last block.
+         *
+         * @throws IOException if writing the index file is impossible.
+         */
+        void writeDirectory() throws IOException {
+            deflater.end();
+            output.writeInt(firstKeys.size());
+            for (int i = 0; i < firstKeys.size(); i++) {
+                writeKey(output, firstKeys.get(i));
+                output.writeLong(locations.get(i)[0]);
+                output.writeInt((int) locations.get(i)[1]);
+                output.writeInt((int) locations.get(i)[2]);
+            }
+        }
+    }
+}
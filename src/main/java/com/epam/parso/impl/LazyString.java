@@ -0,0 +1,152 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import java.util.Arrays;
+
+/**
+ * A character value of a sas7bdat file returned by {@link SasFileReaderImpl} in the lazy mode set by
+ * {@link SasFileReaderImpl#setLazyStrings(boolean)}: a view over the trimmed bytes of the value in the buffer of
+ * the row, decoded only when {@link LazyString#toString()}, {@link LazyString#charAt(int)} or
+ * {@link LazyString#subSequence(int, int)} is called. The decoded string is kept by the view.
+ * <p>
+ * The buffer of the row is reused by the reader, so a view is valid only until the next row is read. Values
+ * retained longer must be detached with {@link LazyString#detach()}, which copies their bytes, or converted with
+ * {@link LazyString#toString()}. Views are equal only to views with the same characters, not to strings.
+ */
+public final class LazyString implements CharSequence {
+    /**
+     * The buffer holding the bytes of the value.
+     */
+    private final byte[] buffer;
+
+    /**
+     * The offset of the value in the buffer.
+     */
+    private final int offset;
+
+    /**
+     * The number of bytes of the value.
+     */
+    private final int byteCount;
+
+    /**
+     * The decoder of the value.
+     */
+    private final StringDecoder decoder;
+
+    /**
+     * The decoded value, null until the value is decoded.
+     */
+    private String decoded;
+
+    /**
+     * The constructor of a view over the bytes of a value.
+     *
+     * @param buffer    the buffer holding the bytes of the value.
+     * @param offset    the offset of the value in the buffer.
+     * @param byteCount the number of bytes of the value.
+     * @param decoder   the decoder of the value.
+     */
+    LazyString(byte[] buffer, int offset, int byteCount, StringDecoder decoder) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.byteCount = byteCount;
+        this.decoder = decoder;
+    }
+
+    /**
+     * The function to copy the bytes of the value, so the value stays valid after the next row is read.
+     *
+     * @return a view over a copy of the bytes of the value.
+     */
+    public LazyString detach() {
+        LazyString copy = new LazyString(Arrays.copyOfRange(buffer, offset, offset + byteCount), 0, byteCount,
+                decoder);
+        copy.decoded = decoded;
+        return copy;
+    }
+
+    /**
+     * The function to get the number of bytes of the value in the file.
+     *
+     * @return the number of bytes.
+     */
+    public int getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * The function to get the length of the value, computed without decoding if the charset is a single-byte one.
+     *
+     * @return the number of characters.
+     */
+    @Override
+    public int length() {
+        return decoder.isSingleByte() ? byteCount : toString().length();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * The function to decode the value, the decoded string is kept by the view.
+     *
+     * @return the value.
+     */
+    @Override
+    public String toString() {
+        if (decoded == null) {
+            decoded = decoder.decode(buffer, offset, byteCount);
+        }
+        return decoded;
+    }
+
+    /**
+     * The function to compare the value with another {@link LazyString}. A view is never equal to a {@link String},
+     * as a string is never equal to a view, so use {@link String#contentEquals(CharSequence)} or compare
+     * {@link LazyString#toString()} to compare the value with a string.
+     *
+     * @param other the other object.
+     * @return true if the other object is a {@link LazyString} with the same characters.
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof LazyString && toString().equals(other.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+}
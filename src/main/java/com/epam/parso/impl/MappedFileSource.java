@@ -0,0 +1,131 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.RandomAccessSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link RandomAccessSource} of a local sas7bdat file mapped into memory, the reads copy the bytes of the mapped
+ * regions without system calls. Files larger than {@link MappedFileSource#DEFAULT_REGION_SIZE} are mapped as several
+ * regions. The mapped regions are released by the garbage collector after the source is closed.
+ */
+public final class MappedFileSource implements RandomAccessSource {
+    /**
+     * The default maximum number of bytes of a mapped region.
+     */
+    public static final int DEFAULT_REGION_SIZE = 1 << 30;
+
+    /**
+     * The file whose regions are mapped.
+     */
+    private final RandomAccessFile file;
+
+    /**
+     * The mapped regions of the file, each of them except the last has the length of
+     * {@link MappedFileSource#regionSize}.
+     */
+    private final MappedByteBuffer[] regions;
+
+    /**
+     * The number of bytes of a mapped region.
+     */
+    private final int regionSize;
+
+    /**
+     * The number of bytes of the file.
+     */
+    private final long size;
+
+    /**
+     * The constructor of the source of a file which is mapped into memory in regions of
+     * {@link MappedFileSource#DEFAULT_REGION_SIZE} bytes.
+     *
+     * @param file the file.
+     * @throws IOException if opening or mapping the file is impossible.
+     */
+    public MappedFileSource(File file) throws IOException {
+        this(file, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * The constructor of the source of a file which is mapped into memory in regions of the given size.
+     *
+     * @param file       the file.
+     * @param regionSize the maximum number of bytes of a mapped region.
+     * @throws IOException if opening or mapping the file is impossible.
+     */
+    public MappedFileSource(File file, int regionSize) throws IOException {
+        if (regionSize < 1) {
+            throw new IllegalArgumentException("The size of a mapped region must be positive: " + regionSize);
+        }
+        this.file = new RandomAccessFile(file, "r");
+        this.regionSize = regionSize;
+        try {
+            FileChannel channel = this.file.getChannel();
+            size = channel.size();
+            regions = new MappedByteBuffer[(int) ((size + regionSize - 1) / regionSize)];
+            for (int i = 0; i < regions.length; i++) {
+                long position = (long) i * regionSize;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize,
+                        size - position));
+            }
+        } catch (IOException ex) {
+            this.file.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc} A read does not cross the end of a mapped region.
+     */
+    @Override
+    public int read(long position, byte[] buffer, int offset, int length) {
+        if (position >= size) {
+            return -1;
+        }
+        ByteBuffer region = regions[(int) (position / regionSize)].duplicate();
+        region.position((int) (position % regionSize));
+        int count = Math.min(length, region.remaining());
+        region.get(buffer, offset, count);
+        return count;
+    }
+
+    /**
+     * The method to close the file, the mapped regions remain valid until they are collected.
+     *
+     * @throws IOException if closing the file is impossible.
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
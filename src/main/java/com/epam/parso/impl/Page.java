@@ -0,0 +1,130 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import java.util.List;
+
+/**
+ * The class to store a copy of a page with rows taken by {@link SasFileParser#readPages(long)} together with
+ * the page metadata required to locate the rows: the page type, the number of subheaders, and the data
+ * subheader pointers for pages of the {@link SasFileConstants#PAGE_META_TYPE} type.
+ */
+final class Page {
+    /**
+     * The copy of the page bytes.
+     */
+    private final byte[] data;
+
+    /**
+     * The page type.
+     */
+    private final int type;
+
+    /**
+     * The number of subheaders on the page.
+     */
+    private final int subheadersCount;
+
+    /**
+     * The pointers to data subheaders of the page.
+     */
+    private final List<SubheaderPointer> dataSubheaderPointers;
+
+    /**
+     * The index of the first taken row on the page.
+     */
+    private final int firstRowIndex;
+
+    /**
+     * The number of taken rows.
+     */
+    private final int rowCount;
+
+    /**
+     * The constructor of the {@link Page} class that defines values of all its variables.
+     *
+     * @param data                  the copy of the page bytes.
+     * @param type                  the page type.
+     * @param subheadersCount       the number of subheaders on the page.
+     * @param dataSubheaderPointers the pointers to data subheaders of the page.
+     * @param firstRowIndex         the index of the first taken row on the page.
+     * @param rowCount              the number of taken rows.
+     */
+    Page(byte[] data, int type, int subheadersCount, List<SubheaderPointer> dataSubheaderPointers,
+         int firstRowIndex, int rowCount) {
+        this.data = data;
+        this.type = type;
+        this.subheadersCount = subheadersCount;
+        this.dataSubheaderPointers = dataSubheaderPointers;
+        this.firstRowIndex = firstRowIndex;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * The function to get the copy of the page bytes.
+     *
+     * @return the page bytes, they must not be modified.
+     */
+    byte[] getData() {
+        return data;
+    }
+
+    /**
+     * The function to get the page type.
+     *
+     * @return the page type.
+     */
+    int getType() {
+        return type;
+    }
+
+    /**
+     * The function to get the number of subheaders on the page.
+     *
+     * @return the number of subheaders.
+     */
+    int getSubheadersCount() {
+        return subheadersCount;
+    }
+
+    /**
+     * The function to get the pointers to data subheaders of the page.
+     *
+     * @return the pointers to data subheaders.
+     */
+    List<SubheaderPointer> getDataSubheaderPointers() {
+        return dataSubheaderPointers;
+    }
+
+    /**
+     * The function to get the index of the first taken row on the page.
+     *
+     * @return the index of the first taken row.
+     */
+    int getFirstRowIndex() {
+        return firstRowIndex;
+    }
+
+    /**
+     * The function to get the number of rows taken from the page.
+     *
+     * @return the number of rows.
+     */
+    int getRowCount() {
+        return rowCount;
+    }
+}
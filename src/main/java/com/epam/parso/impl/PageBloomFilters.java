@@ -0,0 +1,599 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+import com.epam.parso.RowFilter;
+import com.epam.parso.SasFileProperties;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A class to write and read the Bloom filters of the pages of a sas7bdat file over the values of chosen key
+ * columns: for every page with rows (or group of consecutive pages) it stores the index of the first page,
+ * the index of the first row, the number of rows and a Bloom filter of the non-missing values of the key columns.
+ * Unlike {@link PageStatistics}, the filters let the reader skip the pages of unsorted files which cannot contain
+ * rows whose key column is equal to one of the given values.
+ * <p>
+ * The file begins with a header storing {@link PageBloomFilters#SIGNATURE}, {@link PageBloomFilters#VERSION},
+ * the size and the date of the last modification of the sas7bdat file, the number of rows, the number of columns,
+ * the names of the key columns, the number of pages per filter and the number of filters. The size and the date are
+ * compared with the ones of the sas7bdat file when the filters are opened to reject stale filters.
+ */
+final class PageBloomFilters extends PageDirectory {
+    /**
+     * The signature at the beginning of the Bloom filters file ("PBLM").
+     */
+    private static final int SIGNATURE = 0x50424C4D;
+
+    /**
+     * The version of the Bloom filters file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The number of bits of a filter per value, it gives about 1% of false positives.
+     */
+    private static final int BITS_PER_VALUE = 10;
+
+    /**
+     * The number of hash functions of a filter.
+     */
+    private static final int HASH_COUNT = 7;
+
+    /**
+     * The number of bits in a word of a filter.
+     */
+    private static final int BITS_IN_WORD = 64;
+
+    /**
+     * The shift to get the index of the word of a bit.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * The shift to get the upper half of a hash.
+     */
+    private static final int HALF_SHIFT = 32;
+
+    /**
+     * The first multiplier of the hash finalizer (MurmurHash3 fmix64).
+     */
+    private static final long MIX_MULTIPLIER_1 = 0xff51afd7ed558ccdL;
+
+    /**
+     * The second multiplier of the hash finalizer (MurmurHash3 fmix64).
+     */
+    private static final long MIX_MULTIPLIER_2 = 0xc4ceb9fe1a85ec53L;
+
+    /**
+     * The shift of the hash finalizer.
+     */
+    private static final int MIX_SHIFT = 33;
+
+    /**
+     * The offset basis of the FNV-1a hash of the bytes of character values.
+     */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    /**
+     * The prime of the FNV-1a hash of the bytes of character values.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * The mask to get an unsigned value of a byte.
+     */
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * The initial capacity of the buffer of hashes of a page group.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The indexes of the key columns.
+     */
+    private final int[] keyColumnIndexes;
+
+    /**
+     * The Bloom filters of the entries.
+     */
+    private final long[][] filters;
+
+    /**
+     * The constructor that allocates the filters of the given number of entries.
+     *
+     * @param entryCount       the number of entries.
+     * @param keyColumnIndexes the indexes of the key columns.
+     */
+    private PageBloomFilters(int entryCount, int[] keyColumnIndexes) {
+        super(entryCount);
+        this.keyColumnIndexes = keyColumnIndexes;
+        filters = new long[entryCount][];
+    }
+
+    /**
+     * The function to write the Bloom filters of the pages of a sas7bdat file, it should be called before any row
+     * is read.
+     *
+     * @param parser           the parser of the sas7bdat file.
+     * @param bloomFilterFile  the file to write the filters to.
+     * @param pagesPerFilter   the number of consecutive pages with rows covered by a filter.
+     * @param keyColumnNames   the names of the key columns.
+     * @return the number of filters.
+     * @throws IOException if reading the sas7bdat file or writing the filters file is impossible.
+     */
+    static int write(SasFileParser parser, File bloomFilterFile, int pagesPerFilter, String... keyColumnNames)
+            throws IOException {
+        if (pagesPerFilter <= 0) {
+            throw new IllegalArgumentException("The number of pages per filter must be positive");
+        }
+        if (keyColumnNames.length == 0) {
+            throw new IllegalArgumentException("No key columns are given");
+        }
+        SasFileProperties sasFileProperties = parser.getSasFileProperties();
+        RowFilterCompiler compiler = parser.getRowFilterCompiler();
+        int[] keyColumnIndexes = new int[keyColumnNames.length];
+        for (int i = 0; i < keyColumnNames.length; i++) {
+            keyColumnIndexes[i] = compiler.getColumnIndex(keyColumnNames[i]);
+        }
+        Collector collector;
+        int entryCountOffset;
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(bloomFilterFile)));
+        try {
+            output.writeInt(SIGNATURE);
+            output.writeInt(VERSION);
+            output.writeLong(getFileSize(sasFileProperties));
+            output.writeLong(getDateModified(sasFileProperties));
+            output.writeLong(sasFileProperties.getRowCount());
+            output.writeInt(parser.getColumns().size());
+            output.writeInt(keyColumnNames.length);
+            for (String keyColumnName : keyColumnNames) {
+                output.writeUTF(keyColumnName);
+            }
+            output.writeInt(pagesPerFilter);
+            entryCountOffset = output.size();
+            output.writeInt(0);
+            collector = new Collector(output, parser, keyColumnIndexes, pagesPerFilter);
+            parser.scanPages(collector);
+            collector.flush();
+        } finally {
+            output.close();
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(bloomFilterFile, "rw");
+        try {
+            randomAccessFile.seek(entryCountOffset);
+            randomAccessFile.writeInt(collector.entryCount);
+        } finally {
+            randomAccessFile.close();
+        }
+        return collector.entryCount;
+    }
+
+    /**
+     * The function to read the Bloom filters of the pages of a sas7bdat file.
+     *
+     * @param bloomFilterFile the Bloom filters file.
+     * @param parser          the parser of the sas7bdat file.
+     * @return the filters.
+     * @throws IOException if reading the filters file is impossible, or the filters file is not written for
+     *                     the sas7bdat file or is stale.
+     */
+    static PageBloomFilters open(File bloomFilterFile, SasFileParser parser) throws IOException {
+        SasFileProperties sasFileProperties = parser.getSasFileProperties();
+        RowFilterCompiler compiler = parser.getRowFilterCompiler();
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(bloomFilterFile)));
+        try {
+            if (input.readInt() != SIGNATURE || input.readInt() != VERSION) {
+                throw new IOException("The file " + bloomFilterFile + " is not a page Bloom filters file");
+            }
+            if (input.readLong() != getFileSize(sasFileProperties)
+                    || input.readLong() != getDateModified(sasFileProperties)
+                    || input.readLong() != sasFileProperties.getRowCount()
+                    || input.readInt() != parser.getColumns().size()) {
+                throw new IOException("The page Bloom filters " + bloomFilterFile + " are stale, the sas7bdat file "
+                        + "is changed");
+            }
+            int[] keyColumnIndexes = new int[input.readInt()];
+            for (int i = 0; i < keyColumnIndexes.length; i++) {
+                keyColumnIndexes[i] = compiler.getColumnIndex(input.readUTF());
+            }
+            input.readInt();
+            PageBloomFilters pageBloomFilters = new PageBloomFilters(input.readInt(), keyColumnIndexes);
+            for (int entry = 0; entry < pageBloomFilters.getPageCount(); entry++) {
+                pageBloomFilters.setEntry(entry, input.readLong(), input.readLong(), input.readInt());
+                long[] filter = new long[input.readInt()];
+                for (int i = 0; i < filter.length; i++) {
+                    filter[i] = input.readLong();
+                }
+                pageBloomFilters.filters[entry] = filter;
+            }
+            return pageBloomFilters;
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * The function to compile a filter into a condition on the Bloom filters which is false for the entries which
+     * cannot contain rows matching the filter. Only the EQUAL and IN conditions on the key columns are checked,
+     * other conditions can match any entry.
+     *
+     * @param filter   the filter.
+     * @param compiler the compiler of filters used to find the columns and to convert the operands.
+     * @return the condition.
+     */
+    @Override
+    PagePredicate compile(RowFilter filter, RowFilterCompiler compiler) {
+        if (filter.getOperator() == RowFilter.Operator.AND || filter.getOperator() == RowFilter.Operator.OR) {
+            PagePredicate[] predicates = new PagePredicate[filter.getFilters().size()];
+            for (int i = 0; i < predicates.length; i++) {
+                predicates[i] = compile(filter.getFilters().get(i), compiler);
+            }
+            return combine(predicates, filter.getOperator() == RowFilter.Operator.AND);
+        }
+        int columnIndex = compiler.getColumnIndex(filter.getColumnName());
+        if (filter.getOperator() != RowFilter.Operator.EQUAL && filter.getOperator() != RowFilter.Operator.IN
+                || !isKeyColumn(columnIndex)) {
+            return combine(new PagePredicate[0], true);
+        }
+        Column column = compiler.getColumns().get(columnIndex);
+        final long[] hashes = new long[filter.getValues().size()];
+        for (int i = 0; i < hashes.length; i++) {
+            Object value = filter.getValues().get(i);
+            if (column.getType() == Number.class) {
+                hashes[i] = hashNumber(columnIndex, RowFilterCompiler.toSasNumber(column, value));
+            } else {
+                byte[] bytes = compiler.toBytes(column, value);
+                hashes[i] = hashBytes(columnIndex, bytes, 0, bytes.length);
+            }
+        }
+        return new PagePredicate() {
+            @Override
+            public boolean mayMatch(int entryIndex) {
+                for (long hash : hashes) {
+                    if (mayContain(filters[entryIndex], hash)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The function to check whether a column is one of the key columns.
+     *
+     * @param columnIndex the index of the column.
+     * @return true if the filters store the values of the column.
+     */
+    private boolean isKeyColumn(int columnIndex) {
+        for (int keyColumnIndex : keyColumnIndexes) {
+            if (keyColumnIndex == columnIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The function to compute the hash of a number of a key column. Negative zero has the same hash as zero since
+     * they are equal.
+     *
+     * @param columnIndex the index of the column.
+     * @param value       the number.
+     * @return the hash.
+     */
+    private static long hashNumber(int columnIndex, double value) {
+        return mix(Double.doubleToLongBits(value == 0 ? 0 : value) ^ mix(columnIndex));
+    }
+
+    /**
+     * The function to compute the hash of a character value of a key column.
+     *
+     * @param columnIndex the index of the column.
+     * @param source      the array of bytes that stores the value.
+     * @param offset      the offset of the value in the array.
+     * @param length      the length of the value without trailing spaces.
+     * @return the hash.
+     */
+    private static long hashBytes(int columnIndex, byte[] source, int offset, int length) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (source[i] & BYTE_MASK)) * FNV_PRIME;
+        }
+        return mix(hash ^ mix(columnIndex));
+    }
+
+    /**
+     * The function to spread the bits of a hash (the finalizer of MurmurHash3).
+     *
+     * @param value the hash.
+     * @return the mixed hash.
+     */
+    private static long mix(long value) {
+        long hash = value;
+        hash = (hash ^ (hash >>> MIX_SHIFT)) * MIX_MULTIPLIER_1;
+        hash = (hash ^ (hash >>> MIX_SHIFT)) * MIX_MULTIPLIER_2;
+        return hash ^ (hash >>> MIX_SHIFT);
+    }
+
+    /**
+     * The function to get the index of the bit of a filter set by one of the hash functions of a value,
+     * the hash functions are combined from the two halves of the hash of the value.
+     *
+     * @param hash      the hash of the value.
+     * @param function  the index of the hash function.
+     * @param bitCount  the number of bits of the filter.
+     * @return the index of the bit.
+     */
+    private static int getBitIndex(long hash, int function, int bitCount) {
+        int combined = (int) hash + function * (int) (hash >>> HALF_SHIFT);
+        return (combined & Integer.MAX_VALUE) % bitCount;
+    }
+
+    /**
+     * The function to add a value to a filter.
+     *
+     * @param filter the words of the filter.
+     * @param hash   the hash of the value.
+     */
+    private static void add(long[] filter, long hash) {
+        int bitCount = filter.length * BITS_IN_WORD;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int bitIndex = getBitIndex(hash, i, bitCount);
+            filter[bitIndex >>> WORD_SHIFT] |= 1L << bitIndex;
+        }
+    }
+
+    /**
+     * The function to check whether a filter can contain a value.
+     *
+     * @param filter the words of the filter.
+     * @param hash   the hash of the value.
+     * @return false if the value was not added to the filter.
+     */
+    private static boolean mayContain(long[] filter, long hash) {
+        int bitCount = filter.length * BITS_IN_WORD;
+        if (bitCount == 0) {
+            return false;
+        }
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int bitIndex = getBitIndex(hash, i, bitCount);
+            if ((filter[bitIndex >>> WORD_SHIFT] & 1L << bitIndex) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The scanner which collects the hashes of the key values of every group of pages and writes their Bloom
+     * filters to the filters file.
+     */
+    private static final class Collector implements PageScanner {
+        /**
+         * The output of the filters file.
+         */
+        private final DataOutputStream output;
+
+        /**
+         * True if the numbers are stored in the little-endian order.
+         */
+        private final boolean littleEndian;
+
+        /**
+         * The indexes of the key columns.
+         */
+        private final int[] keyColumnIndexes;
+
+        /**
+         * The flags of numeric key columns.
+         */
+        private final boolean[] numeric;
+
+        /**
+         * The flags of key columns whose values are stored in the rows.
+         */
+        private final boolean[] hasData;
+
+        /**
+         * The offsets of the key columns in a row.
+         */
+        private final int[] offsets;
+
+        /**
+         * The lengths of the key columns in a row.
+         */
+        private final int[] lengths;
+
+        /**
+         * The number of consecutive pages with rows covered by a filter.
+         */
+        private final int pagesPerFilter;
+
+        /**
+         * The hashes of the key values of the current group of pages.
+         */
+        private long[] hashes = new long[INITIAL_CAPACITY];
+
+        /**
+         * The number of hashes of the current group of pages.
+         */
+        private int hashCount;
+
+        /**
+         * The number of pages in the current group.
+         */
+        private int groupPageCount;
+
+        /**
+         * The index of the first page of the current group.
+         */
+        private long groupPageIndex;
+
+        /**
+         * The index of the first row of the current group.
+         */
+        private long groupFirstRowIndex;
+
+        /**
+         * The number of rows of the current group.
+         */
+        private int groupRowCount;
+
+        /**
+         * The number of written filters.
+         */
+        private int entryCount;
+
+        /**
+         * The constructor that prepares the collection of the values of the key columns of the file.
+         *
+         * @param output           the output of the filters file.
+         * @param parser           the parser of the sas7bdat file.
+         * @param keyColumnIndexes the indexes of the key columns.
+         * @param pagesPerFilter   the number of consecutive pages with rows covered by a filter.
+         */
+        Collector(DataOutputStream output, SasFileParser parser, int[] keyColumnIndexes, int pagesPerFilter) {
+            List<Column> columns = parser.getColumns();
+            RowFilterCompiler compiler = parser.getRowFilterCompiler();
+            this.output = output;
+            this.keyColumnIndexes = keyColumnIndexes;
+            this.pagesPerFilter = pagesPerFilter;
+            littleEndian = parser.getSasFileProperties().getEndianness() == 1;
+            numeric = new boolean[keyColumnIndexes.length];
+            hasData = new boolean[keyColumnIndexes.length];
+            offsets = new int[keyColumnIndexes.length];
+            lengths = new int[keyColumnIndexes.length];
+            for (int i = 0; i < keyColumnIndexes.length; i++) {
+                int columnIndex = keyColumnIndexes[i];
+                numeric[i] = columns.get(columnIndex).getType() == Number.class;
+                hasData[i] = compiler.hasData(columnIndex);
+                offsets[i] = parser.getColumnsDataOffset().get(columnIndex).intValue();
+                lengths[i] = parser.getColumnsDataLength().get(columnIndex);
+            }
+        }
+
+        /**
+         * The method to start a new group of pages if the current one is full.
+         *
+         * @param pageIndex     the index of the page counted from the first page after the header.
+         * @param firstRowIndex the index of the first row of the page in the file.
+         * @param pageRowCount  the number of rows on the page.
+         * @throws IOException if writing the filters file is impossible.
+         */
+        @Override
+        public void startPage(long pageIndex, long firstRowIndex, int pageRowCount) throws IOException {
+            if (groupPageCount == pagesPerFilter) {
+                flush();
+            }
+            if (groupPageCount == 0) {
+                groupPageIndex = pageIndex;
+                groupFirstRowIndex = firstRowIndex;
+            }
+            groupPageCount++;
+            groupRowCount += pageRowCount;
+        }
+
+        /**
+         * The method to collect the hashes of the non-missing values of the key columns of a row.
+         *
+         * @param source the array of bytes that stores the uncompressed row.
+         * @param offset the offset of the row in the array.
+         */
+        @Override
+        public void scanRow(byte[] source, int offset) {
+            for (int i = 0; i < keyColumnIndexes.length; i++) {
+                if (!hasData[i]) {
+                    continue;
+                }
+                int valueOffset = offset + offsets[i];
+                if (numeric[i]) {
+                    double value = RowFilterCompiler.readNumber(source, valueOffset, lengths[i], littleEndian);
+                    if (!RowFilterCompiler.isMissing(value)) {
+                        addHash(hashNumber(keyColumnIndexes[i], value));
+                    }
+                } else {
+                    int valueLength = RowFilterCompiler.getTrimmedLength(source, valueOffset, lengths[i]);
+                    if (valueLength > 0) {
+                        addHash(hashBytes(keyColumnIndexes[i], source, valueOffset, valueLength));
+                    }
+                }
+            }
+        }
+
+        /**
+         * The method called after the last row of a page, the filter is written when the group is full or
+         * the scan is over.
+         */
+        @Override
+        public void endPage() {
+        }
+
+        /**
+         * The method to remember the hash of a key value of the current group of pages.
+         *
+         * @param hash the hash.
+         */
+        private void addHash(long hash) {
+            if (hashCount == hashes.length) {
+                hashes = Arrays.copyOf(hashes, hashCount * 2);
+            }
+            hashes[hashCount++] = hash;
+        }
+
+        /**
+         * The method to write the location and the Bloom filter of the current group of pages and to start
+         * a new group.
+         *
+         * @throws IOException if writing the filters file is impossible.
+         */
+        void flush() throws IOException {
+            if (groupPageCount == 0) {
+                return;
+            }
+            long[] filter = new long[(int) (((long) hashCount * BITS_PER_VALUE + BITS_IN_WORD - 1) / BITS_IN_WORD)];
+            for (int i = 0; i < hashCount; i++) {
+                add(filter, hashes[i]);
+            }
+            output.writeLong(groupPageIndex);
+            output.writeLong(groupFirstRowIndex);
+            output.writeInt(groupRowCount);
+            output.writeInt(filter.length);
+            for (long word : filter) {
+                output.writeLong(word);
+            }
+            entryCount++;
+            groupPageCount = 0;
+            groupRowCount = 0;
+            hashCount = 0;
+        }
+    }
+}
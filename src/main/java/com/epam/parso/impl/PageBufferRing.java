@@ -0,0 +1,265 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.RandomAccessSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A class to read the pages of a sas7bdat file for {@link PageReader} into a ring of large buffers: every buffer
+ * holds a chunk of several consecutive pages which is read with as few calls as possible, and the pages are copied
+ * out of it. The chunks are read either when they are needed or ahead on a background thread while the parser
+ * processes the current page, so reading and decoding overlap.
+ * <p>
+ * Chunks of a file or a {@link RandomAccessSource} are read with positioned reads, and if the parser jumps to
+ * a page outside of the ring, the reads are started again from that page. Chunks of a stream are read
+ * sequentially, the pages skipped by the parser are read and dropped. The background thread stops when it has
+ * nothing to read, so a reader that is not read to the end does not keep it.
+ */
+final class PageBufferRing {
+    /**
+     * The number of seconds the background thread waits for new reads before it stops.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 1;
+
+    /**
+     * The factory of the daemon threads reading the pages.
+     */
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "parso-read-ahead");
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    /**
+     * The executor with at most one thread which runs the reads in the order they are submitted, null if the reads
+     * run on the thread of the parser.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * The source the pages are read from with positioned reads, null if the pages are read from
+     * {@link PageBufferRing#stream}.
+     */
+    private final RandomAccessSource source;
+
+    /**
+     * The stream the pages are read from if {@link PageBufferRing#source} is null.
+     */
+    private final InputStream stream;
+
+    /**
+     * The length of the pages of the sas7bdat file.
+     */
+    private final int pageLength;
+
+    /**
+     * The ring of the buffers, each of them holds the same number of pages.
+     */
+    private final byte[][] buffers;
+
+    /**
+     * The positions in the file of the first pages of the chunks read to {@link PageBufferRing#buffers}.
+     */
+    private final long[] positions;
+
+    /**
+     * The reads of the chunks to {@link PageBufferRing#buffers}, each of them returns the number of read bytes
+     * which is less than the length of the buffer at the end of the file.
+     */
+    private final List<Future<Integer>> reads = new ArrayList<Future<Integer>>();
+
+    /**
+     * The index of the buffer with the next page in the ring.
+     */
+    private int head;
+
+    /**
+     * The constructor that prepares reading the pages, the reads start with the first read page.
+     *
+     * @param source        the source to read the pages from, null to read them from the stream.
+     * @param stream        the stream to read the pages from if the source is null.
+     * @param pageLength    the length of the pages.
+     * @param pagesPerChunk the number of pages read to each buffer at once.
+     * @param chunkCount    the number of buffers in the ring.
+     * @param readAhead     true to read the chunks ahead on a background thread, false to read them when they
+     *                      are needed.
+     */
+    PageBufferRing(RandomAccessSource source, InputStream stream, int pageLength, int pagesPerChunk, int chunkCount,
+                   boolean readAhead) {
+        this.source = source;
+        this.stream = stream;
+        this.pageLength = pageLength;
+        buffers = new byte[chunkCount][pageLength * pagesPerChunk];
+        positions = new long[chunkCount];
+        executor = readAhead ? new ThreadPoolExecutor(0, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), THREAD_FACTORY) : null;
+    }
+
+    /**
+     * The function to check whether any page is read yet.
+     *
+     * @return true if any page is read.
+     */
+    boolean isStarted() {
+        return !reads.isEmpty();
+    }
+
+    /**
+     * The function to read the page at a position, waiting for the chunk which contains it if the chunk is not
+     * read yet. The read of the following chunk is submitted when the last page of a chunk is taken.
+     *
+     * @param position the position of the page in the file, for a stream the position counted from an arbitrary
+     *                 point which only has to grow by the length of the page for consecutive pages.
+     * @param page     the array to copy the page to.
+     * @return false if the end of the file is reached.
+     * @throws IOException if reading the page is impossible, or the page of a stream precedes the pages which are
+     *                     already read.
+     */
+    boolean read(long position, byte[] page) throws IOException {
+        int chunkLength = buffers[head].length;
+        if (reads.isEmpty() || source != null && (position < positions[head]
+                || position + pageLength > positions[head] + (long) buffers.length * chunkLength)) {
+            start(position);
+        }
+        while (positions[head] + chunkLength <= position) {
+            advance();
+        }
+        int offset = (int) (position - positions[head]);
+        if (offset < 0 || offset + pageLength > chunkLength) {
+            throw new IOException("Cannot read the page at " + position + " of the stream, the pages up to "
+                    + positions[head] + " are already read");
+        }
+        if (await(head) < offset + pageLength) {
+            return false;
+        }
+        System.arraycopy(buffers[head], offset, page, 0, pageLength);
+        if (offset + pageLength == chunkLength) {
+            advance();
+        }
+        return true;
+    }
+
+    /**
+     * The function to drop the submitted reads and to submit the reads of the chunks starting with a position.
+     *
+     * @param position the position of the first page of the first chunk.
+     */
+    private void start(long position) {
+        for (Future<Integer> read : reads) {
+            read.cancel(false);
+        }
+        reads.clear();
+        head = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            reads.add(null);
+            submit(i, position + (long) i * buffers[i].length);
+        }
+    }
+
+    /**
+     * The function to release the buffer at the head of the ring, to submit the read of the chunk following
+     * the ones in the ring to it, and to move the head to the next buffer.
+     */
+    private void advance() {
+        submit(head, positions[head] + (long) buffers.length * buffers[head].length);
+        head = (head + 1) % buffers.length;
+    }
+
+    /**
+     * The function to submit the read of a chunk to a buffer. Since the reads run one by one in the order they are
+     * submitted, a new read of a buffer never overlaps with a dropped read of the same buffer. Without the background
+     * thread the chunk is read at once.
+     *
+     * @param index    the index of the buffer in the ring.
+     * @param position the position of the first page of the chunk.
+     */
+    private void submit(int index, final long position) {
+        final byte[] buffer = buffers[index];
+        positions[index] = position;
+        FutureTask<Integer> read = new FutureTask<Integer>(new Callable<Integer>() {
+            @Override
+            public Integer call() throws IOException {
+                return fill(buffer, position);
+            }
+        });
+        reads.set(index, read);
+        if (executor == null) {
+            read.run();
+        } else {
+            executor.execute(read);
+        }
+    }
+
+    /**
+     * The function to wait for the read of a buffer.
+     *
+     * @param index the index of the buffer in the ring.
+     * @return the number of bytes read to the buffer.
+     * @throws IOException if the read failed or the waiting thread is interrupted.
+     */
+    private int await(int index) throws IOException {
+        try {
+            return reads.get(index).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the page at " + positions[index]);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * The function to read a chunk to a buffer.
+     *
+     * @param buffer   the buffer.
+     * @param position the position of the chunk in the file, ignored for a stream.
+     * @return the number of read bytes, less than the length of the buffer at the end of the file.
+     * @throws IOException if reading from the file is impossible.
+     */
+    private int fill(byte[] buffer, long position) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            int count = source == null ? stream.read(buffer, length, buffer.length - length)
+                    : source.read(position + length, buffer, length, buffer.length - length);
+            if (count < 0) {
+                break;
+            }
+            length += count;
+        }
+        return length;
+    }
+}
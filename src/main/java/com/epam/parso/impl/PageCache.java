@@ -0,0 +1,294 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of the pages of sas7bdat files bounded by the number of bytes, the least recently used pages are evicted
+ * when the cache is full. The cache stores the raw pages read by {@link SasFileParser} and optionally
+ * the decompressed rows of the pages of compressed files, so moving back and forth over the same rows neither reads
+ * the pages again nor decompresses the rows again. The cache can be shared by several readers of the same or
+ * different files, the pages are stored by the file they belong to, which is identified by its properties.
+ * All methods are thread-safe.
+ */
+public final class PageCache {
+    /**
+     * The offset of a row used in the keys of raw pages.
+     */
+    static final int RAW_PAGE = -1;
+
+    /**
+     * The estimated number of bytes used by an entry of the cache besides its data.
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+
+    /**
+     * The initial capacity of the map of the entries.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The load factor of the map of the entries.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * The multiplier used to combine the hash codes of the fields of keys.
+     */
+    private static final int HASH_MULTIPLIER = 31;
+
+    /**
+     * The entries of the cache in the order of access, from the least to the most recently used.
+     */
+    private final LinkedHashMap<Key, byte[]> entries = new LinkedHashMap<Key, byte[]>(INITIAL_CAPACITY,
+            LOAD_FACTOR, true);
+
+    /**
+     * The maximum number of bytes stored in the cache.
+     */
+    private final long maxSize;
+
+    /**
+     * True if the cache stores the decompressed rows of the pages of compressed files.
+     */
+    private final boolean decompressedRows;
+
+    /**
+     * The number of bytes stored in the cache.
+     */
+    private long size;
+
+    /**
+     * The number of requests which found the data in the cache.
+     */
+    private long hitCount;
+
+    /**
+     * The number of requests which did not find the data in the cache.
+     */
+    private long missCount;
+
+    /**
+     * The number of entries evicted from the cache to free space.
+     */
+    private long evictionCount;
+
+    /**
+     * The constructor of a cache which stores raw pages only.
+     *
+     * @param maxSize the maximum number of bytes stored in the cache.
+     */
+    public PageCache(long maxSize) {
+        this(maxSize, false);
+    }
+
+    /**
+     * The constructor that defines all parameters of the PageCache class.
+     *
+     * @param maxSize          the maximum number of bytes stored in the cache.
+     * @param decompressedRows true if the cache stores the decompressed rows of the pages of compressed files
+     *                         besides raw pages.
+     */
+    public PageCache(long maxSize, boolean decompressedRows) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The size of the cache must be positive");
+        }
+        this.maxSize = maxSize;
+        this.decompressedRows = decompressedRows;
+    }
+
+    /**
+     * The function to get the data of a page or a decompressed row. The data must not be modified.
+     *
+     * @param file      the identity of the file.
+     * @param pageIndex the index of the page counted from the first page after the header.
+     * @param rowOffset the offset of the decompressed row in the page, or {@link PageCache#RAW_PAGE} for
+     *                  the raw page.
+     * @return the data, or null if it is not in the cache.
+     */
+    synchronized byte[] get(Object file, long pageIndex, int rowOffset) {
+        byte[] data = entries.get(new Key(file, pageIndex, rowOffset));
+        if (data == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return data;
+    }
+
+    /**
+     * The function to put the data of a page or a decompressed row to the cache, the least recently used entries
+     * are evicted if the cache is full. The data must not be modified afterwards.
+     *
+     * @param file      the identity of the file.
+     * @param pageIndex the index of the page counted from the first page after the header.
+     * @param rowOffset the offset of the decompressed row in the page, or {@link PageCache#RAW_PAGE} for
+     *                  the raw page.
+     * @param data      the data.
+     */
+    synchronized void put(Object file, long pageIndex, int rowOffset, byte[] data) {
+        long entrySize = data.length + ENTRY_OVERHEAD;
+        if (entrySize > maxSize) {
+            return;
+        }
+        byte[] previous = entries.put(new Key(file, pageIndex, rowOffset), data);
+        size += entrySize;
+        if (previous != null) {
+            size -= previous.length + ENTRY_OVERHEAD;
+        }
+        Iterator<Map.Entry<Key, byte[]>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            size -= iterator.next().getValue().length + ENTRY_OVERHEAD;
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * The function to check whether the cache stores the decompressed rows of the pages of compressed files.
+     *
+     * @return true if the decompressed rows are stored.
+     */
+    public boolean isDecompressedRows() {
+        return decompressedRows;
+    }
+
+    /**
+     * The function to get the maximum number of bytes stored in the cache.
+     *
+     * @return the maximum number of bytes.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * The function to get the number of bytes stored in the cache, including the estimated overhead of entries.
+     *
+     * @return the number of bytes.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * The function to get the number of pages and decompressed rows stored in the cache.
+     *
+     * @return the number of entries.
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * The function to get the number of requests which found the data in the cache.
+     *
+     * @return the number of hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * The function to get the number of requests which did not find the data in the cache.
+     *
+     * @return the number of misses.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * The function to get the number of entries evicted from the cache to free space.
+     *
+     * @return the number of evictions.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * The function to remove all entries from the cache, the counters of hits, misses and evictions are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * The key of an entry of the cache.
+     */
+    private static final class Key {
+        /**
+         * The identity of the file.
+         */
+        private final Object file;
+
+        /**
+         * The index of the page counted from the first page after the header.
+         */
+        private final long pageIndex;
+
+        /**
+         * The offset of the decompressed row in the page, or {@link PageCache#RAW_PAGE} for the raw page.
+         */
+        private final int rowOffset;
+
+        /**
+         * The constructor that defines all parameters of the Key class.
+         *
+         * @param file      the identity of the file.
+         * @param pageIndex the index of the page counted from the first page after the header.
+         * @param rowOffset the offset of the decompressed row in the page, or {@link PageCache#RAW_PAGE} for
+         *                  the raw page.
+         */
+        Key(Object file, long pageIndex, int rowOffset) {
+            this.file = file;
+            this.pageIndex = pageIndex;
+            this.rowOffset = rowOffset;
+        }
+
+        /**
+         * The method to compare the key with another object.
+         *
+         * @param object the other object.
+         * @return true if the object is a key of the same page or row of the same file.
+         */
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) object;
+            return pageIndex == key.pageIndex && rowOffset == key.rowOffset && file.equals(key.file);
+        }
+
+        /**
+         * The method to compute the hash code of the key.
+         *
+         * @return the hash code.
+         */
+        @Override
+        public int hashCode() {
+            int hashCode = file.hashCode() * HASH_MULTIPLIER + (int) (pageIndex ^ (pageIndex >>> Integer.SIZE));
+            return hashCode * HASH_MULTIPLIER + rowOffset;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.RowFilter;
+import com.epam.parso.SasFileProperties;
+
+import java.util.Arrays;
+
+/**
+ * The base class of the files which describe the pages of a sas7bdat file (or groups of consecutive pages):
+ * it stores the index of the first page of every entry, the index of its first row and the number of rows, and
+ * lets {@link SasFileParser} skip the entries which cannot contain rows matching a filter.
+ */
+abstract class PageDirectory {
+    /**
+     * The indexes of the first pages of the entries counted from the first page after the header.
+     */
+    private final long[] pageIndexes;
+
+    /**
+     * The indexes of the first rows of the entries.
+     */
+    private final long[] firstRowIndexes;
+
+    /**
+     * The numbers of rows of the entries.
+     */
+    private final int[] rowCounts;
+
+    /**
+     * The constructor that allocates the directory of the given number of entries.
+     *
+     * @param entryCount the number of entries.
+     */
+    PageDirectory(int entryCount) {
+        pageIndexes = new long[entryCount];
+        firstRowIndexes = new long[entryCount];
+        rowCounts = new int[entryCount];
+    }
+
+    /**
+     * The function to define the location of an entry.
+     *
+     * @param entryIndex    the index of the entry.
+     * @param pageIndex     the index of the first page of the entry counted from the first page after the header.
+     * @param firstRowIndex the index of the first row of the entry.
+     * @param rowCount      the number of rows of the entry.
+     */
+    void setEntry(int entryIndex, long pageIndex, long firstRowIndex, int rowCount) {
+        pageIndexes[entryIndex] = pageIndex;
+        firstRowIndexes[entryIndex] = firstRowIndex;
+        rowCounts[entryIndex] = rowCount;
+    }
+
+    /**
+     * The function to get the number of entries.
+     *
+     * @return the number of entries.
+     */
+    int getPageCount() {
+        return pageIndexes.length;
+    }
+
+    /**
+     * The function to get the index of the first page of an entry counted from the first page after the header.
+     *
+     * @param entryIndex the index of the entry.
+     * @return the index of the page.
+     */
+    long getPageIndex(int entryIndex) {
+        return pageIndexes[entryIndex];
+    }
+
+    /**
+     * The function to get the index of the first row of an entry.
+     *
+     * @param entryIndex the index of the entry.
+     * @return the index of the first row.
+     */
+    long getFirstRowIndex(int entryIndex) {
+        return firstRowIndexes[entryIndex];
+    }
+
+    /**
+     * The function to get the number of rows of an entry.
+     *
+     * @param entryIndex the index of the entry.
+     * @return the number of rows.
+     */
+    int getRowCount(int entryIndex) {
+        return rowCounts[entryIndex];
+    }
+
+    /**
+     * The function to find the entry which begins with a page.
+     *
+     * @param pageIndex the index of the page counted from the first page after the header.
+     * @return the index of the entry, or a negative number if no entry begins with the page.
+     */
+    int findPage(long pageIndex) {
+        return Arrays.binarySearch(pageIndexes, pageIndex);
+    }
+
+    /**
+     * The function to compile a filter into a condition on the entries which is false for the entries which cannot
+     * contain rows matching the filter.
+     *
+     * @param filter   the filter.
+     * @param compiler the compiler of filters used to find the columns and to convert the operands.
+     * @return the condition.
+     */
+    abstract PagePredicate compile(RowFilter filter, RowFilterCompiler compiler);
+
+    /**
+     * The function to get the size of a sas7bdat file from its header, used as a part of the key of the files
+     * which describe the pages.
+     *
+     * @param sasFileProperties the properties of the sas7bdat file.
+     * @return the size of the file in bytes.
+     */
+    static long getFileSize(SasFileProperties sasFileProperties) {
+        return sasFileProperties.getHeaderLength()
+                + sasFileProperties.getPageCount() * sasFileProperties.getPageLength();
+    }
+
+    /**
+     * The function to get the date of the last modification of a sas7bdat file from its header, used as a part of
+     * the key of the files which describe the pages.
+     *
+     * @param sasFileProperties the properties of the sas7bdat file.
+     * @return the number of milliseconds since the epoch, 0 if the date is not defined.
+     */
+    static long getDateModified(SasFileProperties sasFileProperties) {
+        return sasFileProperties.getDateModified() == null ? 0 : sasFileProperties.getDateModified().getTime();
+    }
+
+    /**
+     * The interface of conditions on the entries of the directory.
+     */
+    interface PagePredicate {
+        /**
+         * The method to check whether an entry can contain rows matching the condition.
+         *
+         * @param entryIndex the index of the entry.
+         * @return false if the entry cannot contain rows matching the condition.
+         */
+        boolean mayMatch(int entryIndex);
+    }
+
+    /**
+     * The function to combine conditions on the entries with AND or OR.
+     *
+     * @param predicates the conditions.
+     * @param all        true for AND, false for OR.
+     * @return the combined condition.
+     */
+    static PagePredicate combine(final PagePredicate[] predicates, final boolean all) {
+        return new PagePredicate() {
+            @Override
+            public boolean mayMatch(int entryIndex) {
+                for (PagePredicate predicate : predicates) {
+                    if (predicate.mayMatch(entryIndex) != all) {
+                        return !all;
+                    }
+                }
+                return all;
+            }
+        };
+    }
+}
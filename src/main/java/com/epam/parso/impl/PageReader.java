@@ -0,0 +1,382 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.RandomAccessSource;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
+/**
+ * A class to read the pages of a sas7bdat file for {@link SasFileParser}: pages are read sequentially from
+ * the stream, skipped, and, if the file is read from a {@link FileInputStream} or from
+ * a {@link RandomAccessSourceInputStream}, read at any position with positioned reads of the file.
+ * If {@link PageReader#pageCache} is set, the pages are taken from the cache when possible and put to it when
+ * they are read. If {@link PageReader#pageBuffers} is set, the sequentially read
+ * pages are read in chunks of several pages, possibly ahead on a background thread.
+ */
+final class PageReader {
+    /**
+     * The input stream through which the sas7bdat file is read.
+     */
+    private final DataInputStream stream;
+
+    /**
+     * The channel of the file if the sas7bdat file is read from a {@link FileInputStream}, used to jump directly
+     * to a page, null otherwise.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The stream if the sas7bdat file is read from a {@link RandomAccessSourceInputStream}, null otherwise.
+     */
+    private final RandomAccessSourceInputStream sourceStream;
+
+    /**
+     * The source of the positioned reads of the file, null if the file can only be read sequentially.
+     */
+    private final RandomAccessSource source;
+
+    /**
+     * The position of the stream at which the sas7bdat file begins.
+     */
+    private final long startPosition;
+
+    /**
+     * The length of the header of the sas7bdat file.
+     */
+    private int headerLength;
+
+    /**
+     * The length of the pages of the sas7bdat file.
+     */
+    private int pageLength;
+
+    /**
+     * The cache of the pages, null if the pages are always read from the file.
+     */
+    private PageCache pageCache;
+
+    /**
+     * The identity of the file in {@link PageReader#pageCache}.
+     */
+    private Object pageCacheFile;
+
+    /**
+     * The number of pages read ahead on a background thread, 0 if the pages are read when they are requested.
+     */
+    private int readAheadPageCount;
+
+    /**
+     * The number of pages read from the file at once.
+     */
+    private int pagesPerRead = 1;
+
+    /**
+     * The buffers the sequentially read pages are read to, null if the pages are read one by one directly from
+     * the stream.
+     */
+    private PageBufferRing pageBuffers;
+
+    /**
+     * The position of the next sequentially read page if {@link PageReader#pageBuffers} is set: the position in
+     * the file if it is read from a {@link FileInputStream}, otherwise the number of bytes read after reading to
+     * the buffers started.
+     */
+    private long bufferedPosition;
+
+    /**
+     * The constructor that prepares reading the sas7bdat file from the current position of the stream.
+     *
+     * @param source the input stream which the sas7bdat file is read from.
+     * @param stream the data input stream wrapping the source stream.
+     * @throws IOException if getting the position of the channel of a file input stream is impossible.
+     */
+    PageReader(InputStream source, DataInputStream stream) throws IOException {
+        this.stream = stream;
+        channel = source instanceof FileInputStream ? ((FileInputStream) source).getChannel() : null;
+        sourceStream = source instanceof RandomAccessSourceInputStream ? (RandomAccessSourceInputStream) source
+                : null;
+        if (channel != null) {
+            this.source = new FileChannelSource(channel);
+            startPosition = channel.position();
+        } else if (sourceStream != null) {
+            this.source = sourceStream.getSource();
+            startPosition = sourceStream.getPosition();
+        } else {
+            this.source = null;
+            startPosition = 0;
+        }
+    }
+
+    /**
+     * The function to set the layout of the file read from its header.
+     *
+     * @param headerLength the length of the header of the sas7bdat file.
+     * @param pageLength   the length of the pages of the sas7bdat file.
+     */
+    void setLayout(int headerLength, int pageLength) {
+        this.headerLength = headerLength;
+        this.pageLength = pageLength;
+    }
+
+    /**
+     * The function to set the cache of the pages.
+     *
+     * @param pageCache the cache of the pages, null to read the pages from the file.
+     * @param file      the identity of the file in the cache.
+     */
+    void setPageCache(PageCache pageCache, Object file) {
+        this.pageCache = pageCache;
+        pageCacheFile = file;
+    }
+
+    /**
+     * The function to start reading the pages following the current one ahead on a background thread. The file
+     * must not be read from the stream by other means afterwards.
+     *
+     * @param pageCount the number of pages read ahead.
+     * @throws IOException if getting the position of the channel of the file is impossible.
+     */
+    void setReadAhead(int pageCount) throws IOException {
+        if (pageCount < 1) {
+            throw new IllegalArgumentException("The number of pages read ahead must be positive: " + pageCount);
+        }
+        checkReadsChangeable();
+        readAheadPageCount = pageCount;
+        createPageBuffers();
+    }
+
+    /**
+     * The function to read the pages following the current one in chunks of several pages with a single read of
+     * the file. The size of the chunks is rounded down to a multiple of the page length, but is at least one page.
+     * The file must not be read from the stream by other means afterwards.
+     *
+     * @param byteCount the number of bytes read at once.
+     * @throws IOException if getting the position of the channel of the file is impossible.
+     */
+    void setReadBufferSize(int byteCount) throws IOException {
+        if (byteCount < 1) {
+            throw new IllegalArgumentException("The size of the read buffer must be positive: " + byteCount);
+        }
+        checkReadsChangeable();
+        pagesPerRead = Math.max(1, byteCount / pageLength);
+        createPageBuffers();
+    }
+
+    /**
+     * The function to check that the reads of the pages can be changed, so a rejected change does not leave
+     * the settings of the reads half applied.
+     */
+    private void checkReadsChangeable() {
+        if (source == null && pageBuffers != null && pageBuffers.isStarted()) {
+            throw new IllegalStateException("The reads of the stream cannot be changed after the pages are read");
+        }
+    }
+
+    /**
+     * The function to create {@link PageReader#pageBuffers} with the ring of the chunks that hold at least
+     * {@link PageReader#readAheadPageCount} pages.
+     *
+     * @throws IOException if getting the position of the channel of the file is impossible.
+     */
+    private void createPageBuffers() throws IOException {
+        if (pageBuffers == null) {
+            bufferedPosition = getPosition();
+        }
+        int chunkCount = Math.max(1, (readAheadPageCount + pagesPerRead - 1) / pagesPerRead);
+        pageBuffers = new PageBufferRing(source, stream, pageLength, pagesPerRead, chunkCount,
+                readAheadPageCount > 0);
+    }
+
+    /**
+     * The function to get the cache of the pages.
+     *
+     * @return the cache of the pages, or null if it is not set.
+     */
+    PageCache getPageCache() {
+        return pageCache;
+    }
+
+    /**
+     * The function to get the identity of the file in the cache of the pages.
+     *
+     * @return the identity of the file.
+     */
+    Object getPageCacheFile() {
+        return pageCacheFile;
+    }
+
+    /**
+     * The function to check whether the pages can be read at any position.
+     *
+     * @return true if the file is read from a {@link FileInputStream} or a {@link RandomAccessSourceInputStream}.
+     */
+    boolean isSeekable() {
+        return source != null;
+    }
+
+    /**
+     * The function to get the position of the stream in the file.
+     *
+     * @return the position, or 0 if the pages cannot be read at any position.
+     * @throws IOException if getting the position is impossible.
+     */
+    long getPosition() throws IOException {
+        if (source == null) {
+            return 0;
+        }
+        if (pageBuffers != null) {
+            return bufferedPosition;
+        }
+        return channel == null ? sourceStream.getPosition() : channel.position();
+    }
+
+    /**
+     * The function to move the stream to a position returned by {@link PageReader#getPosition()}.
+     *
+     * @param position the position.
+     * @throws IOException if the pages cannot be read at any position or moving is impossible.
+     */
+    void setPosition(long position) throws IOException {
+        if (source == null) {
+            throw new IOException("The sas7bdat file is not read from a file input stream or a random access source");
+        }
+        if (pageBuffers != null) {
+            bufferedPosition = position;
+        } else if (channel == null) {
+            sourceStream.setPosition(position);
+        } else {
+            channel.position(position);
+        }
+    }
+
+    /**
+     * The function to read the next page from the stream, or to take it from the cache and skip it in the stream.
+     *
+     * @param pageIndex the index of the page counted from the first page after the header.
+     * @param page      the array to read the page to.
+     * @return false if the end of the file is reached.
+     * @throws IOException if reading from the stream is impossible.
+     */
+    boolean readNextPage(long pageIndex, byte[] page) throws IOException {
+        byte[] cached = pageCache == null ? null : pageCache.get(pageCacheFile, pageIndex, PageCache.RAW_PAGE);
+        if (cached != null) {
+            System.arraycopy(cached, 0, page, 0, pageLength);
+            return skip(pageLength);
+        }
+        if (pageBuffers != null) {
+            if (!pageBuffers.read(bufferedPosition, page)) {
+                return false;
+            }
+            bufferedPosition += pageLength;
+        } else {
+            try {
+                stream.readFully(page, 0, pageLength);
+            } catch (EOFException ex) {
+                return false;
+            }
+        }
+        if (pageCache != null) {
+            pageCache.put(pageCacheFile, pageIndex, PageCache.RAW_PAGE, page.clone());
+        }
+        return true;
+    }
+
+    /**
+     * The function to skip bytes of the stream, by moving its position if the pages can be read at any position. If
+     * the pages are read to the buffers, only the position of the next page is moved, and the end of the file is
+     * detected when that page is read.
+     *
+     * @param byteCount the number of bytes to skip.
+     * @return false if the end of the file is reached.
+     * @throws IOException if reading from the stream is impossible.
+     */
+    boolean skip(long byteCount) throws IOException {
+        if (pageBuffers != null) {
+            bufferedPosition += byteCount;
+            return true;
+        }
+        if (source != null) {
+            setPosition(getPosition() + byteCount);
+            return true;
+        }
+        long actuallySkipped = 0;
+        while (actuallySkipped < byteCount) {
+            long skipped = stream.skip(byteCount - actuallySkipped);
+            if (skipped <= 0) {
+                if (stream.read() < 0) {
+                    return false;
+                }
+                skipped = 1;
+            }
+            actuallySkipped += skipped;
+        }
+        return true;
+    }
+
+    /**
+     * The function to read a page with a positioned read of the file, the page is taken from
+     * the cache or put to it if the cache is set. The function does not change the position of the stream and can
+     * be called from several threads at once.
+     *
+     * @param pageIndex the index of the page counted from the first page after the header.
+     * @return the page, it must not be modified.
+     * @throws IOException if the pages cannot be read at any position or reading from the file is impossible.
+     */
+    byte[] readPage(long pageIndex) throws IOException {
+        byte[] page = pageCache == null ? null : pageCache.get(pageCacheFile, pageIndex, PageCache.RAW_PAGE);
+        if (page == null) {
+            page = new byte[pageLength];
+            read(page, pageIndex, 0);
+            if (pageCache != null) {
+                pageCache.put(pageCacheFile, pageIndex, PageCache.RAW_PAGE, page);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * The function to fill a buffer with the bytes of a page with positioned reads of the file.
+     * The function does not change the position of the stream and can be called from several threads at once.
+     *
+     * @param buffer    the buffer.
+     * @param pageIndex the index of the page counted from the first page after the header.
+     * @param offset    the offset of the first byte from the beginning of the page.
+     * @throws IOException if the pages cannot be read at any position or reading from the file is impossible.
+     */
+    void read(byte[] buffer, long pageIndex, int offset) throws IOException {
+        if (source == null) {
+            throw new IOException("Cannot read the page " + pageIndex + " by its position, the sas7bdat file is not "
+                    + "read from a file input stream or a random access source");
+        }
+        long position = startPosition + headerLength + pageIndex * pageLength + offset;
+        int length = 0;
+        while (length < buffer.length) {
+            int count = source.read(position + length, buffer, length, buffer.length - length);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of file when reading the page " + pageIndex + " at offset "
+                        + offset);
+            }
+            length += count;
+        }
+    }
+}
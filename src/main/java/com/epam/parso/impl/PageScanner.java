@@ -0,0 +1,51 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import java.io.IOException;
+
+/**
+ * The interface of classes which get the uncompressed bytes of the rows page by page from
+ * {@link SasFileParser#scanPages(PageScanner)}, used to build the files which describe the pages.
+ */
+interface PageScanner {
+    /**
+     * The method called at the beginning of every page with rows.
+     *
+     * @param pageIndex     the index of the page counted from the first page after the header.
+     * @param firstRowIndex the index of the first row of the page in the file.
+     * @param rowCount      the number of rows on the page.
+     * @throws IOException if the output of the scanner is impossible.
+     */
+    void startPage(long pageIndex, long firstRowIndex, int rowCount) throws IOException;
+
+    /**
+     * The method called for every row of the page.
+     *
+     * @param source the array of bytes that stores the uncompressed row.
+     * @param offset the offset of the row in the array.
+     * @throws IOException if the output of the scanner is impossible.
+     */
+    void scanRow(byte[] source, int offset) throws IOException;
+
+    /**
+     * The method called at the end of every page with rows.
+     *
+     * @throws IOException if the output of the scanner is impossible.
+     */
+    void endPage() throws IOException;
+}
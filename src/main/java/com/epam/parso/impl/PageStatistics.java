@@ -0,0 +1,624 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+import com.epam.parso.RowFilter;
+import com.epam.parso.SasFileProperties;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A class to write and read the statistics of the pages of a sas7bdat file: for every page with rows it stores
+ * the index of the page, the index of its first row, the number of rows, and for every column the number of
+ * missing values and the minimum and maximum values (numbers for numeric columns and bytes without trailing spaces
+ * for character columns). The statistics let the reader skip the pages which cannot contain rows matching a filter.
+ * <p>
+ * The statistics file begins with a header storing {@link PageStatistics#SIGNATURE}, {@link PageStatistics#VERSION},
+ * the size and the date of the last modification of the sas7bdat file, the number of rows, the number of columns
+ * and the number of pages. The size and the date are compared with the ones of the sas7bdat file when
+ * the statistics are opened to reject stale statistics.
+ */
+final class PageStatistics extends PageDirectory {
+    /**
+     * The signature at the beginning of the statistics file ("PSTS").
+     */
+    private static final int SIGNATURE = 0x50535453;
+
+    /**
+     * The version of the statistics file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The offset of the number of pages in the statistics file.
+     */
+    private static final int PAGE_COUNT_OFFSET = 36;
+
+    /**
+     * The length of the bytes of a missing minimum or maximum value of a character column.
+     */
+    private static final int NO_VALUE_LENGTH = -1;
+
+    /**
+     * The mask to get an unsigned value of a byte.
+     */
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * The numbers of missing values of the columns on the pages, by column and page.
+     */
+    private final int[][] nullCounts;
+
+    /**
+     * The minimum values of the numeric columns on the pages, by column and page, null for character columns.
+     */
+    private final double[][] minNumbers;
+
+    /**
+     * The maximum values of the numeric columns on the pages, by column and page, null for character columns.
+     */
+    private final double[][] maxNumbers;
+
+    /**
+     * The minimum values of the character columns on the pages, by column and page, null for numeric columns.
+     */
+    private final byte[][][] minStrings;
+
+    /**
+     * The maximum values of the character columns on the pages, by column and page, null for numeric columns.
+     */
+    private final byte[][][] maxStrings;
+
+    /**
+     * The constructor that allocates the statistics of the given number of pages and columns.
+     *
+     * @param pageCount the number of pages.
+     * @param numeric   the flags of numeric columns.
+     */
+    private PageStatistics(int pageCount, boolean[] numeric) {
+        super(pageCount);
+        nullCounts = new int[numeric.length][pageCount];
+        minNumbers = new double[numeric.length][];
+        maxNumbers = new double[numeric.length][];
+        minStrings = new byte[numeric.length][][];
+        maxStrings = new byte[numeric.length][][];
+        for (int i = 0; i < numeric.length; i++) {
+            if (numeric[i]) {
+                minNumbers[i] = new double[pageCount];
+                maxNumbers[i] = new double[pageCount];
+            } else {
+                minStrings[i] = new byte[pageCount][];
+                maxStrings[i] = new byte[pageCount][];
+            }
+        }
+    }
+
+    /**
+     * The function to write the statistics of the pages of a sas7bdat file, it should be called before any row
+     * is read.
+     *
+     * @param parser         the parser of the sas7bdat file.
+     * @param statisticsFile the file to write the statistics to.
+     * @return the number of pages with rows.
+     * @throws IOException if reading the sas7bdat file or writing the statistics file is impossible.
+     */
+    static int write(SasFileParser parser, File statisticsFile) throws IOException {
+        SasFileProperties sasFileProperties = parser.getSasFileProperties();
+        List<Column> columns = parser.getColumns();
+        Collector collector;
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(statisticsFile)));
+        try {
+            output.writeInt(SIGNATURE);
+            output.writeInt(VERSION);
+            output.writeLong(getFileSize(sasFileProperties));
+            output.writeLong(getDateModified(sasFileProperties));
+            output.writeLong(sasFileProperties.getRowCount());
+            output.writeInt(columns.size());
+            output.writeInt(0);
+            collector = new Collector(output, parser);
+            parser.scanPages(collector);
+        } finally {
+            output.close();
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(statisticsFile, "rw");
+        try {
+            randomAccessFile.seek(PAGE_COUNT_OFFSET);
+            randomAccessFile.writeInt(collector.pageCount);
+        } finally {
+            randomAccessFile.close();
+        }
+        return collector.pageCount;
+    }
+
+    /**
+     * The function to read the statistics of the pages of a sas7bdat file.
+     *
+     * @param statisticsFile the statistics file.
+     * @param parser         the parser of the sas7bdat file.
+     * @return the statistics.
+     * @throws IOException if reading the statistics file is impossible, or the statistics file is not written for
+     *                     the sas7bdat file or is stale.
+     */
+    static PageStatistics open(File statisticsFile, SasFileParser parser) throws IOException {
+        SasFileProperties sasFileProperties = parser.getSasFileProperties();
+        boolean[] numeric = getNumericFlags(parser.getColumns());
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(statisticsFile)));
+        try {
+            if (input.readInt() != SIGNATURE || input.readInt() != VERSION) {
+                throw new IOException("The file " + statisticsFile + " is not a page statistics file");
+            }
+            if (input.readLong() != getFileSize(sasFileProperties)
+                    || input.readLong() != getDateModified(sasFileProperties)
+                    || input.readLong() != sasFileProperties.getRowCount() || input.readInt() != numeric.length) {
+                throw new IOException("The page statistics " + statisticsFile + " are stale, the sas7bdat file is "
+                        + "changed");
+            }
+            PageStatistics pageStatistics = new PageStatistics(input.readInt(), numeric);
+            for (int page = 0; page < pageStatistics.getPageCount(); page++) {
+                pageStatistics.setEntry(page, input.readLong(), input.readLong(), input.readInt());
+                for (int column = 0; column < numeric.length; column++) {
+                    pageStatistics.nullCounts[column][page] = input.readInt();
+                    if (numeric[column]) {
+                        pageStatistics.minNumbers[column][page] = input.readDouble();
+                        pageStatistics.maxNumbers[column][page] = input.readDouble();
+                    } else {
+                        pageStatistics.minStrings[column][page] = readBytes(input);
+                        pageStatistics.maxStrings[column][page] = readBytes(input);
+                    }
+                }
+            }
+            return pageStatistics;
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * The function to compile a filter into a condition on the statistics of the pages which is false for
+     * the pages which cannot contain rows matching the filter.
+     *
+     * @param filter   the filter.
+     * @param compiler the compiler of filters used to find the columns and to convert the operands.
+     * @return the condition.
+     */
+    @Override
+    PagePredicate compile(RowFilter filter, RowFilterCompiler compiler) {
+        if (filter.getOperator() == RowFilter.Operator.AND || filter.getOperator() == RowFilter.Operator.OR) {
+            PagePredicate[] predicates = new PagePredicate[filter.getFilters().size()];
+            for (int i = 0; i < predicates.length; i++) {
+                predicates[i] = compile(filter.getFilters().get(i), compiler);
+            }
+            return combine(predicates, filter.getOperator() == RowFilter.Operator.AND);
+        }
+        int columnIndex = compiler.getColumnIndex(filter.getColumnName());
+        Column column = compiler.getColumns().get(columnIndex);
+        if (minNumbers[columnIndex] != null) {
+            double[] operands = new double[filter.getValues().size()];
+            for (int i = 0; i < operands.length; i++) {
+                operands[i] = RowFilterCompiler.toSasNumber(column, filter.getValues().get(i));
+            }
+            return new NumberPagePredicate(columnIndex, filter.getOperator(), operands);
+        }
+        byte[][] operands = new byte[filter.getValues().size()][];
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = compiler.toBytes(column, filter.getValues().get(i));
+        }
+        return new StringPagePredicate(columnIndex, filter.getOperator(), operands);
+    }
+
+    /**
+     * The function to get the flags of numeric columns.
+     *
+     * @param columns the columns of the file.
+     * @return the array of flags, true for numeric columns.
+     */
+    private static boolean[] getNumericFlags(List<Column> columns) {
+        boolean[] numeric = new boolean[columns.size()];
+        for (int i = 0; i < numeric.length; i++) {
+            numeric[i] = columns.get(i).getType() == Number.class;
+        }
+        return numeric;
+    }
+
+    /**
+     * The function to read the bytes of a minimum or maximum value of a character column.
+     *
+     * @param input the input.
+     * @return the bytes, or null if all values are missing.
+     * @throws IOException if reading the input is impossible.
+     */
+    private static byte[] readBytes(DataInputStream input) throws IOException {
+        int length = input.readShort();
+        if (length == NO_VALUE_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * The function to compare two byte sequences as unsigned values.
+     *
+     * @param first        the array of bytes that stores the first sequence.
+     * @param firstOffset  the offset of the first sequence in the array.
+     * @param firstLength  the length of the first sequence.
+     * @param second       the array of bytes that stores the second sequence.
+     * @param secondLength the length of the second sequence starting from the beginning of the array.
+     * @return a negative number, zero, or a positive number if the first sequence is less than, equal to, or
+     * greater than the second one.
+     */
+    private static int compareBytes(byte[] first, int firstOffset, int firstLength, byte[] second,
+                                    int secondLength) {
+        int length = Math.min(firstLength, secondLength);
+        for (int i = 0; i < length; i++) {
+            int difference = (first[firstOffset + i] & BYTE_MASK) - (second[i] & BYTE_MASK);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return firstLength - secondLength;
+    }
+
+    /**
+     * The condition on the statistics of a numeric column.
+     */
+    private final class NumberPagePredicate implements PagePredicate {
+        /**
+         * The index of the column.
+         */
+        private final int columnIndex;
+
+        /**
+         * The operator of the condition.
+         */
+        private final RowFilter.Operator operator;
+
+        /**
+         * The operands of the condition.
+         */
+        private final double[] operands;
+
+        /**
+         * The constructor that defines all parameters of the NumberPagePredicate class.
+         *
+         * @param columnIndex the index of the column.
+         * @param operator    the operator of the condition.
+         * @param operands    the operands of the condition.
+         */
+        NumberPagePredicate(int columnIndex, RowFilter.Operator operator, double[] operands) {
+            this.columnIndex = columnIndex;
+            this.operator = operator;
+            this.operands = operands;
+        }
+
+        /**
+         * The method to check whether a page can contain rows matching the condition.
+         *
+         * @param entryIndex the index of the page among the pages with rows.
+         * @return false if the page cannot contain rows matching the condition.
+         */
+        @Override
+        public boolean mayMatch(int entryIndex) {
+            int nullCount = nullCounts[columnIndex][entryIndex];
+            if (operator == RowFilter.Operator.IS_NULL) {
+                return nullCount > 0;
+            }
+            if (nullCount == getRowCount(entryIndex)) {
+                return false;
+            }
+            double min = minNumbers[columnIndex][entryIndex];
+            double max = maxNumbers[columnIndex][entryIndex];
+            switch (operator) {
+                case EQUAL:
+                case IN:
+                    for (double operand : operands) {
+                        if (min <= operand && operand <= max) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case NOT_EQUAL:
+                    return min != operands[0] || max != operands[0];
+                case LESS:
+                    return min < operands[0];
+                case LESS_OR_EQUAL:
+                    return min <= operands[0];
+                case GREATER:
+                    return max > operands[0];
+                case GREATER_OR_EQUAL:
+                    return max >= operands[0];
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * The condition on the statistics of a character column.
+     */
+    private final class StringPagePredicate implements PagePredicate {
+        /**
+         * The index of the column.
+         */
+        private final int columnIndex;
+
+        /**
+         * The operator of the condition.
+         */
+        private final RowFilter.Operator operator;
+
+        /**
+         * The operands of the condition without trailing spaces.
+         */
+        private final byte[][] operands;
+
+        /**
+         * The constructor that defines all parameters of the StringPagePredicate class.
+         *
+         * @param columnIndex the index of the column.
+         * @param operator    the operator of the condition.
+         * @param operands    the operands of the condition without trailing spaces.
+         */
+        StringPagePredicate(int columnIndex, RowFilter.Operator operator, byte[][] operands) {
+            this.columnIndex = columnIndex;
+            this.operator = operator;
+            this.operands = operands;
+        }
+
+        /**
+         * The method to check whether a page can contain rows matching the condition.
+         *
+         * @param entryIndex the index of the page among the pages with rows.
+         * @return false if the page cannot contain rows matching the condition.
+         */
+        @Override
+        public boolean mayMatch(int entryIndex) {
+            int nullCount = nullCounts[columnIndex][entryIndex];
+            if (operator == RowFilter.Operator.IS_NULL) {
+                return nullCount > 0;
+            }
+            byte[] min = minStrings[columnIndex][entryIndex];
+            byte[] max = maxStrings[columnIndex][entryIndex];
+            if (nullCount == getRowCount(entryIndex) || min == null || max == null) {
+                return false;
+            }
+            switch (operator) {
+                case EQUAL:
+                case IN:
+                    for (byte[] operand : operands) {
+                        if (compareBytes(min, 0, min.length, operand, operand.length) <= 0
+                                && compareBytes(max, 0, max.length, operand, operand.length) >= 0) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case NOT_EQUAL:
+                    return !Arrays.equals(min, operands[0]) || !Arrays.equals(max, operands[0]);
+                case STARTS_WITH:
+                    byte[] prefix = operands[0];
+                    return compareBytes(min, 0, Math.min(min.length, prefix.length), prefix, prefix.length) <= 0
+                            && compareBytes(max, 0, Math.min(max.length, prefix.length), prefix, prefix.length) >= 0;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * The scanner which collects the statistics of every page and writes them to the statistics file.
+     */
+    private static final class Collector implements PageScanner {
+        /**
+         * The output of the statistics file.
+         */
+        private final DataOutputStream output;
+
+        /**
+         * True if the numbers are stored in the little-endian order.
+         */
+        private final boolean littleEndian;
+
+        /**
+         * The flags of numeric columns.
+         */
+        private final boolean[] numeric;
+
+        /**
+         * The flags of columns whose values are stored in the rows.
+         */
+        private final boolean[] hasData;
+
+        /**
+         * The offsets of the columns in a row.
+         */
+        private final int[] offsets;
+
+        /**
+         * The lengths of the columns in a row.
+         */
+        private final int[] lengths;
+
+        /**
+         * The numbers of missing values of the columns on the current page.
+         */
+        private final int[] nullCounts;
+
+        /**
+         * The minimum values of the numeric columns on the current page.
+         */
+        private final double[] minNumbers;
+
+        /**
+         * The maximum values of the numeric columns on the current page.
+         */
+        private final double[] maxNumbers;
+
+        /**
+         * The minimum values of the character columns on the current page.
+         */
+        private final byte[][] minStrings;
+
+        /**
+         * The maximum values of the character columns on the current page.
+         */
+        private final byte[][] maxStrings;
+
+        /**
+         * The number of written pages.
+         */
+        private int pageCount;
+
+        /**
+         * The constructor that prepares the collection of the statistics of the columns of the file.
+         *
+         * @param output the output of the statistics file.
+         * @param parser the parser of the sas7bdat file.
+         */
+        Collector(DataOutputStream output, SasFileParser parser) {
+            List<Column> columns = parser.getColumns();
+            RowFilterCompiler compiler = parser.getRowFilterCompiler();
+            this.output = output;
+            littleEndian = parser.getSasFileProperties().getEndianness() == 1;
+            numeric = getNumericFlags(columns);
+            hasData = new boolean[columns.size()];
+            offsets = new int[columns.size()];
+            lengths = new int[columns.size()];
+            for (int i = 0; i < columns.size(); i++) {
+                hasData[i] = compiler.hasData(i);
+                offsets[i] = parser.getColumnsDataOffset().get(i).intValue();
+                lengths[i] = parser.getColumnsDataLength().get(i);
+            }
+            nullCounts = new int[columns.size()];
+            minNumbers = new double[columns.size()];
+            maxNumbers = new double[columns.size()];
+            minStrings = new byte[columns.size()][];
+            maxStrings = new byte[columns.size()][];
+        }
+
+        /**
+         * The method to write the location of the page and to reset the statistics of the columns.
+         *
+         * @param pageIndex     the index of the page counted from the first page after the header.
+         * @param firstRowIndex the index of the first row of the page in the file.
+         * @param pageRowCount  the number of rows on the page.
+         * @throws IOException if writing the statistics file is impossible.
+         */
+        @Override
+        public void startPage(long pageIndex, long firstRowIndex, int pageRowCount) throws IOException {
+            output.writeLong(pageIndex);
+            output.writeLong(firstRowIndex);
+            output.writeInt(pageRowCount);
+            Arrays.fill(nullCounts, 0);
+            Arrays.fill(minNumbers, Double.NaN);
+            Arrays.fill(maxNumbers, Double.NaN);
+            Arrays.fill(minStrings, null);
+            Arrays.fill(maxStrings, null);
+        }
+
+        /**
+         * The method to update the statistics of the columns with the values of a row.
+         *
+         * @param source the array of bytes that stores the uncompressed row.
+         * @param offset the offset of the row in the array.
+         */
+        @Override
+        public void scanRow(byte[] source, int offset) {
+            for (int i = 0; i < numeric.length; i++) {
+                if (!hasData[i]) {
+                    nullCounts[i]++;
+                } else if (numeric[i]) {
+                    double value = RowFilterCompiler.readNumber(source, offset + offsets[i], lengths[i], littleEndian);
+                    if (RowFilterCompiler.isMissing(value)) {
+                        nullCounts[i]++;
+                    } else {
+                        if (!(value >= minNumbers[i])) {
+                            minNumbers[i] = value;
+                        }
+                        if (!(value <= maxNumbers[i])) {
+                            maxNumbers[i] = value;
+                        }
+                    }
+                } else {
+                    int valueOffset = offset + offsets[i];
+                    int valueLength = RowFilterCompiler.getTrimmedLength(source, valueOffset, lengths[i]);
+                    if (valueLength == 0) {
+                        nullCounts[i]++;
+                    } else {
+                        if (minStrings[i] == null
+                                || compareBytes(source, valueOffset, valueLength, minStrings[i], minStrings[i].length)
+                                < 0) {
+                            minStrings[i] = Arrays.copyOfRange(source, valueOffset, valueOffset + valueLength);
+                        }
+                        if (maxStrings[i] == null
+                                || compareBytes(source, valueOffset, valueLength, maxStrings[i], maxStrings[i].length)
+                                > 0) {
+                            maxStrings[i] = Arrays.copyOfRange(source, valueOffset, valueOffset + valueLength);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * The method to write the statistics of the columns on the page.
+         *
+         * @throws IOException if writing the statistics file is impossible.
+         */
+        @Override
+        public void endPage() throws IOException {
+            for (int i = 0; i < numeric.length; i++) {
+                output.writeInt(nullCounts[i]);
+                if (numeric[i]) {
+                    output.writeDouble(minNumbers[i]);
+                    output.writeDouble(maxNumbers[i]);
+                } else {
+                    writeBytes(minStrings[i]);
+                    writeBytes(maxStrings[i]);
+                }
+            }
+            pageCount++;
+        }
+
+        /**
+         * The method to write the bytes of a minimum or maximum value of a character column.
+         *
+         * @param bytes the bytes, null if all values are missing.
+         * @throws IOException if writing the statistics file is impossible.
+         */
+        private void writeBytes(byte[] bytes) throws IOException {
+            if (bytes == null) {
+                output.writeShort(NO_VALUE_LENGTH);
+            } else {
+                output.writeShort(bytes.length);
+                output.write(bytes);
+            }
+        }
+    }
+}
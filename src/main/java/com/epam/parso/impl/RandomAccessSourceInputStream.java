@@ -0,0 +1,128 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.RandomAccessSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream reading a {@link RandomAccessSource} sequentially from a position. The stream can be passed to
+ * the readers, indexers and writers of the statistics in place of a {@link java.io.FileInputStream}: the parser
+ * recognizes it and reads the pages with positioned reads of the source, so seeking, reading in parallel and
+ * the indexes do not require to read the source from its beginning.
+ */
+public final class RandomAccessSourceInputStream extends InputStream {
+    /**
+     * The source.
+     */
+    private final RandomAccessSource source;
+
+    /**
+     * The position of the next read byte.
+     */
+    private long position;
+
+    /**
+     * The constructor of the stream reading the source from its beginning.
+     *
+     * @param source the source.
+     */
+    public RandomAccessSourceInputStream(RandomAccessSource source) {
+        this.source = source;
+    }
+
+    /**
+     * The function to get the source read by the stream.
+     *
+     * @return the source.
+     */
+    RandomAccessSource getSource() {
+        return source;
+    }
+
+    /**
+     * The function to get the position of the next read byte.
+     *
+     * @return the position.
+     */
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * The function to set the position of the next read byte.
+     *
+     * @param position the position.
+     */
+    void setPosition(long position) {
+        this.position = position;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        byte[] buffer = new byte[1];
+        return read(buffer, 0, 1) < 0 ? -1 : buffer[0] & 0xFF;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        int count = source.read(position, buffer, offset, length);
+        if (count > 0) {
+            position += count;
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc} The stream is not skipped past the end of the source.
+     */
+    @Override
+    public long skip(long byteCount) throws IOException {
+        long skipped = Math.max(0, Math.min(byteCount, source.size() - position));
+        position += skipped;
+        return skipped;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, source.size() - position));
+    }
+
+    /**
+     * The method to close the source.
+     *
+     * @throws IOException if closing the source is impossible.
+     */
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -0,0 +1,437 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+import com.epam.parso.DataWriter;
+import com.epam.parso.DataWriterFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is a class to export the sas7bdat file data into several part files of any export format, for example CSV
+ * or JSON Lines, so that the parts can be loaded in parallel. A new part is started after the given number of rows
+ * or bytes is written to the current one; the column names are written to every part. When the writer is closed,
+ * the manifest file listing the parts with their row counts and sizes in bytes is written in CSV format.
+ * The limit of bytes is checked at row boundaries against the bytes already passed to the file, so a part can
+ * exceed it by one row and the content buffered by the data writer of the format.
+ */
+public class RollingDataWriterImpl implements DataWriter, Closeable {
+    /**
+     * The default encoding of the part files.
+     */
+    private static final String DEFAULT_ENCODING = "UTF-8";
+
+    /**
+     * The format of the part file names, the arguments are the prefix, the part number and the extension.
+     */
+    private static final String PART_FILE_NAME_FORMAT = "%s-%05d%s";
+
+    /**
+     * The suffix of the manifest file name.
+     */
+    private static final String MANIFEST_FILE_NAME_SUFFIX = "-manifest.csv";
+
+    /**
+     * The delimiter to use in the manifest file.
+     */
+    private static final String MANIFEST_DELIMITER = ",";
+
+    /**
+     * The endline for the manifest file.
+     */
+    private static final String MANIFEST_ENDLINE = "\n";
+
+    /**
+     * The header of the manifest file.
+     */
+    private static final String MANIFEST_HEADER = "File name,Rows,Bytes";
+
+    /**
+     * The directory to store the part files and the manifest in.
+     */
+    private final File directory;
+
+    /**
+     * The prefix of the part file names.
+     */
+    private final String fileNamePrefix;
+
+    /**
+     * The extension of the part file names including the dot, for example ".csv".
+     */
+    private final String fileExtension;
+
+    /**
+     * The factory to create the data writer of the export format for every part.
+     */
+    private final DataWriterFactory dataWriterFactory;
+
+    /**
+     * The maximum number of rows in a part, not limited if it is not positive.
+     */
+    private final long maxRowsPerPart;
+
+    /**
+     * The maximum number of bytes in a part, not limited if it is not positive.
+     */
+    private final long maxBytesPerPart;
+
+    /**
+     * The encoding of the part files.
+     */
+    private final String encoding;
+
+    /**
+     * The list of finished parts.
+     */
+    private final List<Part> parts = new ArrayList<Part>();
+
+    /**
+     * The columns whose names are written to every part, null if {@link RollingDataWriterImpl#writeColumnNames(List)}
+     * was not called.
+     */
+    private List<Column> headerColumns;
+
+    /**
+     * The part which is being written, null if there is no open part.
+     */
+    private Part currentPart;
+
+    /**
+     * The stream counting bytes of the current part.
+     */
+    private CountingOutputStream currentStream;
+
+    /**
+     * The writer of the current part.
+     */
+    private Writer currentWriter;
+
+    /**
+     * The data writer of the export format which outputs data into {@link RollingDataWriterImpl#currentWriter}.
+     */
+    private DataWriter currentDataWriter;
+
+    /**
+     * The manifest file, null until the writer is closed.
+     */
+    private File manifestFile;
+
+    /**
+     * The constructor that defines the location and the names of the part files, the export format, and the limits
+     * of a part. The parts are written in {@link RollingDataWriterImpl#DEFAULT_ENCODING}.
+     *
+     * @param directory         the directory to store the part files and the manifest in.
+     * @param fileNamePrefix    the prefix of the part file names, the parts are named prefix-00000.ext.
+     * @param fileExtension     the extension of the part file names including the dot, for example ".csv".
+     * @param dataWriterFactory the factory to create the data writer of the export format for every part.
+     * @param maxRowsPerPart    the maximum number of rows in a part, not limited if it is not positive.
+     * @param maxBytesPerPart   the maximum number of bytes in a part, not limited if it is not positive.
+     */
+    public RollingDataWriterImpl(File directory, String fileNamePrefix, String fileExtension,
+                                 DataWriterFactory dataWriterFactory, long maxRowsPerPart, long maxBytesPerPart) {
+        this(directory, fileNamePrefix, fileExtension, dataWriterFactory, maxRowsPerPart, maxBytesPerPart,
+                DEFAULT_ENCODING);
+    }
+
+    /**
+     * The constructor that defines the location and the names of the part files, the export format, the limits
+     * of a part, and the encoding of the part files.
+     *
+     * @param directory         the directory to store the part files and the manifest in.
+     * @param fileNamePrefix    the prefix of the part file names, the parts are named prefix-00000.ext.
+     * @param fileExtension     the extension of the part file names including the dot, for example ".csv".
+     * @param dataWriterFactory the factory to create the data writer of the export format for every part.
+     * @param maxRowsPerPart    the maximum number of rows in a part, not limited if it is not positive.
+     * @param maxBytesPerPart   the maximum number of bytes in a part, not limited if it is not positive.
+     * @param encoding          the encoding of the part files.
+     */
+    public RollingDataWriterImpl(File directory, String fileNamePrefix, String fileExtension,
+                                 DataWriterFactory dataWriterFactory, long maxRowsPerPart, long maxBytesPerPart,
+                                 String encoding) {
+        this.directory = directory;
+        this.fileNamePrefix = fileNamePrefix;
+        this.fileExtension = fileExtension;
+        this.dataWriterFactory = dataWriterFactory;
+        this.maxRowsPerPart = maxRowsPerPart;
+        this.maxBytesPerPart = maxBytesPerPart;
+        this.encoding = encoding;
+    }
+
+    /**
+     * The method to export a row from sas7bdat file into the current part. The part is finished if it reaches
+     * the limit of rows or bytes after the row is written, the next row starts a new part.
+     *
+     * @param columns the {@link Column} class variables list that stores columns description from the sas7bdat file.
+     * @param row     the Objects arrays that stores data from the sas7bdat file.
+     * @throws java.io.IOException appears if the output into a part file is impossible.
+     */
+    @Override
+    public void writeRow(List<Column> columns, Object[] row) throws IOException {
+        if (row == null) {
+            return;
+        }
+        if (currentPart == null) {
+            startPart();
+        }
+        currentDataWriter.writeRow(columns, row);
+        currentPart.rows++;
+        if (maxBytesPerPart > 0) {
+            currentWriter.flush();
+        }
+        if (maxRowsPerPart > 0 && currentPart.rows >= maxRowsPerPart
+                || maxBytesPerPart > 0 && currentStream.getCount() >= maxBytesPerPart) {
+            finishPart();
+        }
+    }
+
+    /**
+     * The method to export a parsed sas7bdat file into as many parts as the limits require.
+     *
+     * @param columns the {@link Column} class variables list that stores columns description from the sas7bdat file.
+     * @param rows    the Objects arrays array that stores data from the sas7bdat file.
+     * @throws java.io.IOException appears if the output into a part file is impossible.
+     */
+    @Override
+    public void writeRowsArray(List<Column> columns, Object[][] rows) throws IOException {
+        for (Object[] currentRow : rows) {
+            if (currentRow != null) {
+                writeRow(columns, currentRow);
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * The method to remember the columns whose names are written at the beginning of every part. If a part is
+     * already open and has no rows, the names are written to it at once.
+     *
+     * @param columns the list of column names.
+     * @throws IOException appears if the output into a part file is impossible.
+     */
+    @Override
+    public void writeColumnNames(List<Column> columns) throws IOException {
+        headerColumns = columns;
+        if (currentPart != null && currentPart.rows == 0) {
+            currentDataWriter.writeColumnNames(columns);
+        }
+    }
+
+    /**
+     * The method to finish the current part and write the manifest file. If no rows were written, one part with
+     * the column names only is created so that the output always has at least one file.
+     *
+     * @throws IOException appears if the output into a part file or the manifest is impossible.
+     */
+    @Override
+    public void close() throws IOException {
+        if (manifestFile != null) {
+            return;
+        }
+        if (parts.isEmpty() && currentPart == null) {
+            startPart();
+        }
+        finishPart();
+        writeManifest();
+    }
+
+    /**
+     * The function to get the manifest file.
+     *
+     * @return the manifest file, null if the writer is not closed yet.
+     */
+    public File getManifestFile() {
+        return manifestFile;
+    }
+
+    /**
+     * The function to get the part files finished so far, in the order they were written.
+     *
+     * @return the list of the part files.
+     */
+    public List<File> getPartFiles() {
+        List<File> files = new ArrayList<File>();
+        for (Part part : parts) {
+            files.add(part.file);
+        }
+        return files;
+    }
+
+    /**
+     * The method to open the next part file and write the column names to it.
+     *
+     * @throws IOException appears if the part file cannot be created.
+     */
+    private void startPart() throws IOException {
+        File file = new File(directory, String.format(PART_FILE_NAME_FORMAT, fileNamePrefix, parts.size(),
+                fileExtension));
+        currentStream = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        currentWriter = new OutputStreamWriter(currentStream, encoding);
+        currentDataWriter = dataWriterFactory.createDataWriter(currentWriter);
+        currentPart = new Part(file);
+        if (headerColumns != null) {
+            currentDataWriter.writeColumnNames(headerColumns);
+        }
+    }
+
+    /**
+     * The method to close the current part file and add it to {@link RollingDataWriterImpl#parts}.
+     *
+     * @throws IOException appears if the part file cannot be closed.
+     */
+    private void finishPart() throws IOException {
+        if (currentPart == null) {
+            return;
+        }
+        currentWriter.close();
+        currentPart.bytes = currentStream.getCount();
+        parts.add(currentPart);
+        currentPart = null;
+        currentStream = null;
+        currentWriter = null;
+        currentDataWriter = null;
+    }
+
+    /**
+     * The method to write the manifest file listing the part files with their row counts and sizes in bytes.
+     *
+     * @throws IOException appears if the manifest cannot be written.
+     */
+    private void writeManifest() throws IOException {
+        File file = new File(directory, fileNamePrefix + MANIFEST_FILE_NAME_SUFFIX);
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), encoding);
+        try {
+            writer.write(MANIFEST_HEADER);
+            writer.write(MANIFEST_ENDLINE);
+            for (Part part : parts) {
+                AbstractCSVWriter.checkSurroundByQuotesAndWrite(writer, MANIFEST_DELIMITER, part.file.getName());
+                writer.write(MANIFEST_DELIMITER);
+                writer.write(String.valueOf(part.rows));
+                writer.write(MANIFEST_DELIMITER);
+                writer.write(String.valueOf(part.bytes));
+                writer.write(MANIFEST_ENDLINE);
+            }
+        } finally {
+            writer.close();
+        }
+        manifestFile = file;
+    }
+
+    /**
+     * The class to store the file of a part, the number of rows and the number of bytes written to it.
+     */
+    private static final class Part {
+        /**
+         * The part file.
+         */
+        private final File file;
+
+        /**
+         * The number of rows written to the part.
+         */
+        private long rows;
+
+        /**
+         * The number of bytes written to the part, known after the part is finished.
+         */
+        private long bytes;
+
+        /**
+         * The constructor of the part stored in the given file.
+         *
+         * @param file the part file.
+         */
+        private Part(File file) {
+            this.file = file;
+        }
+    }
+
+    /**
+     * The output stream which counts the bytes passed through it.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        /**
+         * The number of bytes written to the stream.
+         */
+        private long count;
+
+        /**
+         * The constructor of the stream which counts bytes written to the given stream.
+         *
+         * @param out the underlying output stream.
+         */
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        /**
+         * The method to write a byte to the underlying stream and count it.
+         *
+         * @param b the byte to write.
+         * @throws IOException if the underlying stream fails.
+         */
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        /**
+         * The method to write a part of an array of bytes to the underlying stream and count it.
+         *
+         * @param b   the array of bytes.
+         * @param off the offset of the first byte to write.
+         * @param len the number of bytes to write.
+         * @throws IOException if the underlying stream fails.
+         */
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        /**
+         * The method called when the writer of the part has passed its buffered bytes to the stream to count them.
+         * The call is not passed to the underlying stream, which is flushed when it is closed, so flushing the writer
+         * after every row does not write to the file.
+         */
+        @Override
+        public void flush() {
+        }
+
+        /**
+         * The function to get the number of bytes written to the stream.
+         *
+         * @return the number of bytes.
+         */
+        private long getCount() {
+            return count;
+        }
+    }
+}
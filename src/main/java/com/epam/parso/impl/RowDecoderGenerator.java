@@ -0,0 +1,384 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A generator of row decoders specialized for the layout of the rows of a sas7bdat file. The decoder of a layout is
+ * a method handle of the {@link RowDecoderGenerator#DECODER_TYPE} type composed of one handle per column, with
+ * the index, the offset and the length of the column bound as constants and the decoding strategy chosen when
+ * the handle is composed, so decoding a row runs the columns straight through without a loop and a switch over
+ * the strategies. The handles are composed as a balanced tree to keep the call depth logarithmic for wide rows.
+ * <p>
+ * The decoders take the {@link RowDecoderPlan} with the decoders of numbers and strings of the file as their first
+ * argument, so a decoder depends only on the layout and is shared by the files with the same columns. The decoders
+ * of the most recently used layouts are cached. If the method handles are not available, no decoder is generated
+ * and the rows are decoded by {@link RowDecoderPlan} itself.
+ * <p>
+ * A decoder is held by its plan and invoked on a plan which is not a constant, so the JIT does not inline it into
+ * the caller as it would a handle held in a static final field; the hot handles are compiled to dedicated code
+ * instead. The gain is largest for rows of numeric columns, where the loop of the plan spends a large share of
+ * its time on the dispatch, and shrinks as decoding the characters of string columns outweighs the dispatch.
+ */
+final class RowDecoderGenerator {
+    /**
+     * Object for writing logs.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RowDecoderGenerator.class);
+
+    /**
+     * The type of the generated decoders: the plan, the buffer holding the row and the offset of the row in it,
+     * the array to store the values of the columns in.
+     */
+    static final MethodType DECODER_TYPE = MethodType.methodType(void.class, RowDecoderPlan.class, byte[].class,
+            int.class, Object[].class);
+
+    /**
+     * The type of the functions decoding a column: the index, the offset and the length of the column followed by
+     * the arguments of {@link RowDecoderGenerator#DECODER_TYPE}.
+     */
+    private static final MethodType COLUMN_TYPE = DECODER_TYPE.insertParameterTypes(1, int.class, int.class,
+            int.class);
+
+    /**
+     * The maximum number of layouts whose decoders are cached.
+     */
+    private static final int MAX_CACHED_LAYOUTS = 64;
+
+    /**
+     * The initial capacity of the cache of the decoders.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The load factor of the cache of the decoders.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * The functions decoding a column by the strategies of {@link RowDecoderPlan}, null if the method handles are
+     * not available.
+     */
+    private static final MethodHandle[] COLUMN_DECODERS = findColumnDecoders(MethodHandles.lookup());
+
+    /**
+     * The decoders by the layouts of the rows, the least recently used layouts are evicted.
+     */
+    private static final Map<Layout, MethodHandle> DECODERS = new LinkedHashMap<Layout, MethodHandle>(
+            INITIAL_CAPACITY, LOAD_FACTOR, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Layout, MethodHandle> eldest) {
+            return size() > MAX_CACHED_LAYOUTS;
+        }
+    };
+
+    /**
+     * Empty private constructor for preventing instantiation.
+     */
+    private RowDecoderGenerator() {
+    }
+
+    /**
+     * The function to find the functions decoding a column.
+     *
+     * @param lookup the lookup with access to the private functions of {@link RowDecoderGenerator}.
+     * @return the functions by the strategies of {@link RowDecoderPlan}, or null if they cannot be found.
+     */
+    static MethodHandle[] findColumnDecoders(MethodHandles.Lookup lookup) {
+        String[] names = {"decodeShort", "decodeNumber", "decodeDate", "decodeDateTime", "decodeBytes",
+                "decodeLazyString", "decodeCachedString", "decodeString"};
+        MethodHandle[] handles = new MethodHandle[names.length];
+        try {
+            for (int i = 0; i < names.length; i++) {
+                handles[i] = lookup.findStatic(RowDecoderGenerator.class, names[i], COLUMN_TYPE);
+            }
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("Row decoders cannot be generated, the rows are decoded by plans: {}", e.getMessage());
+            return null;
+        } catch (SecurityException e) {
+            LOGGER.warn("Row decoders cannot be generated, the rows are decoded by plans: {}", e.getMessage());
+            return null;
+        }
+        return handles;
+    }
+
+    /**
+     * The function to get the decoder of a layout of the rows, generating it if it is not cached.
+     *
+     * @param kinds   the strategies of the decoded columns, at least one.
+     * @param offsets the offsets of the values of the decoded columns from the beginning of the row.
+     * @param lengths the lengths of the values of the decoded columns in bytes.
+     * @return the decoder of the {@link RowDecoderGenerator#DECODER_TYPE} type, or null if decoders cannot be
+     * generated.
+     */
+    static MethodHandle getDecoder(byte[] kinds, int[] offsets, int[] lengths) {
+        return getDecoder(COLUMN_DECODERS, kinds, offsets, lengths);
+    }
+
+    /**
+     * The function to get the decoder of a layout of the rows composed of the given functions decoding a column,
+     * generating it if it is not cached.
+     *
+     * @param columnDecoders the functions decoding a column returned by
+     *                       {@link RowDecoderGenerator#findColumnDecoders(MethodHandles.Lookup)}, null if they
+     *                       cannot be found.
+     * @param kinds          the strategies of the decoded columns, at least one.
+     * @param offsets        the offsets of the values of the decoded columns from the beginning of the row.
+     * @param lengths        the lengths of the values of the decoded columns in bytes.
+     * @return the decoder of the {@link RowDecoderGenerator#DECODER_TYPE} type, or null if decoders cannot be
+     * generated.
+     */
+    static MethodHandle getDecoder(MethodHandle[] columnDecoders, byte[] kinds, int[] offsets, int[] lengths) {
+        if (columnDecoders == null) {
+            return null;
+        }
+        Layout layout = new Layout(kinds, offsets, lengths);
+        synchronized (DECODERS) {
+            MethodHandle decoder = DECODERS.get(layout);
+            if (decoder == null) {
+                decoder = compose(columnDecoders, kinds, offsets, lengths, 0, kinds.length - 1);
+                DECODERS.put(layout, decoder);
+            }
+            return decoder;
+        }
+    }
+
+    /**
+     * The function to compose the decoder of a range of columns, the columns of the first half of the range are
+     * decoded before the ones of the second half.
+     *
+     * @param columnDecoders the functions decoding a column.
+     * @param kinds          the strategies of the decoded columns.
+     * @param offsets        the offsets of the values of the decoded columns from the beginning of the row.
+     * @param lengths        the lengths of the values of the decoded columns in bytes.
+     * @param first          the index of the first column of the range.
+     * @param last           the index of the last column of the range.
+     * @return the decoder of the {@link RowDecoderGenerator#DECODER_TYPE} type.
+     */
+    private static MethodHandle compose(MethodHandle[] columnDecoders, byte[] kinds, int[] offsets, int[] lengths,
+                                        int first, int last) {
+        if (first == last) {
+            return MethodHandles.insertArguments(columnDecoders[kinds[first]], 1, first, offsets[first],
+                    lengths[first]);
+        }
+        int middle = (first + last) >>> 1;
+        return MethodHandles.foldArguments(compose(columnDecoders, kinds, offsets, lengths, middle + 1, last),
+                compose(columnDecoders, kinds, offsets, lengths, first, middle));
+    }
+
+    /**
+     * The function to decode a value of the {@link RowDecoderPlan#SHORT} strategy.
+     *
+     * @param plan         the plan with the decoders of the file.
+     * @param column       the index of the column.
+     * @param columnOffset the offset of the value from the beginning of the row.
+     * @param length       the length of the value in bytes.
+     * @param source       the buffer holding the row.
+     * @param offset       the offset of the row in the buffer.
+     * @param row          the array to store the value in.
+     */
+    private static void decodeShort(RowDecoderPlan plan, int column, int columnOffset, int length, byte[] source,
+                                    int offset, Object[] row) {
+        row[column] = plan.getByteDecoder().bytesToShort(source, offset + columnOffset);
+    }
+
+    /**
+     * The function to decode a value of the {@link RowDecoderPlan#NUMBER} strategy.
+     *
+     * @param plan         the plan with the decoders of the file.
+     * @param column       the index of the column.
+     * @param columnOffset the offset of the value from the beginning of the row.
+     * @param length       the length of the value in bytes.
+     * @param source       the buffer holding the row.
+     * @param offset       the offset of the row in the buffer.
+     * @param row          the array to store the value in.
+     */
+    private static void decodeNumber(RowDecoderPlan plan, int column, int columnOffset, int length, byte[] source,
+                                     int offset, Object[] row) {
+        row[column] = plan.getByteDecoder().bytesToNumber(source, offset + columnOffset, length);
+    }
+
+    /**
+     * The function to decode a value of the {@link RowDecoderPlan#DATE} strategy.
+     *
+     * @param plan         the plan with the decoders of the file.
+     * @param column       the index of the column.
+     * @param columnOffset the offset of the value from the beginning of the row.
+     * @param length       the length of the value in bytes.
+     * @param source       the buffer holding the row.
+     * @param offset       the offset of the row in the buffer.
+     * @param row          the array to store the value in.
+     */
+    private static void decodeDate(RowDecoderPlan plan, int column, int columnOffset, int length, byte[] source,
+                                   int offset, Object[] row) {
+        row[column] = plan.getByteDecoder().bytesToTemporal(source, offset + columnOffset, length, false,
+                plan.getTemporalOutput());
+    }
+
+    /**
+     * The function to decode a value of the {@link RowDecoderPlan#DATE_TIME} strategy.
+     *
+     * @param plan         the plan with the decoders of the file.
+     * @param column       the index of the column.
+     * @param columnOffset the offset of the value from the beginning of the row.
+     * @param length       the length of the value in bytes.
+     * @param source       the buffer holding the row.
+     * @param offset       the offset of the row in the buffer.
+     * @param row          the array to store the value in.
+     */
+    private static void decodeDateTime(RowDecoderPlan plan, int column, int columnOffset, int length, byte[] source,
+                                       int offset, Object[] row) {
+        row[column] = plan.getByteDecoder().bytesToTemporal(source, offset + columnOffset, length, true,
+                plan.getTemporalOutput());
+    }
+
+    /**
+     * The function to decode a value of the {@link RowDecoderPlan#BYTES} strategy.
+     *
+     * @param plan         the plan with the decoders of the file.
+     * @param column       the index of the column.
+     * @param columnOffset the offset of the value from the beginning of the row.
+     * @param length       the length of the value in bytes.
+     * @param source       the buffer holding the row.
+     * @param offset       the offset of the row in the buffer.
+     * @param row          the array to store the value in.
+     */
+    private static void decodeBytes(RowDecoderPlan plan, int column, int columnOffset, int length, byte[] source,
+                                    int offset, Object[] row) {
+        row[column] = plan.getByteDecoder().trimBytesArray(source, offset + columnOffset, length);
+    }
+
+    /**
+     * The function to decode a value of the {@link RowDecoderPlan#LAZY_STRING} strategy.
+     *
+     * @param plan         the plan with the decoders of the file.
+     * @param column       the index of the column.
+     * @param columnOffset the offset of the value from the beginning of the row.
+     * @param length       the length of the value in bytes.
+     * @param source       the buffer holding the row.
+     * @param offset       the offset of the row in the buffer.
+     * @param row          the array to store the value in.
+     */
+    private static void decodeLazyString(RowDecoderPlan plan, int column, int columnOffset, int length,
+                                         byte[] source, int offset, Object[] row) {
+        int start = offset + columnOffset;
+        int trimmedLength = ByteDecoder.getTrimmedLength(source, start, length);
+        row[column] = trimmedLength == 0 ? null : new LazyString(source, start, trimmedLength,
+                plan.getStringDecoder());
+    }
+
+    /**
+     * The function to decode a value of the {@link RowDecoderPlan#CACHED_STRING} strategy.
+     *
+     * @param plan         the plan with the decoders of the file.
+     * @param column       the index of the column.
+     * @param columnOffset the offset of the value from the beginning of the row.
+     * @param length       the length of the value in bytes.
+     * @param source       the buffer holding the row.
+     * @param offset       the offset of the row in the buffer.
+     * @param row          the array to store the value in.
+     */
+    private static void decodeCachedString(RowDecoderPlan plan, int column, int columnOffset, int length,
+                                           byte[] source, int offset, Object[] row) {
+        int start = offset + columnOffset;
+        int trimmedLength = ByteDecoder.getTrimmedLength(source, start, length);
+        row[column] = trimmedLength == 0 ? null : plan.getStringCache(column).decode(source, start, trimmedLength);
+    }
+
+    /**
+     * The function to decode a value of the {@link RowDecoderPlan#STRING} strategy.
+     *
+     * @param plan         the plan with the decoders of the file.
+     * @param column       the index of the column.
+     * @param columnOffset the offset of the value from the beginning of the row.
+     * @param length       the length of the value in bytes.
+     * @param source       the buffer holding the row.
+     * @param offset       the offset of the row in the buffer.
+     * @param row          the array to store the value in.
+     */
+    private static void decodeString(RowDecoderPlan plan, int column, int columnOffset, int length, byte[] source,
+                                     int offset, Object[] row) {
+        int start = offset + columnOffset;
+        int trimmedLength = ByteDecoder.getTrimmedLength(source, start, length);
+        row[column] = trimmedLength == 0 ? null : plan.getStringDecoder().decode(source, start, trimmedLength);
+    }
+
+    /**
+     * The layout of the rows a decoder is generated for, the key of the cache of the decoders.
+     */
+    private static final class Layout {
+        /**
+         * The strategies of the decoded columns.
+         */
+        private final byte[] kinds;
+
+        /**
+         * The offsets of the values of the decoded columns from the beginning of the row.
+         */
+        private final int[] offsets;
+
+        /**
+         * The lengths of the values of the decoded columns in bytes.
+         */
+        private final int[] lengths;
+
+        /**
+         * The constructor of a layout.
+         *
+         * @param kinds   the strategies of the decoded columns.
+         * @param offsets the offsets of the values of the decoded columns from the beginning of the row.
+         * @param lengths the lengths of the values of the decoded columns in bytes.
+         */
+        Layout(byte[] kinds, int[] offsets, int[] lengths) {
+            this.kinds = kinds;
+            this.offsets = offsets;
+            this.lengths = lengths;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Layout)) {
+                return false;
+            }
+            Layout layout = (Layout) other;
+            return Arrays.equals(kinds, layout.kinds) && Arrays.equals(offsets, layout.offsets)
+                    && Arrays.equals(lengths, layout.lengths);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return (Arrays.hashCode(kinds) * 31 + Arrays.hashCode(offsets)) * 31 + Arrays.hashCode(lengths);
+        }
+    }
+}
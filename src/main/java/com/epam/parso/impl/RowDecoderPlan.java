@@ -0,0 +1,320 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+import com.epam.parso.TemporalOutput;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * A plan to decode the rows of a sas7bdat file compiled once for its columns by {@link SasFileParser}. Every column
+ * gets a decoding strategy chosen from its type, length and format and from the settings of the parser, and its
+ * offset and length in the row are kept in primitive arrays, so decoding a row is a loop over the plan without
+ * lookups of the column metadata. The plan is immutable and can decode rows on several threads at once.
+ * <p>
+ * A plan returned by {@link RowDecoderPlan#withGeneratedDecoder()} decodes the rows with a decoder generated by
+ * {@link RowDecoderGenerator} for its layout instead of the loop.
+ */
+final class RowDecoderPlan {
+    /**
+     * The strategy of the numeric columns of 2 bytes or less decoded to {@link Integer}.
+     */
+    static final byte SHORT = 0;
+
+    /**
+     * The strategy of the numeric columns decoded to {@link Long} or {@link Double}, possibly stored with less than
+     * {@link SasFileConstants#BYTES_IN_DOUBLE} bytes.
+     */
+    static final byte NUMBER = 1;
+
+    /**
+     * The strategy of the columns with a format of {@link SasFileConstants#DATE_FORMAT_STRINGS}.
+     */
+    static final byte DATE = 2;
+
+    /**
+     * The strategy of the columns with a format of {@link SasFileConstants#DATE_TIME_FORMAT_STRINGS}.
+     */
+    static final byte DATE_TIME = 3;
+
+    /**
+     * The strategy of the character columns returned as trimmed bytes.
+     */
+    static final byte BYTES = 4;
+
+    /**
+     * The strategy of the character columns returned as {@link LazyString} views.
+     */
+    static final byte LAZY_STRING = 5;
+
+    /**
+     * The strategy of the character columns decoded through a {@link StringDecodeCache}.
+     */
+    static final byte CACHED_STRING = 6;
+
+    /**
+     * The strategy of the character columns decoded to new strings.
+     */
+    static final byte STRING = 7;
+
+    /**
+     * The strategies of the decoded columns by column index.
+     */
+    private final byte[] kinds;
+
+    /**
+     * The offsets of the values of the decoded columns from the beginning of the row.
+     */
+    private final int[] offsets;
+
+    /**
+     * The lengths of the values of the decoded columns in bytes.
+     */
+    private final int[] lengths;
+
+    /**
+     * The decoder of numbers and dates.
+     */
+    private final ByteDecoder byteDecoder;
+
+    /**
+     * The decoder of character values.
+     */
+    private final StringDecoder stringDecoder;
+
+    /**
+     * The caches of the strings by column index for the columns of the {@link RowDecoderPlan#CACHED_STRING}
+     * strategy.
+     */
+    private final StringDecodeCache[] stringCaches;
+
+    /**
+     * The representation of the values of date and datetime columns.
+     */
+    private final TemporalOutput temporalOutput;
+
+    /**
+     * The decoder generated by {@link RowDecoderGenerator} for the layout of the plan, null if the rows are decoded
+     * by the plan itself.
+     */
+    private final MethodHandle generatedDecoder;
+
+    /**
+     * The constructor of a plan.
+     *
+     * @param kinds          the strategies of the decoded columns.
+     * @param offsets        the offsets of the values of the decoded columns from the beginning of the row.
+     * @param lengths        the lengths of the values of the decoded columns in bytes.
+     * @param byteDecoder    the decoder of numbers and dates.
+     * @param stringDecoder  the decoder of character values.
+     * @param stringCaches   the caches of the strings by column index, null if no column is cached.
+     * @param temporalOutput the representation of the values of date and datetime columns.
+     */
+    RowDecoderPlan(byte[] kinds, int[] offsets, int[] lengths, ByteDecoder byteDecoder, StringDecoder stringDecoder,
+                   StringDecodeCache[] stringCaches, TemporalOutput temporalOutput) {
+        this.kinds = kinds;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.byteDecoder = byteDecoder;
+        this.stringDecoder = stringDecoder;
+        this.stringCaches = stringCaches;
+        this.temporalOutput = temporalOutput;
+        generatedDecoder = null;
+    }
+
+    /**
+     * The constructor of a copy of a plan which decodes the rows with a generated decoder.
+     *
+     * @param plan             the plan.
+     * @param generatedDecoder the decoder generated for the layout of the plan.
+     */
+    private RowDecoderPlan(RowDecoderPlan plan, MethodHandle generatedDecoder) {
+        kinds = plan.kinds;
+        offsets = plan.offsets;
+        lengths = plan.lengths;
+        byteDecoder = plan.byteDecoder;
+        stringDecoder = plan.stringDecoder;
+        stringCaches = plan.stringCaches;
+        temporalOutput = plan.temporalOutput;
+        this.generatedDecoder = generatedDecoder;
+    }
+
+    /**
+     * The function to get a plan which decodes the rows with a decoder generated by {@link RowDecoderGenerator}.
+     *
+     * @return the plan with the generated decoder, or this plan if a decoder cannot be generated.
+     */
+    RowDecoderPlan withGeneratedDecoder() {
+        if (generatedDecoder != null || kinds.length == 0) {
+            return this;
+        }
+        return withGeneratedDecoder(RowDecoderGenerator.getDecoder(kinds, offsets, lengths));
+    }
+
+    /**
+     * The function to get a plan which decodes the rows with a given generated decoder.
+     *
+     * @param decoder the decoder generated for the layout of the plan, null if it cannot be generated.
+     * @return the plan with the generated decoder, or this plan if the decoder is null.
+     */
+    RowDecoderPlan withGeneratedDecoder(MethodHandle decoder) {
+        return decoder == null ? this : new RowDecoderPlan(this, decoder);
+    }
+
+    /**
+     * The function to check whether the rows are decoded with a generated decoder.
+     *
+     * @return true if the plan has a generated decoder.
+     */
+    boolean isGenerated() {
+        return generatedDecoder != null;
+    }
+
+    /**
+     * The function to get the decoder of numbers and dates.
+     *
+     * @return the decoder.
+     */
+    ByteDecoder getByteDecoder() {
+        return byteDecoder;
+    }
+
+    /**
+     * The function to get the decoder of character values.
+     *
+     * @return the decoder.
+     */
+    StringDecoder getStringDecoder() {
+        return stringDecoder;
+    }
+
+    /**
+     * The function to get the cache of the strings of a column of the {@link RowDecoderPlan#CACHED_STRING} strategy.
+     *
+     * @param columnIndex the index of the column.
+     * @return the cache.
+     */
+    StringDecodeCache getStringCache(int columnIndex) {
+        return stringCaches[columnIndex];
+    }
+
+    /**
+     * The function to get the representation of the values of date and datetime columns.
+     *
+     * @return the representation.
+     */
+    TemporalOutput getTemporalOutput() {
+        return temporalOutput;
+    }
+
+    /**
+     * The function to choose the strategy of a column.
+     *
+     * @param column      the column.
+     * @param length      the length of the values of the column in bytes.
+     * @param byteOutput  true if character values are returned as bytes.
+     * @param lazyStrings true if character values are returned as {@link LazyString} views.
+     * @param cached      true if the strings of the column are cached.
+     * @return the strategy.
+     */
+    static byte getKind(Column column, int length, boolean byteOutput, boolean lazyStrings, boolean cached) {
+        if (column.getType() == Number.class) {
+            if (length <= 2) {
+                return SHORT;
+            }
+            String format = column.getFormat();
+            if (format.isEmpty()) {
+                return NUMBER;
+            }
+            if (SasFileConstants.DATE_TIME_FORMAT_STRINGS.contains(format)) {
+                return DATE_TIME;
+            }
+            return SasFileConstants.DATE_FORMAT_STRINGS.contains(format) ? DATE : NUMBER;
+        }
+        if (byteOutput) {
+            return BYTES;
+        }
+        if (lazyStrings) {
+            return LAZY_STRING;
+        }
+        return cached ? CACHED_STRING : STRING;
+    }
+
+    /**
+     * The function to decode the columns of the plan from the bytes of a row.
+     *
+     * @param source the buffer holding the row.
+     * @param offset the offset of the row in the buffer.
+     * @param row    the array to store the values of the columns in.
+     * @return the number of decoded columns.
+     */
+    int decode(byte[] source, int offset, Object[] row) {
+        if (generatedDecoder != null) {
+            try {
+                generatedDecoder.invokeExact(this, source, offset, row);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+            return kinds.length;
+        }
+        for (int column = 0; column < kinds.length; column++) {
+            row[column] = decode(column, source, offset + offsets[column]);
+        }
+        return kinds.length;
+    }
+
+    /**
+     * The function to decode the value of a column.
+     *
+     * @param column the index of the column.
+     * @param source the buffer holding the row.
+     * @param start  the offset of the value in the buffer.
+     * @return the value, or null if it is missing.
+     */
+    Object decode(int column, byte[] source, int start) {
+        int length = lengths[column];
+        switch (kinds[column]) {
+            case SHORT:
+                return byteDecoder.bytesToShort(source, start);
+            case NUMBER:
+                return byteDecoder.bytesToNumber(source, start, length);
+            case DATE:
+                return byteDecoder.bytesToTemporal(source, start, length, false, temporalOutput);
+            case DATE_TIME:
+                return byteDecoder.bytesToTemporal(source, start, length, true, temporalOutput);
+            case BYTES:
+                return byteDecoder.trimBytesArray(source, start, length);
+            default:
+                int trimmedLength = ByteDecoder.getTrimmedLength(source, start, length);
+                if (trimmedLength == 0) {
+                    return null;
+                }
+                if (kinds[column] == LAZY_STRING) {
+                    return new LazyString(source, start, trimmedLength, stringDecoder);
+                }
+                if (kinds[column] == CACHED_STRING) {
+                    return stringCaches[column].decode(source, start, trimmedLength);
+                }
+                return stringDecoder.decode(source, start, trimmedLength);
+        }
+    }
+}
@@ -0,0 +1,531 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+import com.epam.parso.RowFilter;
+
+import java.io.UnsupportedEncodingException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A class to compile a {@link RowFilter} into a {@link RowPredicate} that checks the bytes of a row. The values of
+ * the columns are read at the offsets of the columns in the row: numeric values are converted into double without
+ * decoding the rest of the row, character values are compared byte by byte with the operands encoded in the encoding
+ * of the file.
+ */
+final class RowFilterCompiler {
+    /**
+     * The number of bytes in a short number stored in columns of a length no more than two bytes.
+     */
+    private static final int BYTES_IN_SHORT = 2;
+
+    /**
+     * The number of bits in a byte.
+     */
+    private static final int BITS_IN_BYTE = 8;
+
+    /**
+     * The mask to get an unsigned value of a byte.
+     */
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * The number of milliseconds in a day.
+     */
+    private static final double MILLISECONDS_IN_DAY = SasFileConstants.MILLISECONDS_IN_SECONDS
+            * SasFileConstants.SECONDS_IN_MINUTE * SasFileConstants.MINUTES_IN_HOUR * SasFileConstants.HOURS_IN_DAY;
+
+    /**
+     * The condition that is always true.
+     */
+    private static final RowPredicate TRUE = new RowPredicate() {
+        @Override
+        public boolean matches(byte[] source, int offset) {
+            return true;
+        }
+    };
+
+    /**
+     * The condition that is always false.
+     */
+    private static final RowPredicate FALSE = new RowPredicate() {
+        @Override
+        public boolean matches(byte[] source, int offset) {
+            return false;
+        }
+    };
+
+    /**
+     * The columns of the file.
+     */
+    private final List<Column> columns;
+
+    /**
+     * The offsets of the columns in a row.
+     */
+    private final List<Long> columnsDataOffset;
+
+    /**
+     * The lengths of the columns in a row.
+     */
+    private final List<Integer> columnsDataLength;
+
+    /**
+     * True if the numbers in the file are stored in the little-endian order.
+     */
+    private final boolean littleEndian;
+
+    /**
+     * The encoding of the strings in the file.
+     */
+    private final String encoding;
+
+    /**
+     * The constructor that defines all parameters of the RowFilterCompiler class.
+     *
+     * @param columns           the columns of the file.
+     * @param columnsDataOffset the offsets of the columns in a row.
+     * @param columnsDataLength the lengths of the columns in a row.
+     * @param littleEndian      true if the numbers in the file are stored in the little-endian order.
+     * @param encoding          the encoding of the strings in the file.
+     */
+    RowFilterCompiler(List<Column> columns, List<Long> columnsDataOffset, List<Integer> columnsDataLength,
+                      boolean littleEndian, String encoding) {
+        this.columns = columns;
+        this.columnsDataOffset = columnsDataOffset;
+        this.columnsDataLength = columnsDataLength;
+        this.littleEndian = littleEndian;
+        this.encoding = encoding;
+    }
+
+    /**
+     * The function to compile a filter into a condition on the bytes of a row.
+     *
+     * @param filter the filter.
+     * @return the condition.
+     * @throws IllegalArgumentException if the filter refers to an unknown column or its operands do not match
+     *                                  the type of the column.
+     */
+    RowPredicate compile(RowFilter filter) {
+        if (filter.getOperator() == RowFilter.Operator.AND || filter.getOperator() == RowFilter.Operator.OR) {
+            RowPredicate[] predicates = new RowPredicate[filter.getFilters().size()];
+            for (int i = 0; i < predicates.length; i++) {
+                predicates[i] = compile(filter.getFilters().get(i));
+            }
+            return new CompositePredicate(predicates, filter.getOperator() == RowFilter.Operator.AND);
+        }
+        int columnIndex = getColumnIndex(filter.getColumnName());
+        int length = columnsDataLength.get(columnIndex);
+        if (!hasData(columnIndex)) {
+            return filter.getOperator() == RowFilter.Operator.IS_NULL ? TRUE : FALSE;
+        }
+        int offset = columnsDataOffset.get(columnIndex).intValue();
+        Column column = columns.get(columnIndex);
+        if (column.getType() == Number.class) {
+            double[] operands = new double[filter.getValues().size()];
+            for (int i = 0; i < operands.length; i++) {
+                operands[i] = toSasNumber(column, filter.getValues().get(i));
+            }
+            if (filter.getOperator() == RowFilter.Operator.STARTS_WITH) {
+                throw new IllegalArgumentException("The " + filter.getOperator() + " condition cannot be applied to "
+                        + "the numeric column " + column.getName());
+            }
+            Arrays.sort(operands);
+            return new NumberPredicate(offset, length, littleEndian, filter.getOperator(), operands);
+        }
+        byte[][] operands = new byte[filter.getValues().size()][];
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = toBytes(column, filter.getValues().get(i));
+        }
+        switch (filter.getOperator()) {
+            case LESS:
+            case LESS_OR_EQUAL:
+            case GREATER:
+            case GREATER_OR_EQUAL:
+                throw new IllegalArgumentException("The " + filter.getOperator() + " condition cannot be applied to "
+                        + "the character column " + column.getName());
+            default:
+                return new StringPredicate(offset, length, filter.getOperator(), operands);
+        }
+    }
+
+    /**
+     * The function to get the columns of the file.
+     *
+     * @return the list of columns.
+     */
+    List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * The function to check whether the rows store the values of a column. The columns following the first column
+     * of a zero length have no data, their values are always missing.
+     *
+     * @param columnIndex the index of the column.
+     * @return true if the rows store the values of the column.
+     */
+    boolean hasData(int columnIndex) {
+        for (int i = 0; i <= columnIndex; i++) {
+            if (columnsDataLength.get(i) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The function to find a column by its name.
+     *
+     * @param columnName the name of the column.
+     * @return the index of the column.
+     * @throws IllegalArgumentException if there is no column with the name.
+     */
+    int getColumnIndex(String columnName) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getName().equals(columnName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown column " + columnName);
+    }
+
+    /**
+     * The function to convert an operand of a condition on a numeric column into the number stored in sas7bdat
+     * files. Dates are converted into the number of days or seconds elapsed from 01/01/1960 depending on the format
+     * of the column.
+     *
+     * @param column the column.
+     * @param value  the operand.
+     * @return the number.
+     */
+    static double toSasNumber(Column column, Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Date || value instanceof LocalDate || value instanceof LocalDateTime) {
+            long milliseconds = ByteDecoder.toEpochMillisecond(value);
+            if (SasFileConstants.DATE_TIME_FORMAT_STRINGS.contains(column.getFormat())) {
+                return milliseconds / (double) SasFileConstants.MILLISECONDS_IN_SECONDS
+                        + SasFileConstants.START_DATES_SECONDS_DIFFERENCE;
+            }
+            if (SasFileConstants.DATE_FORMAT_STRINGS.contains(column.getFormat())) {
+                return milliseconds / MILLISECONDS_IN_DAY + SasFileConstants.START_DATES_DAYS_DIFFERENCE;
+            }
+        }
+        throw new IllegalArgumentException("The value " + value + " cannot be compared with the values of the column "
+                + column.getName());
+    }
+
+    /**
+     * The function to convert an operand of a condition on a character column into bytes without trailing spaces.
+     *
+     * @param column the column.
+     * @param value  the operand.
+     * @return the bytes.
+     */
+    byte[] toBytes(Column column, Object value) {
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException("The value " + value + " cannot be compared with the values of "
+                    + "the column " + column.getName());
+        }
+        try {
+            byte[] bytes = ((String) value).getBytes(encoding);
+            return Arrays.copyOf(bytes, getTrimmedLength(bytes, 0, bytes.length));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The function to get the length of a character value without trailing spaces, line end and tabulation
+     * characters, the same characters are removed when the value is decoded.
+     *
+     * @param source the array of bytes that stores the value.
+     * @param offset the offset of the value in the array.
+     * @param length the length of the value.
+     * @return the length of the value without trailing characters.
+     */
+    static int getTrimmedLength(byte[] source, int offset, int length) {
+        int end = offset + length;
+        while (end > offset && (source[end - 1] == ' ' || source[end - 1] == '\0' || source[end - 1] == '\t')) {
+            end--;
+        }
+        return end - offset;
+    }
+
+    /**
+     * The function to read a number stored in a numeric column. Numbers of columns no more than two bytes long are
+     * short integers, other numbers are doubles whose trailing bytes can be truncated. The values close to integers
+     * are rounded the same way as when the value is decoded.
+     *
+     * @param source       the array of bytes that stores the value.
+     * @param offset       the offset of the value in the array.
+     * @param length       the length of the value.
+     * @param littleEndian true if the number is stored in the little-endian order.
+     * @return the number, NaN or a number less than {@link SasFileConstants#NAN_EPSILON} if the value is missing.
+     */
+    static double readNumber(byte[] source, int offset, int length, boolean littleEndian) {
+        if (length <= BYTES_IN_SHORT) {
+            int value = littleEndian ? source[offset + 1] << BITS_IN_BYTE | source[offset] & BYTE_MASK
+                    : source[offset] << BITS_IN_BYTE | source[offset + 1] & BYTE_MASK;
+            return (short) value;
+        }
+        long bits = 0;
+        for (int i = 0; i < length; i++) {
+            int shift = littleEndian ? SasFileConstants.BYTES_IN_DOUBLE - length + i
+                    : SasFileConstants.BYTES_IN_DOUBLE - 1 - i;
+            bits |= (long) (source[offset + i] & BYTE_MASK) << (shift * BITS_IN_BYTE);
+        }
+        double value = Double.longBitsToDouble(bits);
+        long rounded = Math.round(value);
+        return Math.abs(value - rounded) < SasFileConstants.EPSILON ? rounded : value;
+    }
+
+    /**
+     * The function to check whether a number read by {@link RowFilterCompiler#readNumber(byte[], int, int, boolean)}
+     * is missing.
+     *
+     * @param value the number.
+     * @return true if the value is missing.
+     */
+    static boolean isMissing(double value) {
+        return Double.isNaN(value) || value < SasFileConstants.NAN_EPSILON && value > 0;
+    }
+
+    /**
+     * The condition combining several conditions with AND or OR.
+     */
+    private static final class CompositePredicate implements RowPredicate {
+        /**
+         * The combined conditions.
+         */
+        private final RowPredicate[] predicates;
+
+        /**
+         * True for AND, false for OR.
+         */
+        private final boolean all;
+
+        /**
+         * The constructor that defines all parameters of the CompositePredicate class.
+         *
+         * @param predicates the combined conditions.
+         * @param all        true for AND, false for OR.
+         */
+        CompositePredicate(RowPredicate[] predicates, boolean all) {
+            this.predicates = predicates;
+            this.all = all;
+        }
+
+        /**
+         * The method to check whether a row matches all or at least one of the combined conditions.
+         *
+         * @param source the array of bytes that stores the row.
+         * @param offset the offset of the row in the array.
+         * @return true if the row matches the condition.
+         */
+        @Override
+        public boolean matches(byte[] source, int offset) {
+            for (RowPredicate predicate : predicates) {
+                if (predicate.matches(source, offset) != all) {
+                    return !all;
+                }
+            }
+            return all;
+        }
+    }
+
+    /**
+     * The condition on the value of a numeric column.
+     */
+    private static final class NumberPredicate implements RowPredicate {
+        /**
+         * The offset of the column in a row.
+         */
+        private final int offset;
+
+        /**
+         * The length of the column.
+         */
+        private final int length;
+
+        /**
+         * True if the numbers are stored in the little-endian order.
+         */
+        private final boolean littleEndian;
+
+        /**
+         * The operator of the condition.
+         */
+        private final RowFilter.Operator operator;
+
+        /**
+         * The sorted operands of the condition.
+         */
+        private final double[] operands;
+
+        /**
+         * The constructor that defines all parameters of the NumberPredicate class.
+         *
+         * @param offset       the offset of the column in a row.
+         * @param length       the length of the column.
+         * @param littleEndian true if the numbers are stored in the little-endian order.
+         * @param operator     the operator of the condition.
+         * @param operands     the sorted operands of the condition.
+         */
+        NumberPredicate(int offset, int length, boolean littleEndian, RowFilter.Operator operator,
+                        double[] operands) {
+            this.offset = offset;
+            this.length = length;
+            this.littleEndian = littleEndian;
+            this.operator = operator;
+            this.operands = operands;
+        }
+
+        /**
+         * The method to check whether the value of the column in a row matches the condition.
+         *
+         * @param source the array of bytes that stores the row.
+         * @param rowOffset the offset of the row in the array.
+         * @return true if the row matches the condition.
+         */
+        @Override
+        public boolean matches(byte[] source, int rowOffset) {
+            double value = readNumber(source, rowOffset + offset, length, littleEndian);
+            if (isMissing(value)) {
+                return operator == RowFilter.Operator.IS_NULL;
+            }
+            switch (operator) {
+                case EQUAL:
+                    return value == operands[0];
+                case NOT_EQUAL:
+                    return value != operands[0];
+                case LESS:
+                    return value < operands[0];
+                case LESS_OR_EQUAL:
+                    return value <= operands[0];
+                case GREATER:
+                    return value > operands[0];
+                case GREATER_OR_EQUAL:
+                    return value >= operands[0];
+                case IN:
+                    return Arrays.binarySearch(operands, value) >= 0;
+                case IS_NOT_NULL:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * The condition on the value of a character column.
+     */
+    private static final class StringPredicate implements RowPredicate {
+        /**
+         * The offset of the column in a row.
+         */
+        private final int offset;
+
+        /**
+         * The length of the column.
+         */
+        private final int length;
+
+        /**
+         * The operator of the condition.
+         */
+        private final RowFilter.Operator operator;
+
+        /**
+         * The operands of the condition without trailing spaces.
+         */
+        private final byte[][] operands;
+
+        /**
+         * The constructor that defines all parameters of the StringPredicate class.
+         *
+         * @param offset   the offset of the column in a row.
+         * @param length   the length of the column.
+         * @param operator the operator of the condition.
+         * @param operands the operands of the condition without trailing spaces.
+         */
+        StringPredicate(int offset, int length, RowFilter.Operator operator, byte[][] operands) {
+            this.offset = offset;
+            this.length = length;
+            this.operator = operator;
+            this.operands = operands;
+        }
+
+        /**
+         * The method to check whether the value of the column in a row matches the condition.
+         *
+         * @param source    the array of bytes that stores the row.
+         * @param rowOffset the offset of the row in the array.
+         * @return true if the row matches the condition.
+         */
+        @Override
+        public boolean matches(byte[] source, int rowOffset) {
+            int valueOffset = rowOffset + offset;
+            int valueLength = getTrimmedLength(source, valueOffset, length);
+            if (valueLength == 0) {
+                return operator == RowFilter.Operator.IS_NULL;
+            }
+            switch (operator) {
+                case EQUAL:
+                case IN:
+                    for (byte[] operand : operands) {
+                        if (operand.length == valueLength && startsWith(source, valueOffset, operand)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case NOT_EQUAL:
+                    return operands[0].length != valueLength || !startsWith(source, valueOffset, operands[0]);
+                case STARTS_WITH:
+                    return operands[0].length <= valueLength && startsWith(source, valueOffset, operands[0]);
+                case IS_NOT_NULL:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * The function to check whether the bytes of a value start with the bytes of an operand.
+         *
+         * @param source      the array of bytes that stores the value.
+         * @param valueOffset the offset of the value in the array.
+         * @param operand     the operand not longer than the value.
+         * @return true if the value starts with the operand.
+         */
+        private static boolean startsWith(byte[] source, int valueOffset, byte[] operand) {
+            for (int i = 0; i < operand.length; i++) {
+                if (source[valueOffset + i] != operand[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.SasFileProperties;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A class to write and read the row index file of a sas7bdat file. The index stores the location of every row
+ * (the index of the page, the offset from the beginning of the page and the length) in records of fixed length,
+ * so the location of any row is read with a single lookup. It makes rows of compressed files, which are data
+ * subheaders of variable length, available without reading the preceding pages.
+ * <p>
+ * The index file begins with a header storing {@link RowIndex#SIGNATURE}, {@link RowIndex#VERSION}, the size and
+ * the date of the last modification of the sas7bdat file, and the number of rows. The size and the date are
+ * compared with the ones of the sas7bdat file when the index is opened to reject stale indexes.
+ */
+final class RowIndex {
+    /**
+     * The signature at the beginning of the index file ("PRIX").
+     */
+    private static final int SIGNATURE = 0x50524958;
+
+    /**
+     * The version of the index file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The length of the index file header: the signature, the version, the size and the date of the last
+     * modification of the sas7bdat file, and the number of rows.
+     */
+    private static final int HEADER_LENGTH = 32;
+
+    /**
+     * The length of a row location record: the index of the page, the offset and the length of the row.
+     */
+    private static final int RECORD_LENGTH = 12;
+
+    /**
+     * The offset of the row offset in a record.
+     */
+    private static final int RECORD_OFFSET_OFFSET = 4;
+
+    /**
+     * The offset of the row length in a record.
+     */
+    private static final int RECORD_LENGTH_OFFSET = 8;
+
+    /**
+     * The number of records stored in one mapped segment of the index file.
+     */
+    private static final int RECORDS_PER_SEGMENT = Integer.MAX_VALUE / RECORD_LENGTH;
+
+    /**
+     * The memory mapped segments of the index file with the records.
+     */
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * The number of rows in the index.
+     */
+    private final long rowCount;
+
+    /**
+     * The constructor of the {@link RowIndex} class that defines values of all its variables.
+     *
+     * @param segments the memory mapped segments of the index file with the records.
+     * @param rowCount the number of rows in the index.
+     */
+    private RowIndex(MappedByteBuffer[] segments, long rowCount) {
+        this.segments = segments;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * The function to write the index of the rows of a sas7bdat file which are not read by the parser yet, it should
+     * be called before any row is read.
+     *
+     * @param parser    the parser of the sas7bdat file.
+     * @param indexFile the file to write the index to.
+     * @return the number of rows in the index.
+     * @throws IOException if reading the sas7bdat file or writing the index file is impossible.
+     */
+    static long write(SasFileParser parser, File indexFile) throws IOException {
+        SasFileProperties sasFileProperties = parser.getSasFileProperties();
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+        try {
+            output.writeInt(SIGNATURE);
+            output.writeInt(VERSION);
+            output.writeLong(getFileSize(sasFileProperties));
+            output.writeLong(getDateModified(sasFileProperties));
+            output.writeLong(sasFileProperties.getRowCount());
+            long writtenRowCount = parser.writeRowLocations(output);
+            if (writtenRowCount != sasFileProperties.getRowCount()) {
+                throw new IOException("Only " + writtenRowCount + " rows of " + sasFileProperties.getRowCount()
+                        + " are found in the sas7bdat file");
+            }
+            return writtenRowCount;
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * The function to open the index of a sas7bdat file. The records of the index are memory mapped.
+     *
+     * @param indexFile         the index file.
+     * @param sasFileProperties the properties of the sas7bdat file.
+     * @return the index.
+     * @throws IOException if reading the index file is impossible, or the index file is not written for
+     *                     the sas7bdat file or is stale.
+     */
+    static RowIndex open(File indexFile, SasFileProperties sasFileProperties) throws IOException {
+        long rowCount;
+        DataInputStream input = new DataInputStream(new FileInputStream(indexFile));
+        try {
+            if (input.readInt() != SIGNATURE || input.readInt() != VERSION) {
+                throw new IOException("The file " + indexFile + " is not a row index");
+            }
+            if (input.readLong() != getFileSize(sasFileProperties)
+                    || input.readLong() != getDateModified(sasFileProperties)) {
+                throw new IOException("The row index " + indexFile + " is stale, the sas7bdat file is changed");
+            }
+            rowCount = input.readLong();
+        } finally {
+            input.close();
+        }
+        if (rowCount != sasFileProperties.getRowCount()
+                || indexFile.length() != HEADER_LENGTH + rowCount * RECORD_LENGTH) {
+            throw new IOException("The row index " + indexFile + " is stale, the number of rows does not match");
+        }
+
+        MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((rowCount + RECORDS_PER_SEGMENT - 1)
+                / RECORDS_PER_SEGMENT)];
+        RandomAccessFile randomAccessFile = new RandomAccessFile(indexFile, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            for (int i = 0; i < segments.length; i++) {
+                long firstRow = (long) i * RECORDS_PER_SEGMENT;
+                long segmentRowCount = Math.min(RECORDS_PER_SEGMENT, rowCount - firstRow);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH + firstRow * RECORD_LENGTH,
+                        segmentRowCount * RECORD_LENGTH);
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+        return new RowIndex(segments, rowCount);
+    }
+
+    /**
+     * The function to get the number of rows in the index.
+     *
+     * @return the number of rows.
+     */
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * The function to read the row with the given index with a single positioned read of the sas7bdat file.
+     *
+     * @param parser   the parser of the sas7bdat file built from a {@link FileInputStream}.
+     * @param rowIndex the index of the row.
+     * @return the object array containing elements of the row.
+     * @throws IOException if reading the sas7bdat file is impossible.
+     */
+    Object[] readRow(SasFileParser parser, long rowIndex) throws IOException {
+        MappedByteBuffer segment = segments[(int) (rowIndex / RECORDS_PER_SEGMENT)];
+        int recordOffset = (int) (rowIndex % RECORDS_PER_SEGMENT) * RECORD_LENGTH;
+        return parser.readRow(segment.getInt(recordOffset), segment.getInt(recordOffset + RECORD_OFFSET_OFFSET),
+                segment.getInt(recordOffset + RECORD_LENGTH_OFFSET));
+    }
+
+    /**
+     * The function to get the size of a sas7bdat file from its header.
+     *
+     * @param sasFileProperties the properties of the sas7bdat file.
+     * @return the size of the file in bytes.
+     */
+    private static long getFileSize(SasFileProperties sasFileProperties) {
+        return sasFileProperties.getHeaderLength()
+                + sasFileProperties.getPageCount() * sasFileProperties.getPageLength();
+    }
+
+    /**
+     * The function to get the date of the last modification of a sas7bdat file from its header.
+     *
+     * @param sasFileProperties the properties of the sas7bdat file.
+     * @return the number of milliseconds since the epoch, 0 if the date is not defined.
+     */
+    private static long getDateModified(SasFileProperties sasFileProperties) {
+        return sasFileProperties.getDateModified() == null ? 0 : sasFileProperties.getDateModified().getTime();
+    }
+}
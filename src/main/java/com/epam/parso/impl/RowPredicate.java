@@ -0,0 +1,32 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+/**
+ * The interface of conditions compiled from {@link com.epam.parso.RowFilter} by {@link RowFilterCompiler} that are
+ * checked against the bytes of an uncompressed row.
+ */
+interface RowPredicate {
+    /**
+     * The method to check whether a row matches the condition.
+     *
+     * @param source the array of bytes that stores the row.
+     * @param offset the offset of the row in the array.
+     * @return true if the row matches the condition.
+     */
+    boolean matches(byte[] source, int offset);
+}
@@ -0,0 +1,232 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * The spliterator over rows of a sas7bdat file which is used to build streams of rows. Rows are read one by one
+ * with {@link SasFileParser#readNext()}; {@link RowSpliterator#trySplit()} takes the next batch of whole pages with
+ * {@link SasFileParser#readPages(long)} and returns them as a separate spliterator, so the pages of the batch are
+ * decoded by another thread of a parallel stream while the I/O stays sequential. The batch size grows arithmetically
+ * with every split in the same way as in the spliterators over iterators of the JDK.
+ */
+final class RowSpliterator implements Spliterator<Object[]> {
+    /**
+     * The number of rows by which the size of the batch grows with every split.
+     */
+    private static final int BATCH_UNIT = 1 << 10;
+
+    /**
+     * The maximum number of rows in a batch, limits the memory used by the copies of the pages of one batch.
+     */
+    private static final int MAX_BATCH = 1 << 16;
+
+    /**
+     * The characteristics of the spliterators over rows.
+     */
+    private static final int CHARACTERISTICS = ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+
+    /**
+     * The parser the rows are read from.
+     */
+    private final SasFileParser sasFileParser;
+
+    /**
+     * The number of rows in the next batch.
+     */
+    private int batchSize;
+
+    /**
+     * The constructor of the spliterator over the rows which are not read by the parser yet.
+     *
+     * @param sasFileParser the parser the rows are read from.
+     */
+    RowSpliterator(SasFileParser sasFileParser) {
+        this.sasFileParser = sasFileParser;
+    }
+
+    /**
+     * The method to read the next row and pass it to the action.
+     *
+     * @param action the action.
+     * @return false if there are no rows left.
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super Object[]> action) {
+        Object[] row;
+        try {
+            row = sasFileParser.readNext();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (row == null) {
+            return false;
+        }
+        action.accept(row);
+        return true;
+    }
+
+    /**
+     * The function to split off the next batch of pages.
+     *
+     * @return the spliterator over the rows of the batch, null if there are no rows left.
+     */
+    @Override
+    public Spliterator<Object[]> trySplit() {
+        batchSize = Math.min(batchSize + BATCH_UNIT, MAX_BATCH);
+        List<Page> pages;
+        try {
+            pages = sasFileParser.readPages(batchSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return pages.isEmpty() ? null : new PageRangeSpliterator(sasFileParser, pages, 0, pages.size());
+    }
+
+    /**
+     * The function to get the number of rows left.
+     *
+     * @return the number of rows left.
+     */
+    @Override
+    public long estimateSize() {
+        return sasFileParser.getRemainingRowCount();
+    }
+
+    /**
+     * The function to get the characteristics of the spliterator.
+     *
+     * @return the characteristics.
+     */
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    /**
+     * The spliterator over the rows of a range of pages taken from the parser. Splits are made along page
+     * boundaries, rows are decoded by {@link SasFileParser#readRow(Page, int)} which does not change
+     * the state of the parser.
+     */
+    private static final class PageRangeSpliterator implements Spliterator<Object[]> {
+        /**
+         * The parser which decodes the rows.
+         */
+        private final SasFileParser sasFileParser;
+
+        /**
+         * The pages taken from the parser.
+         */
+        private final List<Page> pages;
+
+        /**
+         * The index of the page after the last one of the range.
+         */
+        private final int endPageIndex;
+
+        /**
+         * The index of the current page.
+         */
+        private int pageIndex;
+
+        /**
+         * The index of the next row on the current page.
+         */
+        private int rowIndex;
+
+        /**
+         * The constructor of the spliterator over the pages from startPageIndex to endPageIndex.
+         *
+         * @param sasFileParser  the parser which decodes the rows.
+         * @param pages          the pages taken from the parser.
+         * @param startPageIndex the index of the first page of the range.
+         * @param endPageIndex   the index of the page after the last one of the range.
+         */
+        private PageRangeSpliterator(SasFileParser sasFileParser, List<Page> pages, int startPageIndex,
+                                     int endPageIndex) {
+            this.sasFileParser = sasFileParser;
+            this.pages = pages;
+            this.pageIndex = startPageIndex;
+            this.endPageIndex = endPageIndex;
+        }
+
+        /**
+         * The method to decode the next row and pass it to the action.
+         *
+         * @param action the action.
+         * @return false if there are no rows left.
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super Object[]> action) {
+            while (pageIndex < endPageIndex && rowIndex == pages.get(pageIndex).getRowCount()) {
+                pageIndex++;
+                rowIndex = 0;
+            }
+            if (pageIndex == endPageIndex) {
+                return false;
+            }
+            action.accept(sasFileParser.readRow(pages.get(pageIndex), rowIndex++));
+            return true;
+        }
+
+        /**
+         * The function to split off the first half of the pages if none of them is started yet.
+         *
+         * @return the spliterator over the first half of the pages, null if less than two pages are left or
+         * the traversal has already started.
+         */
+        @Override
+        public Spliterator<Object[]> trySplit() {
+            int middlePageIndex = (pageIndex + endPageIndex) >>> 1;
+            if (rowIndex != 0 || middlePageIndex <= pageIndex) {
+                return null;
+            }
+            Spliterator<Object[]> prefix = new PageRangeSpliterator(sasFileParser, pages, pageIndex, middlePageIndex);
+            pageIndex = middlePageIndex;
+            return prefix;
+        }
+
+        /**
+         * The function to get the number of rows left.
+         *
+         * @return the number of rows left.
+         */
+        @Override
+        public long estimateSize() {
+            long size = 0;
+            for (int i = pageIndex; i < endPageIndex; i++) {
+                size += pages.get(i).getRowCount();
+            }
+            return size - rowIndex;
+        }
+
+        /**
+         * The function to get the characteristics of the spliterator.
+         *
+         * @return the characteristics.
+         */
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+}
@@ -133,6 +133,19 @@ interface SasFileConstants {
      */
     int ENDIANNESS_LENGTH = 1;
 
+    /**
+     * The sas7bdat file stores the code of the encoding of its character values with the length of
+     * {@link SasFileConstants#ENCODING_LENGTH} bytes and a ENCODING_OFFSET bytes offset, 0 if the encoding is not
+     * specified.
+     */
+    long ENCODING_OFFSET = 70L;
+
+    /**
+     * The sas7bdat file stores the code of the encoding of its character values with the length of ENCODING_LENGTH
+     * bytes and a {@link SasFileConstants#ENCODING_OFFSET} bytes offset, 0 if the encoding is not specified.
+     */
+    int ENCODING_LENGTH = 1;
+
     /**
      * The sas7bdat file stores the table name with the length of {@link SasFileConstants#DATASET_LENGTH} bytes and
      * a DATASET_OFFSET bytes offset.
@@ -327,13 +340,13 @@ interface SasFileConstants {
     int PAGE_BIT_OFFSET_X64 = 32;
 
     /**
-     * The length in bytes of one subheader pointer ({@link SasFileParser.SubheaderPointer}) of a sas7bdat file
+     * The length in bytes of one subheader pointer ({@link SubheaderPointer}) of a sas7bdat file
      * created in the 32-bit version of SAS (see {@link SasFileConstants#ALIGN_2_VALUE}).
      */
     int SUBHEADER_POINTER_LENGTH_X86 = 12;
 
     /**
-     * The length in bytes of one subheader pointer ({@link SasFileParser.SubheaderPointer}) of a sas7bdat file
+     * The length in bytes of one subheader pointer ({@link SubheaderPointer}) of a sas7bdat file
      * created in the 64-bit version of SAS (see {@link SasFileConstants#ALIGN_2_VALUE}).
      */
     int SUBHEADER_POINTER_LENGTH_X64 = 24;
@@ -406,29 +419,29 @@ interface SasFileConstants {
     int PAGE_MIX_TYPE = 512;
 
     /**
-     * The sas7bdat file stores the array of subheader pointers ({@link SasFileParser.SubheaderPointer}) at this
+     * The sas7bdat file stores the array of subheader pointers ({@link SubheaderPointer}) at this
      * offset (adding {@link SasFileConstants#PAGE_BIT_OFFSET_X86} or {@link SasFileConstants#PAGE_BIT_OFFSET_X64})
      * from the beginning of the page.
      */
     int SUBHEADER_POINTERS_OFFSET = 8;
 
     /**
-     * If the {@link SasFileParser.SubheaderPointer#compression} value of a subheader equals to TRUNCATED_SUBHEADER_ID
+     * If the {@link SubheaderPointer#compression} value of a subheader equals to TRUNCATED_SUBHEADER_ID
      * then it does not contain useful information.
      */
     int TRUNCATED_SUBHEADER_ID = 1;
 
     /**
      * A subheader with compressed data has two parameters:
-     * its {@link SasFileParser.SubheaderPointer#compression} should equal to COMPRESSED_SUBHEADER_ID and its
-     * {@link SasFileParser.SubheaderPointer#type} should equal to {@link SasFileConstants#COMPRESSED_SUBHEADER_TYPE}.
+     * its {@link SubheaderPointer#compression} should equal to COMPRESSED_SUBHEADER_ID and its
+     * {@link SubheaderPointer#type} should equal to {@link SasFileConstants#COMPRESSED_SUBHEADER_TYPE}.
      */
     int COMPRESSED_SUBHEADER_ID = 4;
 
     /**
      * A Subheader with compressed data has two parameters:
-     * its {@link SasFileParser.SubheaderPointer#compression} should equal to
-     * {@link SasFileConstants#COMPRESSED_SUBHEADER_ID} and its {@link SasFileParser.SubheaderPointer#type}
+     * its {@link SubheaderPointer#compression} should equal to
+     * {@link SasFileConstants#COMPRESSED_SUBHEADER_ID} and its {@link SubheaderPointer#type}
      * should equal to COMPRESSED_SUBHEADER_TYPE.
      */
     int COMPRESSED_SUBHEADER_TYPE = 1;
@@ -729,13 +742,13 @@ interface SasFileConstants {
     int COLUMN_LABEL_LENGTH_LENGTH = 2;
 
     /**
-     * Accuracy to define whether the numeric result of {@link SasFileParser#convertByteArrayToNumber(byte[])} is
+     * Accuracy to define whether the numeric result of {@link ByteDecoder#convertByteArrayToNumber(byte[])} is
      * a long or double value.
      */
     double EPSILON = 1E-14;
 
     /**
-     * Accuracy to define whether the numeric result of {@link SasFileParser#convertByteArrayToNumber(byte[])} is NAN.
+     * Accuracy to define whether the numeric result of {@link ByteDecoder#convertByteArrayToNumber(byte[])} is NAN.
      */
     double NAN_EPSILON = 1E-300;
 
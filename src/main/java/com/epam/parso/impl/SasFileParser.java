@@ -17,25 +17,26 @@
 package com.epam.parso.impl;
 
 import com.epam.parso.Column;
+import com.epam.parso.RowFilter;
 import com.epam.parso.SasFileProperties;
+import com.epam.parso.TemporalOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 import java.io.DataInputStream;
+import java.io.DataOutput;
 import java.io.InputStream;
 import java.io.IOException;
 import java.io.EOFException;
-import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
-import java.util.Date;
+import java.util.zip.CRC32;
 
 /**
  * This is a class that parses sas7bdat files. When parsing a sas7bdat file, to interact with the library,
@@ -89,10 +90,22 @@ public final class SasFileParser {
      * The input stream through which the sas7bdat is read.
      */
     private final DataInputStream sasFileStream;
+    /**
+     * The reader of the pages of the sas7bdat file read through {@link SasFileParser#sasFileStream}.
+     */
+    private PageReader pageReader;
     /**
      * The flag of data output in binary or string format.
      */
     private final Boolean byteOutput;
+    /**
+     * The cache of the metadata of the files, null if the metadata is always parsed.
+     */
+    private final SchemaCache schemaCache;
+    /**
+     * The CRC32 of the bytes of the header, computed only if {@link SasFileParser#schemaCache} is set.
+     */
+    private long headerHash;
     /**
      * The list of current page data subheaders.
      */
@@ -101,12 +114,17 @@ public final class SasFileParser {
      * The variable to store all the properties from the sas7bdat file.
      */
     private final SasFileProperties sasFileProperties = new SasFileProperties();
+    /**
+     * The converter of the bytes of the file to numbers, strings and dates.
+     */
+    private final ByteDecoder byteDecoder = new ByteDecoder(sasFileProperties);
     /**
      * The list of text blocks with information about file compression and table columns (name, label, format).
      * Every element corresponds to a {@link SasFileParser.ColumnTextSubheader}. The first text block includes
-     * the information about compression.
+     * the information about compression. The blocks are kept as bytes, because the offsets and lengths of the names,
+     * labels and formats in them are counted in bytes.
      */
-    private final List<String> columnsNamesStrings = new ArrayList<String>();
+    private final List<byte[]> columnsNamesBytes = new ArrayList<byte[]>();
     /**
      * The list of column names.
      */
@@ -134,14 +152,58 @@ public final class SasFileParser {
      */
     private final Map<SubheaderIndexes, ProcessingSubheader> subheaderIndexToClass;
     /**
-     * Default encoding for output strings.
+     * The encoding for output strings given to the parser, null to use the encoding set in the header of
+     * the sas7bdat file.
      */
-    private String encoding = "ASCII";
+    private String encoding;
+    /**
+     * The decoder of the character values with the charset resolved when the header of the sas7bdat file is read.
+     */
+    private StringDecoder stringDecoder;
     /**
      * A cache to store the current page of the sas7bdat file. Used to avoid posing buffering requirements
      * to {@link SasFileParser#sasFileStream}.
      */
     private byte[] cachedPage;
+
+    /**
+     * The buffer the rows of {@link SasFileParser#cachedPage} are decompressed to, allocated when the first row is
+     * decompressed.
+     */
+    private byte[] rowBuffer;
+
+    /**
+     * The pool {@link SasFileParser#cachedPage} and {@link SasFileParser#rowBuffer} are leased from, null if they
+     * are allocated by the parser.
+     */
+    private BufferPool bufferPool;
+
+    /**
+     * The caches of the strings decoded from the character columns by column index, null if every value is
+     * decoded to a new string.
+     */
+    private StringDecodeCache[] stringCaches;
+
+    /**
+     * True if the character values are returned as {@link LazyString} views, false if they are decoded eagerly.
+     */
+    private boolean lazyStrings;
+
+    /**
+     * The representation of the values of date and datetime columns.
+     */
+    private TemporalOutput temporalOutput = TemporalOutput.DATE;
+
+    /**
+     * The plan to decode the rows compiled for the columns and the settings of the parser, null until it is
+     * compiled after the settings change.
+     */
+    private volatile RowDecoderPlan decoderPlan;
+
+    /**
+     * True if the rows are decoded with decoders generated for the layout of the rows when it is possible.
+     */
+    private boolean generatedDecoders;
     /**
      * The type of the current page when reading the file. If it is other than {@link SasFileConstants#PAGE_META_TYPE},
      * {@link SasFileConstants#PAGE_MIX_TYPE} and {@link SasFileConstants#PAGE_DATA_TYPE} page is skipped.
@@ -166,7 +228,11 @@ public final class SasFileParser {
     /**
      * The index of the current row when reading the file.
      */
-    private int currentRowInFileIndex;
+    private long currentRowInFileIndex;
+    /**
+     * The index of the page stored in {@link SasFileParser#cachedPage}, counted from the first page after the header.
+     */
+    private long currentPageIndex = -1;
     /**
      * The index of the current row when reading the page.
      */
@@ -175,10 +241,42 @@ public final class SasFileParser {
      * Last read row from sas7bdat file.
      */
     private Object[] currentRow;
+    /**
+     * The filter last used by {@link SasFileParser#readNext(Object[], RowFilter)}.
+     */
+    private RowFilter currentFilter;
+    /**
+     * The condition compiled from {@link SasFileParser#currentFilter}.
+     */
+    private RowPredicate currentPredicate;
+    /**
+     * The conditions on the entries of {@link SasFileParser#pageDirectories} compiled from
+     * {@link SasFileParser#currentFilter}.
+     */
+    private final List<PageDirectory.PagePredicate> currentPagePredicates =
+            new ArrayList<PageDirectory.PagePredicate>();
+    /**
+     * The files describing the pages (statistics, Bloom filters) used to skip the pages which cannot contain rows
+     * matching the filter.
+     */
+    private final List<PageDirectory> pageDirectories = new ArrayList<PageDirectory>();
     /**
      * True if stream is at the end of file.
      */
     private boolean eof;
+    /**
+     * The copy of the first page with rows, used to return to the beginning of the data when seeking backward
+     * through {@link SasFileParser#pageReader}.
+     */
+    private Page firstDataPage;
+    /**
+     * The index of {@link SasFileParser#firstDataPage}.
+     */
+    private long firstDataPageIndex;
+    /**
+     * The position of the file right after {@link SasFileParser#firstDataPage}.
+     */
+    private long firstDataPageEndPosition;
     /**
      * The constructor that reads metadata from the sas7bdat, parses it and puts the results in
      * {@link SasFileParser#sasFileProperties}.
@@ -189,6 +287,7 @@ public final class SasFileParser {
         sasFileStream = new DataInputStream(builder.sasFileStream);
         encoding = builder.encoding;
         byteOutput = builder.byteOutput;
+        schemaCache = builder.schemaCache;
 
         Map<SubheaderIndexes, ProcessingSubheader> tmpMap = new HashMap<SubheaderIndexes, ProcessingSubheader>();
         tmpMap.put(SubheaderIndexes.ROW_SIZE_SUBHEADER_INDEX, new RowSizeSubheader());
@@ -203,6 +302,7 @@ public final class SasFileParser {
         subheaderIndexToClass = Collections.unmodifiableMap(tmpMap);
 
         try {
+            pageReader = new PageReader(builder.sasFileStream, sasFileStream);
             getMetadataFromSasFile();
         } catch (IOException e) {
             LOGGER.error(e.getMessage(), e);
@@ -218,16 +318,76 @@ public final class SasFileParser {
     private void getMetadataFromSasFile() throws IOException {
         boolean endOfMetadata = false;
         processSasFileHeader();
+        pageReader.setLayout(sasFileProperties.getHeaderLength(), sasFileProperties.getPageLength());
         cachedPage = new byte[sasFileProperties.getPageLength()];
-        while (!endOfMetadata) {
-            try {
-                sasFileStream.readFully(cachedPage, 0, sasFileProperties.getPageLength());
-            } catch (EOFException ex) {
+        SchemaSnapshot snapshot = schemaCache == null ? null : schemaCache.get(sasFileProperties, headerHash);
+        if (snapshot != null) {
+            snapshot.restore(sasFileProperties, columns, columnsDataOffset, columnsDataLength,
+                    currentPageDataSubheaderPointers);
+            currentPageIndex = snapshot.getFirstDataPageIndex();
+            pageReader.skip(currentPageIndex * sasFileProperties.getPageLength());
+            eof = !pageReader.readNextPage(currentPageIndex, cachedPage);
+            readPageHeader();
+        }
+        while (!endOfMetadata && snapshot == null) {
+            if (!pageReader.readNextPage(++currentPageIndex, cachedPage)) {
                 eof = true;
                 break;
             }
             endOfMetadata = processSasFilePageMeta();
         }
+        if (schemaCache != null && snapshot == null && !eof) {
+            schemaCache.put(sasFileProperties, headerHash, new SchemaSnapshot(sasFileProperties, columns,
+                    columnsDataOffset, columnsDataLength, currentPageIndex, currentPageDataSubheaderPointers));
+        }
+        if (pageReader.isSeekable() && !eof) {
+            firstDataPage = new Page(Arrays.copyOf(cachedPage, cachedPage.length), currentPageType,
+                    currentPageSubheadersCount, new ArrayList<SubheaderPointer>(currentPageDataSubheaderPointers), 0,
+                    getRowCountOnCurrentPage());
+            firstDataPageIndex = currentPageIndex;
+            firstDataPageEndPosition = pageReader.getPosition();
+        }
+        decoderPlan = createDecoderPlan();
+    }
+
+    /**
+     * The function to get the plan to decode the rows, compiling it if the settings of the parser changed.
+     *
+     * @return the plan.
+     */
+    private RowDecoderPlan getDecoderPlan() {
+        RowDecoderPlan plan = decoderPlan;
+        if (plan == null) {
+            plan = createDecoderPlan();
+            decoderPlan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * The function to compile the plan to decode the rows for the columns and the settings of the parser. The plan
+     * covers the columns up to the first one without data.
+     *
+     * @return the plan.
+     */
+    private RowDecoderPlan createDecoderPlan() {
+        int columnCount = 0;
+        while (columnCount < sasFileProperties.getColumnsCount() && columnCount < columnsDataLength.size()
+                && columnsDataLength.get(columnCount) != 0) {
+            columnCount++;
+        }
+        byte[] kinds = new byte[columnCount];
+        int[] offsets = new int[columnCount];
+        int[] lengths = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            offsets[i] = columnsDataOffset.get(i).intValue();
+            lengths[i] = columnsDataLength.get(i);
+            kinds[i] = RowDecoderPlan.getKind(columns.get(i), lengths[i], byteOutput, lazyStrings,
+                    getStringCache(i) != null);
+        }
+        RowDecoderPlan plan = new RowDecoderPlan(kinds, offsets, lengths, byteDecoder, stringDecoder, stringCaches,
+                temporalOutput);
+        return generatedDecoders ? plan.withGeneratedDecoder() : plan;
     }
 
     /**
@@ -256,7 +416,8 @@ public final class SasFileParser {
 
         int totalAlign = align1 + align2;
 
-        Long[] offset = {SasFileConstants.ENDIANNESS_OFFSET, SasFileConstants.DATASET_OFFSET, SasFileConstants
+        Long[] offset = {SasFileConstants.ENDIANNESS_OFFSET, SasFileConstants.ENCODING_OFFSET,
+                SasFileConstants.DATASET_OFFSET, SasFileConstants
                 .FILE_TYPE_OFFSET, SasFileConstants.DATE_CREATED_OFFSET + align1,
                 SasFileConstants.DATE_MODIFIED_OFFSET + align1, SasFileConstants.HEADER_SIZE_OFFSET + align1,
                 SasFileConstants.PAGE_SIZE_OFFSET + align1,
@@ -264,7 +425,8 @@ public final class SasFileParser {
                 SasFileConstants.SAS_SERVER_TYPE_OFFSET + totalAlign,
                 SasFileConstants.OS_VERSION_NUMBER_OFFSET + totalAlign, SasFileConstants.OS_MAKER_OFFSET
                 + totalAlign, SasFileConstants.OS_NAME_OFFSET + totalAlign};
-        Integer[] length = {SasFileConstants.ENDIANNESS_LENGTH, SasFileConstants.DATASET_LENGTH, SasFileConstants
+        Integer[] length = {SasFileConstants.ENDIANNESS_LENGTH, SasFileConstants.ENCODING_LENGTH,
+                SasFileConstants.DATASET_LENGTH, SasFileConstants
                 .FILE_TYPE_LENGTH, SasFileConstants.DATE_CREATED_LENGTH,
                 SasFileConstants.DATE_MODIFIED_LENGTH, SasFileConstants.HEADER_SIZE_LENGTH, SasFileConstants
                 .PAGE_SIZE_LENGTH, SasFileConstants.PAGE_COUNT_LENGTH + align2,
@@ -273,24 +435,40 @@ public final class SasFileParser {
         List<byte[]> vars = getBytesFromFile(offset, length);
 
         sasFileProperties.setEndianness(vars.get(0)[0]);
-        sasFileProperties.setName(bytesToString(vars.get(1)).trim());
-        sasFileProperties.setFileType(bytesToString(vars.get(2)).trim());
-        sasFileProperties.setDateCreated(bytesToDateTime(vars.get(3)));
-        sasFileProperties.setDateModified(bytesToDateTime(vars.get(4)));
-        sasFileProperties.setHeaderLength(bytesToInt(vars.get(5)));
-        sasFileProperties.setPageLength(bytesToInt(vars.get(6)));
-        sasFileProperties.setPageCount(bytesToLong(vars.get(7)));
-        sasFileProperties.setSasRelease(bytesToString(vars.get(8)).trim());
-        sasFileProperties.setServerType(bytesToString(vars.get(9)).trim());
-        sasFileProperties.setOsType(bytesToString(vars.get(10)).trim());
-        if (vars.get(12)[0] != 0) {
-            sasFileProperties.setOsName(bytesToString(vars.get(12)).trim());
+        sasFileProperties.setEncoding(StringDecoder.getCharsetName(vars.get(1)[0]));
+        stringDecoder = createStringDecoder();
+        sasFileProperties.setName(bytesToString(vars.get(2)).trim());
+        sasFileProperties.setFileType(bytesToString(vars.get(3)).trim());
+        sasFileProperties.setDateCreated(byteDecoder.bytesToDateTime(vars.get(4)));
+        sasFileProperties.setDateModified(byteDecoder.bytesToDateTime(vars.get(5)));
+        sasFileProperties.setHeaderLength(byteDecoder.bytesToInt(vars.get(6)));
+        sasFileProperties.setPageLength(byteDecoder.bytesToInt(vars.get(7)));
+        sasFileProperties.setPageCount(byteDecoder.bytesToLong(vars.get(8)));
+        sasFileProperties.setSasRelease(bytesToString(vars.get(9)).trim());
+        sasFileProperties.setServerType(bytesToString(vars.get(10)).trim());
+        sasFileProperties.setOsType(bytesToString(vars.get(11)).trim());
+        if (vars.get(13)[0] != 0) {
+            sasFileProperties.setOsName(bytesToString(vars.get(13)).trim());
         } else {
-            sasFileProperties.setOsName(bytesToString(vars.get(11)).trim());
+            sasFileProperties.setOsName(bytesToString(vars.get(12)).trim());
         }
 
         if (sasFileStream != null) {
             int bytesLeft = sasFileProperties.getHeaderLength() - currentFilePosition;
+            if (schemaCache != null) {
+                CRC32 crc32 = new CRC32();
+                for (byte[] bytes : varsForAlign) {
+                    crc32.update(bytes);
+                }
+                for (byte[] bytes : vars) {
+                    crc32.update(bytes);
+                }
+                byte[] headerTail = new byte[bytesLeft];
+                sasFileStream.readFully(headerTail);
+                crc32.update(headerTail);
+                headerHash = crc32.getValue();
+                bytesLeft = 0;
+            }
 
             long actuallySkipped = 0;
             while (actuallySkipped < bytesLeft) {
@@ -300,6 +478,53 @@ public final class SasFileParser {
         }
     }
 
+    /**
+     * The function to resolve the charset of the character values and of the texts of the header and the metadata
+     * once per file: the encoding given to the parser, otherwise the encoding set in the header of the sas7bdat file
+     * if it is known and supported, otherwise the default charset of the JVM.
+     *
+     * @return the decoder of the character values.
+     * @throws IllegalArgumentException if the encoding given to the parser is not supported.
+     */
+    private StringDecoder createStringDecoder() {
+        if (encoding != null) {
+            try {
+                return new StringDecoder(Charset.forName(encoding));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported encoding: " + encoding, e);
+            }
+        }
+        String fileEncoding = sasFileProperties.getEncoding();
+        if (fileEncoding != null && Charset.isSupported(fileEncoding)) {
+            return new StringDecoder(Charset.forName(fileEncoding));
+        }
+        return new StringDecoder(Charset.defaultCharset());
+    }
+
+    /**
+     * The function to decode a text stored in the header or in the metadata of the sas7bdat file with the charset
+     * of the character values.
+     *
+     * @param bytes  the bytes of the text.
+     * @param offset the offset of the text.
+     * @param length the number of bytes of the text.
+     * @return the text.
+     */
+    private String bytesToString(byte[] bytes, int offset, int length) {
+        return stringDecoder.decode(bytes, offset, length);
+    }
+
+    /**
+     * The function to decode a text stored in the header of the sas7bdat file with the charset of the character
+     * values.
+     *
+     * @param bytes the bytes of the text.
+     * @return the text.
+     */
+    private String bytesToString(byte[] bytes) {
+        return bytesToString(bytes, 0, bytes.length);
+    }
+
     /**
      * The method to read pages of the sas7bdat file. First, the method reads the page type
      * (at the {@link SasFileConstants#PAGE_TYPE_OFFSET} offset), the number of rows on the page
@@ -339,16 +564,16 @@ public final class SasFileParser {
             SubheaderPointer currentSubheaderPointer = processSubheaderPointers((long) bitOffset
                     + SasFileConstants.SUBHEADER_POINTERS_OFFSET, subheaderPointerIndex);
             subheaderPointers.add(currentSubheaderPointer);
-            if (currentSubheaderPointer.compression != SasFileConstants.TRUNCATED_SUBHEADER_ID) {
-                long subheaderSignature = readSubheaderSignature(currentSubheaderPointer.offset);
+            if (currentSubheaderPointer.getCompression() != SasFileConstants.TRUNCATED_SUBHEADER_ID) {
+                long subheaderSignature = readSubheaderSignature(currentSubheaderPointer.getOffset());
                 SubheaderIndexes subheaderIndex = chooseSubheaderClass(subheaderSignature,
-                        currentSubheaderPointer.compression, currentSubheaderPointer.type);
+                        currentSubheaderPointer.getCompression(), currentSubheaderPointer.getType());
                 if (subheaderIndex != null) {
                     if (subheaderIndex != SubheaderIndexes.DATA_SUBHEADER_INDEX) {
                         LOGGER.debug("Subheader process function name: {}", subheaderIndex);
                         subheaderIndexToClass.get(subheaderIndex).processSubheader(
-                                subheaderPointers.get(subheaderPointerIndex).offset,
-                                subheaderPointers.get(subheaderPointerIndex).length);
+                                subheaderPointers.get(subheaderPointerIndex).getOffset(),
+                                subheaderPointers.get(subheaderPointerIndex).getLength());
                     } else {
                         currentPageDataSubheaderPointers.add(subheaderPointers.get(subheaderPointerIndex));
                     }
@@ -374,7 +599,7 @@ public final class SasFileParser {
         Integer[] subheaderLengthMass = {intOrLongLength};
         List<byte[]> subheaderSignatureMass = getBytesFromFile(subheaderOffsetMass,
                 subheaderLengthMass);
-        return bytesToLong(subheaderSignatureMass.get(0));
+        return byteDecoder.bytesToLong(subheaderSignatureMass.get(0));
     }
 
     /**
@@ -418,8 +643,8 @@ public final class SasFileParser {
         Integer[] length = {intOrLongLength, intOrLongLength, 1, 1};
         List<byte[]> vars = getBytesFromFile(offset, length);
 
-        long subheaderOffset = bytesToLong(vars.get(0));
-        long subheaderLength = bytesToLong(vars.get(1));
+        long subheaderOffset = byteDecoder.bytesToLong(vars.get(0));
+        long subheaderLength = byteDecoder.bytesToLong(vars.get(1));
         byte subheaderCompression = vars.get(2)[0];
         byte subheaderType = vars.get(3)[0];
 
@@ -456,48 +681,630 @@ public final class SasFileParser {
      * @throws IOException if reading from the {@link SasFileParser#sasFileStream} stream is impossible.
      */
     Object[] readNext() throws IOException {
-        if (currentRowInFileIndex++ >= sasFileProperties.getRowCount() || eof) {
-            return null;
+        return readNext(null);
+    }
+
+    /**
+     * The function to read next row from current sas7bdat file into the given array. The array is reused if it
+     * has at least as many elements as there are columns, otherwise a new array is allocated.
+     *
+     * @param row the array to store the elements of the row in, can be null.
+     * @return the object array containing elements of current row, the same as the row parameter if it is reused.
+     * @throws IOException if reading from the {@link SasFileParser#sasFileStream} stream is impossible.
+     */
+    Object[] readNext(Object[] row) throws IOException {
+        return readNext(row, null);
+    }
+
+    /**
+     * The function to read the next row which matches the filter into the given array. The filter is checked
+     * against the bytes of the rows, so the rows which do not match it are not decoded. The array is reused if it
+     * has at least as many elements as there are columns, otherwise a new array is allocated.
+     *
+     * @param row    the array to store the elements of the row in, can be null.
+     * @param filter the filter, null to read the next row.
+     * @return the object array containing elements of the row, the same as the row parameter if it is reused, or
+     * null if there are no more rows which match the filter.
+     * @throws IOException if reading from the {@link SasFileParser#sasFileStream} stream is impossible.
+     */
+    Object[] readNext(Object[] row, RowFilter filter) throws IOException {
+        RowPredicate predicate = null;
+        if (filter != null) {
+            if (filter != currentFilter) {
+                currentPredicate = compileFilter(filter);
+                currentPagePredicates.clear();
+                for (PageDirectory pageDirectory : pageDirectories) {
+                    currentPagePredicates.add(pageDirectory.compile(filter, getRowFilterCompiler()));
+                }
+                currentFilter = filter;
+            }
+            predicate = currentPredicate;
+        }
+        boolean skipPages = filter != null && !pageDirectories.isEmpty();
+        Object[] rowElements = row != null && row.length >= sasFileProperties.getColumnsCount() ? row
+                : new Object[(int) sasFileProperties.getColumnsCount()];
+        boolean matches = false;
+        while (!matches) {
+            if (skipPages && currentRowOnPageIndex == 0 && !eof && !skipPages()) {
+                return null;
+            }
+            if (currentRowInFileIndex++ >= sasFileProperties.getRowCount() || eof) {
+                return null;
+            }
+            switch (currentPageType) {
+                case SasFileConstants.PAGE_META_TYPE:
+                    SubheaderPointer currentSubheaderPointer =
+                            currentPageDataSubheaderPointers.get(currentRowOnPageIndex++);
+                    matches = processByteArrayWithData(cachedPage, currentSubheaderPointer.getOffset(),
+                            currentSubheaderPointer.getLength(), rowElements, predicate);
+                    if (currentRowOnPageIndex == currentPageDataSubheaderPointers.size()) {
+                        readNextPage();
+                        currentRowOnPageIndex = 0;
+                    }
+                    break;
+                case SasFileConstants.PAGE_MIX_TYPE:
+                case SasFileConstants.PAGE_DATA_TYPE:
+                    matches = processByteArrayWithData(cachedPage, getRowOffset(currentPageType,
+                            currentPageSubheadersCount, currentRowOnPageIndex++), sasFileProperties.getRowLength(),
+                            rowElements, predicate);
+                    if (currentRowOnPageIndex == getRowCountOnCurrentPage()) {
+                        readNextPage();
+                        currentRowOnPageIndex = 0;
+                    }
+                    break;
+                default:
+                    if (currentRow != null) {
+                        System.arraycopy(currentRow, 0, rowElements, 0, currentRow.length);
+                    }
+                    matches = predicate == null;
+                    break;
+            }
+        }
+        currentRow = rowElements;
+        return rowElements;
+    }
+
+    /**
+     * The function to compile a filter into a condition on the bytes of a row of the file.
+     *
+     * @param filter the filter.
+     * @return the condition.
+     * @throws IllegalArgumentException if the filter refers to an unknown column or its operands do not match
+     *                                  the type of the column.
+     */
+    RowPredicate compileFilter(RowFilter filter) {
+        return getRowFilterCompiler().compile(filter);
+    }
+
+    /**
+     * The function to create the compiler of filters into conditions on the bytes of a row of the file.
+     *
+     * @return the compiler.
+     */
+    RowFilterCompiler getRowFilterCompiler() {
+        return new RowFilterCompiler(columns, columnsDataOffset, columnsDataLength,
+                sasFileProperties.getEndianness() == 1, stringDecoder.getCharset().name());
+    }
+
+    /**
+     * The function to set the cache of the pages which can be shared with the parsers of the same file and of other
+     * files. The file is identified in the cache by its properties.
+     *
+     * @param pageCache the cache of the pages, null to read the pages from the file.
+     */
+    void setPageCache(PageCache pageCache) {
+        pageReader.setPageCache(pageCache, Arrays.<Object>asList(sasFileProperties.getName(),
+                sasFileProperties.getDateCreated(), sasFileProperties.getDateModified(),
+                PageDirectory.getFileSize(sasFileProperties), sasFileProperties.getRowCount()));
+    }
+
+    /**
+     * The function to return the same string instance for equal values of a character column.
+     *
+     * @param maxSize the maximum number of distinct values cached per column, 0 to decode every value to a new
+     *                string.
+     */
+    void setStringCacheSize(int maxSize) {
+        stringCaches = maxSize > 0 ? new StringDecodeCache[columns.size()] : null;
+        for (int i = 0; maxSize > 0 && i < stringCaches.length; i++) {
+            if (columns.get(i).getType() == String.class) {
+                stringCaches[i] = new StringDecodeCache(maxSize, stringDecoder);
+            }
+        }
+        decoderPlan = null;
+    }
+
+    /**
+     * The function to return the character values as {@link LazyString} views over the buffer of the row which
+     * are decoded when they are accessed.
+     *
+     * @param lazyStrings true to return views, false to decode the values to strings.
+     */
+    void setLazyStrings(boolean lazyStrings) {
+        this.lazyStrings = lazyStrings;
+        decoderPlan = null;
+    }
+
+    /**
+     * The function to set the representation of the values of date and datetime columns.
+     *
+     * @param temporalOutput the representation.
+     */
+    void setTemporalOutput(TemporalOutput temporalOutput) {
+        this.temporalOutput = temporalOutput;
+        decoderPlan = null;
+    }
+
+    /**
+     * The function to decode the rows with a decoder generated for the layout of the rows by
+     * {@link RowDecoderGenerator} instead of the loop of {@link RowDecoderPlan}.
+     *
+     * @param generatedDecoders true to generate the decoder when it is possible, false to decode the rows with
+     *                          the loop.
+     */
+    void setGeneratedDecoders(boolean generatedDecoders) {
+        this.generatedDecoders = generatedDecoders;
+        decoderPlan = null;
+    }
+
+    /**
+     * The function to check whether the rows are decoded with a generated decoder.
+     *
+     * @return true if the decoder is generated.
+     */
+    boolean isDecoderGenerated() {
+        return getDecoderPlan().isGenerated();
+    }
+
+    /**
+     * The function to get the representation of the values of date and datetime columns.
+     *
+     * @return the representation.
+     */
+    TemporalOutput getTemporalOutput() {
+        return temporalOutput;
+    }
+
+    /**
+     * The function to get the cache of the strings decoded from a character column.
+     *
+     * @param columnIndex the index of the column.
+     * @return the cache, or null if the strings are not cached.
+     */
+    StringDecodeCache getStringCache(int columnIndex) {
+        return stringCaches == null ? null : stringCaches[columnIndex];
+    }
+
+    /**
+     * The function to lease the buffer of the current page and of the decompressed rows from a pool shared with
+     * other parsers, the buffers leased from the previous pool are returned to it.
+     *
+     * @param bufferPool the pool of the buffers, null to allocate the buffers by the parser.
+     */
+    void setBufferPool(BufferPool bufferPool) {
+        releaseBuffers();
+        this.bufferPool = bufferPool;
+        if (bufferPool != null && cachedPage != null) {
+            byte[] page = bufferPool.lease(cachedPage.length, this);
+            System.arraycopy(cachedPage, 0, page, 0, cachedPage.length);
+            cachedPage = page;
+        }
+    }
+
+    /**
+     * The function to return the buffers leased from the pool of the buffers to it. The parser keeps private copies
+     * of them, so it stays usable.
+     */
+    void releaseBuffers() {
+        if (bufferPool != null) {
+            if (cachedPage != null) {
+                byte[] page = cachedPage;
+                cachedPage = Arrays.copyOf(page, page.length);
+                bufferPool.release(page);
+            }
+            if (rowBuffer != null) {
+                bufferPool.release(rowBuffer);
+                rowBuffer = null;
+            }
+            bufferPool = null;
+        }
+    }
+
+    /**
+     * The function to start reading the pages following the current one ahead on a background thread, so that
+     * reading the pages overlaps with decoding their rows.
+     *
+     * @param pageCount the number of pages read ahead.
+     * @throws IOException if getting the position of the file is impossible.
+     */
+    void setReadAhead(int pageCount) throws IOException {
+        pageReader.setReadAhead(pageCount);
+    }
+
+    /**
+     * The function to read the pages following the current one in chunks of several pages with a single read of
+     * the file instead of reading them one by one.
+     *
+     * @param byteCount the number of bytes read at once, rounded down to a multiple of the page length.
+     * @throws IOException if getting the position of the file is impossible.
+     */
+    void setReadBufferSize(int byteCount) throws IOException {
+        pageReader.setReadBufferSize(byteCount);
+    }
+
+    /**
+     * The function to add a file describing the pages (statistics, Bloom filters) used by
+     * {@link SasFileParser#readNext(Object[], RowFilter)} to skip the pages which cannot contain rows matching
+     * the filter.
+     *
+     * @param pageDirectory the file describing the pages of the file.
+     */
+    void addPageDirectory(PageDirectory pageDirectory) {
+        pageDirectories.add(pageDirectory);
+        currentFilter = null;
+    }
+
+    /**
+     * The function to move to the first page at or after the current one which can contain rows matching
+     * the filter according to all {@link SasFileParser#pageDirectories}. The pages which cannot contain such rows
+     * are skipped without reading them.
+     *
+     * @return false if no page following the current one can contain rows matching the filter.
+     * @throws IOException if reading from the {@link SasFileParser#sasFileStream} stream is impossible.
+     */
+    private boolean skipPages() throws IOException {
+        boolean skipped = true;
+        while (skipped && !eof) {
+            skipped = false;
+            for (int i = 0; i < pageDirectories.size(); i++) {
+                PageDirectory pageDirectory = pageDirectories.get(i);
+                PageDirectory.PagePredicate pagePredicate = currentPagePredicates.get(i);
+                int entryIndex = pageDirectory.findPage(currentPageIndex);
+                if (entryIndex < 0 || pagePredicate.mayMatch(entryIndex)) {
+                    continue;
+                }
+                do {
+                    entryIndex++;
+                } while (entryIndex < pageDirectory.getPageCount() && !pagePredicate.mayMatch(entryIndex));
+                if (entryIndex == pageDirectory.getPageCount()) {
+                    currentRowInFileIndex = sasFileProperties.getRowCount();
+                    return false;
+                }
+                long pageIndex = pageDirectory.getPageIndex(entryIndex);
+                skipBytes((pageIndex - currentPageIndex - 1) * sasFileProperties.getPageLength());
+                currentPageIndex = pageIndex - 1;
+                readNextPage();
+                currentRowOnPageIndex = 0;
+                currentRowInFileIndex = pageDirectory.getFirstRowIndex(entryIndex);
+                skipped = true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The function to pass the uncompressed bytes of the rows which are not read yet page by page to the scanner
+     * without decoding them. After the call the parser is positioned at the end of the file.
+     *
+     * @param scanner the scanner.
+     * @throws IOException if reading from the {@link SasFileParser#sasFileStream} stream or the output of
+     *                     the scanner is impossible.
+     */
+    void scanPages(PageScanner scanner) throws IOException {
+        while (getRemainingRowCount() > 0) {
+            int rowCount = (int) Math.min(Math.max(0, getRowCountOnCurrentPage() - currentRowOnPageIndex),
+                    getRemainingRowCount());
+            if (rowCount > 0) {
+                scanner.startPage(currentPageIndex, currentRowInFileIndex, rowCount);
+                for (int rowIndexOnPage = currentRowOnPageIndex; rowIndexOnPage < currentRowOnPageIndex + rowCount;
+                     rowIndexOnPage++) {
+                    long rowOffset;
+                    long rowLength;
+                    if (currentPageType == SasFileConstants.PAGE_META_TYPE) {
+                        rowOffset = currentPageDataSubheaderPointers.get(rowIndexOnPage).getOffset();
+                        rowLength = currentPageDataSubheaderPointers.get(rowIndexOnPage).getLength();
+                    } else {
+                        rowOffset = getRowOffset(currentPageType, currentPageSubheadersCount, rowIndexOnPage);
+                        rowLength = sasFileProperties.getRowLength();
+                    }
+                    if (isCompressedRow(rowLength)) {
+                        scanner.scanRow(decompressRow(cachedPage, rowOffset, rowLength, getRowBuffer()), 0);
+                    } else {
+                        scanner.scanRow(cachedPage, (int) rowOffset);
+                    }
+                }
+                scanner.endPage();
+            }
+            currentRowInFileIndex += rowCount;
+            readNextPage();
+            currentRowOnPageIndex = 0;
         }
+    }
+
+    /**
+     * The function to get the offset of an uncompressed row inside a page of the
+     * {@link SasFileConstants#PAGE_MIX_TYPE} or {@link SasFileConstants#PAGE_DATA_TYPE} type. Rows of mix pages
+     * are stored after the subheader pointers aligned to {@link SasFileConstants#BITS_IN_BYTE}, rows of data pages
+     * are stored right after the page header.
+     *
+     * @param pageType         the type of the page.
+     * @param subheadersCount  the number of subheaders on the page.
+     * @param rowIndexOnPage   the index of the row on the page.
+     * @return the offset of the row from the beginning of the page.
+     */
+    private long getRowOffset(int pageType, int subheadersCount, int rowIndexOnPage) {
         int bitOffset = sasFileProperties.isU64() ? SasFileConstants.PAGE_BIT_OFFSET_X64
                 : SasFileConstants.PAGE_BIT_OFFSET_X86;
+        long rowsOffset = bitOffset + SasFileConstants.SUBHEADER_POINTERS_OFFSET;
+        if (pageType == SasFileConstants.PAGE_MIX_TYPE) {
+            int subheaderPointerLength = sasFileProperties.isU64() ? SasFileConstants.SUBHEADER_POINTER_LENGTH_X64
+                    : SasFileConstants.SUBHEADER_POINTER_LENGTH_X86;
+            int alignCorrection = (bitOffset + SasFileConstants.SUBHEADER_POINTERS_OFFSET
+                    + subheadersCount * subheaderPointerLength) % SasFileConstants.BITS_IN_BYTE;
+            rowsOffset += alignCorrection + subheadersCount * subheaderPointerLength;
+        }
+        return rowsOffset + rowIndexOnPage * sasFileProperties.getRowLength();
+    }
+
+    /**
+     * The function to get the number of rows stored on the current page: the number of data subheaders for pages
+     * of the {@link SasFileConstants#PAGE_META_TYPE} type, the number of rows on the mix page for pages of
+     * the {@link SasFileConstants#PAGE_MIX_TYPE} type, and the block count for pages of
+     * the {@link SasFileConstants#PAGE_DATA_TYPE} type.
+     *
+     * @return the number of rows on the current page.
+     */
+    private int getRowCountOnCurrentPage() {
         switch (currentPageType) {
             case SasFileConstants.PAGE_META_TYPE:
-                SubheaderPointer currentSubheaderPointer =
-                        currentPageDataSubheaderPointers.get(currentRowOnPageIndex++);
-                subheaderIndexToClass.get(SubheaderIndexes.DATA_SUBHEADER_INDEX).processSubheader(
-                        currentSubheaderPointer.offset, currentSubheaderPointer.length);
-                if (currentRowOnPageIndex == currentPageDataSubheaderPointers.size()) {
-                    readNextPage();
-                    currentRowOnPageIndex = 0;
-                }
-                break;
+                return currentPageDataSubheaderPointers.size();
             case SasFileConstants.PAGE_MIX_TYPE:
-                int subheaderPointerLength = sasFileProperties.isU64() ? SasFileConstants.SUBHEADER_POINTER_LENGTH_X64
-                        : SasFileConstants.SUBHEADER_POINTER_LENGTH_X86;
-                int alignCorrection = (bitOffset + SasFileConstants.SUBHEADER_POINTERS_OFFSET
-                        + currentPageSubheadersCount * subheaderPointerLength) % SasFileConstants.BITS_IN_BYTE;
-                currentRow = processByteArrayWithData(bitOffset + SasFileConstants.SUBHEADER_POINTERS_OFFSET
-                        + alignCorrection + currentPageSubheadersCount * subheaderPointerLength
-                        + currentRowOnPageIndex++ * sasFileProperties.getRowLength(), sasFileProperties.getRowLength());
-                if (currentRowOnPageIndex == Math.min(sasFileProperties.getRowCount(),
-                        sasFileProperties.getMixPageRowCount())) {
-                    readNextPage();
-                    currentRowOnPageIndex = 0;
-                }
-                break;
+                return (int) Math.min(sasFileProperties.getRowCount(), sasFileProperties.getMixPageRowCount());
             case SasFileConstants.PAGE_DATA_TYPE:
-                currentRow = processByteArrayWithData(bitOffset + SasFileConstants.SUBHEADER_POINTERS_OFFSET
-                        + currentRowOnPageIndex++ * sasFileProperties.getRowLength(), sasFileProperties.getRowLength());
-                if (currentRowOnPageIndex == currentPageBlockCount) {
+                return currentPageBlockCount;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * The function to take the rows from the current position up to the end of the page where at least
+     * maxRowCount rows are taken, as copies of the pages which can be decoded independently of the parser with
+     * {@link SasFileParser#readRow(Page, int)}. After the call the parser is positioned at the beginning of the page
+     * following the taken ones, so the pages are used to split the rows between several threads.
+     *
+     * @param maxRowCount the number of rows after which no more pages are taken.
+     * @return the list of taken pages, empty if there are no more rows.
+     * @throws IOException if reading from the {@link SasFileParser#sasFileStream} stream is impossible.
+     */
+    List<Page> readPages(long maxRowCount) throws IOException {
+        List<Page> pages = new ArrayList<Page>();
+        long takenRowCount = 0;
+        while (takenRowCount < maxRowCount && currentRowInFileIndex < sasFileProperties.getRowCount() && !eof) {
+            int rowCount = (int) Math.min(getRowCountOnCurrentPage() - currentRowOnPageIndex,
+                    sasFileProperties.getRowCount() - currentRowInFileIndex);
+            if (rowCount > 0) {
+                pages.add(new Page(Arrays.copyOf(cachedPage, cachedPage.length), currentPageType,
+                        currentPageSubheadersCount, new ArrayList<SubheaderPointer>(currentPageDataSubheaderPointers),
+                        currentRowOnPageIndex, rowCount));
+                takenRowCount += rowCount;
+                currentRowInFileIndex += rowCount;
+            }
+            readNextPage();
+            currentRowOnPageIndex = 0;
+        }
+        return pages;
+    }
+
+    /**
+     * The function to decode a row of a page taken by {@link SasFileParser#readPages(long)}. The function does not
+     * change the state of the parser and can be called from several threads at once.
+     *
+     * @param page  the page.
+     * @param index the index of the row among the rows taken from the page, from 0 to {@link Page#getRowCount()}.
+     * @return the object array containing elements of the row.
+     */
+    Object[] readRow(Page page, int index) {
+        int rowIndexOnPage = page.getFirstRowIndex() + index;
+        if (page.getType() == SasFileConstants.PAGE_META_TYPE) {
+            SubheaderPointer subheaderPointer = page.getDataSubheaderPointers().get(rowIndexOnPage);
+            return processByteArrayWithData(page.getData(), subheaderPointer.getOffset(), subheaderPointer.getLength());
+        }
+        return processByteArrayWithData(page.getData(), getRowOffset(page.getType(), page.getSubheadersCount(),
+                rowIndexOnPage), sasFileProperties.getRowLength());
+    }
+
+    /**
+     * The function to get the number of rows which are not read yet.
+     *
+     * @return the number of rows left.
+     */
+    long getRemainingRowCount() {
+        return eof ? 0 : Math.max(0, sasFileProperties.getRowCount() - currentRowInFileIndex);
+    }
+
+    /**
+     * The function to skip rows without decoding them. Rows of the current page are skipped by moving the index
+     * of the current row, pages are read only to get the number of rows stored on them. Whole pages of
+     * the {@link SasFileConstants#PAGE_DATA_TYPE} type are skipped without reading them if the file can be
+     * repositioned, because all data pages but the last store the same number of rows
+     * (see {@link SasFileParser#skipDataPages(long, int)}).
+     *
+     * @param n the number of rows to skip.
+     * @return the number of rows actually skipped, less than n if the end of the file is reached.
+     * @throws IOException if reading from the {@link SasFileParser#sasFileStream} stream is impossible.
+     */
+    long skipRows(long n) throws IOException {
+        long rowsToSkip = Math.min(n, getRemainingRowCount());
+        long skippedRowCount = 0;
+        while (skippedRowCount < rowsToSkip && !eof) {
+            long rowsLeftOnPage = Math.max(0, getRowCountOnCurrentPage() - currentRowOnPageIndex);
+            if (rowsToSkip - skippedRowCount < rowsLeftOnPage) {
+                currentRowOnPageIndex += (int) (rowsToSkip - skippedRowCount);
+                currentRowInFileIndex += rowsToSkip - skippedRowCount;
+                skippedRowCount = rowsToSkip;
+            } else {
+                skippedRowCount += rowsLeftOnPage;
+                currentRowInFileIndex += rowsLeftOnPage;
+                int rowsOnDataPage = currentPageType == SasFileConstants.PAGE_DATA_TYPE ? currentPageBlockCount : 0;
+                long pagesToSkip = rowsOnDataPage == 0 ? 0 : (rowsToSkip - skippedRowCount) / rowsOnDataPage;
+                if (pagesToSkip > 0 && skipDataPages(pagesToSkip, rowsOnDataPage)) {
+                    skippedRowCount += pagesToSkip * rowsOnDataPage;
+                    currentRowInFileIndex += pagesToSkip * rowsOnDataPage;
+                } else {
                     readNextPage();
-                    currentRowOnPageIndex = 0;
                 }
-                break;
-            default:
-                break;
+                currentRowOnPageIndex = 0;
+            }
+        }
+        return skippedRowCount;
+    }
+
+    /**
+     * The function to move to the row with the given index, so that it is returned by the next call of
+     * {@link SasFileParser#readNext()}. Moving forward skips rows with {@link SasFileParser#skipRows(long)}.
+     * Moving backward is possible only if the file is read from a {@link java.io.FileInputStream} or
+     * a {@link RandomAccessSourceInputStream}: the parser returns to the first page with rows and skips rows from
+     * there.
+     *
+     * @param rowIndex the index of the row, if it is not less than the number of rows, the parser moves to the end.
+     * @throws IOException if reading from the {@link SasFileParser#sasFileStream} stream is impossible or the row
+     *                     precedes the current one and the stream cannot be repositioned.
+     */
+    void seek(long rowIndex) throws IOException {
+        if (rowIndex < 0) {
+            throw new IllegalArgumentException("Row index must not be negative: " + rowIndex);
+        }
+        if (rowIndex < currentRowInFileIndex) {
+            if (firstDataPage == null) {
+                throw new IOException("Cannot seek backward to row " + rowIndex + " from row " + currentRowInFileIndex
+                        + ", the sas7bdat file is not read from a file input stream or a random access "
+                        + "source");
+            }
+            System.arraycopy(firstDataPage.getData(), 0, cachedPage, 0, cachedPage.length);
+            currentPageType = firstDataPage.getType();
+            currentPageBlockCount = firstDataPage.getRowCount();
+            currentPageSubheadersCount = firstDataPage.getSubheadersCount();
+            currentPageDataSubheaderPointers.clear();
+            currentPageDataSubheaderPointers.addAll(firstDataPage.getDataSubheaderPointers());
+            pageReader.setPosition(firstDataPageEndPosition);
+            currentPageIndex = firstDataPageIndex;
+            currentRowInFileIndex = 0;
+            currentRowOnPageIndex = 0;
+            eof = false;
+        }
+        skipRows(rowIndex - currentRowInFileIndex);
+    }
+
+    /**
+     * The function to write the locations of the rows which are not read yet without decoding them. The location
+     * of each row is written as three int values: the index of the page counted from the first page after
+     * the header, the offset of the row (or of the data subheader storing it) from the beginning of the page, and
+     * the length of the row. After the call the parser is positioned at the end of the file.
+     *
+     * @param output the output to write the locations to.
+     * @return the number of rows whose locations are written.
+     * @throws IOException if reading from the {@link SasFileParser#sasFileStream} stream or writing to the output
+     *                     is impossible.
+     */
+    long writeRowLocations(DataOutput output) throws IOException {
+        long writtenRowCount = 0;
+        while (getRemainingRowCount() > 0) {
+            int rowCount = (int) Math.min(Math.max(0, getRowCountOnCurrentPage() - currentRowOnPageIndex),
+                    getRemainingRowCount());
+            for (int rowIndexOnPage = currentRowOnPageIndex; rowIndexOnPage < currentRowOnPageIndex + rowCount;
+                 rowIndexOnPage++) {
+                output.writeInt((int) currentPageIndex);
+                if (currentPageType == SasFileConstants.PAGE_META_TYPE) {
+                    SubheaderPointer subheaderPointer = currentPageDataSubheaderPointers.get(rowIndexOnPage);
+                    output.writeInt((int) subheaderPointer.getOffset());
+                    output.writeInt((int) subheaderPointer.getLength());
+                } else {
+                    output.writeInt((int) getRowOffset(currentPageType, currentPageSubheadersCount, rowIndexOnPage));
+                    output.writeInt((int) sasFileProperties.getRowLength());
+                }
+            }
+            writtenRowCount += rowCount;
+            currentRowInFileIndex += rowCount;
+            readNextPage();
+            currentRowOnPageIndex = 0;
+        }
+        return writtenRowCount;
+    }
+
+    /**
+     * The function to read and decode a row at the location written by
+     * {@link SasFileParser#writeRowLocations(DataOutput)} with a single positioned read of
+     * {@link SasFileParser#pageReader}. If the cache of the pages is set, the whole page is read instead and put to
+     * the cache, so the other rows of the page are read from the cache. The function does not change the state of
+     * the parser and can be called from several threads at once.
+     *
+     * @param pageIndex the index of the page counted from the first page after the header.
+     * @param rowOffset the offset of the row from the beginning of the page.
+     * @param rowLength the length of the row.
+     * @return the object array containing elements of the row.
+     * @throws IOException if the file is not read from a {@link java.io.FileInputStream} or
+     *                     a {@link RandomAccessSourceInputStream}, or reading from it is impossible.
+     */
+    Object[] readRow(long pageIndex, int rowOffset, int rowLength) throws IOException {
+        if (pageReader.getPageCache() != null) {
+            return processByteArrayWithData(pageReader.readPage(pageIndex), rowOffset, rowLength);
+        }
+        byte[] row = new byte[rowLength];
+        pageReader.read(row, pageIndex, rowOffset);
+        return processByteArrayWithData(row, 0, rowLength);
+    }
+
+    /**
+     * The function to skip whole pages of the {@link SasFileConstants#PAGE_DATA_TYPE} type following the current one
+     * and to read the page after them. The pages are skipped only if the file is read from
+     * a {@link java.io.FileInputStream} or a {@link RandomAccessSourceInputStream} and the numbers of pages and rows
+     * left in the file show that all the following pages are data pages storing the same number of rows as
+     * the current one. The page after the skipped ones must be a data page whose rows start at the expected
+     * index, otherwise the parser returns to the page following the current one, so that the caller reads pages
+     * one by one.
+     *
+     * @param pageCount      the number of pages to skip.
+     * @param rowsOnDataPage the number of rows stored on the current data page.
+     * @return true if the pages are skipped, false if the parser is at the page following the current one.
+     * @throws IOException if reading from the {@link SasFileParser#sasFileStream} stream is impossible.
+     */
+    private boolean skipDataPages(long pageCount, int rowsOnDataPage) throws IOException {
+        long rowCount = sasFileProperties.getRowCount();
+        long pagesLeft = sasFileProperties.getPageCount() - 1 - currentPageIndex;
+        long rowsLeft = rowCount - currentRowInFileIndex;
+        if (!pageReader.isSeekable() || pagesLeft != (rowsLeft + rowsOnDataPage - 1) / rowsOnDataPage) {
+            return false;
+        }
+        long position = pageReader.getPosition();
+        long pageIndex = currentPageIndex;
+        long expectedRowIndex = currentRowInFileIndex + pageCount * rowsOnDataPage;
+        skipBytes(pageCount * sasFileProperties.getPageLength());
+        currentPageIndex += pageCount;
+        readNextPage();
+        if (!eof && currentPageType == SasFileConstants.PAGE_DATA_TYPE && currentPageIndex == pageIndex + pageCount + 1
+                && (currentPageBlockCount == rowsOnDataPage ? expectedRowIndex + rowsOnDataPage <= rowCount
+                : expectedRowIndex + currentPageBlockCount == rowCount)) {
+            return true;
+        }
+        LOGGER.debug("Page {} does not start at row {}, reading pages one by one", currentPageIndex,
+                expectedRowIndex);
+        pageReader.setPosition(position);
+        currentPageIndex = pageIndex;
+        eof = false;
+        return false;
+    }
+
+    /**
+     * The function to skip bytes of {@link SasFileParser#sasFileStream} with {@link SasFileParser#pageReader}.
+     *
+     * @param byteCount the number of bytes to skip.
+     * @throws IOException if reading from the {@link SasFileParser#sasFileStream} stream is impossible.
+     */
+    private void skipBytes(long byteCount) throws IOException {
+        if (!pageReader.skip(byteCount)) {
+            eof = true;
         }
-        return Arrays.copyOf(currentRow, currentRow.length);
     }
 
     /**
@@ -528,9 +1335,7 @@ public final class SasFileParser {
                 : SasFileConstants.PAGE_BIT_OFFSET_X86;
         currentPageDataSubheaderPointers.clear();
 
-        try {
-            sasFileStream.readFully(cachedPage, 0, sasFileProperties.getPageLength());
-        } catch (EOFException ex) {
+        if (!pageReader.readNextPage(++currentPageIndex, cachedPage)) {
             eof = true;
             return;
         }
@@ -557,77 +1362,132 @@ public final class SasFileParser {
                 .SUBHEADER_COUNT_LENGTH};
         List<byte[]> vars = getBytesFromFile(offset, length);
 
-        currentPageType = bytesToShort(vars.get(0));
+        currentPageType = byteDecoder.bytesToShort(vars.get(0));
         LOGGER.debug("Page type: {}", currentPageType);
-        currentPageBlockCount = bytesToShort(vars.get(1));
+        currentPageBlockCount = byteDecoder.bytesToShort(vars.get(1));
         LOGGER.debug("Block count: {}", currentPageBlockCount);
-        currentPageSubheadersCount = bytesToShort(vars.get(2));
+        currentPageSubheadersCount = byteDecoder.bytesToShort(vars.get(2));
         LOGGER.debug("Subheader count: {}", currentPageSubheadersCount);
     }
 
+    /**
+     * The function to decode an uncompressed row passed to a {@link PageScanner}. The function does not change
+     * the state of the parser and can be called from several threads at once.
+     *
+     * @param source the array of bytes that stores the uncompressed row.
+     * @param offset the offset of the row in the array.
+     * @return the array of objects storing the data of the row.
+     */
+    Object[] decodeRow(byte[] source, int offset) {
+        return processByteArrayWithData(source, offset, sasFileProperties.getRowLength());
+    }
+
     /**
      * The function to convert the array of bytes that stores the data of a row into an array of objects.
      * Each object corresponds to a table cell.
      *
-     * @param rowOffset - the offset of the row in cachedPage.
+     * @param page      - the page which stores the row.
+     * @param rowOffset - the offset of the row in the page.
      * @param rowLength - the length of the row.
      * @return the array of objects storing the data of the row.
      */
-    private Object[] processByteArrayWithData(long rowOffset, long rowLength) {
+    private Object[] processByteArrayWithData(byte[] page, long rowOffset, long rowLength) {
         Object[] rowElements = new Object[(int) sasFileProperties.getColumnsCount()];
-        byte[] temp, source;
+        processByteArrayWithData(page, rowOffset, rowLength, rowElements, null);
+        return rowElements;
+    }
+
+    /**
+     * The function to convert the array of bytes that stores the data of a row into objects stored in the given
+     * array if the row matches the condition. Each object corresponds to a table cell, the elements of columns
+     * without data are set to null. The condition is checked against the bytes of the row after decompression.
+     *
+     * @param page        - the page which stores the row.
+     * @param rowOffset   - the offset of the row in the page.
+     * @param rowLength   - the length of the row.
+     * @param rowElements - the array to store the data of the row in.
+     * @param predicate   - the condition the row should match to be decoded, null to decode any row.
+     * @return true if the row matches the condition and is decoded.
+     */
+    private boolean processByteArrayWithData(byte[] page, long rowOffset, long rowLength, Object[] rowElements,
+                                             RowPredicate predicate) {
+        byte[] source;
         int offset;
-        if (sasFileProperties.isCompressed() && rowLength < sasFileProperties.getRowLength()) {
-            Decompressor decompressor = LITERALS_TO_DECOMPRESSOR.get(sasFileProperties.getCompressionMethod());
-            source = decompressor.decompressRow((int) rowOffset, (int) rowLength,
-                    (int) sasFileProperties.getRowLength(), cachedPage);
+        if (isCompressedRow(rowLength)) {
+            source = page == cachedPage ? decompressCurrentPageRow(rowOffset, rowLength)
+                    : decompressRow(page, rowOffset, rowLength, null);
             offset = 0;
         } else {
-            source = cachedPage;
+            source = page;
             offset = (int) rowOffset;
         }
+        if (predicate != null && !predicate.matches(source, offset)) {
+            return false;
+        }
 
-        for (int currentColumnIndex = 0; currentColumnIndex < sasFileProperties.getColumnsCount()
-                && columnsDataLength.get(currentColumnIndex) != 0; currentColumnIndex++) {
-            int length = columnsDataLength.get(currentColumnIndex);
-            if (columns.get(currentColumnIndex).getType() == Number.class) {
-                temp = Arrays.copyOfRange(source, offset + (int) (long) columnsDataOffset.get(currentColumnIndex),
-                        offset + (int) (long) columnsDataOffset.get(currentColumnIndex) + length);
-                if (columnsDataLength.get(currentColumnIndex) <= 2) {
-                    rowElements[currentColumnIndex] = bytesToShort(temp);
-                } else {
-                    if (columns.get(currentColumnIndex).getFormat().isEmpty()) {
-                        rowElements[currentColumnIndex] = convertByteArrayToNumber(temp);
-                    } else {
-                        if (SasFileConstants.DATE_TIME_FORMAT_STRINGS.contains(
-                                columns.get(currentColumnIndex).getFormat())) {
-                            rowElements[currentColumnIndex] = bytesToDateTime(temp);
-                        } else {
-                            if (SasFileConstants.DATE_FORMAT_STRINGS.contains(
-                                    columns.get(currentColumnIndex).getFormat())) {
-                                rowElements[currentColumnIndex] = bytesToDate(temp);
-                            } else {
-                                rowElements[currentColumnIndex] = convertByteArrayToNumber(temp);
-                            }
-                        }
-                    }
-                }
-            } else {
-                byte[] bytes = trimBytesArray(source,
-                        offset + columnsDataOffset.get(currentColumnIndex).intValue(), length);
-                if (byteOutput) {
-                    rowElements[currentColumnIndex] = bytes;
-                } else {
-                    try {
-                        rowElements[currentColumnIndex] = (bytes == null ? null : new String(bytes, encoding));
-                    } catch (UnsupportedEncodingException e) {
-                        LOGGER.error(e.getMessage(), e);
-                    }
-                }
-            }
+        int columnCount = getDecoderPlan().decode(source, offset, rowElements);
+        Arrays.fill(rowElements, columnCount, (int) sasFileProperties.getColumnsCount(), null);
+        return true;
+    }
+
+    /**
+     * The function to check whether a row of the given length is compressed.
+     *
+     * @param rowLength the length of the row in the page.
+     * @return true if the row should be decompressed.
+     */
+    private boolean isCompressedRow(long rowLength) {
+        return sasFileProperties.isCompressed() && rowLength < sasFileProperties.getRowLength();
+    }
+
+    /**
+     * The function to decompress a row of {@link SasFileParser#cachedPage} to {@link SasFileParser#rowBuffer}.
+     * The decompressed row is taken from the cache of the pages or put to it in a new array if the cache stores
+     * decompressed rows.
+     *
+     * @param rowOffset the offset of the row in the page.
+     * @param rowLength the length of the row in the page.
+     * @return the array of bytes that stores the uncompressed row from the beginning, it must not be modified.
+     */
+    private byte[] decompressCurrentPageRow(long rowOffset, long rowLength) {
+        PageCache pageCache = pageReader.getPageCache();
+        if (pageCache == null || !pageCache.isDecompressedRows()) {
+            return decompressRow(cachedPage, rowOffset, rowLength, getRowBuffer());
+        }
+        byte[] row = pageCache.get(pageReader.getPageCacheFile(), currentPageIndex, (int) rowOffset);
+        if (row == null) {
+            row = decompressRow(cachedPage, rowOffset, rowLength, null);
+            pageCache.put(pageReader.getPageCacheFile(), currentPageIndex, (int) rowOffset, row);
         }
+        return row;
+    }
 
-        return rowElements;
+    /**
+     * The function to decompress a row.
+     *
+     * @param page      the page which stores the row.
+     * @param rowOffset the offset of the row in the page.
+     * @param rowLength the length of the row in the page.
+     * @param result    the array to decompress the row to, or null to decompress it to a new array.
+     * @return the array of bytes that stores the uncompressed row from the beginning.
+     */
+    private byte[] decompressRow(byte[] page, long rowOffset, long rowLength, byte[] result) {
+        Decompressor decompressor = LITERALS_TO_DECOMPRESSOR.get(sasFileProperties.getCompressionMethod());
+        return decompressor.decompressRow((int) rowOffset, (int) rowLength, (int) sasFileProperties.getRowLength(),
+                page, result);
+    }
+
+    /**
+     * The function to get {@link SasFileParser#rowBuffer}, leased from the pool of the buffers if it is set.
+     *
+     * @return the buffer of the length of the uncompressed row.
+     */
+    private byte[] getRowBuffer() {
+        if (rowBuffer == null) {
+            int rowLength = (int) sasFileProperties.getRowLength();
+            rowBuffer = bufferPool == null ? new byte[rowLength] : bufferPool.lease(rowLength, this);
+        }
+        return rowBuffer;
     }
 
     /**
@@ -665,186 +1525,22 @@ public final class SasFileParser {
     }
 
     /**
-     * The function to convert a bytes array into a number (int or long depending on the value located at
-     * the {@link SasFileConstants#ALIGN_2_OFFSET} offset).
-     *
-     * @param byteBuffer the long value represented by a bytes array.
-     * @return a long value. If the number was stored as int, then after conversion it is converted to long
-     * for convenience.
-     */
-    private long correctLongProcess(ByteBuffer byteBuffer) {
-        if (sasFileProperties.isU64()) {
-            return byteBuffer.getLong();
-        } else {
-            return byteBuffer.getInt();
-        }
-    }
-
-    /**
-     * The function to convert an array of bytes with any order of bytes into {@link ByteBuffer}.
-     * {@link ByteBuffer} has the order of bytes defined in the file located at the
-     * {@link SasFileConstants#ALIGN_2_OFFSET} offset.
-     * Later the parser converts result {@link ByteBuffer} into a number.
-     *
-     * @param data the input array of bytes with the little-endian or big-endian order.
-     * @return {@link ByteBuffer} with the order of bytes defined in the file located at
-     * the {@link SasFileConstants#ALIGN_2_OFFSET} offset.
-     */
-    private ByteBuffer byteArrayToByteBuffer(byte[] data) {
-        ByteBuffer byteBuffer = ByteBuffer.wrap(data);
-        if (sasFileProperties.getEndianness() == 0) {
-            return byteBuffer;
-        } else {
-            return byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        }
-    }
-
-    /**
-     * The function to convert an array of bytes into a number. The result can be double or long values.
-     * The numbers are stored in the IEEE 754 format. A number is considered long if the difference between the whole
-     * number and its integer part is less than {@link SasFileConstants#EPSILON}.
-     *
-     * @param mass the number represented by an array of bytes.
-     * @return number of a long or double type.
-     */
-    private Object convertByteArrayToNumber(byte[] mass) {
-        ByteBuffer original = byteArrayToByteBuffer(mass);
-
-        if (mass.length < SasFileConstants.BYTES_IN_DOUBLE) {
-            ByteBuffer byteBuffer = ByteBuffer.allocate(SasFileConstants.BYTES_IN_DOUBLE);
-            if (sasFileProperties.getEndianness() == 1) {
-                byteBuffer.position(SasFileConstants.BYTES_IN_DOUBLE - mass.length);
-            }
-            byteBuffer.put(original);
-            byteBuffer.order(original.order());
-            byteBuffer.position(0);
-            original = byteBuffer;
-        }
-
-        double resultDouble = original.getDouble();
-        original.clear();
-
-        if (Double.isNaN(resultDouble) || (resultDouble < SasFileConstants.NAN_EPSILON && resultDouble > 0)) {
-            return null;
-        }
-
-        long resultLong = Math.round(resultDouble);
-        if (Math.abs(resultDouble - resultLong) >= SasFileConstants.EPSILON) {
-            return resultDouble;
-        } else {
-            return resultLong;
-        }
-    }
-
-    /**
-     * The function to convert an array of bytes into a numeral of the {@link Short} type.
-     * For convenience, the resulting number is converted into the int type.
-     *
-     * @param bytes a long number represented by an array of bytes.
-     * @return a number of the int type that is the conversion result.
-     */
-    private int bytesToShort(byte[] bytes) {
-        return byteArrayToByteBuffer(bytes).getShort();
-    }
-
-    /**
-     * The function to convert an array of bytes into an int number.
-     *
-     * @param bytes a long number represented by an array of bytes.
-     * @return a number of the int type that is the conversion result.
-     */
-    private int bytesToInt(byte[] bytes) {
-        return byteArrayToByteBuffer(bytes).getInt();
-    }
-
-    /**
-     * The function to convert an array of bytes into a long number.
+     * The function to get the offsets of the columns in a row.
      *
-     * @param bytes a long number represented by an array of bytes.
-     * @return a number of the long type that is the conversion result.
+     * @return the list of offsets.
      */
-    private long bytesToLong(byte[] bytes) {
-        return correctLongProcess(byteArrayToByteBuffer(bytes));
+    List<Long> getColumnsDataOffset() {
+        return columnsDataOffset;
     }
 
     /**
-     * The function to convert an array of bytes into a string.
+     * The function to get the lengths of the columns in a row, the columns following the first column of a zero
+     * length have no data.
      *
-     * @param bytes a string represented by an array of bytes.
-     * @return the conversion result string.
+     * @return the list of lengths.
      */
-    private String bytesToString(byte[] bytes) {
-        return new String(bytes);
-    }
-
-    /**
-     * The function to convert an array of bytes that stores the number of seconds elapsed from 01/01/1960 into
-     * a variable of the {@link Date} type. The {@link SasFileConstants#DATE_TIME_FORMAT_STRINGS} variable stores
-     * the formats of the columns that store such data.
-     *
-     * @param bytes an array of bytes that stores the type.
-     * @return a variable of the {@link Date} type.
-     */
-    private Date bytesToDateTime(byte[] bytes) {
-        double doubleSeconds = byteArrayToByteBuffer(bytes).getDouble();
-        return Double.isNaN(doubleSeconds) ? null : new Date((long) ((doubleSeconds
-                - SasFileConstants.START_DATES_SECONDS_DIFFERENCE) * SasFileConstants.MILLISECONDS_IN_SECONDS));
-    }
-
-    /**
-     * The function to convert an array of bytes that stores the number of days elapsed from 01/01/1960 into a variable
-     * of the {@link Date} type. {@link SasFileConstants#DATE_FORMAT_STRINGS} stores the formats of columns that contain
-     * such data.
-     *
-     * @param bytes the array of bytes that stores the number of days from 01/01/1960.
-     * @return a variable of the {@link Date} type.
-     */
-    private Date bytesToDate(byte[] bytes) {
-        double doubleDays;
-        if (bytes.length < 8) {
-            byte[] ba = new byte[8];
-            int i;
-            for (i = 0; i < bytes.length; i++) {
-                ba[i] = bytes[i];
-            }
-            for (i = bytes.length; i < 8; i++) {
-                ba[i] = 0;
-            }
-            ByteBuffer bb = byteArrayToByteBuffer(ba);
-            doubleDays = bb.getDouble();
-        } else {
-            doubleDays = byteArrayToByteBuffer(bytes).getDouble();
-        }
-
-        return Double.isNaN(doubleDays) ? null : new Date((long) ((doubleDays
-                - SasFileConstants.START_DATES_DAYS_DIFFERENCE)
-                * SasFileConstants.SECONDS_IN_MINUTE * SasFileConstants.MINUTES_IN_HOUR
-                * SasFileConstants.HOURS_IN_DAY * SasFileConstants.MILLISECONDS_IN_SECONDS));
-    }
-
-    /**
-     * The function to remove excess symbols from the end of a bytes array. Excess symbols are line end characters,
-     * tabulation characters, and spaces, which do not contain useful information.
-     *
-     * @param source an array of bytes containing required data.
-     * @param offset the offset in source of required data.
-     * @param length the length of required data.
-     * @return the array of bytes without excess symbols at the end.
-     */
-    private byte[] trimBytesArray(byte[] source, int offset, int length) {
-        int lengthFromBegin;
-        for (lengthFromBegin = offset + length; lengthFromBegin > offset; lengthFromBegin--) {
-            if (source[lengthFromBegin - 1] != ' ' && source[lengthFromBegin - 1] != '\0'
-                    && source[lengthFromBegin - 1] != '\t') {
-                break;
-            }
-        }
-
-        if (lengthFromBegin - offset != 0) {
-            return Arrays.copyOfRange(source, offset, lengthFromBegin);
-        } else {
-            return null;
-        }
+    List<Integer> getColumnsDataLength() {
+        return columnsDataLength;
     }
 
     /**
@@ -864,58 +1560,6 @@ public final class SasFileParser {
         return sasFileProperties;
     }
 
-    /**
-     * Enumeration of all subheader types used in sas7bdat files.
-     */
-    private enum SubheaderIndexes {
-        /**
-         * Index which define row size subheader, which contains rows size in bytes and the number of rows.
-         */
-        ROW_SIZE_SUBHEADER_INDEX,
-
-        /**
-         * Index which define column size subheader, which contains columns count.
-         */
-        COLUMN_SIZE_SUBHEADER_INDEX,
-
-        /**
-         * Index which define subheader counts subheader, which contains currently not used data.
-         */
-        SUBHEADER_COUNTS_SUBHEADER_INDEX,
-
-        /**
-         * Index which define column text subheader, which contains type of file compression
-         * and info about columns (name, label, format).
-         */
-        COLUMN_TEXT_SUBHEADER_INDEX,
-
-        /**
-         * Index which define column name subheader, which contains column names.
-         */
-        COLUMN_NAME_SUBHEADER_INDEX,
-
-        /**
-         * Index which define column attributes subheader, which contains column attributes, such as type.
-         */
-        COLUMN_ATTRIBUTES_SUBHEADER_INDEX,
-
-        /**
-         * Index which define format and label subheader, which contains info about format of objects in column
-         * and tooltip text for columns.
-         */
-        FORMAT_AND_LABEL_SUBHEADER_INDEX,
-
-        /**
-         * Index which define column list subheader, which contains currently not used data.
-         */
-        COLUMN_LIST_SUBHEADER_INDEX,
-
-        /**
-         * Index which define data subheader, which contains sas7bdat file rows data.
-         */
-        DATA_SUBHEADER_INDEX
-    }
-
     /**
      * The interface that is implemented by all classes that process subheaders.
      */
@@ -939,15 +1583,21 @@ public final class SasFileParser {
         private InputStream sasFileStream;
 
         /**
-         * Default value for {@link SasFileParser#encoding} variable.
+         * Default value for {@link SasFileParser#encoding} variable, null to use the encoding set in the header of
+         * the sas7bdat file.
          */
-        private String encoding = "ASCII";
+        private String encoding;
 
         /**
          * Default value for {@link SasFileParser#byteOutput} variable.
          */
         private Boolean byteOutput = false;
 
+        /**
+         * Default value for {@link SasFileParser#schemaCache} variable.
+         */
+        private SchemaCache schemaCache;
+
         /**
          * The function to specify builders sasFileStream variable.
          *
@@ -982,63 +1632,23 @@ public final class SasFileParser {
         }
 
         /**
-         * The function to create variable of SasFileParser class using current builder.
+         * The function to specify builders schemaCache variable.
          *
-         * @return newly built SasFileParser
+         * @param val value to be set.
+         * @return result builder.
          */
-        SasFileParser build() {
-            return new SasFileParser(this);
+        Builder schemaCache(SchemaCache val) {
+            schemaCache = val;
+            return this;
         }
-    }
 
-    /**
-     * The class to store subheaders pointers that contain information about the offset, length, type
-     * and compression of subheaders (see {@link SasFileConstants#TRUNCATED_SUBHEADER_ID},
-     * {@link SasFileConstants#COMPRESSED_SUBHEADER_ID}, {@link SasFileConstants#COMPRESSED_SUBHEADER_TYPE}
-     * for details).
-     */
-    class SubheaderPointer {
         /**
-         * The offset from the beginning of a page at which a subheader is stored.
-         */
-        private final long offset;
-
-        /**
-         * The subheader length.
-         */
-        private final long length;
-
-        /**
-         * The type of subheader compression. If the type is {@link SasFileConstants#TRUNCATED_SUBHEADER_ID}
-         * the subheader does not contain information relevant to the current issues. If the type is
-         * {@link SasFileConstants#COMPRESSED_SUBHEADER_ID} the subheader can be compressed
-         * (depends on {@link SubheaderPointer#type}).
-         */
-        private final byte compression;
-
-        /**
-         * The subheader type. If the type is {@link SasFileConstants#COMPRESSED_SUBHEADER_TYPE}
-         * the subheader is compressed. Otherwise, there is no compression.
-         */
-        private final byte type;
-
-        /**
-         * The constructor of the {@link SubheaderPointer} class that defines values of all its variables.
+         * The function to create variable of SasFileParser class using current builder.
          *
-         * @param offset      the offset of the subheader from the beginning of the page.
-         * @param length      the subheader length.
-         * @param compression the subheader compression type. If the type is
-         *                    {@link SasFileConstants#TRUNCATED_SUBHEADER_ID}, the subheader does not contain useful
-         *                    information. If the type is {@link SasFileConstants#COMPRESSED_SUBHEADER_ID},
-         *                    the subheader can be compressed (depends on {@link SubheaderPointer#type}).
-         * @param type        the subheader type. If the type is {@link SasFileConstants#COMPRESSED_SUBHEADER_TYPE}
-         *                    the subheader is compressed, otherwise, it is not.
+         * @return newly built SasFileParser
          */
-        SubheaderPointer(long offset, long length, byte compression, byte type) {
-            this.offset = offset;
-            this.length = length;
-            this.compression = compression;
-            this.type = type;
+        SasFileParser build() {
+            return new SasFileParser(this);
         }
     }
 
@@ -1069,13 +1679,13 @@ public final class SasFileParser {
             List<byte[]> vars = getBytesFromFile(offset, length);
 
             if (sasFileProperties.getRowLength() == 0) {
-                sasFileProperties.setRowLength(bytesToLong(vars.get(0)));
+                sasFileProperties.setRowLength(byteDecoder.bytesToLong(vars.get(0)));
             }
             if (sasFileProperties.getRowCount() == 0) {
-                sasFileProperties.setRowCount(bytesToLong(vars.get(1)));
+                sasFileProperties.setRowCount(byteDecoder.bytesToLong(vars.get(1)));
             }
             if (sasFileProperties.getMixPageRowCount() == 0) {
-                sasFileProperties.setMixPageRowCount(bytesToLong(vars.get(2)));
+                sasFileProperties.setMixPageRowCount(byteDecoder.bytesToLong(vars.get(2)));
             }
         }
     }
@@ -1101,7 +1711,7 @@ public final class SasFileParser {
             Integer[] length = {intOrLongLength};
             List<byte[]> vars = getBytesFromFile(offset, length);
 
-            sasFileProperties.setColumnsCount(bytesToLong(vars.get(0)));
+            sasFileProperties.setColumnsCount(byteDecoder.bytesToLong(vars.get(0)));
         }
     }
 
@@ -1126,7 +1736,7 @@ public final class SasFileParser {
     /**
      * The class to process subheaders of the ColumnTextSubheader type that store information about
      * file compression and table columns (name, label, format). The first subheader of this type includes the file
-     * compression information. The results are stored in {@link SasFileParser#columnsNamesStrings} and
+     * compression information. The results are stored in {@link SasFileParser#columnsNamesBytes} and
      * {@link SasFileProperties#compressionMethod}.
      */
     class ColumnTextSubheader implements ProcessingSubheader {
@@ -1147,15 +1757,15 @@ public final class SasFileParser {
             Long[] offset = {subheaderOffset + intOrLongLength};
             Integer[] length = {SasFileConstants.TEXT_BLOCK_SIZE_LENGTH};
             List<byte[]> vars = getBytesFromFile(offset, length);
-            textBlockSize = byteArrayToByteBuffer(vars.get(0)).getShort();
+            textBlockSize = byteDecoder.byteArrayToByteBuffer(vars.get(0)).getShort();
 
             offset[0] = subheaderOffset + intOrLongLength;
             length[0] = textBlockSize;
             vars = getBytesFromFile(offset, length);
 
-            columnsNamesStrings.add(bytesToString(vars.get(0)));
-            if (columnsNamesStrings.size() == 1) {
-                String columnName = columnsNamesStrings.get(0);
+            columnsNamesBytes.add(vars.get(0));
+            if (columnsNamesBytes.size() == 1) {
+                String columnName = bytesToString(columnsNamesBytes.get(0));
                 String compessionLiteral = findCompressionLiteral(columnName);
                 sasFileProperties.setCompressionMethod(compessionLiteral); //might be null
             }
@@ -1165,16 +1775,16 @@ public final class SasFileParser {
     /**
      * The class to process subheaders of the ColumnNameSubheader type that store information about the index of
      * corresponding subheader of the ColumnTextSubheader type whose text field stores the name of the column
-     * corresponding to the current subheader. They also store the offset (in symbols) of the names from the beginning
-     * of the text field and the length of names (in symbols). The {@link SasFileParser#columnsNamesList} list stores
+     * corresponding to the current subheader. They also store the offset (in bytes) of the names from the beginning
+     * of the text field and the length of names (in bytes). The {@link SasFileParser#columnsNamesList} list stores
      * the resulting names.
      */
     class ColumnNameSubheader implements ProcessingSubheader {
         /**
          * The function to read the following data from the subheader:
          * - the index that stores the name of the column corresponding to the current subheader,
-         * - the offset (in symbols) of the name inside the text block,
-         * - the length (in symbols) of the name.
+         * - the offset (in bytes) of the name inside the text block,
+         * - the length (in bytes) of the name.
          *
          * @param subheaderOffset the offset at which the subheader is located.
          * @param subheaderLength the subheader length.
@@ -1197,11 +1807,11 @@ public final class SasFileParser {
                         .COLUMN_NAME_OFFSET_LENGTH, SasFileConstants.COLUMN_NAME_LENGTH_LENGTH};
                 List<byte[]> vars = getBytesFromFile(offset, length);
 
-                int textSubheaderIndex = bytesToShort(vars.get(0));
-                int columnNameOffset = bytesToShort(vars.get(1));
-                int columnNameLength = bytesToShort(vars.get(2));
-                columnsNamesList.add(columnsNamesStrings.get(textSubheaderIndex).substring(columnNameOffset,
-                        columnNameOffset + columnNameLength).intern());
+                int textSubheaderIndex = byteDecoder.bytesToShort(vars.get(0));
+                int columnNameOffset = byteDecoder.bytesToShort(vars.get(1));
+                int columnNameLength = byteDecoder.bytesToShort(vars.get(2));
+                columnsNamesList.add(bytesToString(columnsNamesBytes.get(textSubheaderIndex), columnNameOffset,
+                        columnNameLength).intern());
             }
         }
     }
@@ -1238,8 +1848,8 @@ public final class SasFileParser {
                         .COLUMN_TYPE_LENGTH};
                 List<byte[]> vars = getBytesFromFile(offset, length);
 
-                columnsDataOffset.add(bytesToLong(vars.get(0)));
-                columnsDataLength.add(bytesToInt(vars.get(1)));
+                columnsDataOffset.add(byteDecoder.bytesToLong(vars.get(0)));
+                columnsDataLength.add(byteDecoder.bytesToInt(vars.get(1)));
                 columnsTypesList.add(vars.get(2)[0] == 1 ? Number.class : String.class);
             }
         }
@@ -1250,19 +1860,19 @@ public final class SasFileParser {
      * - the index of the ColumnTextSubheader type subheader whose text field contains the column format,
      * - the index of the ColumnTextSubheader type whose text field stores the label of the column corresponding
      * to the current subheader,
-     * - offsets (in symbols) of the formats and labels from the beginning of the text field,
-     * - lengths of the formats and labels (in symbols),
+     * - offsets (in bytes) of the formats and labels from the beginning of the text field,
+     * - lengths of the formats and labels (in bytes),
      * The {@link SasFileParser#columns} list stores the results.
      */
     class FormatAndLabelSubheader implements ProcessingSubheader {
         /**
          * The function to read the following data from the subheader:
          * - the index that stores the format of the column corresponding to the current subheader,
-         * - the offset (in symbols) of the format inside the text block,
-         * - the format length (in symbols),
+         * - the offset (in bytes) of the format inside the text block,
+         * - the format length (in bytes),
          * - the index that stores the label of the column corresponding to the current subheader,
-         * - the offset (in symbols) of the label inside the text block,
-         * - the label length (in symbols).
+         * - the offset (in bytes) of the label inside the text block,
+         * - the label length (in bytes).
          *
          * @param subheaderOffset the offset at which the subheader is located.
          * @param subheaderLength the subheader length.
@@ -1287,17 +1897,19 @@ public final class SasFileParser {
             List<byte[]> vars = getBytesFromFile(offset, length);
 
             // min used to prevent incorrect data which appear in some files
-            int textSubheaderIndexForFormat = Math.min(bytesToShort(vars.get(0)), columnsNamesStrings.size() - 1);
-            int columnFormatOffset = bytesToShort(vars.get(1));
-            int columnFormatLength = bytesToShort(vars.get(2));
+            int textSubheaderIndexForFormat = Math.min(byteDecoder.bytesToShort(vars.get(0)),
+                    columnsNamesBytes.size() - 1);
+            int columnFormatOffset = byteDecoder.bytesToShort(vars.get(1));
+            int columnFormatLength = byteDecoder.bytesToShort(vars.get(2));
             // min used to prevent incorrect data which appear in some files
-            int textSubheaderIndexForLabel = Math.min(bytesToShort(vars.get(3)), columnsNamesStrings.size() - 1);
-            int columnLabelOffset = bytesToShort(vars.get(4));
-            int columnLabelLength = bytesToShort(vars.get(5));
-            String columnLabel = columnsNamesStrings.get(textSubheaderIndexForLabel).substring(
-                    columnLabelOffset, columnLabelOffset + columnLabelLength).intern();
-            String columnFormat = columnsNamesStrings.get(textSubheaderIndexForFormat).substring(
-                    columnFormatOffset, columnFormatOffset + columnFormatLength).intern();
+            int textSubheaderIndexForLabel = Math.min(byteDecoder.bytesToShort(vars.get(3)),
+                    columnsNamesBytes.size() - 1);
+            int columnLabelOffset = byteDecoder.bytesToShort(vars.get(4));
+            int columnLabelLength = byteDecoder.bytesToShort(vars.get(5));
+            String columnLabel = bytesToString(columnsNamesBytes.get(textSubheaderIndexForLabel),
+                    columnLabelOffset, columnLabelLength).intern();
+            String columnFormat = bytesToString(columnsNamesBytes.get(textSubheaderIndexForFormat),
+                    columnFormatOffset, columnFormatLength).intern();
             LOGGER.debug("Column format: {}", columnFormat);
             columns.add(new Column(currentColumnNumber + 1, columnsNamesList.get(columns.size()),
                     columnLabel, columnFormat, columnsTypesList.get(columns.size()),
@@ -1329,8 +1941,9 @@ public final class SasFileParser {
     class DataSubheader implements ProcessingSubheader {
         /**
          * The method to read compressed or uncompressed data from the subheader. The results are stored as a row
-         * in {@link SasFileParser#currentRow}. The {@link SasFileParser#processByteArrayWithData(long, long)} function
-         * converts the array of bytes into a list of objects.
+         * in {@link SasFileParser#currentRow}. The
+         * {@link SasFileParser#processByteArrayWithData(byte[], long, long)} function converts the array of bytes
+         * into a list of objects.
          *
          * @param subheaderOffset the offset at which the subheader is located.
          * @param subheaderLength the subheader length.
@@ -1338,7 +1951,7 @@ public final class SasFileParser {
          */
         @Override
         public void processSubheader(long subheaderOffset, long subheaderLength) throws IOException {
-            currentRow = processByteArrayWithData(subheaderOffset, subheaderLength);
+            currentRow = processByteArrayWithData(cachedPage, subheaderOffset, subheaderLength);
         }
     }
 }
@@ -17,20 +17,33 @@
 package com.epam.parso.impl;
 
 import com.epam.parso.Column;
+import com.epam.parso.ColumnarTable;
+import com.epam.parso.RandomAccessSource;
+import com.epam.parso.RowFilter;
+import com.epam.parso.RowTable;
 import com.epam.parso.SasFileProperties;
 import com.epam.parso.SasFileReader;
+import com.epam.parso.TemporalOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A class to read sas7bdat files transferred to the input stream and then to get metadata and file data.
  * This class is used as a wrapper for SasFileParser.
  */
-public class SasFileReaderImpl implements SasFileReader {
+public class SasFileReaderImpl implements SasFileReader, Closeable {
     /**
      * Object for writing logs.
      */
@@ -41,6 +54,16 @@ public class SasFileReaderImpl implements SasFileReader {
      */
     private final SasFileParser sasFileParser;
 
+    /**
+     * The row index of the sas7bdat file built by {@link SasFileRowIndexer}, null if the rows are read without it.
+     */
+    private final RowIndex rowIndex;
+
+    /**
+     * The key indexes of the columns built by {@link SasFileRowIndexer}.
+     */
+    private final List<KeyIndex> keyIndexes = new ArrayList<KeyIndex>();
+
     /**
      * Builds an object of the SasFileReaderImpl class from the file contained in the input stream.
      * Reads only metadata (properties and column information) of the sas7bdat file.
@@ -49,6 +72,20 @@ public class SasFileReaderImpl implements SasFileReader {
      */
     public SasFileReaderImpl(InputStream inputStream) {
         sasFileParser = new SasFileParser.Builder().sasFileStream(inputStream).build();
+        rowIndex = null;
+    }
+
+    /**
+     * Builds an object of the SasFileReaderImpl class from the file contained in the input stream, taking
+     * the metadata from the cache when it has a snapshot for the file. Otherwise the metadata is parsed and
+     * its snapshot is put to the cache, so later readers of the same file skip the metadata pages.
+     *
+     * @param inputStream - an input stream which should contain a correct sas7bdat file.
+     * @param schemaCache - the cache of the metadata of the files.
+     */
+    public SasFileReaderImpl(InputStream inputStream, SchemaCache schemaCache) {
+        sasFileParser = new SasFileParser.Builder().sasFileStream(inputStream).schemaCache(schemaCache).build();
+        rowIndex = null;
     }
 
     /**
@@ -57,10 +94,13 @@ public class SasFileReaderImpl implements SasFileReader {
      * Reads only metadata (properties and column information) of the sas7bdat file.
      *
      * @param inputStream - an input stream which should contain a correct sas7bdat file.
-     * @param encoding    - the string containing the encoding to use in strings output
+     * @param encoding    - the string containing the encoding to use in strings output and in the names, labels and
+     *                    formats of the columns, null to use the encoding set in the header of the sas7bdat file.
+     * @throws IllegalArgumentException if the encoding is not supported.
      */
     public SasFileReaderImpl(InputStream inputStream, String encoding) {
         sasFileParser = new SasFileParser.Builder().sasFileStream(inputStream).encoding(encoding).build();
+        rowIndex = null;
     }
 
     /**
@@ -73,6 +113,80 @@ public class SasFileReaderImpl implements SasFileReader {
      */
     public SasFileReaderImpl(InputStream inputStream, Boolean byteOutput) {
         sasFileParser = new SasFileParser.Builder().sasFileStream(inputStream).byteOutput(byteOutput).build();
+        rowIndex = null;
+    }
+
+    /**
+     * Builds an object of the SasFileReaderImpl class from the file read with positioned reads of a source, such as
+     * a memory-mapped file or a remote store supporting range requests. The pages are read at their positions, so
+     * seeking, the row and key indexes and the parallel reading do not read the source from its beginning.
+     * Reads only metadata (properties and column information) of the sas7bdat file.
+     *
+     * @param source - the source of a correct sas7bdat file, it is not closed by the reader.
+     */
+    public SasFileReaderImpl(RandomAccessSource source) {
+        this(new RandomAccessSourceInputStream(source));
+    }
+
+    /**
+     * Builds an object of the SasFileReaderImpl class from the file contained in the input stream with the row
+     * index file written by {@link SasFileRowIndexer#writeRowIndex(InputStream, File)}. The index is used by
+     * {@link SasFileReaderImpl#readRow(long)} to read any row with a single positioned read, which requires
+     * the input stream to be a {@link java.io.FileInputStream} or a {@link RandomAccessSourceInputStream}.
+     * Reads only metadata (properties and column information) of the sas7bdat file.
+     *
+     * @param inputStream  - an input stream which should contain a correct sas7bdat file.
+     * @param rowIndexFile - the row index file of the sas7bdat file.
+     * @throws IOException if reading the row index file is impossible, or the index is not written for the sas7bdat
+     *                     file or is stale.
+     */
+    public SasFileReaderImpl(InputStream inputStream, File rowIndexFile) throws IOException {
+        this(inputStream, rowIndexFile, null);
+    }
+
+    /**
+     * Builds an object of the SasFileReaderImpl class from the file contained in the input stream with the row
+     * index file written by {@link SasFileRowIndexer#writeRowIndex(InputStream, File)} and the page statistics file
+     * written by {@link SasFileStatisticsWriter#writePageStatistics(InputStream, File)}. The statistics are used by
+     * {@link SasFileReaderImpl#readNextMatching(RowFilter)} to skip the pages which cannot contain rows matching the
+     * filter without reading them.
+     * Reads only metadata (properties and column information) of the sas7bdat file.
+     *
+     * @param inputStream        - an input stream which should contain a correct sas7bdat file.
+     * @param rowIndexFile       - the row index file of the sas7bdat file, can be null.
+     * @param pageStatisticsFile - the page statistics file of the sas7bdat file, can be null.
+     * @throws IOException if reading the row index or page statistics file is impossible, or they are not written
+     *                     for the sas7bdat file or are stale.
+     */
+    public SasFileReaderImpl(InputStream inputStream, File rowIndexFile, File pageStatisticsFile) throws IOException {
+        this(inputStream, rowIndexFile, pageStatisticsFile, null);
+    }
+
+    /**
+     * Builds an object of the SasFileReaderImpl class from the file contained in the input stream with the row
+     * index file, the page statistics file and the page Bloom filters file written by
+     * {@link SasFileStatisticsWriter#writeBloomFilters(InputStream, File, int, String...)}. The Bloom filters are
+     * used by {@link SasFileReaderImpl#readNextMatching(RowFilter)} to read only the pages which can contain rows
+     * whose key column is equal to one of the values of the filter.
+     * Reads only metadata (properties and column information) of the sas7bdat file.
+     *
+     * @param inputStream        - an input stream which should contain a correct sas7bdat file.
+     * @param rowIndexFile       - the row index file of the sas7bdat file, can be null.
+     * @param pageStatisticsFile - the page statistics file of the sas7bdat file, can be null.
+     * @param bloomFilterFile    - the page Bloom filters file of the sas7bdat file, can be null.
+     * @throws IOException if reading the row index, page statistics or Bloom filters file is impossible, or they are
+     *                     not written for the sas7bdat file or are stale.
+     */
+    public SasFileReaderImpl(InputStream inputStream, File rowIndexFile, File pageStatisticsFile,
+                             File bloomFilterFile) throws IOException {
+        sasFileParser = new SasFileParser.Builder().sasFileStream(inputStream).build();
+        rowIndex = rowIndexFile == null ? null : RowIndex.open(rowIndexFile, sasFileParser.getSasFileProperties());
+        if (pageStatisticsFile != null) {
+            sasFileParser.addPageDirectory(PageStatistics.open(pageStatisticsFile, sasFileParser));
+        }
+        if (bloomFilterFile != null) {
+            sasFileParser.addPageDirectory(PageBloomFilters.open(bloomFilterFile, sasFileParser));
+        }
     }
 
     /**
@@ -109,6 +223,34 @@ public class SasFileReaderImpl implements SasFileReader {
         return result;
     }
 
+    /**
+     * Reads the rows which are not read yet into a table that keeps at most the given number of bytes of rows in
+     * memory. The rows are stored in chunks of uncompressed row bytes and decoded when they are accessed,
+     * the least recently used chunks which do not fit into the memory budget are stored in a temporary file.
+     * Unlike {@link SasFileReaderImpl#readAll()}, the number of rows is not limited and the memory used does not
+     * depend on it.
+     *
+     * @param memoryBudget the maximum number of bytes of rows kept in memory.
+     * @return the table of rows, it should be closed to delete the temporary file.
+     * @throws IOException if reading input stream or writing the temporary file is impossible.
+     */
+    public RowTable readTable(long memoryBudget) throws IOException {
+        return SpillingRowTable.read(sasFileParser, memoryBudget);
+    }
+
+    /**
+     * Reads the rows which are not read yet into a columnar table on the heap. Numeric values are stored in double
+     * arrays, dates in long arrays of milliseconds since the epoch, character values as int codes of a dictionary
+     * of the distinct values of their column, and every column has a bitmap of its missing values, so the table
+     * takes several times less memory than the rows returned by {@link SasFileReaderImpl#readAll()}.
+     *
+     * @return the columnar table of rows.
+     * @throws IOException if reading input stream is impossible.
+     */
+    public ColumnarTable readColumnarTable() throws IOException {
+        return HeapColumnarTable.read(sasFileParser);
+    }
+
     /**
      * Reads all rows from the sas7bdat file.
      *
@@ -120,6 +262,289 @@ public class SasFileReaderImpl implements SasFileReader {
         return sasFileParser.readNext();
     }
 
+    /**
+     * Reads rows one by one from the sas7bdat file into the given array instead of allocating a new one for every
+     * row. The array is reused if it has at least as many elements as there are columns.
+     *
+     * @param row the array to store the elements of the row in, can be null.
+     * @return the array of objects storing the elements of the row, the same as the row parameter if it is reused.
+     * @throws IOException if reading input stream is impossible.
+     */
+    @Override
+    public Object[] readNext(Object[] row) throws IOException {
+        return sasFileParser.readNext(row);
+    }
+
+    /**
+     * Reads the next row which matches the filter, the rows which do not match it are not decoded.
+     *
+     * @param filter the condition on the values of the row.
+     * @return the array of objects storing the elements of the row, or null if there are no more rows which match
+     * the filter.
+     * @throws IOException if reading input stream is impossible.
+     */
+    @Override
+    public Object[] readNextMatching(RowFilter filter) throws IOException {
+        return sasFileParser.readNext(null, filter);
+    }
+
+    /**
+     * Reads the row with the given index. With the row index the row is read with a single positioned read and
+     * the position of {@link SasFileReaderImpl#readNext()} does not change, otherwise the reader moves to the row
+     * with {@link SasFileReaderImpl#seek(long)} and reads it.
+     *
+     * @param rowIndex the index of the row.
+     * @return the array of objects storing the elements of the row, or null if there is no row with the index.
+     * @throws IOException if reading input stream is impossible.
+     */
+    @Override
+    public Object[] readRow(long rowIndex) throws IOException {
+        if (rowIndex < 0 || rowIndex >= getSasFileProperties().getRowCount()) {
+            return null;
+        }
+        if (this.rowIndex != null) {
+            return this.rowIndex.readRow(sasFileParser, rowIndex);
+        }
+        seek(rowIndex);
+        return readNext();
+    }
+
+    /**
+     * Sets the cache of the pages used to read the rows. The cache can be shared by several readers of the same
+     * file, so the pages read by one reader are not read again by the others, and by the readers of other files.
+     * The pages are put to the cache when rows are read, seeked or skipped.
+     *
+     * @param pageCache the cache of the pages, null to read the pages from the file.
+     */
+    public void setPageCache(PageCache pageCache) {
+        sasFileParser.setPageCache(pageCache);
+    }
+
+    /**
+     * Decodes equal values of a character column to the same {@link String} instance, so columns with few
+     * distinct values (sex, country, visit) do not retain a string per cell. The cache of a column holds at most
+     * the given number of distinct values and disables itself when the column has more of them, or when most of
+     * its values are distinct.
+     *
+     * @param maxDistinctValues the maximum number of distinct values cached per column, 0 to decode every value
+     *                          to a new string.
+     */
+    public void setStringCacheSize(int maxDistinctValues) {
+        if (maxDistinctValues < 0) {
+            throw new IllegalArgumentException("The size of the string cache must not be negative: "
+                    + maxDistinctValues);
+        }
+        sasFileParser.setStringCacheSize(maxDistinctValues);
+    }
+
+    /**
+     * Returns the character values as {@link LazyString} views over the buffer of the row instead of strings.
+     * The bytes of a value are decoded only when the view is converted to a string or its characters are read,
+     * so rows whose character values are mostly not looked at are read faster. The buffer is reused, a view is
+     * valid only until the next row is read: values retained longer, including the rows returned by
+     * {@link SasFileReaderImpl#readAll()}, must be detached with {@link LazyString#detach()} or converted to
+     * strings. The views take precedence over the cache set by {@link SasFileReaderImpl#setStringCacheSize(int)}
+     * and are not used when the reader outputs bytes.
+     *
+     * @param lazyStrings true to return the character values as views, false to return strings.
+     */
+    public void setLazyStrings(boolean lazyStrings) {
+        sasFileParser.setLazyStrings(lazyStrings);
+    }
+
+    /**
+     * Sets the representation of the values of date and datetime columns in the rows read afterwards, including
+     * the rows of the tables returned by {@link SasFileReaderImpl#readTable(long)}. With
+     * {@link TemporalOutput#EPOCH} the values are decoded straight from the buffer of the row into numbers without
+     * creating {@link java.util.Date} objects. The rows of {@link SasFileReaderImpl#readColumnarTable()} always hold
+     * {@link java.util.Date} values, the table gives the dates as primitive values with
+     * {@link ColumnarTable#getLong(long, int)} and {@link ColumnarTable#getEpochDay(long, int)}.
+     *
+     * @param temporalOutput the representation, {@link TemporalOutput#DATE} by default.
+     */
+    public void setTemporalOutput(TemporalOutput temporalOutput) {
+        sasFileParser.setTemporalOutput(temporalOutput);
+    }
+
+    /**
+     * Decodes the rows read afterwards with a decoder generated for the layout of the rows of the file: the columns
+     * are decoded straight through with their offsets and decoding strategies bound as constants of composed method
+     * handles. The decoders are cached by layout and shared by the readers of files with the same columns. If
+     * the method handles are not available, the rows are decoded by the default loop over the columns.
+     *
+     * @param generatedDecoders true to generate the decoder, false to decode the rows with the default loop.
+     */
+    public void setGeneratedDecoders(boolean generatedDecoders) {
+        sasFileParser.setGeneratedDecoders(generatedDecoders);
+    }
+
+    /**
+     * Returns whether the rows are decoded with a generated decoder, set by
+     * {@link SasFileReaderImpl#setGeneratedDecoders(boolean)}.
+     *
+     * @return true if the decoder is generated, false if the rows are decoded by the default loop.
+     */
+    public boolean isDecoderGenerated() {
+        return sasFileParser.isDecoderGenerated();
+    }
+
+    /**
+     * Returns the number of distinct values of a character column observed by its string cache, set by
+     * {@link SasFileReaderImpl#setStringCacheSize(int)}.
+     *
+     * @param columnIndex the index of the column.
+     * @return the number of distinct values, or -1 if the values of the column are not cached or the cache has
+     * disabled itself because the column has too many distinct values.
+     */
+    public int getDistinctValueCount(int columnIndex) {
+        StringDecodeCache stringCache = sasFileParser.getStringCache(columnIndex);
+        return stringCache == null || stringCache.isDisabled() ? -1 : stringCache.getDistinctCount();
+    }
+
+    /**
+     * Leases the buffer of the current page and the buffer of the decompressed rows from a pool shared by many
+     * readers instead of allocating them, so opening many readers at once reuses the buffers of the readers which
+     * are closed. The buffers are returned to the pool by {@link SasFileReaderImpl#close()}, readers which are
+     * collected without being closed are reported by the pool as leaks.
+     *
+     * @param bufferPool the pool of the buffers, null to allocate the buffers by the reader.
+     */
+    public void setBufferPool(BufferPool bufferPool) {
+        sasFileParser.setBufferPool(bufferPool);
+    }
+
+    /**
+     * Returns the buffers leased from the pool set by {@link SasFileReaderImpl#setBufferPool(BufferPool)} to it.
+     * The input stream of the sas7bdat file is not closed, it is closed by its owner. The reader can still be used
+     * afterwards with buffers of its own.
+     */
+    @Override
+    public void close() {
+        sasFileParser.releaseBuffers();
+    }
+
+    /**
+     * Starts reading the pages following the current one ahead on a background thread into a ring of page
+     * buffers, so that the pages are already read when the rows of the previous ones are decoded. This hides
+     * the latency of slow storages such as network file systems. A file read from a {@link java.io.FileInputStream}
+     * is read with positioned reads of its channel, and seeking to a page outside of the ring restarts the reading
+     * at that page. Any other stream is read sequentially, so it must not be read by other means afterwards.
+     *
+     * @param pageCount the number of pages read ahead.
+     * @throws IOException if getting the position of the file is impossible.
+     */
+    public void setReadAhead(int pageCount) throws IOException {
+        sasFileParser.setReadAhead(pageCount);
+    }
+
+    /**
+     * Reads the pages following the current one in chunks of several consecutive pages, each with a single large
+     * read of the file, instead of reading them page by page. The pages are then taken from the buffer of the chunk.
+     * The size is rounded down to a multiple of the page length but is at least one page. Combined with
+     * {@link SasFileReaderImpl#setReadAhead(int)}, whole chunks are read ahead on the background thread. A stream
+     * which is not a {@link java.io.FileInputStream} must not be read by other means afterwards, and the size cannot
+     * be changed once its pages are read to the buffer.
+     *
+     * @param byteCount the number of bytes read at once.
+     * @throws IOException if getting the position of the file is impossible.
+     */
+    public void setReadBufferSize(int byteCount) throws IOException {
+        sasFileParser.setReadBufferSize(byteCount);
+    }
+
+    /**
+     * Adds the key index file of a column written by
+     * {@link SasFileRowIndexer#writeKeyIndex(InputStream, File, String)} that is used by
+     * {@link SasFileReaderImpl#readRowsByKey(String, Object, Object)}. The directory of the compressed blocks
+     * of the index is read into memory.
+     *
+     * @param keyIndexFile the key index file of a column of the sas7bdat file.
+     * @throws IOException if reading the key index file is impossible, or the index is not written for the sas7bdat
+     *                     file or is stale.
+     */
+    public void addKeyIndex(File keyIndexFile) throws IOException {
+        keyIndexes.add(KeyIndex.open(keyIndexFile, sasFileParser));
+    }
+
+    /**
+     * Reads the rows whose values of a column are within the given range using the key index of the column
+     * added by {@link SasFileReaderImpl#addKeyIndex(File)}. Pass the same value as both bounds to find the rows
+     * with the value. Rows with missing values are not indexed. The indexes of the rows are found at once, the rows
+     * are read lazily in the order of their indexes with positioned reads through the row index file, so
+     * the position of {@link SasFileReaderImpl#readNext()} does not change. I/O errors of reading the rows are
+     * thrown as {@link UncheckedIOException}.
+     *
+     * @param columnName the name of the indexed column.
+     * @param fromKey    the lowest value, or null if the range is not limited from below.
+     * @param toKey      the highest value, or null if the range is not limited from above.
+     * @return the stream of arrays of objects storing the elements of the rows.
+     * @throws IOException if reading the key index file is impossible.
+     * @throws IllegalArgumentException if there is no key index of the column or the values do not match the type
+     *                                  of the column.
+     * @throws IllegalStateException if the reader is built without the row index file.
+     */
+    public Stream<Object[]> readRowsByKey(String columnName, Object fromKey, Object toKey) throws IOException {
+        if (rowIndex == null) {
+            throw new IllegalStateException("Reading rows by key requires the row index file, see "
+                    + "SasFileRowIndexer.writeRowIndex");
+        }
+        for (KeyIndex keyIndex : keyIndexes) {
+            if (keyIndex.getColumnName().equals(columnName)) {
+                RowFilterCompiler compiler = sasFileParser.getRowFilterCompiler();
+                long[] rowIndexes = keyIndex.find(fromKey == null ? null : keyIndex.toKey(compiler, fromKey),
+                        toKey == null ? null : keyIndex.toKey(compiler, toKey));
+                return Arrays.stream(rowIndexes).mapToObj(new LongFunction<Object[]>() {
+                    @Override
+                    public Object[] apply(long index) {
+                        try {
+                            return rowIndex.readRow(sasFileParser, index);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+            }
+        }
+        throw new IllegalArgumentException("There is no key index of the column " + columnName);
+    }
+
+    /**
+     * Skips rows without decoding them.
+     *
+     * @param n the number of rows to skip.
+     * @return the number of rows actually skipped, less than n if the end of the file is reached.
+     * @throws IOException if reading input stream is impossible.
+     */
+    @Override
+    public long skipRows(long n) throws IOException {
+        return sasFileParser.skipRows(n);
+    }
+
+    /**
+     * Moves to the row with the given index without decoding the preceding rows.
+     *
+     * @param rowIndex the index of the row, if it is not less than the number of rows, the reader moves to the end.
+     * @throws IOException if reading input stream is impossible or the row precedes the current one and the input
+     *                     stream cannot be repositioned.
+     */
+    @Override
+    public void seek(long rowIndex) throws IOException {
+        sasFileParser.seek(rowIndex);
+    }
+
+    /**
+     * Returns a sequential stream of the rows which are not read yet. The stream knows the number of rows and can
+     * be made parallel: it is split along page boundaries, pages are read sequentially and decoded by
+     * several threads.
+     *
+     * @return a stream of arrays of objects whose elements can be objects of the following classes: double, long,
+     * int, byte[], Date depending on the column they are in.
+     */
+    @Override
+    public Stream<Object[]> stream() {
+        return StreamSupport.stream(new RowSpliterator(sasFileParser), false);
+    }
+
     /**
      * The function to get sas file properties.
      *
@@ -0,0 +1,84 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A class to build the row index file of a sas7bdat file that is used by
+ * {@link SasFileReaderImpl#SasFileReaderImpl(InputStream, File)} to read any row with a single positioned read,
+ * and the key index files of columns that are used by {@link SasFileReaderImpl#readRowsByKey(String, Object, Object)}
+ * together with the row index to find and read the rows with the given values of the columns. The indexes are
+ * built in one pass over the pages of the file without decoding the rows.
+ */
+public final class SasFileRowIndexer {
+    /**
+     * Empty private constructor for preventing instantiation.
+     */
+    private SasFileRowIndexer() {
+    }
+
+    /**
+     * The function to write the row index file of the sas7bdat file contained in the input stream. The index
+     * stores the size and the date of the last modification of the sas7bdat file, so it is rejected when
+     * the sas7bdat file changes.
+     *
+     * @param inputStream an input stream which should contain a correct sas7bdat file.
+     * @param indexFile   the file to write the index to.
+     * @return the number of rows in the index.
+     * @throws IOException if reading the input stream or writing the index file is impossible.
+     */
+    public static long writeRowIndex(InputStream inputStream, File indexFile) throws IOException {
+        return RowIndex.write(new SasFileParser.Builder().sasFileStream(inputStream).build(), indexFile);
+    }
+
+    /**
+     * The function to write the key index file of a column of the sas7bdat file contained in the input stream with
+     * the default bound of memory used to sort the keys.
+     *
+     * @param inputStream an input stream which should contain a correct sas7bdat file.
+     * @param indexFile   the file to write the index to.
+     * @param columnName  the name of the indexed column.
+     * @return the number of non-missing keys in the index.
+     * @throws IOException if reading the input stream or writing the index file is impossible.
+     */
+    public static long writeKeyIndex(InputStream inputStream, File indexFile, String columnName) throws IOException {
+        return writeKeyIndex(inputStream, indexFile, columnName, KeyIndex.DEFAULT_PAIRS_IN_MEMORY);
+    }
+
+    /**
+     * The function to write the key index file of a column of the sas7bdat file contained in the input stream.
+     * The pairs of the keys and the indexes of their rows are sorted in runs of at most the given number of pairs
+     * which are written to temporary files next to the index file and merged, so the memory used to build
+     * the index does not depend on the number of rows. The index stores the size and the date of the last
+     * modification of the sas7bdat file, so it is rejected when the sas7bdat file changes.
+     *
+     * @param inputStream   an input stream which should contain a correct sas7bdat file.
+     * @param indexFile     the file to write the index to.
+     * @param columnName    the name of the indexed column.
+     * @param pairsInMemory the maximum number of pairs of keys and row indexes sorted in memory.
+     * @return the number of non-missing keys in the index.
+     * @throws IOException if reading the input stream or writing the index file is impossible.
+     */
+    public static long writeKeyIndex(InputStream inputStream, File indexFile, String columnName, int pairsInMemory)
+            throws IOException {
+        return KeyIndex.write(new SasFileParser.Builder().sasFileStream(inputStream).build(), indexFile, columnName,
+                pairsInMemory);
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A class to build the page statistics file and the page Bloom filters file of a sas7bdat file that are used by
+ * {@link SasFileReaderImpl#SasFileReaderImpl(InputStream, File, File, File)} to skip the pages which cannot contain
+ * rows matching the filter of {@link SasFileReaderImpl#readNextMatching(com.epam.parso.RowFilter)}. For every page
+ * the statistics file stores the number of missing values, the minimum and the maximum value of every column,
+ * the Bloom filters file stores a Bloom filter of the values of the key columns. Both files are built in one pass
+ * over the pages of the file without decoding the rows.
+ */
+public final class SasFileStatisticsWriter {
+    /**
+     * Empty private constructor for preventing instantiation.
+     */
+    private SasFileStatisticsWriter() {
+    }
+
+    /**
+     * The function to write the page statistics file of the sas7bdat file contained in the input stream.
+     * The statistics store the size and the date of the last modification of the sas7bdat file, so they are
+     * rejected when the sas7bdat file changes.
+     *
+     * @param inputStream    an input stream which should contain a correct sas7bdat file.
+     * @param statisticsFile the file to write the statistics to.
+     * @return the number of pages with rows.
+     * @throws IOException if reading the input stream or writing the statistics file is impossible.
+     */
+    public static int writePageStatistics(InputStream inputStream, File statisticsFile) throws IOException {
+        return PageStatistics.write(new SasFileParser.Builder().sasFileStream(inputStream).build(), statisticsFile);
+    }
+
+    /**
+     * The function to write the page Bloom filters file of the sas7bdat file contained in the input stream.
+     * A filter covers a group of consecutive pages with rows and stores the non-missing values of the key columns,
+     * so lookups of key values (EQUAL and IN filters) read only the groups which can contain them. Larger groups
+     * make the file smaller but make lookups read more pages. The filters store the size and the date of the last
+     * modification of the sas7bdat file, so they are rejected when the sas7bdat file changes.
+     *
+     * @param inputStream     an input stream which should contain a correct sas7bdat file.
+     * @param bloomFilterFile the file to write the filters to.
+     * @param pagesPerFilter  the number of consecutive pages with rows covered by a filter.
+     * @param keyColumnNames  the names of the key columns.
+     * @return the number of filters.
+     * @throws IOException if reading the input stream or writing the filters file is impossible.
+     */
+    public static int writeBloomFilters(InputStream inputStream, File bloomFilterFile, int pagesPerFilter,
+                                        String... keyColumnNames) throws IOException {
+        return PageBloomFilters.write(new SasFileParser.Builder().sasFileStream(inputStream).build(), bloomFilterFile,
+                pagesPerFilter, keyColumnNames);
+    }
+}
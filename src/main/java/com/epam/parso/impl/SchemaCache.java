@@ -0,0 +1,280 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.SasFileProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of the metadata of sas7bdat files, shared by readers created with
+ * {@link SasFileReaderImpl#SasFileReaderImpl(java.io.InputStream, SchemaCache)}. The first reader of a file parses
+ * the subheaders of its metadata pages and stores a snapshot of the columns, their offsets and lengths in a row,
+ * the properties and the location of the first page with rows; later readers of the same file read only its header
+ * and go straight to the first page with rows. The snapshots are keyed on the size, the date of the last
+ * modification and the hash of the header of the file, so a changed file is parsed again.
+ * <p>
+ * The most recently used snapshots are kept in memory; if the cache has a directory, the snapshots are also
+ * written to it in the format of {@link SchemaSnapshot#write(java.io.DataOutput)} and survive the process.
+ */
+public final class SchemaCache {
+    /**
+     * Object for writing logs.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaCache.class);
+
+    /**
+     * The extension of the snapshot files in the directory of the cache.
+     */
+    private static final String FILE_EXTENSION = ".schema";
+
+    /**
+     * The initial capacity of the map of the snapshots.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The load factor of the map of the snapshots.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * The maximum number of snapshots kept in memory.
+     */
+    private final int maxEntries;
+
+    /**
+     * The directory the snapshots are written to, null if they are only kept in memory.
+     */
+    private final File directory;
+
+    /**
+     * The snapshots kept in memory by their keys in the order of access, from the least to the most recently used.
+     */
+    private final Map<String, SchemaSnapshot> snapshots;
+
+    /**
+     * The number of files whose metadata was restored from a snapshot.
+     */
+    private long hitCount;
+
+    /**
+     * The number of files whose metadata was parsed.
+     */
+    private long missCount;
+
+    /**
+     * The constructor of a cache which keeps the snapshots in memory only.
+     *
+     * @param maxEntries the maximum number of snapshots kept in memory.
+     */
+    public SchemaCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    /**
+     * The constructor of a cache which keeps the snapshots in memory and writes them to a directory.
+     *
+     * @param maxEntries the maximum number of snapshots kept in memory.
+     * @param directory  the directory of the snapshot files, created when the first snapshot is written.
+     */
+    public SchemaCache(final int maxEntries, File directory) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("The maximum number of snapshots must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.directory = directory;
+        snapshots = new LinkedHashMap<String, SchemaSnapshot>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SchemaSnapshot> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The function to get the key of a sas7bdat file.
+     *
+     * @param sasFileProperties the properties read from the header of the sas7bdat file.
+     * @param headerHash        the hash of the header of the sas7bdat file.
+     * @return the key.
+     */
+    private static String getKey(SasFileProperties sasFileProperties, long headerHash) {
+        return String.format("%x-%x-%08x", PageDirectory.getFileSize(sasFileProperties),
+                PageDirectory.getDateModified(sasFileProperties), headerHash);
+    }
+
+    /**
+     * The function to get the snapshot of the metadata of a sas7bdat file.
+     *
+     * @param sasFileProperties the properties read from the header of the sas7bdat file.
+     * @param headerHash        the hash of the header of the sas7bdat file.
+     * @return the snapshot, or null if the cache does not have it.
+     */
+    synchronized SchemaSnapshot get(SasFileProperties sasFileProperties, long headerHash) {
+        String key = getKey(sasFileProperties, headerHash);
+        SchemaSnapshot snapshot = snapshots.get(key);
+        if (snapshot == null && directory != null) {
+            snapshot = readSnapshot(new File(directory, key + FILE_EXTENSION));
+            if (snapshot != null) {
+                snapshots.put(key, snapshot);
+            }
+        }
+        if (snapshot == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return snapshot;
+    }
+
+    /**
+     * The function to put the snapshot of the metadata of a sas7bdat file to the cache.
+     *
+     * @param sasFileProperties the properties read from the header of the sas7bdat file.
+     * @param headerHash        the hash of the header of the sas7bdat file.
+     * @param snapshot          the snapshot.
+     */
+    synchronized void put(SasFileProperties sasFileProperties, long headerHash, SchemaSnapshot snapshot) {
+        String key = getKey(sasFileProperties, headerHash);
+        snapshots.put(key, snapshot);
+        if (directory != null) {
+            writeSnapshot(new File(directory, key + FILE_EXTENSION), snapshot);
+        }
+    }
+
+    /**
+     * The function to read a snapshot file.
+     *
+     * @param file the snapshot file.
+     * @return the snapshot, or null if the file does not exist or cannot be read.
+     */
+    private static SchemaSnapshot readSnapshot(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                return SchemaSnapshot.read(input, file.length());
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read the schema snapshot {}: {}", file, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * The function to write a snapshot file, through a temporary file renamed when it is complete so other
+     * processes never read a partial snapshot.
+     *
+     * @param file     the snapshot file.
+     * @param snapshot the snapshot.
+     */
+    private static void writeSnapshot(File file, SchemaSnapshot snapshot) {
+        File directory = file.getParentFile();
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create the directory " + directory);
+            }
+            File temporaryFile = File.createTempFile("parso", ".tmp", directory);
+            try {
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(temporaryFile)));
+                try {
+                    snapshot.write(output);
+                } finally {
+                    output.close();
+                }
+                if (!temporaryFile.renameTo(file)) {
+                    throw new IOException("Cannot rename " + temporaryFile + " to " + file);
+                }
+            } finally {
+                temporaryFile.delete();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot write the schema snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * The function to get the maximum number of snapshots kept in memory.
+     *
+     * @return the number of snapshots.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * The function to get the directory the snapshots are written to.
+     *
+     * @return the directory, or null if the snapshots are only kept in memory.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * The function to get the number of snapshots kept in memory.
+     *
+     * @return the number of snapshots.
+     */
+    public synchronized int size() {
+        return snapshots.size();
+    }
+
+    /**
+     * The function to get the number of files whose metadata was restored from a snapshot.
+     *
+     * @return the number of files.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * The function to get the number of files whose metadata was parsed because the cache did not have it.
+     *
+     * @return the number of files.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * The method to remove all snapshots kept in memory, the snapshot files are kept.
+     */
+    public synchronized void clear() {
+        snapshots.clear();
+    }
+}
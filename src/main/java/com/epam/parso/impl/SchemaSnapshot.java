@@ -0,0 +1,279 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+import com.epam.parso.SasFileProperties;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The metadata of a sas7bdat file read from its metadata pages: the properties stored in the subheaders,
+ * the columns with the offsets and lengths of their data in a row, and the location of the first page with rows
+ * with the pointers to its data subheaders. {@link SasFileParser} restores the snapshot instead of parsing
+ * the subheaders again and continues reading from the first page with rows.
+ * <p>
+ * A snapshot file begins with {@link SchemaSnapshot#SIGNATURE} and {@link SchemaSnapshot#VERSION} followed by
+ * the properties, the columns, the offsets and lengths of their data, and the data subheader pointers of the first
+ * page with rows, every list preceded by the number of its elements.
+ */
+final class SchemaSnapshot {
+    /**
+     * The signature at the beginning of the snapshot file ("SCHM").
+     */
+    private static final int SIGNATURE = 0x5343484D;
+
+    /**
+     * The version of the snapshot file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The compression method of the sas7bdat file, null if it is not compressed.
+     */
+    private final String compressionMethod;
+
+    /**
+     * The length of a row in bytes.
+     */
+    private final long rowLength;
+
+    /**
+     * The number of rows.
+     */
+    private final long rowCount;
+
+    /**
+     * The number of rows on a page of the {@link SasFileConstants#PAGE_MIX_TYPE} type.
+     */
+    private final long mixPageRowCount;
+
+    /**
+     * The number of columns read from the subheaders.
+     */
+    private final long columnsCount;
+
+    /**
+     * The columns of the sas7bdat file.
+     */
+    private final List<Column> columns;
+
+    /**
+     * The offsets of the data of the columns in a row.
+     */
+    private final long[] columnsDataOffset;
+
+    /**
+     * The lengths of the data of the columns in a row.
+     */
+    private final int[] columnsDataLength;
+
+    /**
+     * The index of the first page with rows, counted from the first page after the header.
+     */
+    private final long firstDataPageIndex;
+
+    /**
+     * The pointers to the data subheaders of the first page with rows.
+     */
+    private final List<SubheaderPointer> subheaderPointers;
+
+    /**
+     * The constructor of the snapshot of the metadata read by a parser.
+     *
+     * @param sasFileProperties  the properties of the sas7bdat file.
+     * @param columns            the columns of the sas7bdat file.
+     * @param columnsDataOffset  the offsets of the data of the columns in a row.
+     * @param columnsDataLength  the lengths of the data of the columns in a row.
+     * @param firstDataPageIndex the index of the first page with rows.
+     * @param subheaderPointers  the pointers to the data subheaders of the first page with rows.
+     */
+    SchemaSnapshot(SasFileProperties sasFileProperties, List<Column> columns, List<Long> columnsDataOffset,
+                   List<Integer> columnsDataLength, long firstDataPageIndex, List<SubheaderPointer> subheaderPointers) {
+        compressionMethod = sasFileProperties.getCompressionMethod();
+        rowLength = sasFileProperties.getRowLength();
+        rowCount = sasFileProperties.getRowCount();
+        mixPageRowCount = sasFileProperties.getMixPageRowCount();
+        columnsCount = sasFileProperties.getColumnsCount();
+        this.columns = new ArrayList<Column>(columns);
+        this.columnsDataOffset = new long[columnsDataOffset.size()];
+        for (int i = 0; i < this.columnsDataOffset.length; i++) {
+            this.columnsDataOffset[i] = columnsDataOffset.get(i);
+        }
+        this.columnsDataLength = new int[columnsDataLength.size()];
+        for (int i = 0; i < this.columnsDataLength.length; i++) {
+            this.columnsDataLength[i] = columnsDataLength.get(i);
+        }
+        this.firstDataPageIndex = firstDataPageIndex;
+        this.subheaderPointers = new ArrayList<SubheaderPointer>(subheaderPointers);
+    }
+
+    /**
+     * The constructor of the snapshot read from a snapshot file.
+     *
+     * @param input       the input positioned after the signature and the version.
+     * @param maxListSize the maximum number of elements of a list, a larger number means the file is corrupted.
+     * @throws IOException if reading the input is impossible or it does not store a snapshot.
+     */
+    private SchemaSnapshot(DataInput input, long maxListSize) throws IOException {
+        compressionMethod = input.readBoolean() ? input.readUTF() : null;
+        rowLength = input.readLong();
+        rowCount = input.readLong();
+        mixPageRowCount = input.readLong();
+        columnsCount = input.readLong();
+        int columnCount = readListSize(input, maxListSize);
+        columns = new ArrayList<Column>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            int id = input.readInt();
+            String name = input.readUTF();
+            String label = input.readUTF();
+            String format = input.readUTF();
+            Class<?> type = input.readBoolean() ? Number.class : String.class;
+            columns.add(new Column(id, name, label, format, type, input.readInt()));
+        }
+        columnsDataOffset = new long[readListSize(input, maxListSize)];
+        for (int i = 0; i < columnsDataOffset.length; i++) {
+            columnsDataOffset[i] = input.readLong();
+        }
+        columnsDataLength = new int[readListSize(input, maxListSize)];
+        for (int i = 0; i < columnsDataLength.length; i++) {
+            columnsDataLength[i] = input.readInt();
+        }
+        firstDataPageIndex = input.readLong();
+        int subheaderCount = readListSize(input, maxListSize);
+        subheaderPointers = new ArrayList<SubheaderPointer>(subheaderCount);
+        for (int i = 0; i < subheaderCount; i++) {
+            subheaderPointers.add(new SubheaderPointer(input.readLong(), input.readLong(), input.readByte(),
+                    input.readByte()));
+        }
+    }
+
+    /**
+     * The function to read a snapshot written by {@link SchemaSnapshot#write(DataOutput)}.
+     *
+     * @param input       the input.
+     * @param maxListSize the maximum number of elements of a list, a larger number means the file is corrupted.
+     * @return the snapshot.
+     * @throws IOException if reading the input is impossible or it does not store a snapshot.
+     */
+    static SchemaSnapshot read(DataInput input, long maxListSize) throws IOException {
+        if (input.readInt() != SIGNATURE || input.readInt() != VERSION) {
+            throw new IOException("The input is not a schema snapshot");
+        }
+        return new SchemaSnapshot(input, maxListSize);
+    }
+
+    /**
+     * The function to read the number of elements of a list.
+     *
+     * @param input       the input.
+     * @param maxListSize the maximum number of elements.
+     * @return the number of elements.
+     * @throws IOException if reading the input is impossible or the number is out of range.
+     */
+    private static int readListSize(DataInput input, long maxListSize) throws IOException {
+        int size = input.readInt();
+        if (size < 0 || size > maxListSize) {
+            throw new IOException("Invalid number of elements in the schema snapshot: " + size);
+        }
+        return size;
+    }
+
+    /**
+     * The function to write the snapshot.
+     *
+     * @param output the output.
+     * @throws IOException if writing to the output is impossible.
+     */
+    void write(DataOutput output) throws IOException {
+        output.writeInt(SIGNATURE);
+        output.writeInt(VERSION);
+        output.writeBoolean(compressionMethod != null);
+        if (compressionMethod != null) {
+            output.writeUTF(compressionMethod);
+        }
+        output.writeLong(rowLength);
+        output.writeLong(rowCount);
+        output.writeLong(mixPageRowCount);
+        output.writeLong(columnsCount);
+        output.writeInt(columns.size());
+        for (Column column : columns) {
+            output.writeInt(column.getId());
+            output.writeUTF(column.getName());
+            output.writeUTF(column.getLabel());
+            output.writeUTF(column.getFormat());
+            output.writeBoolean(column.getType() == Number.class);
+            output.writeInt(column.getLength());
+        }
+        output.writeInt(columnsDataOffset.length);
+        for (long offset : columnsDataOffset) {
+            output.writeLong(offset);
+        }
+        output.writeInt(columnsDataLength.length);
+        for (int length : columnsDataLength) {
+            output.writeInt(length);
+        }
+        output.writeLong(firstDataPageIndex);
+        output.writeInt(subheaderPointers.size());
+        for (SubheaderPointer subheaderPointer : subheaderPointers) {
+            output.writeLong(subheaderPointer.getOffset());
+            output.writeLong(subheaderPointer.getLength());
+            output.writeByte(subheaderPointer.getCompression());
+            output.writeByte(subheaderPointer.getType());
+        }
+    }
+
+    /**
+     * The function to restore the metadata into the state of a parser which has read the header of the file.
+     * The properties read from the header are kept, the properties read from the subheaders are copied.
+     *
+     * @param targetProperties  the properties of the parser.
+     * @param targetColumns     the empty list of the columns of the parser.
+     * @param targetOffsets     the empty list of the offsets of the data of the columns of the parser.
+     * @param targetLengths     the empty list of the lengths of the data of the columns of the parser.
+     * @param targetPointers    the empty list of the pointers to the data subheaders of the current page.
+     */
+    void restore(SasFileProperties targetProperties, List<Column> targetColumns, List<Long> targetOffsets,
+                 List<Integer> targetLengths, List<SubheaderPointer> targetPointers) {
+        targetProperties.setCompressionMethod(compressionMethod);
+        targetProperties.setRowLength(rowLength);
+        targetProperties.setRowCount(rowCount);
+        targetProperties.setMixPageRowCount(mixPageRowCount);
+        targetProperties.setColumnsCount(columnsCount);
+        targetColumns.addAll(columns);
+        for (long offset : columnsDataOffset) {
+            targetOffsets.add(offset);
+        }
+        for (int length : columnsDataLength) {
+            targetLengths.add(length);
+        }
+        targetPointers.addAll(subheaderPointers);
+    }
+
+    /**
+     * The function to get the index of the first page with rows.
+     *
+     * @return the index counted from the first page after the header.
+     */
+    long getFirstDataPageIndex() {
+        return firstDataPageIndex;
+    }
+}
@@ -0,0 +1,281 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+import com.epam.parso.RowTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A table of the rows of a sas7bdat file bounded by memory. The uncompressed bytes of the rows are stored in chunks
+ * of a fixed number of rows, so the chunk and the offset of any row are computed from its index. When the chunks do
+ * not fit into the memory budget, the least recently used ones are written to a temporary file, and read back when
+ * their rows are accessed. The rows are decoded by the parser of the file on every access.
+ */
+final class SpillingRowTable implements RowTable {
+    /**
+     * The default length of a chunk in bytes.
+     */
+    private static final int DEFAULT_CHUNK_LENGTH = 1 << 20;
+
+    /**
+     * The minimum number of chunks kept in memory.
+     */
+    private static final int MIN_CHUNKS_IN_MEMORY = 2;
+
+    /**
+     * The initial capacity of the map of the chunks kept in memory.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The load factor of the map of the chunks kept in memory.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * The parser of the file used to decode the rows.
+     */
+    private final SasFileParser parser;
+
+    /**
+     * The length of a row in bytes.
+     */
+    private final int rowLength;
+
+    /**
+     * The number of rows in a chunk.
+     */
+    private final int rowsPerChunk;
+
+    /**
+     * The maximum number of chunks kept in memory.
+     */
+    private final long maxChunksInMemory;
+
+    /**
+     * The chunks kept in memory by their indexes in the order of access, from the least to the most recently used.
+     */
+    private final LinkedHashMap<Integer, byte[]> chunks = new LinkedHashMap<Integer, byte[]>(INITIAL_CAPACITY,
+            LOAD_FACTOR, true);
+
+    /**
+     * The flags of the chunks written to the temporary file.
+     */
+    private final BitSet writtenChunks = new BitSet();
+
+    /**
+     * The temporary file, null until the first chunk is written.
+     */
+    private File spillFile;
+
+    /**
+     * The temporary file opened for reading and writing, null until the first chunk is written.
+     */
+    private RandomAccessFile spill;
+
+    /**
+     * The number of rows in the table.
+     */
+    private long rowCount;
+
+    /**
+     * True if the table is closed.
+     */
+    private boolean closed;
+
+    /**
+     * The constructor of an empty table.
+     *
+     * @param parser       the parser of the file used to decode the rows.
+     * @param memoryBudget the maximum number of bytes of rows kept in memory.
+     */
+    private SpillingRowTable(SasFileParser parser, long memoryBudget) {
+        this.parser = parser;
+        rowLength = (int) Math.max(1, parser.getSasFileProperties().getRowLength());
+        long chunkLength = Math.min(DEFAULT_CHUNK_LENGTH, memoryBudget / MIN_CHUNKS_IN_MEMORY);
+        rowsPerChunk = (int) Math.max(1, chunkLength / rowLength);
+        maxChunksInMemory = Math.max(MIN_CHUNKS_IN_MEMORY, memoryBudget / ((long) rowsPerChunk * rowLength));
+    }
+
+    /**
+     * The function to read the rows of a sas7bdat file which are not read by the parser yet into a table.
+     *
+     * @param parser       the parser of the sas7bdat file.
+     * @param memoryBudget the maximum number of bytes of rows kept in memory.
+     * @return the table.
+     * @throws IOException if reading the sas7bdat file or writing the temporary file is impossible.
+     */
+    static SpillingRowTable read(SasFileParser parser, long memoryBudget) throws IOException {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("The memory budget must be positive");
+        }
+        final SpillingRowTable table = new SpillingRowTable(parser, memoryBudget);
+        try {
+            parser.scanPages(new PageScanner() {
+                @Override
+                public void startPage(long pageIndex, long firstRowIndex, int pageRowCount) {
+                }
+
+                @Override
+                public void scanRow(byte[] source, int offset) throws IOException {
+                    table.add(source, offset);
+                }
+
+                @Override
+                public void endPage() {
+                }
+            });
+        } catch (IOException e) {
+            table.close();
+            throw e;
+        }
+        return table;
+    }
+
+    /**
+     * The function to append a row to the table.
+     *
+     * @param source the array of bytes that stores the uncompressed row.
+     * @param offset the offset of the row in the array.
+     * @throws IOException if writing the temporary file is impossible.
+     */
+    private void add(byte[] source, int offset) throws IOException {
+        if (rowCount / rowsPerChunk >= Integer.MAX_VALUE) {
+            throw new IOException("Too many rows for a table with chunks of " + rowsPerChunk + " rows");
+        }
+        int chunkIndex = (int) (rowCount / rowsPerChunk);
+        byte[] chunk = chunks.get(chunkIndex);
+        if (chunk == null) {
+            chunk = new byte[rowsPerChunk * rowLength];
+            putChunk(chunkIndex, chunk);
+        }
+        System.arraycopy(source, offset, chunk, (int) (rowCount % rowsPerChunk) * rowLength,
+                Math.min(rowLength, source.length - offset));
+        rowCount++;
+    }
+
+    /**
+     * The function to keep a chunk in memory, the least recently used chunks are written to the temporary file
+     * if needed and released if there are too many chunks in memory.
+     *
+     * @param chunkIndex the index of the chunk.
+     * @param chunk      the chunk.
+     * @throws IOException if writing the temporary file is impossible.
+     */
+    private void putChunk(int chunkIndex, byte[] chunk) throws IOException {
+        Iterator<Map.Entry<Integer, byte[]>> iterator = chunks.entrySet().iterator();
+        while (chunks.size() >= maxChunksInMemory && iterator.hasNext()) {
+            Map.Entry<Integer, byte[]> entry = iterator.next();
+            if (!writtenChunks.get(entry.getKey())) {
+                getSpill().seek((long) entry.getKey() * entry.getValue().length);
+                getSpill().write(entry.getValue());
+                writtenChunks.set(entry.getKey());
+            }
+            iterator.remove();
+        }
+        chunks.put(chunkIndex, chunk);
+    }
+
+    /**
+     * The function to get the temporary file, it is created on the first call.
+     *
+     * @return the temporary file opened for reading and writing.
+     * @throws IOException if creating the temporary file is impossible.
+     */
+    private RandomAccessFile getSpill() throws IOException {
+        if (spill == null) {
+            spillFile = File.createTempFile("parso", ".rows");
+            spillFile.deleteOnExit();
+            spill = new RandomAccessFile(spillFile, "rw");
+        }
+        return spill;
+    }
+
+    /**
+     * The function to get the {@link Column} list of the table.
+     *
+     * @return a list of columns.
+     */
+    @Override
+    public List<Column> getColumns() {
+        return parser.getColumns();
+    }
+
+    /**
+     * The function to get the number of rows in the table.
+     *
+     * @return the number of rows.
+     */
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * The function to get a row of the table, the chunk of the row is read from the temporary file if it is not
+     * in memory.
+     *
+     * @param rowIndex the index of the row.
+     * @return the array of objects storing the elements of the row, or null if there is no row with the index.
+     * @throws IOException if reading the temporary file is impossible or the table is closed.
+     */
+    @Override
+    public synchronized Object[] getRow(long rowIndex) throws IOException {
+        if (closed) {
+            throw new IOException("The table is closed");
+        }
+        if (rowIndex < 0 || rowIndex >= rowCount) {
+            return null;
+        }
+        int chunkIndex = (int) (rowIndex / rowsPerChunk);
+        byte[] chunk = chunks.get(chunkIndex);
+        if (chunk == null) {
+            chunk = new byte[rowsPerChunk * rowLength];
+            spill.seek((long) chunkIndex * chunk.length);
+            spill.readFully(chunk);
+            putChunk(chunkIndex, chunk);
+        }
+        return parser.decodeRow(chunk, (int) (rowIndex % rowsPerChunk) * rowLength);
+    }
+
+    /**
+     * The method to release the chunks kept in memory and to delete the temporary file.
+     *
+     * @throws IOException if deleting the temporary file is impossible.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        chunks.clear();
+        if (spill != null) {
+            spill.close();
+            spill = null;
+            if (!spillFile.delete()) {
+                throw new IOException("Cannot delete the temporary file " + spillFile);
+            }
+        }
+    }
+}
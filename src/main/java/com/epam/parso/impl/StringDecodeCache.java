@@ -0,0 +1,131 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of the strings decoded from the values of a character column, used to return the same {@link String}
+ * instance for equal values so columns with few distinct values do not retain a string per cell. The strings are
+ * looked up by the trimmed bytes of the values in the buffer of the row, which are copied only when a new value is
+ * put to the cache. The cache holds at most a given number of distinct values; it
+ * disables itself and releases its strings when the column has more distinct values or when, after
+ * {@link StringDecodeCache#SAMPLE_SIZE} values, more than half of the values are distinct.
+ * <p>
+ * The cache is shared by the threads decoding the pages of a parallel stream, so lookups do not lock: the strings
+ * are kept in a {@link ConcurrentHashMap} and the values are counted with {@link LongAdder}. Threads decoding
+ * the same new value at once may each decode it, but all of them return the string put to the cache first.
+ */
+final class StringDecodeCache {
+    /**
+     * The number of values decoded before the share of distinct values is checked.
+     */
+    private static final int SAMPLE_SIZE = 1024;
+
+    /**
+     * The maximum number of distinct values kept in the cache.
+     */
+    private final int maxSize;
+
+    /**
+     * The decoder of the values.
+     */
+    private final StringDecoder decoder;
+
+    /**
+     * The number of values decoded while the cache is enabled.
+     */
+    private final LongAdder valueCount = new LongAdder();
+
+    /**
+     * The number of distinct values decoded while the cache is enabled.
+     */
+    private final AtomicInteger distinctCount = new AtomicInteger();
+
+    /**
+     * The strings by the bytes of the values, null when the cache is disabled.
+     */
+    private volatile Map<ByteBuffer, String> strings = new ConcurrentHashMap<ByteBuffer, String>();
+
+    /**
+     * The constructor of an empty cache.
+     *
+     * @param maxSize the maximum number of distinct values kept in the cache.
+     * @param decoder the decoder of the values.
+     */
+    StringDecodeCache(int maxSize, StringDecoder decoder) {
+        this.maxSize = maxSize;
+        this.decoder = decoder;
+    }
+
+    /**
+     * The function to decode the bytes of a value, returning the string decoded before for equal bytes.
+     *
+     * @param bytes  the buffer holding the trimmed bytes of the value.
+     * @param offset the offset of the value in the buffer.
+     * @param length the number of bytes of the value.
+     * @return the string.
+     */
+    String decode(byte[] bytes, int offset, int length) {
+        Map<ByteBuffer, String> cachedStrings = strings;
+        if (cachedStrings == null) {
+            return decoder.decode(bytes, offset, length);
+        }
+        valueCount.increment();
+        String string = cachedStrings.get(ByteBuffer.wrap(bytes, offset, length));
+        if (string != null) {
+            return string;
+        }
+        string = decoder.decode(bytes, offset, length);
+        int distinct = distinctCount.incrementAndGet();
+        long values = valueCount.sum();
+        if (distinct > maxSize || values >= SAMPLE_SIZE && 2L * distinct > values) {
+            strings = null;
+            return string;
+        }
+        String previous = cachedStrings.putIfAbsent(
+                ByteBuffer.wrap(Arrays.copyOfRange(bytes, offset, offset + length)), string);
+        if (previous != null) {
+            distinctCount.decrementAndGet();
+            return previous;
+        }
+        return string;
+    }
+
+    /**
+     * The function to get the number of distinct values decoded while the cache is enabled.
+     *
+     * @return the number of distinct values.
+     */
+    int getDistinctCount() {
+        return distinctCount.get();
+    }
+
+    /**
+     * The function to check whether the cache has disabled itself because the column has too many distinct values.
+     *
+     * @return true if the cache is disabled.
+     */
+    boolean isDisabled() {
+        return strings == null;
+    }
+}
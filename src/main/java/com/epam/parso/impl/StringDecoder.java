@@ -0,0 +1,225 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A decoder of the character values of a sas7bdat file with the charset resolved once per parser. The values are
+ * decoded straight from the buffer of the row: ASCII and Latin-1 values are widened byte by byte, UTF-8 values
+ * consisting of ASCII bytes only are widened the same way, and other charsets are decoded by the JDK.
+ */
+final class StringDecoder {
+    /**
+     * The kind of the decoder for the US-ASCII charset.
+     */
+    private static final int ASCII = 0;
+
+    /**
+     * The kind of the decoder for the ISO-8859-1 charset.
+     */
+    private static final int LATIN1 = 1;
+
+    /**
+     * The kind of the decoder for the UTF-8 charset.
+     */
+    private static final int UTF8 = 2;
+
+    /**
+     * The kind of the decoder for other charsets.
+     */
+    private static final int OTHER = 3;
+
+    /**
+     * The character the bytes not defined in the US-ASCII charset are decoded to.
+     */
+    private static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
+    /**
+     * The names of the charsets by the values of the encoding byte stored in the header of the sas7bdat file at
+     * the {@link SasFileConstants#ENCODING_OFFSET} offset.
+     */
+    private static final Map<Integer, String> ENCODING_BYTE_TO_CHARSET = new HashMap<Integer, String>();
+
+    static {
+        ENCODING_BYTE_TO_CHARSET.put(20, "UTF-8");
+        ENCODING_BYTE_TO_CHARSET.put(28, "US-ASCII");
+        ENCODING_BYTE_TO_CHARSET.put(29, "ISO-8859-1");
+        ENCODING_BYTE_TO_CHARSET.put(30, "ISO-8859-2");
+        ENCODING_BYTE_TO_CHARSET.put(31, "ISO-8859-3");
+        ENCODING_BYTE_TO_CHARSET.put(32, "ISO-8859-4");
+        ENCODING_BYTE_TO_CHARSET.put(33, "ISO-8859-5");
+        ENCODING_BYTE_TO_CHARSET.put(34, "ISO-8859-6");
+        ENCODING_BYTE_TO_CHARSET.put(35, "ISO-8859-7");
+        ENCODING_BYTE_TO_CHARSET.put(36, "ISO-8859-8");
+        ENCODING_BYTE_TO_CHARSET.put(37, "ISO-8859-9");
+        ENCODING_BYTE_TO_CHARSET.put(40, "ISO-8859-15");
+        ENCODING_BYTE_TO_CHARSET.put(60, "windows-1250");
+        ENCODING_BYTE_TO_CHARSET.put(61, "windows-1251");
+        ENCODING_BYTE_TO_CHARSET.put(62, "windows-1252");
+        ENCODING_BYTE_TO_CHARSET.put(63, "windows-1253");
+        ENCODING_BYTE_TO_CHARSET.put(64, "windows-1254");
+        ENCODING_BYTE_TO_CHARSET.put(65, "windows-1255");
+        ENCODING_BYTE_TO_CHARSET.put(66, "windows-1256");
+        ENCODING_BYTE_TO_CHARSET.put(67, "windows-1257");
+        ENCODING_BYTE_TO_CHARSET.put(68, "windows-1258");
+        ENCODING_BYTE_TO_CHARSET.put(134, "EUC-JP");
+        ENCODING_BYTE_TO_CHARSET.put(138, "Shift_JIS");
+        ENCODING_BYTE_TO_CHARSET.put(140, "EUC-KR");
+        ENCODING_BYTE_TO_CHARSET.put(205, "GB18030");
+    }
+
+    /**
+     * The charset the values are decoded with.
+     */
+    private final Charset charset;
+
+    /**
+     * The kind of the decoder: {@link StringDecoder#ASCII}, {@link StringDecoder#LATIN1}, {@link StringDecoder#UTF8}
+     * or {@link StringDecoder#OTHER}.
+     */
+    private final int kind;
+
+    /**
+     * True if every byte of the charset decodes to one character.
+     */
+    private final boolean singleByte;
+
+    /**
+     * The constructor of a decoder of a charset.
+     *
+     * @param charset the charset the values are decoded with.
+     */
+    StringDecoder(Charset charset) {
+        this.charset = charset;
+        String name = charset.name();
+        if ("US-ASCII".equals(name)) {
+            kind = ASCII;
+        } else if ("ISO-8859-1".equals(name)) {
+            kind = LATIN1;
+        } else if ("UTF-8".equals(name)) {
+            kind = UTF8;
+        } else {
+            kind = OTHER;
+        }
+        singleByte = kind != UTF8 && charset.newEncoder().maxBytesPerChar() == 1.0f;
+    }
+
+    /**
+     * The function to get the name of the charset set by the encoding byte stored in the header of
+     * the sas7bdat file.
+     *
+     * @param encodingByte the encoding byte.
+     * @return the name of the charset, or null if the byte is 0 or unknown.
+     */
+    static String getCharsetName(int encodingByte) {
+        return ENCODING_BYTE_TO_CHARSET.get(encodingByte & 0xFF);
+    }
+
+    /**
+     * The function to get the charset the values are decoded with.
+     *
+     * @return the charset.
+     */
+    Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * The function to check whether every byte of the charset decodes to one character, so the length of a value
+     * is the number of its bytes.
+     *
+     * @return true if the charset is a single-byte one.
+     */
+    boolean isSingleByte() {
+        return singleByte;
+    }
+
+    /**
+     * The function to decode the bytes of a value.
+     *
+     * @param bytes  the buffer holding the bytes of the value.
+     * @param offset the offset of the value in the buffer.
+     * @param length the number of bytes of the value.
+     * @return the decoded value.
+     */
+    String decode(byte[] bytes, int offset, int length) {
+        switch (kind) {
+            case ASCII:
+                return isAscii(bytes, offset, length) ? widen(bytes, offset, length)
+                        : decodeAscii(bytes, offset, length);
+            case LATIN1:
+                return widen(bytes, offset, length);
+            case UTF8:
+                return isAscii(bytes, offset, length) ? widen(bytes, offset, length)
+                        : new String(bytes, offset, length, charset);
+            default:
+                return new String(bytes, offset, length, charset);
+        }
+    }
+
+    /**
+     * The function to check whether all bytes of a value are ASCII characters.
+     *
+     * @param bytes  the buffer holding the bytes of the value.
+     * @param offset the offset of the value in the buffer.
+     * @param length the number of bytes of the value.
+     * @return true if no byte has the high bit set.
+     */
+    private static boolean isAscii(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The function to decode the bytes of a value as Latin-1 characters, each byte becomes the character with
+     * the same code.
+     *
+     * @param bytes  the buffer holding the bytes of the value.
+     * @param offset the offset of the value in the buffer.
+     * @param length the number of bytes of the value.
+     * @return the decoded value.
+     */
+    @SuppressWarnings("deprecation")
+    private static String widen(byte[] bytes, int offset, int length) {
+        return new String(bytes, 0, offset, length);
+    }
+
+    /**
+     * The function to decode the bytes of a value as ASCII characters, the bytes with the high bit set become
+     * {@link StringDecoder#REPLACEMENT_CHARACTER} as with the decoder of the JDK.
+     *
+     * @param bytes  the buffer holding the bytes of the value.
+     * @param offset the offset of the value in the buffer.
+     * @param length the number of bytes of the value.
+     * @return the decoded value.
+     */
+    private static String decodeAscii(byte[] bytes, int offset, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            byte value = bytes[offset + i];
+            chars[i] = value < 0 ? REPLACEMENT_CHARACTER : (char) value;
+        }
+        return new String(chars);
+    }
+}
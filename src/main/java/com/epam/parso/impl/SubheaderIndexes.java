@@ -0,0 +1,69 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+/**
+ * Enumeration of all subheader types used in sas7bdat files.
+ */
+enum SubheaderIndexes {
+    /**
+     * Index which define row size subheader, which contains rows size in bytes and the number of rows.
+     */
+    ROW_SIZE_SUBHEADER_INDEX,
+
+    /**
+     * Index which define column size subheader, which contains columns count.
+     */
+    COLUMN_SIZE_SUBHEADER_INDEX,
+
+    /**
+     * Index which define subheader counts subheader, which contains currently not used data.
+     */
+    SUBHEADER_COUNTS_SUBHEADER_INDEX,
+
+    /**
+     * Index which define column text subheader, which contains type of file compression
+     * and info about columns (name, label, format).
+     */
+    COLUMN_TEXT_SUBHEADER_INDEX,
+
+    /**
+     * Index which define column name subheader, which contains column names.
+     */
+    COLUMN_NAME_SUBHEADER_INDEX,
+
+    /**
+     * Index which define column attributes subheader, which contains column attributes, such as type.
+     */
+    COLUMN_ATTRIBUTES_SUBHEADER_INDEX,
+
+    /**
+     * Index which define format and label subheader, which contains info about format of objects in column
+     * and tooltip text for columns.
+     */
+    FORMAT_AND_LABEL_SUBHEADER_INDEX,
+
+    /**
+     * Index which define column list subheader, which contains currently not used data.
+     */
+    COLUMN_LIST_SUBHEADER_INDEX,
+
+    /**
+     * Index which define data subheader, which contains sas7bdat file rows data.
+     */
+    DATA_SUBHEADER_INDEX
+}
@@ -0,0 +1,104 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+/**
+ * The class to store subheaders pointers that contain information about the offset, length, type
+ * and compression of subheaders (see {@link SasFileConstants#TRUNCATED_SUBHEADER_ID},
+ * {@link SasFileConstants#COMPRESSED_SUBHEADER_ID}, {@link SasFileConstants#COMPRESSED_SUBHEADER_TYPE}
+ * for details).
+ */
+final class SubheaderPointer {
+    /**
+     * The offset from the beginning of a page at which a subheader is stored.
+     */
+    private final long offset;
+
+    /**
+     * The subheader length.
+     */
+    private final long length;
+
+    /**
+     * The type of subheader compression. If the type is {@link SasFileConstants#TRUNCATED_SUBHEADER_ID}
+     * the subheader does not contain information relevant to the current issues. If the type is
+     * {@link SasFileConstants#COMPRESSED_SUBHEADER_ID} the subheader can be compressed
+     * (depends on {@link SubheaderPointer#type}).
+     */
+    private final byte compression;
+
+    /**
+     * The subheader type. If the type is {@link SasFileConstants#COMPRESSED_SUBHEADER_TYPE}
+     * the subheader is compressed. Otherwise, there is no compression.
+     */
+    private final byte type;
+
+    /**
+     * The constructor of the {@link SubheaderPointer} class that defines values of all its variables.
+     *
+     * @param offset      the offset of the subheader from the beginning of the page.
+     * @param length      the subheader length.
+     * @param compression the subheader compression type. If the type is
+     *                    {@link SasFileConstants#TRUNCATED_SUBHEADER_ID}, the subheader does not contain useful
+     *                    information. If the type is {@link SasFileConstants#COMPRESSED_SUBHEADER_ID},
+     *                    the subheader can be compressed (depends on {@link SubheaderPointer#type}).
+     * @param type        the subheader type. If the type is {@link SasFileConstants#COMPRESSED_SUBHEADER_TYPE}
+     *                    the subheader is compressed, otherwise, it is not.
+     */
+    SubheaderPointer(long offset, long length, byte compression, byte type) {
+        this.offset = offset;
+        this.length = length;
+        this.compression = compression;
+        this.type = type;
+    }
+
+    /**
+     * The function to get the offset of the subheader from the beginning of the page.
+     *
+     * @return the offset.
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    /**
+     * The function to get the subheader length.
+     *
+     * @return the length.
+     */
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * The function to get the subheader compression type.
+     *
+     * @return the compression type.
+     */
+    byte getCompression() {
+        return compression;
+    }
+
+    /**
+     * The function to get the subheader type.
+     *
+     * @return the type.
+     */
+    byte getType() {
+        return type;
+    }
+}
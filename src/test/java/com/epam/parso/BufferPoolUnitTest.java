@@ -0,0 +1,102 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.BufferPool;
+import com.epam.parso.impl.SasFileReaderImpl;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class BufferPoolUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+
+    @Test
+    public void testBuffersReusedByReaders() throws IOException {
+        BufferPool bufferPool = new BufferPool(1 << 24);
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file, null);
+            long allocationCount = bufferPool.getAllocationCount();
+            assertThat(readAll(file, bufferPool)).as(file.getName()).isEqualTo(expectedRows);
+            long firstAllocations = bufferPool.getAllocationCount() - allocationCount;
+            assertThat(bufferPool.getLeasedCount()).isEqualTo(0);
+            assertThat(readAll(file, bufferPool)).isEqualTo(expectedRows);
+            assertThat(bufferPool.getAllocationCount() - allocationCount).isEqualTo(firstAllocations);
+            assertThat(bufferPool.getPooledSize() + bufferPool.getLeasedSize())
+                    .isLessThanOrEqualTo(bufferPool.getMaxSize());
+        }
+        assertThat(bufferPool.getReuseCount()).isGreaterThan(0);
+        assertThat(bufferPool.getLeakCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testPoolBounded() throws IOException {
+        BufferPool bufferPool = new BufferPool(1024);
+        for (File file : getFiles()) {
+            assertThat(readAll(file, bufferPool)).isEqualTo(readAll(file, null));
+            assertThat(bufferPool.getPooledSize() + bufferPool.getLeasedSize()).isLessThanOrEqualTo(1024);
+        }
+    }
+
+    @Test
+    public void testLeakDetected() throws IOException, InterruptedException {
+        BufferPool bufferPool = new BufferPool(1 << 24, true);
+        File file = getFiles().get(0);
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            new SasFileReaderImpl(fileInputStream).setBufferPool(bufferPool);
+        } finally {
+            fileInputStream.close();
+        }
+        assertThat(bufferPool.getLeasedCount()).isEqualTo(1);
+        for (int attempt = 0; attempt < 100 && bufferPool.getLeakCount() == 0; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(bufferPool.getLeakCount()).isEqualTo(1);
+        assertThat(bufferPool.getLeasedCount()).isEqualTo(0);
+        assertThat(bufferPool.getLeasedSize()).isEqualTo(0);
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file, BufferPool bufferPool) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+            try {
+                sasFileReader.setBufferPool(bufferPool);
+                return sasFileReader.readAll();
+            } finally {
+                sasFileReader.close();
+            }
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
@@ -16,13 +16,19 @@
 
 package com.epam.parso;
 
+import com.epam.parso.impl.CSVDataWriterImpl;
+import com.epam.parso.impl.SasFileReaderImpl;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.net.URL;
 import java.util.List;
 
 import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
 
 public class CSVDataWriterUnitTest {
     private static final String FOLDER_NAME = "sas7bdat";
@@ -40,5 +46,22 @@ public class CSVDataWriterUnitTest {
         }
     }
 
+    @Test
+    public void testEpochTemporalOutput() throws IOException {
+        byte[] data = new SasFileBuilder().addNumericColumn("visit", "DATE").addNumericColumn("stamp", "DATETIME")
+                .addNumericColumn("count", "").addDataPage(new Object[]{20090, 1735814096, 7}).build();
+        String expected = "visit,stamp,count\n02Jan2015,2015-01-02 10:34:56,7\n";
+        assertThat(writeRows(data, TemporalOutput.DATE)).isEqualTo(expected);
+        assertThat(writeRows(data, TemporalOutput.EPOCH)).isEqualTo(expected);
+    }
 
+    private static String writeRows(byte[] data, TemporalOutput temporalOutput) throws IOException {
+        SasFileReaderImpl sasFileReader = new SasFileReaderImpl(new ByteArrayInputStream(data));
+        sasFileReader.setTemporalOutput(temporalOutput);
+        StringWriter writer = new StringWriter();
+        CSVDataWriter csvDataWriter = new CSVDataWriterImpl(writer, ",", "\n");
+        csvDataWriter.writeColumnNames(sasFileReader.getColumns());
+        csvDataWriter.writeRowsArray(sasFileReader.getColumns(), sasFileReader.readAll());
+        return writer.toString();
+    }
 }
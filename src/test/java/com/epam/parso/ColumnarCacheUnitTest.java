@@ -0,0 +1,155 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.ColumnarCache;
+import com.epam.parso.impl.SasFileReaderImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ColumnarCacheUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRowsMatchReader() throws IOException {
+        ColumnarCache cache = new ColumnarCache(temporaryFolder.newFolder(), Long.MAX_VALUE);
+        int fileCount = 0;
+        for (File file : getFiles()) {
+            Object[][] rows = readAll(file);
+            for (int open = 0; open < 2; open++) {
+                ColumnarTable table = cache.open(file);
+                try {
+                    assertThat(table.getRowCount()).isEqualTo(rows.length);
+                    for (int row = 0; row < rows.length; row++) {
+                        assertThat(Arrays.asList(table.getRow(row))).isEqualTo(Arrays.asList(rows[row]));
+                    }
+                    assertThat(table.getRow(rows.length)).isNull();
+                    Object[][] batch = table.getRows(rows.length / 2, rows.length);
+                    assertThat(batch.length).isEqualTo(rows.length - rows.length / 2);
+                } finally {
+                    table.close();
+                }
+            }
+            fileCount++;
+        }
+        assertThat(cache.getMissCount()).isEqualTo(fileCount);
+        assertThat(cache.getHitCount()).isEqualTo(fileCount);
+    }
+
+    @Test
+    public void testTypedValues() throws IOException {
+        File file = getFile("mixed_data_one.sas7bdat");
+        Object[][] rows = readAll(file);
+        ColumnarTable table = new ColumnarCache(temporaryFolder.newFolder(), Long.MAX_VALUE).open(file);
+        try {
+            List<Column> columns = table.getColumns();
+            for (int column = 0; column < columns.size(); column++) {
+                for (int row = 0; row < rows.length; row++) {
+                    Object value = rows[row][column];
+                    assertThat(table.isMissing(row, column)).isEqualTo(value == null);
+                    if (value instanceof String) {
+                        assertThat(table.getString(row, column)).isEqualTo((String) value);
+                    } else if (value instanceof Number) {
+                        assertThat(table.getDouble(row, column)).isEqualTo(((Number) value).doubleValue());
+                        assertThat(table.getLong(row, column)).isEqualTo(Math.round(((Number) value).doubleValue()));
+                    } else if (value instanceof Date) {
+                        assertThat(table.getLong(row, column)).isEqualTo(((Date) value).getTime());
+                    }
+                }
+            }
+        } finally {
+            table.close();
+        }
+    }
+
+    @Test
+    public void testStaleFileRewritten() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        File file = getFile("mixed_data_one.sas7bdat");
+        ColumnarCache cache = new ColumnarCache(directory, Long.MAX_VALUE);
+        cache.open(file).close();
+        File[] cacheFiles = directory.listFiles();
+        assertThat(cacheFiles.length).isEqualTo(1);
+        OutputStream outputStream = new FileOutputStream(cacheFiles[0]);
+        try {
+            outputStream.write(new byte[100]);
+        } finally {
+            outputStream.close();
+        }
+        ColumnarTable table = cache.open(file);
+        try {
+            assertThat(Arrays.asList(table.getRow(0))).isEqualTo(Arrays.asList(readAll(file)[0]));
+        } finally {
+            table.close();
+        }
+        assertThat(cache.getMissCount()).isEqualTo(2);
+        assertThat(cache.getHitCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        ColumnarCache cache = new ColumnarCache(directory, 1);
+        cache.open(getFile("mixed_data_one.sas7bdat")).close();
+        cache.open(getFile("mixed_data_two.sas7bdat")).close();
+        File[] cacheFiles = directory.listFiles();
+        assertThat(cacheFiles.length).isEqualTo(1);
+        assertThat(cacheFiles[0].getName()).startsWith("mixed_data_two.sas7bdat-");
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    private File getFile(String name) {
+        for (File file : getFiles()) {
+            if (file.getName().equals(name)) {
+                return file;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.JSONLDataWriterImpl;
+import com.epam.parso.impl.SasFileReaderImpl;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getResourceAsStream;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JSONLDataWriterUnitTest {
+    private static final List<Column> COLUMNS = Arrays.asList(
+            new Column(1, "name", "", "", String.class, 8),
+            new Column(2, "count", "", "", Number.class, 8),
+            new Column(3, "ratio", "", "", Number.class, 8),
+            new Column(4, "visit", "", "MMDDYY", Number.class, 8),
+            new Column(5, "stamp", "", "DATETIME", Number.class, 8),
+            new Column(6, "clock", "", "TIME", Number.class, 8));
+
+    @Test
+    public void testTypedValues() throws IOException {
+        StringWriter writer = new StringWriter();
+        JSONLDataWriter jsonlDataWriter = new JSONLDataWriterImpl(writer);
+        jsonlDataWriter.writeColumnNames(COLUMNS);
+        jsonlDataWriter.writeRow(COLUMNS, new Object[]{"a \"quoted\"\tname", 42L, 1.5,
+                new Date(1420156800000L), new Date(1420194896123L), 3725L});
+        jsonlDataWriter.writeRow(COLUMNS, new Object[]{null, null, Double.POSITIVE_INFINITY,
+                new Date(-86400000L), null, null});
+        jsonlDataWriter.writeRow(COLUMNS, new Object[]{null, null, null, LocalDate.of(2015, 1, 2),
+                LocalDateTime.of(2015, 1, 2, 10, 34, 56, 123000000), null});
+
+        assertThat(writer.toString()).isEqualTo(
+                "{\"name\":\"a \\\"quoted\\\"\\tname\",\"count\":42,\"ratio\":1.5,\"visit\":\"2015-01-02\","
+                        + "\"stamp\":\"2015-01-02T10:34:56.123Z\",\"clock\":\"01:02:05\"}\n"
+                        + "{\"name\":null,\"count\":null,\"ratio\":null,\"visit\":\"1969-12-31\","
+                        + "\"stamp\":null,\"clock\":null}\n"
+                        + "{\"name\":null,\"count\":null,\"ratio\":null,\"visit\":\"2015-01-02\","
+                        + "\"stamp\":\"2015-01-02T10:34:56.123Z\",\"clock\":null}\n");
+    }
+
+    @Test
+    public void testData() throws IOException {
+        InputStream fileInputStream = getResourceAsStream("sas7bdat/mixed_data_one.sas7bdat");
+        StringWriter writer = new StringWriter();
+        try {
+            SasFileReader sasFileReader = new SasFileReaderImpl(fileInputStream);
+            JSONLDataWriter jsonlDataWriter = new JSONLDataWriterImpl(writer);
+            jsonlDataWriter.writeRowsArray(sasFileReader.getColumns(), sasFileReader.readAll());
+
+            String[] lines = writer.toString().split("\n");
+            assertThat(lines.length).isEqualTo((int) sasFileReader.getSasFileProperties().getRowCount());
+            assertThat(lines[0]).startsWith("{\"x1\":1,\"x2\":1.1,\"x3\":\"AAAAAAAA\",");
+            assertThat(lines[1]).startsWith("{\"x1\":2,\"x2\":1.0625,\"x3\":\"BBBBBBBB\",");
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test
+    public void testEpochTemporalOutput() throws IOException {
+        byte[] data = new SasFileBuilder().addNumericColumn("visit", "DATE").addNumericColumn("stamp", "DATETIME")
+                .addNumericColumn("count", "").addDataPage(new Object[]{20090, 1735814096, 7}).build();
+        String expected = "{\"visit\":\"2015-01-02\",\"stamp\":\"2015-01-02T10:34:56Z\",\"count\":7}\n";
+        assertThat(writeRows(data, TemporalOutput.DATE)).isEqualTo(expected);
+        assertThat(writeRows(data, TemporalOutput.EPOCH)).isEqualTo(expected);
+    }
+
+    private static String writeRows(byte[] data, TemporalOutput temporalOutput) throws IOException {
+        SasFileReaderImpl sasFileReader = new SasFileReaderImpl(new ByteArrayInputStream(data));
+        sasFileReader.setTemporalOutput(temporalOutput);
+        StringWriter writer = new StringWriter();
+        new JSONLDataWriterImpl(writer).writeRowsArray(sasFileReader.getColumns(), sasFileReader.readAll());
+        return writer.toString();
+    }
+}
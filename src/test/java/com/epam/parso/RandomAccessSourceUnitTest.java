@@ -0,0 +1,191 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.ByteArraySource;
+import com.epam.parso.impl.FileChannelSource;
+import com.epam.parso.impl.HttpRangeSource;
+import com.epam.parso.impl.MappedFileSource;
+import com.epam.parso.impl.RandomAccessSourceInputStream;
+import com.epam.parso.impl.SasFileReaderImpl;
+import com.epam.parso.impl.SasFileRowIndexer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class RandomAccessSourceUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private HttpServer server;
+    private volatile boolean truncateNextResponse;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] data = Files.readAllBytes(new File(getFolder(), exchange.getRequestURI().getPath()).toPath());
+                Matcher range = RANGE.matcher(String.valueOf(exchange.getRequestHeaders().getFirst("Range")));
+                if (!range.matches()) {
+                    exchange.sendResponseHeaders(416, -1);
+                    exchange.close();
+                    return;
+                }
+                int from = Integer.parseInt(range.group(1));
+                int to = Math.min(Integer.parseInt(range.group(2)), data.length - 1);
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + from + "-" + to + "/" + data.length);
+                exchange.sendResponseHeaders(206, to - from + 1);
+                OutputStream body = exchange.getResponseBody();
+                if (truncateNextResponse) {
+                    truncateNextResponse = false;
+                    body.write(data, from, (to - from + 1) / 2);
+                    body.flush();
+                    throw new IOException("The response is truncated");
+                }
+                body.write(data, from, to - from + 1);
+                body.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testSources() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            URL url = new URL("http", "127.0.0.1", server.getAddress().getPort(), "/" + file.getName());
+            RandomAccessSource[] sources = {new ByteArraySource(Files.readAllBytes(file.toPath())),
+                    new FileChannelSource(file), new MappedFileSource(file, 1000), new HttpRangeSource(url)};
+            for (RandomAccessSource source : sources) {
+                try {
+                    assertThat(source.size()).isEqualTo(file.length());
+                    assertSourceRows(source, expectedRows);
+                } finally {
+                    source.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testHttpRangeRequestsCoalesced() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            URL url = new URL("http", "127.0.0.1", server.getAddress().getPort(), "/" + file.getName());
+            int requestSize = 16 * 1024;
+            HttpRangeSource source = new HttpRangeSource(url, requestSize);
+            SasFileReaderImpl sasFileReader = new SasFileReaderImpl(source);
+            sasFileReader.setReadAhead(2);
+            assertThat(sasFileReader.readAll()).isEqualTo(expectedRows);
+            assertThat(source.getRequestCount()).as(file.getName())
+                    .isEqualTo((file.length() + requestSize - 1) / requestSize);
+        }
+    }
+
+    @Test
+    public void testHttpBlockKeptConsistentAfterFailedFetch() throws IOException {
+        File file = getFiles().get(0);
+        byte[] data = Files.readAllBytes(file.toPath());
+        URL url = new URL("http", "127.0.0.1", server.getAddress().getPort(), "/" + file.getName());
+        int requestSize = 1024;
+        HttpRangeSource source = new HttpRangeSource(url, requestSize);
+        byte[] buffer = new byte[16];
+        assertThat(source.read(0, buffer, 0, buffer.length)).isEqualTo(buffer.length);
+        assertThat(buffer).isEqualTo(Arrays.copyOfRange(data, 0, buffer.length));
+
+        truncateNextResponse = true;
+        try {
+            source.read(requestSize * 2, buffer, 0, buffer.length);
+            fail("A truncated response must fail the read");
+        } catch (IOException e) {
+            assertThat(truncateNextResponse).isFalse();
+        }
+        for (int position : new int[]{0, 100, requestSize * 2}) {
+            assertThat(source.read(position, buffer, 0, buffer.length)).isEqualTo(buffer.length);
+            assertThat(buffer).isEqualTo(Arrays.copyOfRange(data, position, position + buffer.length));
+        }
+    }
+
+    private void assertSourceRows(RandomAccessSource source, Object[][] expectedRows) throws IOException {
+        int rowCount = expectedRows.length;
+        SasFileReader sasFileReader = new SasFileReaderImpl(source);
+        for (int rowIndex : new int[]{rowCount / 2, 0, rowCount - 1, rowCount / 3}) {
+            sasFileReader.seek(rowIndex);
+            assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[rowIndex]);
+        }
+        List<Object[]> rows = new SasFileReaderImpl(source).stream().parallel().collect(
+                Collectors.<Object[]>toList());
+        assertThat(rows.toArray()).isEqualTo(expectedRows);
+
+        File indexFile = temporaryFolder.newFile();
+        SasFileRowIndexer.writeRowIndex(new RandomAccessSourceInputStream(source), indexFile);
+        SasFileReader indexedReader = new SasFileReaderImpl(new RandomAccessSourceInputStream(source), indexFile);
+        for (int rowIndex = rowCount - 1; rowIndex >= 0; rowIndex -= 7) {
+            assertThat(indexedReader.readRow(rowIndex)).isEqualTo(expectedRows[rowIndex]);
+        }
+    }
+
+    private String getFolder() {
+        return this.getClass().getClassLoader().getResource("").getFile() + "//" + FOLDER_NAME;
+    }
+
+    private List<File> getFiles() {
+        return getSas7bdatFilesList(getFolder());
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import au.com.bytecode.opencsv.CSVReader;
+import com.epam.parso.impl.CSVDataWriterImpl;
+import com.epam.parso.impl.JSONLDataWriterImpl;
+import com.epam.parso.impl.RollingDataWriterImpl;
+import com.epam.parso.impl.SasFileReaderImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getResourceAsStream;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class RollingDataWriterUnitTest {
+    private static final String FILE_NAME = "sas7bdat/mix_data_misc.sas7bdat";
+    private static final int MAX_ROWS_PER_PART = 7;
+    private static final int MAX_BYTES_PER_PART = 2000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRowLimit() throws IOException {
+        InputStream fileInputStream = getResourceAsStream(FILE_NAME);
+        File directory = temporaryFolder.newFolder();
+        RollingDataWriterImpl rollingDataWriter = new RollingDataWriterImpl(directory, "part", ".csv",
+                new DataWriterFactory() {
+                    @Override
+                    public DataWriter createDataWriter(Writer writer) {
+                        return new CSVDataWriterImpl(writer);
+                    }
+                }, MAX_ROWS_PER_PART, 0);
+        long rowCount;
+        try {
+            SasFileReader sasFileReader = new SasFileReaderImpl(fileInputStream);
+            rowCount = sasFileReader.getSasFileProperties().getRowCount();
+            rollingDataWriter.writeColumnNames(sasFileReader.getColumns());
+            rollingDataWriter.writeRowsArray(sasFileReader.getColumns(), sasFileReader.readAll());
+        } finally {
+            rollingDataWriter.close();
+            fileInputStream.close();
+        }
+
+        List<File> partFiles = rollingDataWriter.getPartFiles();
+        assertThat(partFiles).hasSize((int) ((rowCount + MAX_ROWS_PER_PART - 1) / MAX_ROWS_PER_PART));
+
+        CSVReader manifestReader = new CSVReader(new FileReader(rollingDataWriter.getManifestFile()));
+        try {
+            assertThat(manifestReader.readNext()).isEqualTo(new String[]{"File name", "Rows", "Bytes"});
+            long manifestRows = 0;
+            for (File partFile : partFiles) {
+                String[] manifestLine = manifestReader.readNext();
+                assertThat(manifestLine[0]).isEqualTo(partFile.getName());
+                assertThat(Long.parseLong(manifestLine[2])).isEqualTo(partFile.length());
+                assertThat(countLines(partFile)).isEqualTo(Integer.parseInt(manifestLine[1]) + 1);
+                manifestRows += Long.parseLong(manifestLine[1]);
+            }
+            assertThat(manifestRows).isEqualTo(rowCount);
+        } finally {
+            manifestReader.close();
+        }
+    }
+
+    @Test
+    public void testByteLimitBelowEncoderBuffer() throws IOException {
+        InputStream fileInputStream = getResourceAsStream(FILE_NAME);
+        File directory = temporaryFolder.newFolder();
+        RollingDataWriterImpl rollingDataWriter = new RollingDataWriterImpl(directory, "part", ".jsonl",
+                new DataWriterFactory() {
+                    @Override
+                    public DataWriter createDataWriter(Writer writer) {
+                        return new JSONLDataWriterImpl(writer);
+                    }
+                }, 0, MAX_BYTES_PER_PART);
+        try {
+            SasFileReader sasFileReader = new SasFileReaderImpl(fileInputStream);
+            rollingDataWriter.writeColumnNames(sasFileReader.getColumns());
+            rollingDataWriter.writeRowsArray(sasFileReader.getColumns(), sasFileReader.readAll());
+        } finally {
+            rollingDataWriter.close();
+            fileInputStream.close();
+        }
+
+        List<File> partFiles = rollingDataWriter.getPartFiles();
+        assertThat(partFiles.size()).isGreaterThan(1);
+        for (File partFile : partFiles.subList(0, partFiles.size() - 1)) {
+            byte[] bytes = Files.readAllBytes(partFile.toPath());
+            int lastRowStart = lastIndexOf(bytes, bytes.length - 2, (byte) '\n') + 1;
+            assertThat(bytes.length).isGreaterThanOrEqualTo(MAX_BYTES_PER_PART);
+            assertThat(lastRowStart).isLessThan(MAX_BYTES_PER_PART);
+        }
+        assertThat(partFiles.get(partFiles.size() - 1).length()).isLessThanOrEqualTo(MAX_BYTES_PER_PART * 2);
+    }
+
+    private int lastIndexOf(byte[] bytes, int from, byte value) {
+        for (int i = from; i >= 0; i--) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int countLines(File file) throws IOException {
+        CSVReader reader = new CSVReader(new FileReader(file));
+        try {
+            return reader.readAll().size();
+        } finally {
+            reader.close();
+        }
+    }
+}
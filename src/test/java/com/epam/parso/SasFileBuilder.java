@@ -0,0 +1,214 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds small uncompressed 32-bit little-endian sas7bdat files: the header, one meta page with the subheaders
+ * describing the columns, and data pages storing the given rows, so that tests can cover the layouts which
+ * the files in the resources do not have.
+ */
+public class SasFileBuilder {
+    private static final int HEADER_LENGTH = 1024;
+    private static final int PAGE_LENGTH = 1024;
+    private static final int PAGE_HEADER_OFFSET = 16;
+    private static final int SUBHEADER_POINTER_LENGTH = 12;
+    private static final int TEXT_OFFSET = 8;
+
+    private final List<String> names = new ArrayList<String>();
+    private final List<String> formats = new ArrayList<String>();
+    private final List<Integer> lengths = new ArrayList<Integer>();
+    private final List<List<Object[]>> pages = new ArrayList<List<Object[]>>();
+    private int encodingByte;
+    private Charset charset = Charset.forName("US-ASCII");
+
+    public SasFileBuilder setEncoding(int encodingByte, Charset charset) {
+        this.encodingByte = encodingByte;
+        this.charset = charset;
+        return this;
+    }
+
+    public SasFileBuilder addNumericColumn(String name, String format) {
+        names.add(name);
+        formats.add(format);
+        lengths.add(0);
+        return this;
+    }
+
+    public SasFileBuilder addCharacterColumn(String name, int length) {
+        names.add(name);
+        formats.add("");
+        lengths.add(length);
+        return this;
+    }
+
+    public SasFileBuilder addDataPage(Object[]... rows) {
+        pages.add(Arrays.asList(rows));
+        return this;
+    }
+
+    public byte[] build() {
+        int rowLength = 0;
+        for (int length : lengths) {
+            rowLength += length == 0 ? 8 : length;
+        }
+        int rowCount = 0;
+        for (List<Object[]> rows : pages) {
+            rowCount += rows.size();
+        }
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(buildHeader(pages.size() + 1), 0, HEADER_LENGTH);
+        file.write(buildMetaPage(rowLength, rowCount), 0, PAGE_LENGTH);
+        for (List<Object[]> rows : pages) {
+            file.write(buildDataPage(rows, rowLength), 0, PAGE_LENGTH);
+        }
+        return file.toByteArray();
+    }
+
+    private byte[] buildHeader(int pageCount) {
+        ByteBuffer header = newBuffer(HEADER_LENGTH);
+        header.put(37, (byte) 1);
+        header.put(70, (byte) encodingByte);
+        putText(header, 92, "SYNTHETIC", 64);
+        putText(header, 156, "DATA", 8);
+        header.putInt(196, HEADER_LENGTH);
+        header.putInt(200, PAGE_LENGTH);
+        header.putInt(204, pageCount);
+        putText(header, 216, "9.0401M0", 8);
+        putText(header, 224, "X64_7PRO", 16);
+        putText(header, 272, "Linux", 16);
+        return header.array();
+    }
+
+    private byte[] buildMetaPage(int rowLength, int rowCount) {
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        text.write(0);
+        text.write(0);
+        while (text.size() < TEXT_OFFSET) {
+            text.write(' ');
+        }
+        int[] nameOffsets = new int[names.size()];
+        int[] nameLengths = new int[names.size()];
+        int[] formatOffsets = new int[names.size()];
+        int[] formatLengths = new int[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            byte[] name = names.get(i).getBytes(charset);
+            nameOffsets[i] = text.size();
+            nameLengths[i] = name.length;
+            text.write(name, 0, name.length);
+            byte[] format = formats.get(i).getBytes(charset);
+            formatOffsets[i] = text.size();
+            formatLengths[i] = format.length;
+            text.write(format, 0, format.length);
+        }
+        ByteBuffer textBlock = ByteBuffer.wrap(text.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        textBlock.putShort(0, (short) textBlock.capacity());
+
+        List<ByteBuffer> subheaders = new ArrayList<ByteBuffer>();
+        ByteBuffer rowSize = newBuffer(64);
+        rowSize.putInt(0, 0xF7F7F7F7);
+        rowSize.putInt(20, rowLength);
+        rowSize.putInt(24, rowCount);
+        subheaders.add(rowSize);
+        ByteBuffer columnSize = newBuffer(12);
+        columnSize.putInt(0, 0xF6F6F6F6);
+        columnSize.putInt(4, names.size());
+        subheaders.add(columnSize);
+        ByteBuffer columnText = newBuffer(4 + textBlock.capacity());
+        columnText.putInt(0, 0xFFFFFFFD);
+        columnText.position(4);
+        columnText.put(textBlock);
+        subheaders.add(columnText);
+        ByteBuffer columnName = newBuffer(20 + 8 * names.size());
+        columnName.putInt(0, 0xFFFFFFFF);
+        ByteBuffer columnAttributes = newBuffer(20 + 12 * names.size());
+        columnAttributes.putInt(0, 0xFFFFFFFC);
+        int dataOffset = 0;
+        for (int i = 0; i < names.size(); i++) {
+            columnName.putShort(12 + 8 * i + 2, (short) nameOffsets[i]);
+            columnName.putShort(12 + 8 * i + 4, (short) nameLengths[i]);
+            int length = lengths.get(i) == 0 ? 8 : lengths.get(i);
+            columnAttributes.putInt(12 + 12 * i, dataOffset);
+            columnAttributes.putInt(16 + 12 * i, length);
+            columnAttributes.put(22 + 12 * i, (byte) (lengths.get(i) == 0 ? 1 : 2));
+            dataOffset += length;
+        }
+        subheaders.add(columnName);
+        subheaders.add(columnAttributes);
+        for (int i = 0; i < names.size(); i++) {
+            ByteBuffer formatAndLabel = newBuffer(52);
+            formatAndLabel.putInt(0, 0xFFFFFBFE);
+            formatAndLabel.putShort(36, (short) formatOffsets[i]);
+            formatAndLabel.putShort(38, (short) formatLengths[i]);
+            subheaders.add(formatAndLabel);
+        }
+
+        ByteBuffer page = newBuffer(PAGE_LENGTH);
+        page.putShort(PAGE_HEADER_OFFSET + 2, (short) subheaders.size());
+        page.putShort(PAGE_HEADER_OFFSET + 4, (short) subheaders.size());
+        int offset = PAGE_HEADER_OFFSET + 8 + SUBHEADER_POINTER_LENGTH * subheaders.size();
+        for (int i = 0; i < subheaders.size(); i++) {
+            ByteBuffer subheader = subheaders.get(i);
+            page.putInt(PAGE_HEADER_OFFSET + 8 + SUBHEADER_POINTER_LENGTH * i, offset);
+            page.putInt(PAGE_HEADER_OFFSET + 12 + SUBHEADER_POINTER_LENGTH * i, subheader.capacity());
+            page.position(offset);
+            subheader.position(0);
+            page.put(subheader);
+            offset += subheader.capacity();
+        }
+        return page.array();
+    }
+
+    private byte[] buildDataPage(List<Object[]> rows, int rowLength) {
+        ByteBuffer page = newBuffer(PAGE_LENGTH);
+        page.putShort(PAGE_HEADER_OFFSET, (short) 256);
+        page.putShort(PAGE_HEADER_OFFSET + 2, (short) rows.size());
+        int offset = PAGE_HEADER_OFFSET + 8;
+        for (Object[] row : rows) {
+            int columnOffset = offset;
+            for (int i = 0; i < names.size(); i++) {
+                if (lengths.get(i) == 0) {
+                    page.putDouble(columnOffset, ((Number) row[i]).doubleValue());
+                    columnOffset += 8;
+                } else {
+                    putText(page, columnOffset, (String) row[i], lengths.get(i));
+                    columnOffset += lengths.get(i);
+                }
+            }
+            offset += rowLength;
+        }
+        return page.array();
+    }
+
+    private void putText(ByteBuffer buffer, int offset, String value, int length) {
+        byte[] bytes = Arrays.copyOf(value.getBytes(charset), length);
+        Arrays.fill(bytes, Math.min(value.getBytes(charset).length, length), length, (byte) ' ');
+        buffer.position(offset);
+        buffer.put(bytes);
+    }
+
+    private static ByteBuffer newBuffer(int length) {
+        return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.SasFileReaderImpl;
+import com.epam.parso.impl.SasFileRowIndexer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class SasFileKeyIndexUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReadRowsByKey() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] rows = readAll(file);
+            Object[] middleRow = rows[rows.length / 2];
+            List<Column> columns;
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                columns = new SasFileReaderImpl(fileInputStream).getColumns();
+            } finally {
+                fileInputStream.close();
+            }
+            File rowIndexFile = temporaryFolder.newFile();
+            fileInputStream = new FileInputStream(file);
+            try {
+                SasFileRowIndexer.writeRowIndex(fileInputStream, rowIndexFile);
+            } finally {
+                fileInputStream.close();
+            }
+            List<Class<?>> indexedTypes = new ArrayList<Class<?>>();
+            for (int i = 0; i < columns.size(); i++) {
+                Column column = columns.get(i);
+                if (middleRow[i] == null || !column.getFormat().isEmpty() || indexedTypes.contains(column.getType())) {
+                    continue;
+                }
+                indexedTypes.add(column.getType());
+                File keyIndexFile = temporaryFolder.newFile();
+                fileInputStream = new FileInputStream(file);
+                try {
+                    SasFileRowIndexer.writeKeyIndex(fileInputStream, keyIndexFile, column.getName(), 5);
+                } finally {
+                    fileInputStream.close();
+                }
+                fileInputStream = new FileInputStream(file);
+                try {
+                    SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream, rowIndexFile);
+                    sasFileReader.addKeyIndex(keyIndexFile);
+                    assertThat(sasFileReader.readNext()).isEqualTo(rows[0]);
+                    assertThat(sasFileReader.readRowsByKey(column.getName(), middleRow[i], middleRow[i])
+                            .toArray(Object[][]::new)).as(file.getName() + ": " + column.getName())
+                            .isEqualTo(selectRows(rows, i, middleRow[i], middleRow[i]));
+                    assertThat(sasFileReader.readRowsByKey(column.getName(), null, middleRow[i])
+                            .toArray(Object[][]::new)).isEqualTo(selectRows(rows, i, null, middleRow[i]));
+                    assertThat(sasFileReader.readRowsByKey(column.getName(), middleRow[i], null)
+                            .toArray(Object[][]::new)).isEqualTo(selectRows(rows, i, middleRow[i], null));
+                    if (rows.length > 1) {
+                        assertThat(sasFileReader.readNext()).isEqualTo(rows[1]);
+                    }
+                } finally {
+                    fileInputStream.close();
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReadRowsByKeyWithoutRowIndex() throws IOException {
+        File file = getFiles().get(0);
+        File keyIndexFile = temporaryFolder.newFile();
+        InputStream fileInputStream = new FileInputStream(file);
+        String columnName;
+        try {
+            SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+            columnName = sasFileReader.getColumns().get(0).getName();
+        } finally {
+            fileInputStream.close();
+        }
+        fileInputStream = new FileInputStream(file);
+        try {
+            SasFileRowIndexer.writeKeyIndex(fileInputStream, keyIndexFile, columnName);
+        } finally {
+            fileInputStream.close();
+        }
+        fileInputStream = new BufferedInputStream(new FileInputStream(file));
+        try {
+            SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+            sasFileReader.addKeyIndex(keyIndexFile);
+            sasFileReader.readRowsByKey(columnName, null, null);
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test
+    public void testEmptyRanges() throws IOException {
+        File file = getFile("mix_data_misc.sas7bdat");
+        Object[][] rows = readAll(file);
+        int columnIndex = getNumericColumnIndex(file);
+        String columnName = readColumns(file).get(columnIndex).getName();
+        double maximum = Double.NEGATIVE_INFINITY;
+        double minimum = Double.POSITIVE_INFINITY;
+        for (Object[] row : rows) {
+            if (row[columnIndex] != null) {
+                maximum = Math.max(maximum, ((Number) row[columnIndex]).doubleValue());
+                minimum = Math.min(minimum, ((Number) row[columnIndex]).doubleValue());
+            }
+        }
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            SasFileReaderImpl sasFileReader = openWithKeyIndex(fileInputStream, file, columnName);
+            assertThat(sasFileReader.readRowsByKey(columnName, maximum, minimum).count()).isEqualTo(0);
+            assertThat(sasFileReader.readRowsByKey(columnName, maximum + 1, null).count()).isEqualTo(0);
+            assertThat(sasFileReader.readRowsByKey(columnName, null, minimum - 1).count()).isEqualTo(0);
+            assertThat(sasFileReader.readRowsByKey(columnName, null, null).count())
+                    .isEqualTo(selectRows(rows, columnIndex, null, null).length);
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test
+    public void testUnknownColumnRejected() throws IOException {
+        File file = getFile("mix_data_misc.sas7bdat");
+        int columnIndex = getNumericColumnIndex(file);
+        List<Column> columns = readColumns(file);
+        String columnName = columns.get(columnIndex).getName();
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            SasFileReaderImpl sasFileReader = openWithKeyIndex(fileInputStream, file, columnName);
+            for (int i = 0; i < columns.size(); i++) {
+                if (i != columnIndex) {
+                    try {
+                        sasFileReader.readRowsByKey(columns.get(i).getName(), null, null);
+                        fail("A column without a key index must be rejected");
+                    } catch (IllegalArgumentException e) {
+                        assertThat(e.getMessage()).contains(columns.get(i).getName());
+                    }
+                }
+            }
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKeyOfWrongTypeRejected() throws IOException {
+        File file = getFile("mix_data_misc.sas7bdat");
+        String columnName = readColumns(file).get(getNumericColumnIndex(file)).getName();
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            SasFileReaderImpl sasFileReader = openWithKeyIndex(fileInputStream, file, columnName);
+            sasFileReader.readRowsByKey(columnName, "a", null);
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test
+    public void testKeyIndexOfAnotherFileRejected() throws IOException {
+        File file = getFile("mix_data_misc.sas7bdat");
+        String columnName = readColumns(file).get(getNumericColumnIndex(file)).getName();
+        File keyIndexFile = temporaryFolder.newFile();
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            SasFileRowIndexer.writeKeyIndex(fileInputStream, keyIndexFile, columnName);
+        } finally {
+            fileInputStream.close();
+        }
+        fileInputStream = new FileInputStream(getFile("mixed_data_one.sas7bdat"));
+        try {
+            new SasFileReaderImpl(fileInputStream).addKeyIndex(keyIndexFile);
+            fail("A key index of another file must be rejected");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("stale");
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoPairsInMemoryRejected() throws IOException {
+        File file = getFile("mix_data_misc.sas7bdat");
+        String columnName = readColumns(file).get(getNumericColumnIndex(file)).getName();
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            SasFileRowIndexer.writeKeyIndex(fileInputStream, temporaryFolder.newFile(), columnName, 0);
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    /**
+     * Opens a reader of a file with its row index and the key index of a column.
+     */
+    private SasFileReaderImpl openWithKeyIndex(InputStream inputStream, File file, String columnName)
+            throws IOException {
+        File rowIndexFile = temporaryFolder.newFile();
+        File keyIndexFile = temporaryFolder.newFile();
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            SasFileRowIndexer.writeRowIndex(fileInputStream, rowIndexFile);
+        } finally {
+            fileInputStream.close();
+        }
+        fileInputStream = new FileInputStream(file);
+        try {
+            SasFileRowIndexer.writeKeyIndex(fileInputStream, keyIndexFile, columnName);
+        } finally {
+            fileInputStream.close();
+        }
+        SasFileReaderImpl sasFileReader = new SasFileReaderImpl(inputStream, rowIndexFile);
+        sasFileReader.addKeyIndex(keyIndexFile);
+        return sasFileReader;
+    }
+
+    private int getNumericColumnIndex(File file) throws IOException {
+        List<Column> columns = readColumns(file);
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getType() == Number.class && columns.get(i).getFormat().isEmpty()) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("There is no numeric column in " + file.getName());
+    }
+
+    private Object[][] selectRows(Object[][] rows, int columnIndex, Object fromKey, Object toKey) {
+        List<Object[]> selectedRows = new ArrayList<Object[]>();
+        for (Object[] row : rows) {
+            Object value = row[columnIndex];
+            if (value != null && (fromKey == null || compare(value, fromKey) >= 0)
+                    && (toKey == null || compare(value, toKey) <= 0)) {
+                selectedRows.add(row);
+            }
+        }
+        return selectedRows.toArray(new Object[selectedRows.size()][]);
+    }
+
+    private int compare(Object value, Object key) {
+        if (value instanceof Number) {
+            return Double.compare(((Number) value).doubleValue(), ((Number) key).doubleValue());
+        }
+        return ((String) value).compareTo((String) key);
+    }
+
+    private List<Column> readColumns(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).getColumns();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    private File getFile(String name) {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return new File(resourcesPath.getFile() + "//" + FOLDER_NAME + "/" + name);
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.SasFileReaderImpl;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class SasFileReaderCoalescedReadUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+
+    @Test
+    public void testCoalescedReads() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            int rowCount = expectedRows.length;
+            for (int readAhead : new int[]{0, 3}) {
+                InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+                try {
+                    SasFileReaderImpl sasFileReader = new SasFileReaderImpl(inputStream);
+                    int pageLength = sasFileReader.getSasFileProperties().getPageLength();
+                    sasFileReader.setReadBufferSize(2 * pageLength + 1);
+                    if (readAhead > 0) {
+                        sasFileReader.setReadAhead(readAhead);
+                    }
+                    assertThat(sasFileReader.skipRows(rowCount / 3)).isEqualTo(rowCount / 3);
+                    for (int rowIndex = rowCount / 3; rowIndex < rowCount; rowIndex++) {
+                        assertThat(sasFileReader.readNext()).as(file.getName()).isEqualTo(expectedRows[rowIndex]);
+                    }
+                    assertThat(sasFileReader.readNext()).isNull();
+                    try {
+                        sasFileReader.setReadBufferSize(pageLength);
+                        fail("Changing the reads of a stream after its pages are read must fail");
+                    } catch (IllegalStateException e) {
+                        assertThat(e.getMessage()).contains("stream");
+                    }
+                } finally {
+                    inputStream.close();
+                }
+                InputStream fileInputStream = new FileInputStream(file);
+                try {
+                    SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+                    sasFileReader.setReadBufferSize(1 << 20);
+                    if (readAhead > 0) {
+                        sasFileReader.setReadAhead(readAhead);
+                    }
+                    for (int rowIndex : new int[]{rowCount - 1, 0, rowCount / 2, rowCount / 3}) {
+                        sasFileReader.seek(rowIndex);
+                        assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[rowIndex]);
+                    }
+                    sasFileReader.seek(0);
+                    assertThat(sasFileReader.readAll()).isEqualTo(expectedRows);
+                } finally {
+                    fileInputStream.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBufferSmallerThanPage() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            for (boolean stream : new boolean[]{false, true}) {
+                InputStream inputStream = stream ? new BufferedInputStream(new FileInputStream(file))
+                        : new FileInputStream(file);
+                try {
+                    SasFileReaderImpl sasFileReader = new SasFileReaderImpl(inputStream);
+                    sasFileReader.setReadBufferSize(1);
+                    assertThat(sasFileReader.readAll()).as(file.getName()).isEqualTo(expectedRows);
+                } finally {
+                    inputStream.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBufferLargerThanFile() throws IOException {
+        File file = getFile();
+        Object[][] expectedRows = readAll(file);
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+        try {
+            SasFileReaderImpl sasFileReader = new SasFileReaderImpl(inputStream);
+            sasFileReader.setReadBufferSize((int) Math.min(Integer.MAX_VALUE / 2, 2 * file.length()));
+            assertThat(sasFileReader.readAll()).isEqualTo(expectedRows);
+            assertThat(sasFileReader.readNext()).isNull();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    @Test
+    public void testNonPositiveBufferSizeRejected() throws IOException {
+        InputStream fileInputStream = new FileInputStream(getFile());
+        try {
+            SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+            for (int byteCount : new int[]{0, -1}) {
+                try {
+                    sasFileReader.setReadBufferSize(byteCount);
+                    fail("A non-positive size of the read buffer must be rejected");
+                } catch (IllegalArgumentException e) {
+                    assertThat(e.getMessage()).contains(String.valueOf(byteCount));
+                }
+            }
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    private File getFile() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return new File(resourcesPath.getFile() + "//" + FOLDER_NAME + "/mix_data_misc.sas7bdat");
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.SasFileReaderImpl;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Date;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getResourceAsStream;
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class SasFileReaderColumnarTableUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+
+    @Test
+    public void testReadColumnarTable() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                ColumnarTable table = new SasFileReaderImpl(fileInputStream).readColumnarTable();
+                try {
+                    assertThat(table.getRowCount()).isEqualTo(expectedRows.length);
+                    for (int rowIndex = 0; rowIndex < expectedRows.length; rowIndex++) {
+                        assertThat(table.getRow(rowIndex)).as(file.getName()).isEqualTo(expectedRows[rowIndex]);
+                        for (int column = 0; column < table.getColumns().size(); column++) {
+                            Object value = expectedRows[rowIndex][column];
+                            assertThat(table.isMissing(rowIndex, column)).isEqualTo(value == null);
+                            if (value instanceof Number) {
+                                assertThat(table.getDouble(rowIndex, column))
+                                        .isEqualTo(((Number) value).doubleValue());
+                            } else if (value instanceof Date) {
+                                assertThat(table.getLong(rowIndex, column)).isEqualTo(((Date) value).getTime());
+                            } else if (value != null) {
+                                assertThat(table.getString(rowIndex, column)).isEqualTo((String) value);
+                            }
+                        }
+                    }
+                    assertThat(table.getRows(0, 10).length).isEqualTo(Math.min(10, expectedRows.length));
+                } finally {
+                    table.close();
+                }
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    @Test
+    public void testColumnarTableWithLazyStrings() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+                sasFileReader.setLazyStrings(true);
+                ColumnarTable table = sasFileReader.readColumnarTable();
+                try {
+                    for (int rowIndex = 0; rowIndex < expectedRows.length; rowIndex++) {
+                        assertThat(table.getRow(rowIndex)).as(file.getName()).isEqualTo(expectedRows[rowIndex]);
+                    }
+                } finally {
+                    table.close();
+                }
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testColumnarTableWithByteOutput() throws IOException {
+        InputStream fileInputStream = getResourceAsStream(FOLDER_NAME + "/mixed_data_one.sas7bdat");
+        try {
+            new SasFileReaderImpl(fileInputStream, true).readColumnarTable();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test
+    public void testMissingValues() throws IOException {
+        int missingValueCount = 0;
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                ColumnarTable table = new SasFileReaderImpl(fileInputStream).readColumnarTable();
+                try {
+                    for (int rowIndex = 0; rowIndex < expectedRows.length; rowIndex++) {
+                        for (int column = 0; column < table.getColumns().size(); column++) {
+                            if (expectedRows[rowIndex][column] != null) {
+                                continue;
+                            }
+                            if (table.getColumns().get(column).getType() == String.class) {
+                                assertThat(table.getString(rowIndex, column)).isNull();
+                            } else {
+                                assertThat(Double.isNaN(table.getDouble(rowIndex, column))).isTrue();
+                                assertThat(table.getLong(rowIndex, column)).isEqualTo(0);
+                            }
+                            missingValueCount++;
+                        }
+                    }
+                } finally {
+                    table.close();
+                }
+            } finally {
+                fileInputStream.close();
+            }
+        }
+        assertThat(missingValueCount).isGreaterThan(0);
+    }
+
+    @Test
+    public void testValuesOfWrongTypeRejected() throws IOException {
+        InputStream fileInputStream = getResourceAsStream(FOLDER_NAME + "/mix_data_misc.sas7bdat");
+        try {
+            ColumnarTable table = new SasFileReaderImpl(fileInputStream).readColumnarTable();
+            try {
+                List<Column> columns = table.getColumns();
+                for (int column = 0; column < columns.size(); column++) {
+                    try {
+                        if (columns.get(column).getType() == String.class) {
+                            table.getDouble(0, column);
+                        } else {
+                            table.getString(0, column);
+                        }
+                        fail("A value of the wrong type must be rejected");
+                    } catch (IllegalArgumentException e) {
+                        assertThat(e.getMessage()).contains(columns.get(column).getName());
+                    }
+                    try {
+                        table.getEpochDay(0, column);
+                        fail("The column " + columns.get(column).getName() + " has no dates");
+                    } catch (IllegalArgumentException e) {
+                        assertThat(e.getMessage()).contains("date");
+                    }
+                }
+            } finally {
+                table.close();
+            }
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test
+    public void testRowsOutOfRange() throws IOException {
+        InputStream fileInputStream = getResourceAsStream(FOLDER_NAME + "/mix_data_misc.sas7bdat");
+        try {
+            ColumnarTable table = new SasFileReaderImpl(fileInputStream).readColumnarTable();
+            try {
+                long rowCount = table.getRowCount();
+                assertThat(table.getRow(-1)).isNull();
+                assertThat(table.getRow(rowCount)).isNull();
+                assertThat(table.getRows(rowCount - 2, 10).length).isEqualTo(2);
+                assertThat(table.getRows(rowCount + 5, 10).length).isEqualTo(0);
+                assertThat(table.getRows(0, -1).length).isEqualTo(0);
+                try {
+                    table.isMissing(rowCount, 0);
+                    fail("A row after the last one must be rejected");
+                } catch (IndexOutOfBoundsException e) {
+                    assertThat(e.getMessage()).contains(String.valueOf(rowCount));
+                }
+            } finally {
+                table.close();
+            }
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test
+    public void testClosedTable() throws IOException {
+        InputStream fileInputStream = getResourceAsStream(FOLDER_NAME + "/mix_data_misc.sas7bdat");
+        try {
+            ColumnarTable table = new SasFileReaderImpl(fileInputStream).readColumnarTable();
+            table.close();
+            try {
+                table.getRow(0);
+                fail("A closed table must not be read");
+            } catch (IOException e) {
+                assertThat(e.getMessage()).contains("closed");
+            }
+            try {
+                table.isMissing(0, 0);
+                fail("A closed table must not be read");
+            } catch (IllegalStateException e) {
+                assertThat(e.getMessage()).contains("closed");
+            }
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
@@ -0,0 +1,437 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.SasFileReaderImpl;
+import com.epam.parso.impl.SasFileStatisticsWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static com.epam.parso.SasFileReaderUnitTest.minimalReader;
+import static com.epam.parso.TestUtils.getResourceAsStream;
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class SasFileReaderFilterUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testFilters() throws IOException {
+        for (File file : getFiles()) {
+            assertFilters(file, null, null);
+        }
+    }
+
+    @Test
+    public void testFiltersWithPageStatistics() throws IOException {
+        for (File file : getFiles()) {
+            File statisticsFile = temporaryFolder.newFile();
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                assertThat(SasFileStatisticsWriter.writePageStatistics(fileInputStream, statisticsFile))
+                        .isGreaterThan(0);
+            } finally {
+                fileInputStream.close();
+            }
+            assertFilters(file, statisticsFile, null);
+        }
+    }
+
+    @Test
+    public void testFiltersWithBloomFilters() throws IOException {
+        for (File file : getFiles()) {
+            List<Column> columns = readColumns(file);
+            String[] keyColumnNames = new String[columns.size()];
+            for (int i = 0; i < keyColumnNames.length; i++) {
+                keyColumnNames[i] = columns.get(i).getName();
+            }
+            File bloomFilterFile = temporaryFolder.newFile();
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                assertThat(SasFileStatisticsWriter.writeBloomFilters(fileInputStream, bloomFilterFile, 2,
+                        keyColumnNames)).isGreaterThan(0);
+            } finally {
+                fileInputStream.close();
+            }
+            assertFilters(file, null, bloomFilterFile);
+        }
+    }
+
+    @Test
+    public void testPagesSkippedWithPageStatistics() throws IOException {
+        File file = getFile("mix_data_misc.sas7bdat");
+        File statisticsFile = temporaryFolder.newFile();
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            SasFileStatisticsWriter.writePageStatistics(fileInputStream, statisticsFile);
+        } finally {
+            fileInputStream.close();
+        }
+        Object[][] rows = readAll(file);
+        List<Column> columns = readColumns(file);
+        int columnIndex = getNumericColumnIndex(columns);
+        double maxValue = Double.NEGATIVE_INFINITY;
+        for (Object[] row : rows) {
+            if (row[columnIndex] != null) {
+                maxValue = Math.max(maxValue, ((Number) row[columnIndex]).doubleValue());
+            }
+        }
+        String name = columns.get(columnIndex).getName();
+        assertThat(countBytesReadMatching(file, null, null, RowFilter.greater(name, maxValue)))
+                .isGreaterThan(0);
+        assertThat(countBytesReadMatching(file, statisticsFile, null, RowFilter.greater(name, maxValue)))
+                .isEqualTo(0);
+    }
+
+    @Test
+    public void testPagesSkippedWithBloomFilters() throws IOException {
+        File file = getFile("mix_data_misc.sas7bdat");
+        List<Column> columns = readColumns(file);
+        Object[][] rows = readAll(file);
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            File bloomFilterFile = temporaryFolder.newFile();
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileStatisticsWriter.writeBloomFilters(fileInputStream, bloomFilterFile, 2, column.getName());
+            } finally {
+                fileInputStream.close();
+            }
+            RowFilter absentValueFilter = column.getType() == String.class
+                    ? RowFilter.equal(column.getName(), "no such value")
+                    : RowFilter.equal(column.getName(), -123456.75);
+            assertThat(countBytesReadMatching(file, null, bloomFilterFile, absentValueFilter))
+                    .as(column.getName()).isEqualTo(0);
+            Object presentValue = rows[rows.length / 2][i];
+            if (presentValue != null) {
+                assertThat(countBytesReadMatching(file, null, bloomFilterFile,
+                        RowFilter.equal(column.getName(), presentValue))).as(column.getName()).isGreaterThan(0);
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownColumn() throws IOException {
+        InputStream fileInputStream = getResourceAsStream(FOLDER_NAME + "/mixed_data_one.sas7bdat");
+        try {
+            new SasFileReaderImpl(fileInputStream).readNextMatching(RowFilter.equal("unknown", 1));
+            fail("A filter on an unknown column must be rejected");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage()).contains("unknown");
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test
+    public void testDefaultFilters() throws IOException {
+        for (File file : getFiles()) {
+            for (RowFilter filter : createFilters(readColumns(file), readAll(file))) {
+                InputStream expectedInputStream = new FileInputStream(file);
+                InputStream actualInputStream = new FileInputStream(file);
+                try {
+                    assertThat(readAllMatching(minimalReader(new SasFileReaderImpl(actualInputStream)), filter))
+                            .as(file.getName() + ": " + filter)
+                            .isEqualTo(readAllMatching(new SasFileReaderImpl(expectedInputStream), filter));
+                } finally {
+                    expectedInputStream.close();
+                    actualInputStream.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultFiltersOnDates() throws IOException {
+        byte[] data = new SasFileBuilder().addNumericColumn("visit", "DATE").addNumericColumn("stamp", "DATETIME")
+                .addCharacterColumn("name", 8)
+                .addDataPage(new Object[]{20089, 1735727696, "first"}, new Object[]{20090, 1735814096, "second"},
+                        new Object[]{Double.NaN, Double.NaN, ""}, new Object[]{20091, 1735900496, "third"})
+                .build();
+        List<RowFilter> filters = Arrays.asList(
+                RowFilter.equal("visit", LocalDate.of(2015, 1, 2)),
+                RowFilter.greaterOrEqual("visit", new Date(1420156800000L)),
+                RowFilter.less("stamp", LocalDateTime.of(2015, 1, 2, 10, 34, 56)),
+                RowFilter.in("stamp", new Date(1420194896000L), LocalDateTime.of(2015, 1, 3, 10, 34, 56)),
+                RowFilter.lessOrEqual("visit", 20090),
+                RowFilter.isNull("visit"),
+                RowFilter.isNotNull("name"),
+                RowFilter.or(RowFilter.startsWith("name", "th"), RowFilter.equal("name", "first")));
+        for (TemporalOutput temporalOutput : TemporalOutput.values()) {
+            for (RowFilter filter : filters) {
+                SasFileReaderImpl expectedReader = new SasFileReaderImpl(new ByteArrayInputStream(data));
+                expectedReader.setTemporalOutput(temporalOutput);
+                SasFileReaderImpl actualReader = new SasFileReaderImpl(new ByteArrayInputStream(data));
+                actualReader.setTemporalOutput(temporalOutput);
+                Object[] expectedRows = readAllMatching(expectedReader, filter);
+                assertThat(expectedRows.length).as(temporalOutput + ": " + filter).isGreaterThan(0);
+                assertThat(readAllMatching(minimalReader(actualReader), filter)).as(temporalOutput + ": " + filter)
+                        .isEqualTo(expectedRows);
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultUnknownColumn() throws IOException {
+        InputStream fileInputStream = getResourceAsStream(FOLDER_NAME + "/mixed_data_one.sas7bdat");
+        try {
+            minimalReader(new SasFileReaderImpl(fileInputStream)).readNextMatching(RowFilter.equal("unknown", 1));
+            fail("A filter on an unknown column must be rejected");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage()).contains("unknown");
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    private Object[] readAllMatching(SasFileReader sasFileReader, RowFilter filter) throws IOException {
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (Object[] row = sasFileReader.readNextMatching(filter); row != null;
+             row = sasFileReader.readNextMatching(filter)) {
+            rows.add(row);
+        }
+        return rows.toArray();
+    }
+
+    private void assertFilters(File file, File statisticsFile, File bloomFilterFile) throws IOException {
+        Object[][] rows = readAll(file);
+        List<Column> columns = readColumns(file);
+        for (RowFilter filter : createFilters(columns, rows)) {
+            List<Object[]> expectedRows = new ArrayList<Object[]>();
+            for (Object[] row : rows) {
+                if (matches(filter, columns, row)) {
+                    expectedRows.add(row);
+                }
+            }
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReader sasFileReader = new SasFileReaderImpl(fileInputStream, null, statisticsFile,
+                        bloomFilterFile);
+                List<Object[]> filteredRows = new ArrayList<Object[]>();
+                for (Object[] row = sasFileReader.readNextMatching(filter); row != null;
+                     row = sasFileReader.readNextMatching(filter)) {
+                    filteredRows.add(row);
+                }
+                assertThat(filteredRows.toArray()).as(file.getName() + ": " + filter)
+                        .isEqualTo(expectedRows.toArray());
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    private List<RowFilter> createFilters(List<Column> columns, Object[][] rows) {
+        List<RowFilter> filters = new ArrayList<RowFilter>();
+        Object[] middleRow = rows[rows.length / 2];
+        Object[] lastRow = rows[rows.length - 1];
+        RowFilter numberFilter = null;
+        RowFilter stringFilter = null;
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            String name = column.getName();
+            if (column.getType() == Number.class && column.getFormat().isEmpty() && middleRow[i] != null) {
+                numberFilter = RowFilter.greater(name, (Number) middleRow[i]);
+                filters.add(numberFilter);
+                filters.add(RowFilter.lessOrEqual(name, (Number) middleRow[i]));
+                filters.add(RowFilter.equal(name, (Number) middleRow[i]));
+                filters.add(RowFilter.notEqual(name, (Number) middleRow[i]));
+                filters.add(RowFilter.in(name, middleRow[i], lastRow[i] == null ? 0 : lastRow[i]));
+                filters.add(RowFilter.isNull(name));
+            } else if (column.getType() == String.class && middleRow[i] != null) {
+                String value = (String) middleRow[i];
+                stringFilter = RowFilter.startsWith(name, value.substring(0, 1));
+                filters.add(stringFilter);
+                filters.add(RowFilter.equal(name, value));
+                filters.add(RowFilter.in(name, value, "no such value"));
+                filters.add(RowFilter.isNotNull(name));
+            }
+        }
+        if (numberFilter != null && stringFilter != null) {
+            filters.add(RowFilter.and(numberFilter, stringFilter));
+            filters.add(RowFilter.or(numberFilter, stringFilter));
+        }
+        return filters;
+    }
+
+    private boolean matches(RowFilter filter, List<Column> columns, Object[] row) {
+        switch (filter.getOperator()) {
+            case AND:
+                for (RowFilter nestedFilter : filter.getFilters()) {
+                    if (!matches(nestedFilter, columns, row)) {
+                        return false;
+                    }
+                }
+                return true;
+            case OR:
+                for (RowFilter nestedFilter : filter.getFilters()) {
+                    if (matches(nestedFilter, columns, row)) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                break;
+        }
+        Object value = null;
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getName().equals(filter.getColumnName())) {
+                value = row[i];
+            }
+        }
+        if (value == null) {
+            return filter.getOperator() == RowFilter.Operator.IS_NULL;
+        }
+        switch (filter.getOperator()) {
+            case IS_NOT_NULL:
+                return true;
+            case STARTS_WITH:
+                return ((String) value).startsWith((String) filter.getValues().get(0));
+            case IN:
+                for (Object operand : filter.getValues()) {
+                    if (compare(value, operand) == 0) {
+                        return true;
+                    }
+                }
+                return false;
+            case EQUAL:
+                return compare(value, filter.getValues().get(0)) == 0;
+            case NOT_EQUAL:
+                return compare(value, filter.getValues().get(0)) != 0;
+            case LESS_OR_EQUAL:
+                return compare(value, filter.getValues().get(0)) <= 0;
+            case GREATER:
+                return compare(value, filter.getValues().get(0)) > 0;
+            default:
+                return false;
+        }
+    }
+
+    private int compare(Object value, Object operand) {
+        if (value instanceof Number) {
+            return Double.compare(((Number) value).doubleValue(), ((Number) operand).doubleValue());
+        }
+        return value.equals(operand) ? 0 : 1;
+    }
+
+    /**
+     * Reads all rows matching the filter and returns the number of bytes read from the file after the reader is
+     * opened, the pages skipped with the page statistics or Bloom filters are not read.
+     */
+    private long countBytesReadMatching(File file, File statisticsFile, File bloomFilterFile, RowFilter filter)
+            throws IOException {
+        CountingInputStream inputStream = new CountingInputStream(new FileInputStream(file));
+        try {
+            SasFileReader sasFileReader = new SasFileReaderImpl(inputStream, null, statisticsFile, bloomFilterFile);
+            long openBytes = inputStream.count;
+            while (sasFileReader.readNextMatching(filter) != null) {
+                continue;
+            }
+            return inputStream.count - openBytes;
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private int getNumericColumnIndex(List<Column> columns) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getType() == Number.class && columns.get(i).getFormat().isEmpty()) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("There is no numeric column");
+    }
+
+    private File getFile(String name) {
+        for (File file : getFiles()) {
+            if (file.getName().equals(name)) {
+                return file;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private List<Column> readColumns(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).getColumns();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    /**
+     * Counts the bytes read from the stream, the skipped bytes are not counted.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
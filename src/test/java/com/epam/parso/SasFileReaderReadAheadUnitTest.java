@@ -0,0 +1,177 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.SasFileReaderImpl;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class SasFileReaderReadAheadUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+
+    @Test
+    public void testReadAhead() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            int rowCount = expectedRows.length;
+            for (int pageCount : new int[]{1, 4}) {
+                InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+                try {
+                    SasFileReaderImpl sasFileReader = new SasFileReaderImpl(inputStream);
+                    sasFileReader.setReadAhead(pageCount);
+                    assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[0]);
+                    assertThat(sasFileReader.skipRows(rowCount / 2)).isEqualTo(rowCount / 2);
+                    for (int rowIndex = rowCount / 2 + 1; rowIndex < rowCount; rowIndex++) {
+                        assertThat(sasFileReader.readNext()).as(file.getName()).isEqualTo(expectedRows[rowIndex]);
+                    }
+                    assertThat(sasFileReader.readNext()).isNull();
+                } finally {
+                    inputStream.close();
+                }
+                InputStream fileInputStream = new FileInputStream(file);
+                try {
+                    SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+                    sasFileReader.setReadAhead(pageCount);
+                    for (int rowIndex : new int[]{rowCount / 2, 0, rowCount - 1, rowCount / 3, rowCount / 3 + 1}) {
+                        sasFileReader.seek(rowIndex);
+                        assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[rowIndex]);
+                    }
+                    sasFileReader.seek(0);
+                    assertThat(sasFileReader.readAll()).isEqualTo(expectedRows);
+                } finally {
+                    fileInputStream.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadAheadBeyondEndOfFile() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            for (boolean stream : new boolean[]{false, true}) {
+                InputStream inputStream = stream ? new BufferedInputStream(new FileInputStream(file))
+                        : new FileInputStream(file);
+                try {
+                    SasFileReaderImpl sasFileReader = new SasFileReaderImpl(inputStream);
+                    sasFileReader.setReadAhead(1000);
+                    assertThat(sasFileReader.readAll()).as(file.getName()).isEqualTo(expectedRows);
+                    assertThat(sasFileReader.readNext()).isNull();
+                } finally {
+                    inputStream.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadAheadStartedAfterReadNext() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+                int readRowCount = Math.min(5, expectedRows.length);
+                for (int rowIndex = 0; rowIndex < readRowCount; rowIndex++) {
+                    sasFileReader.readNext();
+                }
+                sasFileReader.setReadAhead(2);
+                for (int rowIndex = readRowCount; rowIndex < expectedRows.length; rowIndex++) {
+                    assertThat(sasFileReader.readNext()).as(file.getName()).isEqualTo(expectedRows[rowIndex]);
+                }
+                assertThat(sasFileReader.readNext()).isNull();
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    @Test
+    public void testReadAheadOfStreamNotChangedAfterRead() throws IOException {
+        File file = getFile();
+        Object[][] expectedRows = readAll(file);
+        int rowCount = expectedRows.length;
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+        try {
+            SasFileReaderImpl sasFileReader = new SasFileReaderImpl(inputStream);
+            sasFileReader.setReadAhead(2);
+            assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[0]);
+            sasFileReader.setReadAhead(4);
+            assertThat(sasFileReader.skipRows(rowCount / 2)).isEqualTo(rowCount / 2);
+            try {
+                sasFileReader.setReadAhead(8);
+                fail("Changing the read ahead of a stream after its pages are read must fail");
+            } catch (IllegalStateException e) {
+                assertThat(e.getMessage()).contains("stream");
+            }
+            for (int rowIndex = rowCount / 2 + 1; rowIndex < rowCount; rowIndex++) {
+                assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[rowIndex]);
+            }
+            assertThat(sasFileReader.readNext()).isNull();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    @Test
+    public void testNonPositiveReadAheadRejected() throws IOException {
+        InputStream fileInputStream = new FileInputStream(getFile());
+        try {
+            SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+            for (int pageCount : new int[]{0, -1}) {
+                try {
+                    sasFileReader.setReadAhead(pageCount);
+                    fail("A non-positive number of pages read ahead must be rejected");
+                } catch (IllegalArgumentException e) {
+                    assertThat(e.getMessage()).contains(String.valueOf(pageCount));
+                }
+            }
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    private File getFile() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return new File(resourcesPath.getFile() + "//" + FOLDER_NAME + "/mix_data_misc.sas7bdat");
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
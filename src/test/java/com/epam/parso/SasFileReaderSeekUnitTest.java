@@ -0,0 +1,252 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.ByteArraySource;
+import com.epam.parso.impl.SasFileReaderImpl;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static com.epam.parso.TestUtils.getResourceAsStream;
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class SasFileReaderSeekUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+
+    @Test
+    public void testSeekInFile() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            int rowCount = expectedRows.length;
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReader sasFileReader = new SasFileReaderImpl(fileInputStream);
+                for (int rowIndex : new int[]{rowCount / 2, 0, rowCount - 1, rowCount / 3, rowCount / 3 + 1}) {
+                    sasFileReader.seek(rowIndex);
+                    assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[rowIndex]);
+                }
+                sasFileReader.seek(rowCount);
+                assertThat(sasFileReader.readNext()).isNull();
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    @Test
+    public void testSkipRowsInStream() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            int rowCount = expectedRows.length;
+            InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+            try {
+                SasFileReader sasFileReader = new SasFileReaderImpl(inputStream);
+                sasFileReader.readNext();
+                assertThat(sasFileReader.skipRows(rowCount / 2)).isEqualTo(rowCount / 2);
+                assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[rowCount / 2 + 1]);
+                try {
+                    sasFileReader.seek(0);
+                    fail("Seeking backward in a stream must fail");
+                } catch (IOException e) {
+                    assertThat(e.getMessage()).contains("backward");
+                }
+                assertThat(sasFileReader.skipRows(rowCount)).isEqualTo(rowCount - rowCount / 2 - 2);
+                assertThat(sasFileReader.readNext()).isNull();
+            } finally {
+                inputStream.close();
+            }
+        }
+    }
+
+    @Test
+    public void testSeekBeyondEnd() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            int rowCount = expectedRows.length;
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReader sasFileReader = new SasFileReaderImpl(fileInputStream);
+                sasFileReader.seek(rowCount + 100L);
+                assertThat(sasFileReader.readNext()).isNull();
+                assertThat(sasFileReader.skipRows(1)).isEqualTo(0);
+                sasFileReader.seek(rowCount - 1);
+                assertThat(sasFileReader.readNext()).as(file.getName()).isEqualTo(expectedRows[rowCount - 1]);
+                assertThat(sasFileReader.readNext()).isNull();
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    @Test
+    public void testSeekToCurrentRow() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+            try {
+                SasFileReader sasFileReader = new SasFileReaderImpl(inputStream);
+                sasFileReader.readNext();
+                sasFileReader.seek(1);
+                if (expectedRows.length > 1) {
+                    assertThat(sasFileReader.readNext()).as(file.getName()).isEqualTo(expectedRows[1]);
+                }
+            } finally {
+                inputStream.close();
+            }
+        }
+    }
+
+    @Test
+    public void testSkipNoRows() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+            try {
+                SasFileReader sasFileReader = new SasFileReaderImpl(inputStream);
+                assertThat(sasFileReader.skipRows(0)).isEqualTo(0);
+                assertThat(sasFileReader.skipRows(-5)).isEqualTo(0);
+                assertThat(sasFileReader.readNext()).as(file.getName()).isEqualTo(expectedRows[0]);
+            } finally {
+                inputStream.close();
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSeekToNegativeRow() throws IOException {
+        InputStream fileInputStream = getResourceAsStream(FOLDER_NAME + "/mix_data_misc.sas7bdat");
+        try {
+            new SasFileReaderImpl(fileInputStream).seek(-1);
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test
+    public void testSkipDataPagesWithoutReading() throws IOException {
+        SasFileBuilder builder = new SasFileBuilder().addNumericColumn("id", "").addCharacterColumn("name", 8);
+        for (int pageIndex = 0; pageIndex < 10; pageIndex++) {
+            builder.addDataPage(createRows(pageIndex * 10, pageIndex == 9 ? 5 : 10));
+        }
+        byte[] data = builder.build();
+        Object[][] expectedRows = new SasFileReaderImpl(new ByteArrayInputStream(data)).readAll();
+        assertThat(expectedRows.length).isEqualTo(95);
+
+        PageCountingSource source = new PageCountingSource(data);
+        SasFileReader sasFileReader = new SasFileReaderImpl(source);
+        assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[0]);
+        sasFileReader.seek(57);
+        assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[57]);
+        assertThat(source.getReadPages()).containsOnly(0L, 1L, 6L);
+
+        sasFileReader.seek(3);
+        assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[3]);
+        assertThat(sasFileReader.skipRows(90)).isEqualTo(90);
+        assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[94]);
+        assertThat(sasFileReader.readNext()).isNull();
+        assertThat(source.getReadPages()).containsOnly(0L, 1L, 6L, 10L);
+    }
+
+    @Test
+    public void testSkipDataPagesFallsBackToReadingPages() throws IOException {
+        byte[] data = new SasFileBuilder().addNumericColumn("id", "").addCharacterColumn("name", 8)
+                .addDataPage(createRows(0, 10)).addDataPage(createRows(10, 10)).addDataPage(createRows(20, 10))
+                .addDataPage(createRows(30, 10)).addDataPage(createRows(40, 6)).addDataPage(createRows(46, 10))
+                .build();
+        Object[][] expectedRows = new SasFileReaderImpl(new ByteArrayInputStream(data)).readAll();
+        assertThat(expectedRows.length).isEqualTo(56);
+
+        PageCountingSource source = new PageCountingSource(data);
+        SasFileReader sasFileReader = new SasFileReaderImpl(source);
+        assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[0]);
+        sasFileReader.seek(45);
+        assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[45]);
+        assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[46]);
+        assertThat(source.getReadPages()).containsOnly(0L, 1L, 2L, 3L, 4L, 5L, 6L);
+        assertThat(((Number) expectedRows[45][0]).intValue()).isEqualTo(45);
+    }
+
+    private static Object[][] createRows(int firstRowIndex, int rowCount) {
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int rowIndex = firstRowIndex; rowIndex < firstRowIndex + rowCount; rowIndex++) {
+            rows.add(new Object[]{rowIndex, "row" + rowIndex});
+        }
+        return rows.toArray(new Object[rowCount][]);
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    private static class PageCountingSource implements RandomAccessSource {
+        private static final int HEADER_LENGTH = 1024;
+        private static final int PAGE_LENGTH = 1024;
+
+        private final ByteArraySource source;
+        private final SortedSet<Long> readPages = new TreeSet<Long>();
+
+        PageCountingSource(byte[] data) {
+            source = new ByteArraySource(data);
+        }
+
+        SortedSet<Long> getReadPages() {
+            return readPages;
+        }
+
+        @Override
+        public long size() {
+            return source.size();
+        }
+
+        @Override
+        public int read(long position, byte[] buffer, int offset, int length) {
+            long end = Math.min(position + length, size());
+            for (long bytePosition = Math.max(position, HEADER_LENGTH); bytePosition < end;
+                 bytePosition += PAGE_LENGTH) {
+                readPages.add((bytePosition - HEADER_LENGTH) / PAGE_LENGTH);
+            }
+            return source.read(position, buffer, offset, length);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
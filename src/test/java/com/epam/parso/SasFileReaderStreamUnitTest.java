@@ -0,0 +1,126 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.SasFileReaderImpl;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SasFileReaderStreamUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+
+    @Test
+    public void testParallelStream() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReader sasFileReader = new SasFileReaderImpl(fileInputStream);
+                assertThat(sasFileReader.stream().spliterator().estimateSize()).isEqualTo(expectedRows.length);
+                List<Object[]> rows = sasFileReader.stream().parallel().collect(Collectors.<Object[]>toList());
+                assertThat(rows.toArray()).isEqualTo(expectedRows);
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    @Test
+    public void testParallelStreamWithStringCache() throws IOException {
+        int cachedColumnCount = 0;
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+                sasFileReader.setStringCacheSize(100);
+                List<Object[]> rows = sasFileReader.stream().parallel().collect(Collectors.<Object[]>toList());
+                assertThat(rows.toArray()).as(file.getName()).isEqualTo(expectedRows);
+                for (int column = 0; column < sasFileReader.getColumns().size(); column++) {
+                    int distinctValueCount = sasFileReader.getDistinctValueCount(column);
+                    if (distinctValueCount < 0) {
+                        continue;
+                    }
+                    Set<Object> values = new HashSet<Object>();
+                    Set<Object> instances = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+                    for (Object[] row : rows) {
+                        if (row[column] != null) {
+                            values.add(row[column]);
+                            instances.add(row[column]);
+                        }
+                    }
+                    assertThat(distinctValueCount).as(file.getName()).isEqualTo(values.size());
+                    assertThat(instances.size()).as(file.getName()).isEqualTo(values.size());
+                    cachedColumnCount++;
+                }
+            } finally {
+                fileInputStream.close();
+            }
+        }
+        assertThat(cachedColumnCount).isGreaterThan(0);
+    }
+
+    @Test
+    public void testStreamAfterReadNext() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReader sasFileReader = new SasFileReaderImpl(fileInputStream);
+                int skippedRowCount = Math.min(3, expectedRows.length);
+                for (int i = 0; i < skippedRowCount; i++) {
+                    sasFileReader.readNext();
+                }
+                Object[] rows = sasFileReader.stream().parallel().toArray();
+                assertThat(rows.length).isEqualTo(expectedRows.length - skippedRowCount);
+                for (int i = 0; i < rows.length; i++) {
+                    assertThat((Object[]) rows[i]).isEqualTo(expectedRows[i + skippedRowCount]);
+                }
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
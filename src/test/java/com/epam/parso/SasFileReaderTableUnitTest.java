@@ -0,0 +1,148 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.SasFileReaderImpl;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class SasFileReaderTableUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+
+    @Test
+    public void testReadTableWithinMemoryBudget() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+                RowTable rowTable = sasFileReader.readTable(3 * sasFileReader.getSasFileProperties().getRowLength());
+                try {
+                    assertThat(rowTable.getRowCount()).isEqualTo(expectedRows.length);
+                    for (int rowIndex = expectedRows.length - 1; rowIndex >= 0; rowIndex -= 3) {
+                        assertThat(rowTable.getRow(rowIndex)).as(file.getName()).isEqualTo(expectedRows[rowIndex]);
+                    }
+                    for (int rowIndex = 0; rowIndex < expectedRows.length; rowIndex += 2) {
+                        assertThat(rowTable.getRow(rowIndex)).isEqualTo(expectedRows[rowIndex]);
+                    }
+                    assertThat(rowTable.getRow(expectedRows.length)).isNull();
+                } finally {
+                    rowTable.close();
+                }
+                try {
+                    rowTable.getRow(0);
+                    fail("A closed table must not be read");
+                } catch (IOException e) {
+                    assertThat(e.getMessage()).contains("closed");
+                }
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    @Test
+    public void testTableOfRemainingRows() throws IOException {
+        File file = getFile();
+        Object[][] expectedRows = readAll(file);
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+            for (int i = 0; i < 3; i++) {
+                sasFileReader.readNext();
+            }
+            RowTable rowTable = sasFileReader.readTable(1 << 20);
+            try {
+                assertThat(rowTable.getRowCount()).isEqualTo(expectedRows.length - 3);
+                assertThat(rowTable.getRow(0)).isEqualTo(expectedRows[3]);
+                assertThat(rowTable.getRow(rowTable.getRowCount() - 1))
+                        .isEqualTo(expectedRows[expectedRows.length - 1]);
+                assertThat(rowTable.getRow(-1)).isNull();
+                assertThat(rowTable.getColumns()).isEqualTo(sasFileReader.getColumns());
+            } finally {
+                rowTable.close();
+            }
+            assertThat(sasFileReader.readNext()).isNull();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test
+    public void testBudgetBelowOneRow() throws IOException {
+        File file = getFile();
+        Object[][] expectedRows = readAll(file);
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            RowTable rowTable = new SasFileReaderImpl(fileInputStream).readTable(1);
+            try {
+                for (int rowIndex = expectedRows.length - 1; rowIndex >= 0; rowIndex -= 101) {
+                    assertThat(rowTable.getRow(rowIndex)).isEqualTo(expectedRows[rowIndex]);
+                }
+            } finally {
+                rowTable.close();
+            }
+            rowTable.close();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test
+    public void testNonPositiveBudgetRejected() throws IOException {
+        for (long memoryBudget : new long[]{0, -1}) {
+            InputStream fileInputStream = new FileInputStream(getFile());
+            try {
+                new SasFileReaderImpl(fileInputStream).readTable(memoryBudget);
+                fail("A non-positive memory budget must be rejected");
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage()).contains("budget");
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    private File getFile() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return new File(resourcesPath.getFile() + "//" + FOLDER_NAME + "/mix_data_misc.sas7bdat");
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
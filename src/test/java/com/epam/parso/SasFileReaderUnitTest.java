@@ -205,6 +205,65 @@ public class SasFileReaderUnitTest {
         assertThat(data[2]).isEqualTo("AAAAAAAA");
     }
 
+    @Test
+    public void testReadNextReusingRow() throws IOException {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        for (File file : TestUtils.getSas7bdatFilesList(resourcesPath.getFile() + "//sas7bdat")) {
+            InputStream is = new FileInputStream(file);
+            Object[][] expectedRows = new SasFileReaderImpl(is).readAll();
+            closeInputStream(is);
+
+            is = new FileInputStream(file);
+            SasFileReader reader = new SasFileReaderImpl(is);
+            Object[] row = new Object[reader.getColumns().size()];
+            for (Object[] expectedRow : expectedRows) {
+                assertThat(reader.readNext(row)).isSameAs(row).isEqualTo(expectedRow);
+            }
+            assertThat(reader.readNext(row)).isNull();
+            closeInputStream(is);
+        }
+    }
+
+    @Test
+    public void testReadNextWithNullRow() throws IOException {
+        InputStream is = getResourceAsStream("sas7bdat/mixed_data_one.sas7bdat");
+        Object[][] expectedRows = new SasFileReaderImpl(is).readAll();
+        closeInputStream(is);
+
+        is = getResourceAsStream("sas7bdat/mixed_data_one.sas7bdat");
+        SasFileReader reader = new SasFileReaderImpl(is);
+        for (Object[] expectedRow : expectedRows) {
+            assertThat(reader.readNext(null)).isEqualTo(expectedRow);
+        }
+        assertThat(reader.readNext(null)).isNull();
+        closeInputStream(is);
+    }
+
+    @Test
+    public void testDefaultMethods() throws IOException {
+        InputStream is = getResourceAsStream("sas7bdat/mixed_data_one.sas7bdat");
+        Object[][] expectedRows = new SasFileReaderImpl(is).readAll();
+        closeInputStream(is);
+
+        is = getResourceAsStream("sas7bdat/mixed_data_one.sas7bdat");
+        SasFileReader reader = minimalReader(new SasFileReaderImpl(is));
+        assertThat(reader.readNext(new Object[0])).isEqualTo(expectedRows[0]);
+        assertThat(reader.skipRows(1)).isEqualTo(1);
+        Object[][] rows = reader.stream().toArray(Object[][]::new);
+        assertThat(rows).isEqualTo(Arrays.copyOfRange(expectedRows, 2, expectedRows.length));
+        assertThat(reader.skipRows(1)).isEqualTo(0);
+        closeInputStream(is);
+
+        InputStream fileInputStream = new FileInputStream(new File(this.getClass().getClassLoader()
+                .getResource("sas7bdat/mixed_data_one.sas7bdat").getFile()));
+        reader = minimalReader(new SasFileReaderImpl(fileInputStream));
+        assertThat(reader.readRow(3)).isEqualTo(expectedRows[3]);
+        assertThat(reader.readRow(1)).isEqualTo(expectedRows[1]);
+        assertThat(reader.readNext()).isEqualTo(expectedRows[2]);
+        assertThat(reader.readRow(expectedRows.length)).isNull();
+        closeInputStream(fileInputStream);
+    }
+
     @Test
     public void testSasFileProperties() throws IOException {
         InputStream is;
@@ -273,6 +332,39 @@ public class SasFileReaderUnitTest {
         this.fileName = fileName;
     }
 
+    /**
+     * Wraps the reader into an implementation of {@link SasFileReader} which overrides only its abstract methods,
+     * so that the default methods of the interface are used.
+     */
+    static SasFileReader minimalReader(final SasFileReader reader) {
+        return new SasFileReader() {
+            @Override
+            public List<Column> getColumns() {
+                return reader.getColumns();
+            }
+
+            @Override
+            public Object[][] readAll() {
+                return reader.readAll();
+            }
+
+            @Override
+            public Object[] readNext() throws IOException {
+                return reader.readNext();
+            }
+
+            @Override
+            public void seek(long rowIndex) throws IOException {
+                reader.seek(rowIndex);
+            }
+
+            @Override
+            public SasFileProperties getSasFileProperties() {
+                return reader.getSasFileProperties();
+            }
+        };
+    }
+
     private void closeWriter(Writer writer) {
         try {
             if (writer != null) {
@@ -0,0 +1,193 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.SasFileReaderImpl;
+import com.epam.parso.impl.SasFileRowIndexer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getResourceAsStream;
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class SasFileRowIndexUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReadRowWithIndex() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            File indexFile = temporaryFolder.newFile();
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                assertThat(SasFileRowIndexer.writeRowIndex(fileInputStream, indexFile)).isEqualTo(expectedRows.length);
+            } finally {
+                fileInputStream.close();
+            }
+            fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReader sasFileReader = new SasFileReaderImpl(fileInputStream, indexFile);
+                for (int rowIndex = expectedRows.length - 1; rowIndex >= 0; rowIndex -= 7) {
+                    assertThat(sasFileReader.readRow(rowIndex)).isEqualTo(expectedRows[rowIndex]);
+                }
+                assertThat(sasFileReader.readRow(expectedRows.length)).isNull();
+                assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[0]);
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    @Test
+    public void testStaleIndexRejected() throws IOException {
+        File indexFile = temporaryFolder.newFile();
+        InputStream fileInputStream = getResourceAsStream(FOLDER_NAME + "/mix_data_misc.sas7bdat");
+        try {
+            SasFileRowIndexer.writeRowIndex(fileInputStream, indexFile);
+        } finally {
+            fileInputStream.close();
+        }
+        fileInputStream = getResourceAsStream(FOLDER_NAME + "/mixed_data_one.sas7bdat");
+        try {
+            new SasFileReaderImpl(fileInputStream, indexFile);
+            fail("An index of another file must be rejected");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("stale");
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test
+    public void testReadRowOutOfRange() throws IOException {
+        File file = getFile();
+        Object[][] expectedRows = readAll(file);
+        File indexFile = writeRowIndex(file);
+        for (File rowIndexFile : new File[]{indexFile, null}) {
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReader sasFileReader = rowIndexFile == null ? new SasFileReaderImpl(fileInputStream)
+                        : new SasFileReaderImpl(fileInputStream, rowIndexFile);
+                assertThat(sasFileReader.readRow(-1)).isNull();
+                assertThat(sasFileReader.readRow(expectedRows.length)).isNull();
+                assertThat(sasFileReader.readRow(Long.MAX_VALUE)).isNull();
+                assertThat(sasFileReader.readRow(expectedRows.length - 1))
+                        .isEqualTo(expectedRows[expectedRows.length - 1]);
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    @Test
+    public void testReadRowWithoutIndexMovesPosition() throws IOException {
+        File file = getFile();
+        Object[][] expectedRows = readAll(file);
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            SasFileReader sasFileReader = new SasFileReaderImpl(fileInputStream);
+            assertThat(sasFileReader.readRow(10)).isEqualTo(expectedRows[10]);
+            assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[11]);
+            assertThat(sasFileReader.readRow(2)).isEqualTo(expectedRows[2]);
+            assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[3]);
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    @Test
+    public void testTruncatedIndexRejected() throws IOException {
+        File file = getFile();
+        File indexFile = writeRowIndex(file);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(indexFile, "rw");
+        try {
+            randomAccessFile.setLength(randomAccessFile.length() - 1);
+        } finally {
+            randomAccessFile.close();
+        }
+        assertRejected(file, indexFile, "number of rows");
+    }
+
+    @Test
+    public void testForeignFileRejected() throws IOException {
+        File indexFile = temporaryFolder.newFile();
+        FileOutputStream outputStream = new FileOutputStream(indexFile);
+        try {
+            outputStream.write(new byte[64]);
+        } finally {
+            outputStream.close();
+        }
+        assertRejected(getFile(), indexFile, "not a row index");
+    }
+
+    private void assertRejected(File file, File indexFile, String message) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            new SasFileReaderImpl(fileInputStream, indexFile);
+            fail("An invalid row index must be rejected");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains(message);
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    private File writeRowIndex(File file) throws IOException {
+        File indexFile = temporaryFolder.newFile();
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            SasFileRowIndexer.writeRowIndex(fileInputStream, indexFile);
+        } finally {
+            fileInputStream.close();
+        }
+        return indexFile;
+    }
+
+    private File getFile() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return new File(resourcesPath.getFile() + "//" + FOLDER_NAME + "/mix_data_misc.sas7bdat");
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso;
+
+import com.epam.parso.impl.SasFileReaderImpl;
+import com.epam.parso.impl.SchemaCache;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SchemaCacheUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRepeatedOpens() throws IOException {
+        SchemaCache schemaCache = new SchemaCache(100);
+        int fileCount = 0;
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            for (int open = 0; open < 2; open++) {
+                InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+                try {
+                    SasFileReader sasFileReader = new SasFileReaderImpl(inputStream, schemaCache);
+                    assertThat(sasFileReader.getColumns().size()).isEqualTo(expectedRows.length == 0 ? 0
+                            : expectedRows[0].length);
+                    assertThat(sasFileReader.getSasFileProperties().getRowCount()).isEqualTo(expectedRows.length);
+                    Object[][] rows = sasFileReader.readAll();
+                    for (int row = 0; row < rows.length; row++) {
+                        assertThat(Arrays.asList(rows[row])).isEqualTo(Arrays.asList(expectedRows[row]));
+                    }
+                } finally {
+                    inputStream.close();
+                }
+            }
+            fileCount++;
+        }
+        assertThat(schemaCache.getMissCount()).isEqualTo(fileCount);
+        assertThat(schemaCache.getHitCount()).isEqualTo(fileCount);
+    }
+
+    @Test
+    public void testSeekAfterRestore() throws IOException {
+        File file = getFile("mix_data_misc.sas7bdat");
+        Object[][] expectedRows = readAll(file);
+        SchemaCache schemaCache = new SchemaCache(1);
+        readColumns(file, schemaCache);
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            SasFileReader sasFileReader = new SasFileReaderImpl(inputStream, schemaCache);
+            sasFileReader.seek(expectedRows.length - 1);
+            assertThat(Arrays.asList(sasFileReader.readNext()))
+                    .isEqualTo(Arrays.asList(expectedRows[expectedRows.length - 1]));
+            sasFileReader.seek(0);
+            assertThat(Arrays.asList(sasFileReader.readNext())).isEqualTo(Arrays.asList(expectedRows[0]));
+        } finally {
+            inputStream.close();
+        }
+        assertThat(schemaCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSnapshotsInDirectory() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        File file = getFile("mixed_data_one.sas7bdat");
+        List<Column> expectedColumns = readColumns(file, null);
+        readColumns(file, new SchemaCache(1, directory));
+        assertThat(directory.list().length).isEqualTo(1);
+
+        SchemaCache schemaCache = new SchemaCache(1, directory);
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            SasFileReader sasFileReader = new SasFileReaderImpl(inputStream, schemaCache);
+            assertThat(sasFileReader.getColumns().size()).isEqualTo(expectedColumns.size());
+            for (int i = 0; i < expectedColumns.size(); i++) {
+                assertThat(sasFileReader.getColumns().get(i).getName()).isEqualTo(expectedColumns.get(i).getName());
+                assertThat(sasFileReader.getColumns().get(i).getFormat())
+                        .isEqualTo(expectedColumns.get(i).getFormat());
+            }
+            assertThat(sasFileReader.readNext()).isNotNull();
+        } finally {
+            inputStream.close();
+        }
+        assertThat(schemaCache.getHitCount()).isEqualTo(1);
+        assertThat(schemaCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCorruptedSnapshotIgnored() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        File file = getFile("mixed_data_one.sas7bdat");
+        Object[][] expectedRows = readAll(file);
+        readColumns(file, new SchemaCache(1, directory));
+        File snapshotFile = directory.listFiles()[0];
+        byte[] snapshot = Files.readAllBytes(snapshotFile.toPath());
+        for (byte[] corrupted : new byte[][]{Arrays.copyOf(snapshot, snapshot.length / 2),
+                Arrays.copyOf(snapshot, 8), new byte[]{(byte) 0xAC, (byte) 0xED, 0, 5}}) {
+            Files.write(snapshotFile.toPath(), corrupted);
+            SchemaCache schemaCache = new SchemaCache(1, directory);
+            InputStream inputStream = new FileInputStream(file);
+            try {
+                SasFileReader sasFileReader = new SasFileReaderImpl(inputStream, schemaCache);
+                Object[][] rows = sasFileReader.readAll();
+                assertThat(rows.length).isEqualTo(expectedRows.length);
+                for (int row = 0; row < rows.length; row++) {
+                    assertThat(Arrays.asList(rows[row])).isEqualTo(Arrays.asList(expectedRows[row]));
+                }
+            } finally {
+                inputStream.close();
+            }
+            assertThat(schemaCache.getMissCount()).isEqualTo(1);
+        }
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    private List<Column> readColumns(File file, SchemaCache schemaCache) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return schemaCache == null ? new SasFileReaderImpl(fileInputStream).getColumns()
+                    : new SasFileReaderImpl(fileInputStream, schemaCache).getColumns();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    private File getFile(String name) {
+        for (File file : getFiles()) {
+            if (file.getName().equals(name)) {
+                return file;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+import com.epam.parso.SasFileProperties;
+import com.epam.parso.TemporalOutput;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ByteDecoderUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+    private static final long MILLISECONDS_IN_DAY = 24L * 60 * 60 * 1000;
+
+    @Test
+    public void testDates() {
+        for (int endianness : new int[]{0, 1}) {
+            ByteDecoder byteDecoder = createByteDecoder(endianness);
+            // 1959-12-31, 1960-01-01, 1970-01-01 and 2020-03-26 in days elapsed from 01/01/1960
+            for (int days : new int[]{-1, 0, 3653, 22000}) {
+                LocalDate expectedDate = LocalDate.of(1960, 1, 1).plusDays(days);
+                for (int length : new int[]{3, 4, 5, 8}) {
+                    byte[] bytes = toBytes(days, length, endianness);
+                    assertThat(byteDecoder.bytesToTemporal(bytes, 0, length, false, TemporalOutput.DATE))
+                            .isEqualTo(new Date(expectedDate.toEpochDay() * MILLISECONDS_IN_DAY));
+                    assertThat(byteDecoder.bytesToTemporal(bytes, 0, length, false, TemporalOutput.EPOCH))
+                            .isEqualTo((int) expectedDate.toEpochDay());
+                    assertThat(byteDecoder.bytesToTemporal(bytes, 0, length, false, TemporalOutput.JAVA_TIME))
+                            .isEqualTo(expectedDate);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFractionalDateBeforeEpoch() {
+        ByteDecoder byteDecoder = createByteDecoder(1);
+        byte[] bytes = toBytes(1.5, 8, 1);
+        assertThat(byteDecoder.bytesToTemporal(bytes, 0, 8, false, TemporalOutput.EPOCH)).isEqualTo(
+                (int) LocalDate.of(1960, 1, 2).toEpochDay());
+        assertThat(byteDecoder.bytesToTemporal(bytes, 0, 8, false, TemporalOutput.JAVA_TIME)).isEqualTo(
+                LocalDate.of(1960, 1, 2));
+    }
+
+    @Test
+    public void testDateTimes() {
+        for (int endianness : new int[]{0, 1}) {
+            ByteDecoder byteDecoder = createByteDecoder(endianness);
+            LocalDateTime[] expectedDateTimes = {LocalDateTime.of(1959, 12, 31, 23, 59, 59, 500000000),
+                    LocalDateTime.of(1960, 1, 1, 0, 0), LocalDateTime.of(1969, 12, 31, 23, 59, 59),
+                    LocalDateTime.of(1970, 1, 1, 0, 0), LocalDateTime.of(2020, 3, 28, 12, 30, 15, 250000000)};
+            for (LocalDateTime expectedDateTime : expectedDateTimes) {
+                long epochMillisecond = expectedDateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+                double seconds = epochMillisecond / 1000.0 + 3653 * 24 * 60 * 60;
+                byte[] bytes = toBytes(seconds, 8, endianness);
+                assertThat(byteDecoder.bytesToTemporal(bytes, 0, 8, true, TemporalOutput.DATE))
+                        .isEqualTo(new Date(epochMillisecond));
+                assertThat(byteDecoder.bytesToTemporal(bytes, 0, 8, true, TemporalOutput.EPOCH))
+                        .isEqualTo(epochMillisecond);
+                assertThat(byteDecoder.bytesToTemporal(bytes, 0, 8, true, TemporalOutput.JAVA_TIME))
+                        .isEqualTo(expectedDateTime);
+            }
+        }
+    }
+
+    @Test
+    public void testTruncatedDateTime() {
+        ByteDecoder byteDecoder = createByteDecoder(1);
+        // 1960-01-01 00:00:00 and 1959-12-31 23:59:28 fit into the most significant bytes of a double
+        assertThat(byteDecoder.bytesToTemporal(toBytes(0, 4, 1), 0, 4, true, TemporalOutput.JAVA_TIME))
+                .isEqualTo(LocalDateTime.of(1960, 1, 1, 0, 0));
+        assertThat(byteDecoder.bytesToTemporal(toBytes(-32, 3, 1), 0, 3, true, TemporalOutput.JAVA_TIME))
+                .isEqualTo(LocalDateTime.of(1959, 12, 31, 23, 59, 28));
+        assertThat(byteDecoder.bytesToTemporal(toBytes(-32, 3, 1), 0, 3, true, TemporalOutput.EPOCH))
+                .isEqualTo(-315619232000L);
+    }
+
+    @Test
+    public void testMissingDate() {
+        for (int length : new int[]{3, 8}) {
+            byte[] bytes = toBytes(Double.NaN, length, 1);
+            for (TemporalOutput output : TemporalOutput.values()) {
+                assertThat(createByteDecoder(1).bytesToTemporal(bytes, 0, length, false, output)).isNull();
+                assertThat(createByteDecoder(1).bytesToTemporal(bytes, 0, length, true, output)).isNull();
+            }
+        }
+    }
+
+    @Test
+    public void testOffsetInBuffer() {
+        byte[] date = toBytes(22000, 4, 1);
+        byte[] buffer = new byte[date.length + 6];
+        Arrays.fill(buffer, (byte) 0x7F);
+        System.arraycopy(date, 0, buffer, 3, date.length);
+        assertThat(createByteDecoder(1).bytesToTemporal(buffer, 3, date.length, false, TemporalOutput.JAVA_TIME))
+                .isEqualTo(LocalDate.of(2020, 3, 26));
+    }
+
+    @Test
+    public void testShortWidening() {
+        for (int endianness : new int[]{0, 1}) {
+            ByteDecoder byteDecoder = createByteDecoder(endianness);
+            for (int value : new int[]{0, 1, 127, 128, 255, 256, 0x7FFF, -1, -128, -129, -0x8000}) {
+                byte[] bytes = new byte[]{0, 0, 0};
+                ByteBuffer.wrap(bytes, 1, 2).order(endianness == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN)
+                        .putShort((short) value);
+                assertThat(byteDecoder.bytesToShort(bytes, 1)).isEqualTo(value);
+                assertThat(byteDecoder.bytesToShort(Arrays.copyOfRange(bytes, 1, 3))).isEqualTo(value);
+            }
+        }
+    }
+
+    @Test
+    public void testTemporalOutput() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            for (TemporalOutput temporalOutput : TemporalOutput.values()) {
+                InputStream fileInputStream = new FileInputStream(file);
+                try {
+                    SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+                    sasFileReader.setTemporalOutput(temporalOutput);
+                    for (Object[] expectedRow : expectedRows) {
+                        assertThat(sasFileReader.readNext()).as(file.getName()).isEqualTo(expectedRow);
+                    }
+                    assertThat(sasFileReader.readNext()).isNull();
+                } finally {
+                    fileInputStream.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTemporalKinds() {
+        assertThat(RowDecoderPlan.getKind(createColumn("DATE", 8), 8, false, false, false))
+                .isEqualTo(RowDecoderPlan.DATE);
+        assertThat(RowDecoderPlan.getKind(createColumn("MMDDYY", 4), 4, false, false, false))
+                .isEqualTo(RowDecoderPlan.DATE);
+        assertThat(RowDecoderPlan.getKind(createColumn("DATETIME", 8), 8, false, false, false))
+                .isEqualTo(RowDecoderPlan.DATE_TIME);
+        assertThat(RowDecoderPlan.getKind(createColumn("BEST", 8), 8, false, false, false))
+                .isEqualTo(RowDecoderPlan.NUMBER);
+        assertThat(RowDecoderPlan.getKind(createColumn("DATE", 2), 2, false, false, false))
+                .isEqualTo(RowDecoderPlan.SHORT);
+    }
+
+    @Test
+    public void testTemporalOutputOfPlans() {
+        byte[] kinds = {RowDecoderPlan.DATE, RowDecoderPlan.DATE_TIME};
+        int[] offsets = {0, 8};
+        int[] lengths = {8, 8};
+        // 2020-03-26 in days and 2020-03-26 12:00:00.5 in seconds elapsed from 01/01/1960, then missing values
+        byte[] rows = new byte[32];
+        System.arraycopy(toBytes(22000, 8, 1), 0, rows, 0, 8);
+        System.arraycopy(toBytes(22000 * 86400.0 + 43200.5, 8, 1), 0, rows, 8, 8);
+        System.arraycopy(toBytes(Double.NaN, 8, 1), 0, rows, 16, 8);
+        System.arraycopy(toBytes(Double.NaN, 8, 1), 0, rows, 24, 8);
+        LocalDateTime expectedDateTime = LocalDateTime.of(2020, 3, 26, 12, 0, 0, 500000000);
+        long expectedMilliseconds = expectedDateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+        Object[][] expectedValues = {
+                {new Date(LocalDate.of(2020, 3, 26).toEpochDay() * MILLISECONDS_IN_DAY),
+                        new Date(expectedMilliseconds)},
+                {(int) LocalDate.of(2020, 3, 26).toEpochDay(), expectedMilliseconds},
+                {LocalDate.of(2020, 3, 26), expectedDateTime}};
+        for (TemporalOutput temporalOutput : TemporalOutput.values()) {
+            RowDecoderPlan plan = new RowDecoderPlan(kinds, offsets, lengths, createByteDecoder(1), null, null,
+                    temporalOutput);
+            for (RowDecoderPlan decodingPlan : new RowDecoderPlan[]{plan, plan.withGeneratedDecoder()}) {
+                Object[] row = new Object[2];
+                decodingPlan.decode(rows, 0, row);
+                assertThat(row).as(temporalOutput.name()).isEqualTo(expectedValues[temporalOutput.ordinal()]);
+                decodingPlan.decode(rows, 16, row);
+                assertThat(row).isEqualTo(new Object[]{null, null});
+            }
+        }
+    }
+
+    private static Column createColumn(String format, int length) {
+        return new Column(1, "value", "", format, Number.class, length);
+    }
+
+    private static ByteDecoder createByteDecoder(int endianness) {
+        SasFileProperties sasFileProperties = new SasFileProperties();
+        sasFileProperties.setEndianness(endianness);
+        return new ByteDecoder(sasFileProperties);
+    }
+
+    /**
+     * Stores the most significant bytes of a double value in the given byte order, as sas7bdat files store
+     * numeric columns shorter than 8 bytes.
+     */
+    private static byte[] toBytes(double value, int length, int endianness) {
+        byte[] bytes = ByteBuffer.allocate(8).putDouble(value).array();
+        byte[] truncated = Arrays.copyOf(bytes, length);
+        if (endianness != 0) {
+            for (int i = 0; i < length / 2; i++) {
+                byte swapped = truncated[i];
+                truncated[i] = truncated[length - 1 - i];
+                truncated[length - 1 - i] = swapped;
+            }
+        }
+        return truncated;
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
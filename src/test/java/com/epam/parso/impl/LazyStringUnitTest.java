@@ -0,0 +1,155 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class LazyStringUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+
+    @Test
+    public void testLazyStrings() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+                sasFileReader.setLazyStrings(true);
+                List<Object> detachedValues = new ArrayList<Object>();
+                List<String> expectedValues = new ArrayList<String>();
+                for (Object[] expectedRow : expectedRows) {
+                    Object[] row = sasFileReader.readNext();
+                    for (int column = 0; column < expectedRow.length; column++) {
+                        if (expectedRow[column] instanceof String) {
+                            String expected = (String) expectedRow[column];
+                            assertThat(row[column]).isInstanceOf(LazyString.class);
+                            LazyString value = (LazyString) row[column];
+                            assertThat(value.length()).isEqualTo(expected.length());
+                            assertThat(value.toString()).as(file.getName()).isEqualTo(expected);
+                            assertThat(expected.contentEquals(value)).isTrue();
+                            assertThat(value.equals(expected)).isFalse();
+                            LazyString detached = value.detach();
+                            assertThat(value.equals(detached)).isTrue();
+                            assertThat(detached.equals(value)).isTrue();
+                            assertThat(detached.hashCode()).isEqualTo(value.hashCode());
+                            detachedValues.add(detached);
+                            expectedValues.add(expected);
+                        } else {
+                            assertThat(row[column]).isEqualTo(expectedRow[column]);
+                        }
+                    }
+                }
+                for (int i = 0; i < expectedValues.size(); i++) {
+                    assertThat(detachedValues.get(i).toString()).isEqualTo(expectedValues.get(i));
+                }
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    @Test
+    public void testViewInvalidatedByNextRow() throws IOException {
+        int invalidatedViewCount = 0;
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+                sasFileReader.setLazyStrings(true);
+                Object[] row = sasFileReader.readNext();
+                for (int rowIndex = 1; rowIndex < expectedRows.length; rowIndex++) {
+                    boolean decodedBeforeNextRow = rowIndex % 2 == 0;
+                    List<LazyString> views = new ArrayList<LazyString>();
+                    List<LazyString> detachedViews = new ArrayList<LazyString>();
+                    List<String> expectedValues = new ArrayList<String>();
+                    for (int column = 0; column < row.length; column++) {
+                        if (row[column] instanceof LazyString) {
+                            LazyString view = (LazyString) row[column];
+                            if (decodedBeforeNextRow) {
+                                view.toString();
+                            }
+                            views.add(view);
+                            detachedViews.add(view.detach());
+                            expectedValues.add((String) expectedRows[rowIndex - 1][column]);
+                        }
+                    }
+                    row = sasFileReader.readNext();
+                    for (int i = 0; i < views.size(); i++) {
+                        String expectedValue = expectedValues.get(i);
+                        assertThat(detachedViews.get(i).toString()).as(file.getName()).isEqualTo(expectedValue);
+                        assertThat(detachedViews.get(i).getByteCount()).isEqualTo(views.get(i).getByteCount());
+                        if (decodedBeforeNextRow) {
+                            assertThat(views.get(i).toString()).isEqualTo(expectedValue);
+                        } else if (!views.get(i).toString().equals(expectedValue)) {
+                            invalidatedViewCount++;
+                        }
+                    }
+                }
+            } finally {
+                fileInputStream.close();
+            }
+        }
+        assertThat(invalidatedViewCount).isGreaterThan(0);
+    }
+
+    @Test
+    public void testDetachedViewIndependentOfBuffer() {
+        StringDecoder decoder = new StringDecoder(Charset.forName("windows-1252"));
+        byte[] buffer = "xxabcxx".getBytes(Charset.forName("windows-1252"));
+        LazyString view = new LazyString(buffer, 2, 3, decoder);
+        LazyString detached = view.detach();
+        buffer[2] = 'z';
+        assertThat(view.toString()).isEqualTo("zbc");
+        assertThat(detached.toString()).isEqualTo("abc");
+        assertThat(detached.detach()).isEqualTo(detached);
+        assertThat(detached.length()).isEqualTo(3);
+        assertThat(detached.charAt(1)).isEqualTo('b');
+        assertThat(detached.subSequence(1, 3).toString()).isEqualTo("bc");
+        assertThat(view.equals(detached)).isFalse();
+        LazyString laterDetached = view.detach();
+        buffer[2] = 'a';
+        assertThat(laterDetached.toString()).isEqualTo("zbc");
+        assertThat(view.toString()).isEqualTo("zbc");
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class PageCacheUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+    private static final int PAGE_LENGTH = 1000;
+
+    @Test
+    public void testSharedPageCache() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            int rowCount = expectedRows.length;
+            PageCache largeCache = new PageCache(1 << 24, true);
+            for (PageCache pageCache : new PageCache[]{largeCache, new PageCache(1 << 14)}) {
+                for (int pass = 0; pass < 2; pass++) {
+                    InputStream fileInputStream = new FileInputStream(file);
+                    try {
+                        SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+                        sasFileReader.setPageCache(pageCache);
+                        for (int rowIndex : new int[]{rowCount - 1, 0, rowCount / 2, rowCount / 3, rowCount - 1}) {
+                            sasFileReader.seek(rowIndex);
+                            assertThat(sasFileReader.readNext()).isEqualTo(expectedRows[rowIndex]);
+                        }
+                    } finally {
+                        fileInputStream.close();
+                    }
+                }
+                assertThat(pageCache.getSize()).isLessThanOrEqualTo(pageCache.getMaxSize());
+            }
+            assertThat(largeCache.getHitCount() > 0 || largeCache.getMissCount() == 0).as(file.getName()).isTrue();
+            assertThat(largeCache.getEvictionCount()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPageEvicted() {
+        long entrySize = getEntrySize();
+        PageCache pageCache = new PageCache(3 * entrySize);
+        Object file = new Object();
+        for (int pageIndex = 0; pageIndex < 3; pageIndex++) {
+            pageCache.put(file, pageIndex, PageCache.RAW_PAGE, new byte[PAGE_LENGTH]);
+        }
+        assertThat(pageCache.get(file, 0, PageCache.RAW_PAGE)).isNotNull();
+        pageCache.put(file, 3, PageCache.RAW_PAGE, new byte[PAGE_LENGTH]);
+        assertThat(pageCache.getEvictionCount()).isEqualTo(1);
+        assertThat(pageCache.get(file, 1, PageCache.RAW_PAGE)).isNull();
+        assertThat(pageCache.get(file, 0, PageCache.RAW_PAGE)).isNotNull();
+        assertThat(pageCache.get(file, 2, PageCache.RAW_PAGE)).isNotNull();
+        assertThat(pageCache.get(file, 3, PageCache.RAW_PAGE)).isNotNull();
+        pageCache.put(file, 4, PageCache.RAW_PAGE, new byte[PAGE_LENGTH]);
+        assertThat(pageCache.get(file, 0, PageCache.RAW_PAGE)).isNull();
+        assertThat(pageCache.getHitCount()).isEqualTo(4);
+        assertThat(pageCache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testSizeBoundedByBytes() {
+        long entrySize = getEntrySize();
+        PageCache pageCache = new PageCache(5 * entrySize / 2);
+        Object file = new Object();
+        pageCache.put(file, 0, PageCache.RAW_PAGE, new byte[PAGE_LENGTH]);
+        pageCache.put(file, 1, PageCache.RAW_PAGE, new byte[PAGE_LENGTH]);
+        assertThat(pageCache.getSize()).isEqualTo(2 * entrySize);
+        pageCache.put(file, 2, PageCache.RAW_PAGE, new byte[PAGE_LENGTH / 4]);
+        assertThat(pageCache.getEntryCount()).isEqualTo(3);
+        assertThat(pageCache.getSize()).isLessThanOrEqualTo(pageCache.getMaxSize());
+        pageCache.put(file, 3, PageCache.RAW_PAGE, new byte[PAGE_LENGTH]);
+        assertThat(pageCache.getEvictionCount()).isEqualTo(1);
+        assertThat(pageCache.getSize()).isLessThanOrEqualTo(pageCache.getMaxSize());
+        assertThat(pageCache.get(file, 0, PageCache.RAW_PAGE)).isNull();
+        pageCache.put(file, 4, PageCache.RAW_PAGE, new byte[(int) pageCache.getMaxSize()]);
+        assertThat(pageCache.get(file, 4, PageCache.RAW_PAGE)).isNull();
+        assertThat(pageCache.getEntryCount()).isEqualTo(3);
+        assertThat(pageCache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testReplacedPageCountedOnce() {
+        long entrySize = getEntrySize();
+        PageCache pageCache = new PageCache(10 * entrySize);
+        Object file = new Object();
+        pageCache.put(file, 0, PageCache.RAW_PAGE, new byte[PAGE_LENGTH]);
+        pageCache.put(file, 0, PageCache.RAW_PAGE, new byte[PAGE_LENGTH]);
+        assertThat(pageCache.getSize()).isEqualTo(entrySize);
+        pageCache.put(file, 0, 0, new byte[PAGE_LENGTH]);
+        pageCache.put(new Object(), 0, PageCache.RAW_PAGE, new byte[PAGE_LENGTH]);
+        assertThat(pageCache.getEntryCount()).isEqualTo(3);
+        pageCache.clear();
+        assertThat(pageCache.getSize()).isEqualTo(0);
+        assertThat(pageCache.getEntryCount()).isEqualTo(0);
+        assertThat(pageCache.get(file, 0, PageCache.RAW_PAGE)).isNull();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveSizeRejected() {
+        new PageCache(0);
+    }
+
+    /**
+     * Returns the number of bytes a page of {@link PageCacheUnitTest#PAGE_LENGTH} bytes takes in a cache.
+     */
+    private static long getEntrySize() {
+        PageCache pageCache = new PageCache(Long.MAX_VALUE);
+        pageCache.put(new Object(), 0, PageCache.RAW_PAGE, new byte[PAGE_LENGTH]);
+        return pageCache.getSize();
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
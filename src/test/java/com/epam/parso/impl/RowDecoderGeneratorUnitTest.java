@@ -0,0 +1,282 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.SasFileProperties;
+import com.epam.parso.TemporalOutput;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.net.URL;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class RowDecoderGeneratorUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+    private static final byte[] KINDS = {RowDecoderPlan.SHORT, RowDecoderPlan.NUMBER, RowDecoderPlan.DATE,
+            RowDecoderPlan.DATE_TIME, RowDecoderPlan.BYTES, RowDecoderPlan.LAZY_STRING, RowDecoderPlan.CACHED_STRING,
+            RowDecoderPlan.STRING};
+    private static final int[] LENGTHS = {2, 8, 8, 8, 6, 6, 6, 6};
+    private static final int ROW_COUNT = 100;
+
+    @Test
+    public void testGeneratedDecoders() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            for (int stringCacheSize : new int[]{0, 100}) {
+                InputStream fileInputStream = new FileInputStream(file);
+                try {
+                    SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+                    sasFileReader.setStringCacheSize(stringCacheSize);
+                    sasFileReader.setGeneratedDecoders(true);
+                    assertThat(sasFileReader.isDecoderGenerated()).isTrue();
+                    for (Object[] expectedRow : expectedRows) {
+                        assertThat(sasFileReader.readNext()).as(file.getName()).isEqualTo(expectedRow);
+                    }
+                    assertThat(sasFileReader.readNext()).isNull();
+                    sasFileReader.setGeneratedDecoders(false);
+                    assertThat(sasFileReader.isDecoderGenerated()).isFalse();
+                } finally {
+                    fileInputStream.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGeneratedDecodersSwitchedWhileReading() throws IOException {
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+                for (int rowIndex = 0; rowIndex < expectedRows.length; rowIndex++) {
+                    if (rowIndex % 100 == 0) {
+                        sasFileReader.setGeneratedDecoders(rowIndex % 200 == 0);
+                    }
+                    assertThat(sasFileReader.readNext()).as(file.getName()).isEqualTo(expectedRows[rowIndex]);
+                }
+            } finally {
+                fileInputStream.close();
+            }
+        }
+    }
+
+    @Test
+    public void testGeneratedDecodersWithOutputModes() throws IOException {
+        for (File file : getFiles()) {
+            for (boolean byteOutput : new boolean[]{false, true}) {
+                Object[][] expectedRows = readAll(file, byteOutput, !byteOutput);
+                InputStream fileInputStream = new FileInputStream(file);
+                try {
+                    SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream, byteOutput);
+                    sasFileReader.setLazyStrings(!byteOutput);
+                    sasFileReader.setGeneratedDecoders(true);
+                    for (Object[] expectedRow : expectedRows) {
+                        Object[] row = sasFileReader.readNext();
+                        for (int column = 0; column < expectedRow.length; column++) {
+                            if (expectedRow[column] instanceof byte[]) {
+                                assertThat(Arrays.equals((byte[]) row[column], (byte[]) expectedRow[column]))
+                                        .isTrue();
+                            } else {
+                                assertThat(row[column]).as(file.getName()).isEqualTo(expectedRow[column]);
+                            }
+                        }
+                    }
+                } finally {
+                    fileInputStream.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGeneratedDecoderMatchesLoop() {
+        int[] offsets = getOffsets(LENGTHS);
+        int rowLength = offsets[offsets.length - 1] + LENGTHS[LENGTHS.length - 1];
+        byte[] rows = createRows(rowLength);
+        RowDecoderPlan plan = createPlan(KINDS, offsets, LENGTHS);
+        RowDecoderPlan generatedPlan = plan.withGeneratedDecoder();
+        assertThat(plan.isGenerated()).isFalse();
+        assertThat(generatedPlan.isGenerated()).isTrue();
+        assertThat(generatedPlan.withGeneratedDecoder()).isSameAs(generatedPlan);
+        for (int rowIndex = 0; rowIndex < ROW_COUNT; rowIndex++) {
+            assertDecodedEqually(plan, generatedPlan, rows, rowIndex * rowLength);
+        }
+    }
+
+    @Test
+    public void testDecodersSharedByLayout() {
+        int[] offsets = getOffsets(LENGTHS);
+        MethodHandle decoder = RowDecoderGenerator.getDecoder(KINDS, offsets, LENGTHS);
+        assertThat(decoder).isNotNull();
+        assertThat(decoder.type()).isEqualTo(RowDecoderGenerator.DECODER_TYPE);
+        assertThat(RowDecoderGenerator.getDecoder(KINDS.clone(), offsets.clone(), LENGTHS.clone()))
+                .isSameAs(decoder);
+        int[] shiftedOffsets = offsets.clone();
+        shiftedOffsets[0]++;
+        assertThat(RowDecoderGenerator.getDecoder(KINDS, shiftedOffsets, LENGTHS)).isNotSameAs(decoder);
+    }
+
+    @Test
+    public void testWideRow() {
+        int columnCount = 2000;
+        byte[] kinds = new byte[columnCount];
+        int[] lengths = new int[columnCount];
+        Arrays.fill(kinds, RowDecoderPlan.NUMBER);
+        Arrays.fill(lengths, 8);
+        int[] offsets = getOffsets(lengths);
+        byte[] row = new byte[columnCount * 8];
+        ByteBuffer buffer = ByteBuffer.wrap(row).order(ByteOrder.LITTLE_ENDIAN);
+        for (int column = 0; column < columnCount; column++) {
+            buffer.putDouble(column + 0.5);
+        }
+        RowDecoderPlan generatedPlan = createPlan(kinds, offsets, lengths).withGeneratedDecoder();
+        assertThat(generatedPlan.isGenerated()).isTrue();
+        Object[] values = new Object[columnCount];
+        generatedPlan.decode(row, 0, values);
+        for (int column = 0; column < columnCount; column++) {
+            assertThat(values[column]).isEqualTo(column + 0.5);
+        }
+    }
+
+    @Test
+    public void testFallbackWithoutMethodHandles() {
+        int[] offsets = getOffsets(LENGTHS);
+        int rowLength = offsets[offsets.length - 1] + LENGTHS[LENGTHS.length - 1];
+        byte[] rows = createRows(rowLength);
+        RowDecoderPlan generatedPlan = createPlan(KINDS, offsets, LENGTHS).withGeneratedDecoder();
+        for (MethodHandles.Lookup lookup : new MethodHandles.Lookup[]{MethodHandles.publicLookup(),
+                MethodHandles.lookup().in(RowDecoderGenerator.class)}) {
+            MethodHandle[] columnDecoders = RowDecoderGenerator.findColumnDecoders(lookup);
+            assertThat(columnDecoders).isNull();
+            MethodHandle decoder = RowDecoderGenerator.getDecoder(columnDecoders, KINDS, offsets, LENGTHS);
+            assertThat(decoder).isNull();
+            RowDecoderPlan plan = createPlan(KINDS, offsets, LENGTHS);
+            assertThat(plan.withGeneratedDecoder(decoder)).isSameAs(plan);
+            assertThat(plan.isGenerated()).isFalse();
+            for (int rowIndex = 0; rowIndex < ROW_COUNT; rowIndex++) {
+                assertDecodedEqually(plan, generatedPlan, rows, rowIndex * rowLength);
+            }
+        }
+    }
+
+    private static void assertDecodedEqually(RowDecoderPlan expectedPlan, RowDecoderPlan plan, byte[] rows,
+                                             int offset) {
+        Object[] expectedRow = new Object[KINDS.length];
+        Object[] row = new Object[KINDS.length];
+        assertThat(expectedPlan.decode(rows, offset, expectedRow)).isEqualTo(KINDS.length);
+        assertThat(plan.decode(rows, offset, row)).isEqualTo(KINDS.length);
+        for (int column = 0; column < KINDS.length; column++) {
+            if (expectedRow[column] instanceof byte[]) {
+                assertThat(Arrays.equals((byte[]) row[column], (byte[]) expectedRow[column])).isTrue();
+            } else {
+                assertThat(row[column]).as("column " + column).isEqualTo(expectedRow[column]);
+            }
+        }
+    }
+
+    private static int[] getOffsets(int[] lengths) {
+        int[] offsets = new int[lengths.length];
+        for (int column = 1; column < lengths.length; column++) {
+            offsets[column] = offsets[column - 1] + lengths[column - 1];
+        }
+        return offsets;
+    }
+
+    private static RowDecoderPlan createPlan(byte[] kinds, int[] offsets, int[] lengths) {
+        SasFileProperties sasFileProperties = new SasFileProperties();
+        sasFileProperties.setEndianness(1);
+        StringDecoder stringDecoder = new StringDecoder(Charset.forName("UTF-8"));
+        StringDecodeCache[] stringCaches = new StringDecodeCache[kinds.length];
+        for (int column = 0; column < kinds.length; column++) {
+            if (kinds[column] == RowDecoderPlan.CACHED_STRING) {
+                stringCaches[column] = new StringDecodeCache(16, stringDecoder);
+            }
+        }
+        return new RowDecoderPlan(kinds, offsets, lengths, new ByteDecoder(sasFileProperties), stringDecoder,
+                stringCaches, TemporalOutput.DATE);
+    }
+
+    /**
+     * Creates rows of the {@link RowDecoderGeneratorUnitTest#KINDS} layout with random numbers, dates and strings,
+     * some of the strings are blank.
+     */
+    private static byte[] createRows(int rowLength) {
+        Random random = new Random(1);
+        ByteBuffer buffer = ByteBuffer.allocate(ROW_COUNT * rowLength).order(ByteOrder.LITTLE_ENDIAN);
+        for (int rowIndex = 0; rowIndex < ROW_COUNT; rowIndex++) {
+            buffer.putShort((short) random.nextInt());
+            buffer.putDouble(random.nextDouble() * 1000);
+            buffer.putDouble(random.nextInt(40000) - 5000);
+            buffer.putDouble(random.nextInt(40000) * 86400.0 + random.nextInt(86400));
+            for (int column = 4; column < KINDS.length; column++) {
+                int length = random.nextInt(7);
+                for (int i = 0; i < 6; i++) {
+                    buffer.put((byte) (i < length ? 'a' + random.nextInt(3) : ' '));
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        return readAll(file, false, false);
+    }
+
+    /**
+     * Reads the rows of a file with the default loop and the given representation of character values, lazy
+     * strings are detached so they stay valid after the next row is read.
+     */
+    private Object[][] readAll(File file, boolean byteOutput, boolean lazyStrings) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream, byteOutput);
+            sasFileReader.setLazyStrings(lazyStrings);
+            List<Object[]> rows = new ArrayList<Object[]>();
+            for (Object[] row = sasFileReader.readNext(); row != null; row = sasFileReader.readNext()) {
+                for (int column = 0; column < row.length; column++) {
+                    if (row[column] instanceof LazyString) {
+                        row[column] = ((LazyString) row[column]).detach();
+                    }
+                }
+                rows.add(row);
+            }
+            return rows.toArray(new Object[rows.size()][]);
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
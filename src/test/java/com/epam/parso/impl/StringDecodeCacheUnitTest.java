@@ -0,0 +1,179 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class StringDecodeCacheUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    @Test
+    public void testStringCache() throws IOException {
+        int cachedColumnCount = 0;
+        for (File file : getFiles()) {
+            Object[][] expectedRows = readAll(file);
+            InputStream fileInputStream = new FileInputStream(file);
+            try {
+                SasFileReaderImpl sasFileReader = new SasFileReaderImpl(fileInputStream);
+                sasFileReader.setStringCacheSize(64);
+                Object[][] rows = sasFileReader.readAll();
+                assertThat(rows).as(file.getName()).isEqualTo(expectedRows);
+                for (int column = 0; column < sasFileReader.getColumns().size(); column++) {
+                    int distinctValueCount = sasFileReader.getDistinctValueCount(column);
+                    if (distinctValueCount < 0) {
+                        continue;
+                    }
+                    Set<Object> values = new HashSet<Object>();
+                    Set<Object> instances = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+                    for (Object[] row : rows) {
+                        if (row[column] != null) {
+                            values.add(row[column]);
+                            instances.add(row[column]);
+                        }
+                    }
+                    assertThat(distinctValueCount).as(file.getName()).isEqualTo(values.size());
+                    assertThat(instances.size()).isEqualTo(values.size());
+                    cachedColumnCount++;
+                }
+            } finally {
+                fileInputStream.close();
+            }
+        }
+        assertThat(cachedColumnCount).isGreaterThan(0);
+    }
+
+    @Test
+    public void testSameInstanceAtAnyOffset() {
+        StringDecodeCache stringCache = new StringDecodeCache(16, new StringDecoder(CHARSET));
+        byte[] bytes = "abcXabc".getBytes(CHARSET);
+        String value = stringCache.decode(bytes, 0, 3);
+        assertThat(value).isEqualTo("abc");
+        assertThat(stringCache.decode(bytes, 4, 3)).isSameAs(value);
+        bytes[0] = 'z';
+        assertThat(stringCache.decode(bytes, 4, 3)).isSameAs(value);
+        assertThat(stringCache.decode(bytes, 0, 3)).isEqualTo("zbc");
+        assertThat(stringCache.getDistinctCount()).isEqualTo(2);
+        assertThat(stringCache.isDisabled()).isFalse();
+    }
+
+    @Test
+    public void testDisabledAboveMaxSize() {
+        StringDecodeCache stringCache = new StringDecodeCache(3, new StringDecoder(CHARSET));
+        for (int i = 0; i < 3; i++) {
+            stringCache.decode(toBytes("v" + i), 0, 2);
+        }
+        assertThat(stringCache.isDisabled()).isFalse();
+        String value = stringCache.decode(toBytes("v0"), 0, 2);
+        assertThat(stringCache.decode(toBytes("v0"), 0, 2)).isSameAs(value);
+        stringCache.decode(toBytes("v3"), 0, 2);
+        assertThat(stringCache.isDisabled()).isTrue();
+        assertThat(stringCache.decode(toBytes("v0"), 0, 2)).isEqualTo("v0").isNotSameAs(value);
+    }
+
+    @Test
+    public void testDisabledWhenMostValuesDistinct() {
+        StringDecodeCache stringCache = new StringDecodeCache(1 << 20, new StringDecoder(CHARSET));
+        for (int i = 0; i < 1000; i++) {
+            stringCache.decode(toBytes(String.format("%05d", i)), 0, 5);
+        }
+        assertThat(stringCache.isDisabled()).isFalse();
+        for (int i = 0; i < 100; i++) {
+            stringCache.decode(toBytes(String.format("%05d", 1000 + i)), 0, 5);
+        }
+        assertThat(stringCache.isDisabled()).isTrue();
+    }
+
+    @Test
+    public void testLowCardinalityKeptAfterSample() {
+        StringDecodeCache stringCache = new StringDecodeCache(1 << 20, new StringDecoder(CHARSET));
+        for (int i = 0; i < 10000; i++) {
+            stringCache.decode(toBytes(String.format("%05d", i % 100)), 0, 5);
+        }
+        assertThat(stringCache.isDisabled()).isFalse();
+        assertThat(stringCache.getDistinctCount()).isEqualTo(100);
+    }
+
+    @Test
+    public void testConcurrentDecodes() throws InterruptedException, ExecutionException {
+        final StringDecodeCache stringCache = new StringDecodeCache(64, new StringDecoder(CHARSET));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() {
+                        List<String> values = new ArrayList<String>();
+                        for (int i = 0; i < 10000; i++) {
+                            byte[] bytes = toBytes("value" + i % 50);
+                            values.add(stringCache.decode(bytes, 0, bytes.length));
+                        }
+                        return values;
+                    }
+                }));
+            }
+            Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<String, Boolean>());
+            for (Future<List<String>> future : futures) {
+                instances.addAll(future.get());
+            }
+            assertThat(instances.size()).isEqualTo(50);
+            assertThat(stringCache.getDistinctCount()).isEqualTo(50);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static byte[] toBytes(String value) {
+        return value.getBytes(CHARSET);
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+
+    private Object[][] readAll(File file) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            return new SasFileReaderImpl(fileInputStream).readAll();
+        } finally {
+            fileInputStream.close();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * *************************************************************************
+ * Copyright (C) 2015 EPAM
+ * <p>
+ * This file is part of Parso.
+ * <p>
+ * This file may be distributed and/or modified under the terms of the
+ * GNU General Public License version 3 as published by the Free Software
+ * Foundation and appearing in the file LICENSE.GPL included in the
+ * packaging of this file.
+ * <p>
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ * *************************************************************************
+ */
+
+package com.epam.parso.impl;
+
+import com.epam.parso.Column;
+import com.epam.parso.SasFileBuilder;
+import com.epam.parso.SasFileReader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.epam.parso.TestUtils.getResourceAsStream;
+import static com.epam.parso.TestUtils.getSas7bdatFilesList;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class StringDecoderUnitTest {
+    private static final String FOLDER_NAME = "sas7bdat";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testEncodings() throws IOException {
+        for (File file : getFiles()) {
+            InputStream fileInputStream = new FileInputStream(file);
+            Object[][] byteRows;
+            String fileEncoding;
+            try {
+                SasFileReader sasFileReader = new SasFileReaderImpl(fileInputStream, true);
+                byteRows = sasFileReader.readAll();
+                fileEncoding = sasFileReader.getSasFileProperties().getEncoding();
+            } finally {
+                fileInputStream.close();
+            }
+            assertThat(fileEncoding).as(file.getName()).isIn("windows-1251", "windows-1252");
+            for (String encoding : new String[]{null, "US-ASCII", "ISO-8859-1", "UTF-8", "windows-1251"}) {
+                fileInputStream = new FileInputStream(file);
+                try {
+                    Object[][] rows = new SasFileReaderImpl(fileInputStream, encoding).readAll();
+                    String expectedEncoding = encoding == null ? fileEncoding : encoding;
+                    for (int row = 0; row < byteRows.length; row++) {
+                        for (int column = 0; column < byteRows[row].length; column++) {
+                            Object expected = byteRows[row][column] instanceof byte[]
+                                    ? new String((byte[]) byteRows[row][column], expectedEncoding)
+                                    : byteRows[row][column];
+                            assertThat(rows[row][column]).as(file.getName() + " " + expectedEncoding)
+                                    .isEqualTo(expected);
+                        }
+                    }
+                } finally {
+                    fileInputStream.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNonAsciiUtf8() {
+        StringDecoder decoder = new StringDecoder(UTF_8);
+        assertThat(decoder.isSingleByte()).isFalse();
+        for (String value : new String[]{"caf\u00e9", "\u041c\u043e\u0441\u043a\u0432\u0430", "\u6771\u4eac",
+                "a\uD83D\uDE00b", "plain"}) {
+            byte[] bytes = ("  " + value + "  ").getBytes(UTF_8);
+            int length = value.getBytes(UTF_8).length;
+            assertThat(decoder.decode(bytes, 2, length)).isEqualTo(value);
+            LazyString view = new LazyString(bytes, 2, length, decoder);
+            assertThat(view.length()).isEqualTo(value.length());
+            assertThat(view.getByteCount()).isEqualTo(length);
+            assertThat(view.toString()).isEqualTo(value);
+        }
+    }
+
+    @Test
+    public void testMalformedInputReplaced() {
+        byte[][] inputs = {{'a', (byte) 0xC3}, {(byte) 0xE6, (byte) 0x9D, 'b'}, {(byte) 0xFF, 'c'},
+                {(byte) 0x80}};
+        for (String charsetName : new String[]{"UTF-8", "US-ASCII"}) {
+            Charset charset = Charset.forName(charsetName);
+            StringDecoder decoder = new StringDecoder(charset);
+            for (byte[] input : inputs) {
+                assertThat(decoder.decode(input, 0, input.length)).as(charsetName + " " + Arrays.toString(input))
+                        .isEqualTo(new String(input, charset));
+            }
+        }
+    }
+
+    @Test
+    public void testSingleByteCharsets() {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        for (String charsetName : new String[]{"ISO-8859-1", "windows-1251", "windows-1252", "US-ASCII"}) {
+            Charset charset = Charset.forName(charsetName);
+            StringDecoder decoder = new StringDecoder(charset);
+            assertThat(decoder.isSingleByte()).as(charsetName).isTrue();
+            assertThat(decoder.decode(bytes, 1, 255)).as(charsetName).isEqualTo(new String(bytes, 1, 255, charset));
+        }
+        assertThat(new StringDecoder(Charset.forName("Shift_JIS")).isSingleByte()).isFalse();
+    }
+
+    @Test
+    public void testCharsetNames() {
+        assertThat(StringDecoder.getCharsetName(20)).isEqualTo("UTF-8");
+        assertThat(StringDecoder.getCharsetName((byte) 134)).isEqualTo("EUC-JP");
+        assertThat(StringDecoder.getCharsetName(0)).isNull();
+    }
+
+    @Test
+    public void testNonAsciiColumnNames() throws IOException {
+        String[][] namesByCharset = {{"UTF-8", "gr\u00f6\u00dfe", "\u6771\u4eac"},
+                {"windows-1251", "\u0446\u0435\u043d\u0430", "\u0434\u0430\u0442\u0430"}};
+        for (String[] names : namesByCharset) {
+            Charset charset = Charset.forName(names[0]);
+            int encodingByte = "UTF-8".equals(names[0]) ? 20 : 61;
+            byte[] data = new SasFileBuilder().setEncoding(encodingByte, charset).addCharacterColumn(names[1], 12)
+                    .addNumericColumn(names[2], "DATE").addNumericColumn("id", "")
+                    .addDataPage(new Object[]{names[2], 0, 1}).build();
+            SasFileReader sasFileReader = new SasFileReaderImpl(new ByteArrayInputStream(data));
+            List<Column> columns = sasFileReader.getColumns();
+            assertThat(sasFileReader.getSasFileProperties().getEncoding()).isEqualTo(names[0]);
+            assertThat(columns.get(0).getName()).as(names[0]).isEqualTo(names[1]);
+            assertThat(columns.get(1).getName()).as(names[0]).isEqualTo(names[2]);
+            assertThat(columns.get(1).getFormat()).as(names[0]).isEqualTo("DATE");
+            assertThat(columns.get(2).getName()).as(names[0]).isEqualTo("id");
+            assertThat(sasFileReader.readNext()[0]).as(names[0]).isEqualTo(names[2]);
+        }
+    }
+
+    @Test
+    public void testUnknownEncodingByte() throws IOException {
+        byte[] data = new SasFileBuilder().setEncoding(0, Charset.forName("ISO-8859-1"))
+                .addCharacterColumn("name", 8).addDataPage(new Object[]{"caf\u00e9"}).build();
+        SasFileReader sasFileReader = new SasFileReaderImpl(new ByteArrayInputStream(data));
+        assertThat(sasFileReader.getSasFileProperties().getEncoding()).isNull();
+        assertThat(sasFileReader.readNext()[0]).isEqualTo(new String(new byte[]{'c', 'a', 'f', (byte) 0xE9},
+                Charset.defaultCharset()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedEncoding() throws IOException {
+        InputStream fileInputStream = getResourceAsStream(FOLDER_NAME + "/mix_data_misc.sas7bdat");
+        try {
+            new SasFileReaderImpl(fileInputStream, "no-such-encoding");
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    private List<File> getFiles() {
+        URL resourcesPath = this.getClass().getClassLoader().getResource("");
+        return getSas7bdatFilesList(resourcesPath.getFile() + "//" + FOLDER_NAME);
+    }
+}